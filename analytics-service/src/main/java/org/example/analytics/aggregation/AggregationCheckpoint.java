@@ -0,0 +1,19 @@
+package org.example.analytics.aggregation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Aggregates changed since the previous checkpoint, copied at {@code lastOffset}. A task row without
+ * a status means the task was deleted; sketches are serialized with their own {@code toBytes}.
+ */
+public record AggregationCheckpoint(long lastOffset, List<TaskRow> tasks, List<DailyRow> days,
+                                    List<SketchRow> sketches) {
+
+    public record TaskRow(long taskId, long userId, String status, LocalDateTime createdAt) {}
+
+    public record DailyRow(long userId, LocalDate day, int created, int completed, int overdue) {}
+
+    public record SketchRow(LocalDate day, byte[] activeUsers, byte[] completionLatency) {}
+}
@@ -0,0 +1,166 @@
+package org.example.analytics.aggregation;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.analytics.dto.DailyStats;
+import org.example.analytics.dto.SketchExport;
+import org.example.analytics.dto.SketchSummary;
+import org.example.analytics.dto.UserStats;
+import org.example.analytics.events.TaskEvent;
+import org.example.analytics.events.TaskEventListener;
+import org.example.analytics.sketch.DDSketch;
+import org.example.analytics.sketch.HyperLogLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feeds task events into the in-memory {@link TaskAggregates} and checkpoints them to the database.
+ * Writers and readers share one lock: applying a batch and answering a query are both in-memory work
+ * of microseconds, and the checkpoint holds the lock only to copy what changed.
+ */
+@Component
+@Slf4j
+public class AggregationEngine implements TaskEventListener {
+
+    private final AggregationStore store;
+    private final TaskAggregates aggregates;
+    private final Object checkpointLock = new Object();
+    private long lastOffset;
+    private volatile long checkpointedOffset;
+
+    public AggregationEngine(AggregationStore store,
+                             @Value("${analytics.aggregation.retention-days:90}") int retentionDays) {
+        this.store = store;
+        this.aggregates = new TaskAggregates(retentionDays);
+    }
+
+    @PostConstruct
+    public synchronized void restore() {
+        long started = System.nanoTime();
+        lastOffset = store.load(aggregates, LocalDate.now());
+        checkpointedOffset = lastOffset;
+        log.info("Restored aggregates of {} tasks up to offset {} in {} ms",
+                aggregates.taskCount(), lastOffset, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @Override
+    public synchronized void onEvents(List<TaskEvent> events) {
+        for (TaskEvent event : events) {
+            aggregates.apply(event);
+        }
+        lastOffset = events.get(events.size() - 1).getOffset();
+    }
+
+    // События после контрольной точки inbox переигрывает из журнала при запуске
+    @Override
+    public long durableOffset() {
+        return checkpointedOffset;
+    }
+
+    public synchronized long lastAppliedOffset() {
+        return lastOffset;
+    }
+
+    public synchronized UserStats userStats(long userId, int days) {
+        return aggregates.userStats(userId, LocalDate.now(), days, lastOffset);
+    }
+
+    public synchronized List<DailyStats> daily(long userId, int days) {
+        return aggregates.daily(userId, LocalDate.now(), days);
+    }
+
+    public SketchSummary sketchSummary(LocalDate from, LocalDate to, List<Double> quantiles) {
+        checkRange(from, to);
+        HyperLogLog users;
+        DDSketch latency;
+        synchronized (this) {
+            users = aggregates.activeUsers(from, to.minusDays(1));
+            latency = aggregates.completionLatency(from, to.minusDays(1));
+        }
+        return summarize(from, to, users, latency, quantiles);
+    }
+
+    /** Serialized sketches of the days in [from, to), for merging with the ones of other replicas. */
+    public SketchExport exportSketches(LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        HyperLogLog users;
+        DDSketch latency;
+        synchronized (this) {
+            users = aggregates.activeUsers(from, to.minusDays(1));
+            latency = aggregates.completionLatency(from, to.minusDays(1));
+        }
+        return new SketchExport(from, to, users.toBytes(), latency.toBytes());
+    }
+
+    // Скетчи разных реплик сливаются без потерь: результат тот же, что у одного экземпляра со всеми событиями
+    public SketchSummary mergeSketches(List<SketchExport> exports, List<Double> quantiles) {
+        if (exports.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to merge");
+        }
+        HyperLogLog users = new HyperLogLog();
+        DDSketch latency = new DDSketch();
+        LocalDate from = exports.get(0).getFrom();
+        LocalDate to = exports.get(0).getTo();
+        for (SketchExport export : exports) {
+            users.merge(HyperLogLog.fromBytes(export.getActiveUsers()));
+            latency.merge(DDSketch.fromBytes(export.getCompletionLatency()));
+            from = export.getFrom().isBefore(from) ? export.getFrom() : from;
+            to = export.getTo().isAfter(to) ? export.getTo() : to;
+        }
+        return summarize(from, to, users, latency, quantiles);
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.aggregation.checkpoint-interval:PT30S}",
+            initialDelayString = "${analytics.aggregation.checkpoint-interval:PT30S}")
+    public void checkpoint() {
+        synchronized (checkpointLock) {
+            AggregationCheckpoint checkpoint;
+            synchronized (this) {
+                checkpoint = aggregates.drainCheckpoint(lastOffset);
+            }
+            if (checkpoint.lastOffset() == checkpointedOffset && checkpoint.tasks().isEmpty()
+                    && checkpoint.days().isEmpty() && checkpoint.sketches().isEmpty()) {
+                return;
+            }
+            try {
+                store.write(checkpoint, LocalDate.now(), aggregates.getRetentionDays());
+                checkpointedOffset = checkpoint.lastOffset();
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    aggregates.restoreDirty(checkpoint);
+                }
+                log.warn("Aggregation checkpoint at offset {} failed: {}", checkpoint.lastOffset(), e.getMessage());
+            }
+        }
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+    }
+
+    private static SketchSummary summarize(LocalDate from, LocalDate to, HyperLogLog users, DDSketch latency,
+                                           List<Double> quantiles) {
+        List<SketchSummary.LatencyQuantile> values = new ArrayList<>(quantiles.size());
+        if (latency.count() > 0) {
+            for (double quantile : quantiles) {
+                values.add(new SketchSummary.LatencyQuantile(quantile, Math.round(latency.quantile(quantile))));
+            }
+        }
+        return new SketchSummary(from, to, users.estimate(), HyperLogLog.RELATIVE_STANDARD_ERROR,
+                latency.count(), DDSketch.RELATIVE_ACCURACY, values);
+    }
+
+    // Последняя контрольная точка при остановке: следующий запуск не переигрывает журнал
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        checkpoint();
+    }
+}
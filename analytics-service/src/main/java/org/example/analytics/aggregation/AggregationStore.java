@@ -0,0 +1,110 @@
+package org.example.analytics.aggregation;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Durable side of the aggregates: a checkpoint of task states, daily buckets and daily sketches with the offset
+ * it was taken at. Events received after it stay in the inbox journal and are replayed on startup.
+ */
+@Component
+public class AggregationStore {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public AggregationStore(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Loads the last checkpoint into {@code aggregates} and returns the offset it was taken at. */
+    public long load(TaskAggregates aggregates, LocalDate today) {
+        long lastOffset = jdbcTemplate.queryForObject(
+                "SELECT last_offset FROM aggregation_checkpoint WHERE id = 1", Long.class);
+        jdbcTemplate.query("SELECT task_id, user_id, status, created_at FROM aggregation_task_state", rs -> {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            aggregates.restoreTask(rs.getLong("task_id"), rs.getLong("user_id"), rs.getString("status"),
+                    createdAt != null ? createdAt.toLocalDateTime() : null);
+        });
+        jdbcTemplate.query("SELECT user_id, bucket_day, created, completed, overdue FROM aggregation_user_daily " +
+                        "WHERE bucket_day >= ? ORDER BY bucket_day",
+                rs -> {
+                    aggregates.restoreDay(rs.getLong("user_id"), rs.getDate("bucket_day").toLocalDate(),
+                            rs.getInt("created"), rs.getInt("completed"), rs.getInt("overdue"));
+                },
+                Date.valueOf(cutoff(today, aggregates.getRetentionDays())));
+        jdbcTemplate.query("SELECT bucket_day, active_users, completion_latency FROM aggregation_daily_sketch " +
+                        "WHERE bucket_day >= ? ORDER BY bucket_day",
+                rs -> {
+                    aggregates.restoreSketches(rs.getDate("bucket_day").toLocalDate(),
+                            rs.getBytes("active_users"), rs.getBytes("completion_latency"));
+                },
+                Date.valueOf(cutoff(today, aggregates.getRetentionDays())));
+        return lastOffset;
+    }
+
+    // Строки заменяются целиком (delete + insert): одинаково работает на PostgreSQL и H2
+    public void write(AggregationCheckpoint checkpoint, LocalDate today, int retentionDays) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<AggregationCheckpoint.TaskRow> tasks = checkpoint.tasks();
+            jdbcTemplate.batchUpdate("DELETE FROM aggregation_task_state WHERE task_id = ?", tasks, tasks.size(),
+                    (ps, row) -> ps.setLong(1, row.taskId()));
+            List<AggregationCheckpoint.TaskRow> live = tasks.stream().filter(row -> row.status() != null).toList();
+            jdbcTemplate.batchUpdate("INSERT INTO aggregation_task_state (task_id, user_id, status, created_at) " +
+                            "VALUES (?, ?, ?, ?)",
+                    live, live.size(), (ps, row) -> {
+                        ps.setLong(1, row.taskId());
+                        ps.setLong(2, row.userId());
+                        ps.setString(3, row.status());
+                        ps.setTimestamp(4, row.createdAt() != null ? Timestamp.valueOf(row.createdAt()) : null);
+                    });
+
+            List<AggregationCheckpoint.DailyRow> days = checkpoint.days();
+            jdbcTemplate.batchUpdate("DELETE FROM aggregation_user_daily WHERE user_id = ? AND bucket_day = ?",
+                    days, days.size(), (ps, row) -> {
+                        ps.setLong(1, row.userId());
+                        ps.setDate(2, Date.valueOf(row.day()));
+                    });
+            jdbcTemplate.batchUpdate("INSERT INTO aggregation_user_daily " +
+                            "(user_id, bucket_day, created, completed, overdue) VALUES (?, ?, ?, ?, ?)",
+                    days, days.size(), (ps, row) -> {
+                        ps.setLong(1, row.userId());
+                        ps.setDate(2, Date.valueOf(row.day()));
+                        ps.setInt(3, row.created());
+                        ps.setInt(4, row.completed());
+                        ps.setInt(5, row.overdue());
+                    });
+            jdbcTemplate.update("DELETE FROM aggregation_user_daily WHERE bucket_day < ?",
+                    Date.valueOf(cutoff(today, retentionDays)));
+
+            List<AggregationCheckpoint.SketchRow> sketches = checkpoint.sketches();
+            jdbcTemplate.batchUpdate("DELETE FROM aggregation_daily_sketch WHERE bucket_day = ?",
+                    sketches, sketches.size(), (ps, row) -> ps.setDate(1, Date.valueOf(row.day())));
+            jdbcTemplate.batchUpdate("INSERT INTO aggregation_daily_sketch " +
+                            "(bucket_day, active_users, completion_latency) VALUES (?, ?, ?)",
+                    sketches, sketches.size(), (ps, row) -> {
+                        ps.setDate(1, Date.valueOf(row.day()));
+                        ps.setBytes(2, row.activeUsers());
+                        ps.setBytes(3, row.completionLatency());
+                    });
+            jdbcTemplate.update("DELETE FROM aggregation_daily_sketch WHERE bucket_day < ?",
+                    Date.valueOf(cutoff(today, retentionDays)));
+
+            jdbcTemplate.update("UPDATE aggregation_checkpoint SET last_offset = ?, taken_at = ? WHERE id = 1",
+                    checkpoint.lastOffset(), Timestamp.valueOf(LocalDateTime.now()));
+        });
+    }
+
+    private static LocalDate cutoff(LocalDate today, int retentionDays) {
+        return today.minusDays(retentionDays - 1);
+    }
+}
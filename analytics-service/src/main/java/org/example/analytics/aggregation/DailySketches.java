@@ -0,0 +1,113 @@
+package org.example.analytics.aggregation;
+
+import org.example.analytics.sketch.DDSketch;
+import org.example.analytics.sketch.HyperLogLog;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Service-wide sketches per day: a HyperLogLog of active users and a DDSketch of completion latency in
+ * seconds. Like the buckets of {@link UserAggregate}, they sit in a ring over the retention window, and a
+ * range query merges the sketches of its days.
+ */
+final class DailySketches {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final long[] days;
+    private final HyperLogLog[] activeUsers;
+    private final DDSketch[] completionLatency;
+    private final boolean[] dirtyDays;
+
+    DailySketches(int retentionDays) {
+        this.days = new long[retentionDays];
+        this.activeUsers = new HyperLogLog[retentionDays];
+        this.completionLatency = new DDSketch[retentionDays];
+        this.dirtyDays = new boolean[retentionDays];
+        Arrays.fill(days, EMPTY);
+    }
+
+    void addActiveUser(long epochDay, long userId) {
+        int slot = bucket(epochDay);
+        if (slot >= 0) {
+            activeUsers[slot].add(userId);
+            dirtyDays[slot] = true;
+        }
+    }
+
+    void addCompletionLatency(long epochDay, long seconds) {
+        int slot = bucket(epochDay);
+        if (slot >= 0) {
+            completionLatency[slot].add(Math.max(seconds, 0));
+            dirtyDays[slot] = true;
+        }
+    }
+
+    void restoreDay(long epochDay, HyperLogLog users, DDSketch latency) {
+        int slot = bucket(epochDay);
+        if (slot >= 0) {
+            activeUsers[slot] = users;
+            completionLatency[slot] = latency;
+        }
+    }
+
+    /** Merges the active-user sketches of the days {@code from..to} inclusive into a new sketch. */
+    HyperLogLog activeUsers(long fromDay, long toDay) {
+        HyperLogLog merged = new HyperLogLog();
+        for (int slot = 0; slot < days.length; slot++) {
+            if (days[slot] >= fromDay && days[slot] <= toDay) {
+                merged.merge(activeUsers[slot]);
+            }
+        }
+        return merged;
+    }
+
+    /** Merges the latency sketches of the days {@code from..to} inclusive into a new sketch. */
+    DDSketch completionLatency(long fromDay, long toDay) {
+        DDSketch merged = new DDSketch();
+        for (int slot = 0; slot < days.length; slot++) {
+            if (days[slot] >= fromDay && days[slot] <= toDay) {
+                merged.merge(completionLatency[slot]);
+            }
+        }
+        return merged;
+    }
+
+    void markDirty(long epochDay) {
+        int slot = slotOf(epochDay);
+        if (days[slot] == epochDay) {
+            dirtyDays[slot] = true;
+        }
+    }
+
+    // Изменённые дни уходят в контрольную точку сериализованными копиями
+    void drainDirty(List<AggregationCheckpoint.SketchRow> rows) {
+        for (int slot = 0; slot < days.length; slot++) {
+            if (dirtyDays[slot]) {
+                rows.add(new AggregationCheckpoint.SketchRow(LocalDate.ofEpochDay(days[slot]),
+                        activeUsers[slot].toBytes(), completionLatency[slot].toBytes()));
+                dirtyDays[slot] = false;
+            }
+        }
+    }
+
+    private int bucket(long epochDay) {
+        int slot = slotOf(epochDay);
+        if (days[slot] == epochDay) {
+            return slot;
+        }
+        if (days[slot] != EMPTY && days[slot] > epochDay) {
+            return -1;
+        }
+        days[slot] = epochDay;
+        activeUsers[slot] = new HyperLogLog();
+        completionLatency[slot] = new DDSketch();
+        return slot;
+    }
+
+    private int slotOf(long epochDay) {
+        return (int) Math.floorMod(epochDay, (long) days.length);
+    }
+}
@@ -0,0 +1,251 @@
+package org.example.analytics.aggregation;
+
+import org.example.analytics.dto.DailyStats;
+import org.example.analytics.dto.UserStats;
+import org.example.analytics.events.TaskEvent;
+import org.example.analytics.events.TaskEventType;
+import org.example.analytics.events.TaskSnapshot;
+import org.example.analytics.sketch.DDSketch;
+import org.example.analytics.sketch.HyperLogLog;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-user task aggregates maintained incrementally from task events: current tasks per status, and daily
+ * buckets of created, completed and overdue tasks over the retention window. An event costs a couple of
+ * hash lookups and a query walks the buckets of one user, so nothing is ever recomputed from all tasks.
+ * Service-wide daily sketches of active users and completion latency ({@link DailySketches}) are kept the
+ * same way. Changed tasks, buckets and sketches are tracked, and a checkpoint writes only what changed since
+ * the previous one.
+ * <p>
+ * Not thread-safe: {@link AggregationEngine} serializes access.
+ */
+public class TaskAggregates {
+
+    static final String[] STATUSES = {"TODO", "IN_PROGRESS", "DONE", "OVERDUE"};
+    private static final int DONE = 2;
+    private static final int OVERDUE = 3;
+
+    // Удалённая задача в наборе изменений
+    private static final TaskState DELETED = new TaskState(0, -1, 0);
+    // Время создания задачи неизвестно (событие без снимка)
+    private static final long UNKNOWN = Long.MIN_VALUE;
+
+    private final int retentionDays;
+    private final LongObjectMap<TaskState> tasks = new LongObjectMap<>(1024);
+    private final LongObjectMap<UserAggregate> users = new LongObjectMap<>();
+    private final LongObjectMap<TaskState> dirtyTasks = new LongObjectMap<>();
+    private final LongObjectMap<UserAggregate> dirtyUsers = new LongObjectMap<>();
+    private final DailySketches sketches;
+
+    public TaskAggregates(int retentionDays) {
+        if (retentionDays < 1) {
+            throw new IllegalArgumentException("Retention must be at least one day");
+        }
+        this.retentionDays = retentionDays;
+        this.sketches = new DailySketches(retentionDays);
+    }
+
+    public void apply(TaskEvent event) {
+        long taskId = event.getTaskId();
+        TaskState state = tasks.get(taskId);
+        long day = event.getOccurredAt().toLocalDate().toEpochDay();
+        // Любое событие пользователя делает его активным в этот день
+        sketches.addActiveUser(day, event.getUserId());
+        if (event.getType() == TaskEventType.DELETED) {
+            if (state != null) {
+                user(state.userId).statusCounts[state.status]--;
+                tasks.remove(taskId);
+                dirtyTasks.put(taskId, DELETED);
+            }
+            return;
+        }
+
+        int status = statusIndex(event.getStatus());
+        if (status < 0) {
+            return;
+        }
+        long userId = event.getUserId();
+        UserAggregate user = user(userId);
+        if (event.getType() == TaskEventType.CREATED) {
+            user.addCreated(day, 1);
+        }
+        int previousStatus = state != null ? state.status : -1;
+        long createdAt = createdAt(event.getTask());
+        if (state == null) {
+            state = new TaskState(userId, status, createdAt);
+            tasks.put(taskId, state);
+        } else if (state.status != status || state.userId != userId) {
+            user(state.userId).statusCounts[state.status]--;
+        } else {
+            if (state.createdAt == UNKNOWN && createdAt != UNKNOWN) {
+                state.createdAt = createdAt;
+                dirtyTasks.put(taskId, state);
+            }
+            trackDirty(user);
+            return;
+        }
+        user.statusCounts[status]++;
+        if (createdAt != UNKNOWN) {
+            state.createdAt = createdAt;
+        }
+        // Переходы в DONE и OVERDUE засчитываются в день события
+        if (status == DONE && previousStatus != DONE) {
+            user.addCompleted(day, 1);
+            if (state.createdAt != UNKNOWN) {
+                sketches.addCompletionLatency(day,
+                        event.getOccurredAt().toEpochSecond(ZoneOffset.UTC) - state.createdAt);
+            }
+        }
+        if (status == OVERDUE && previousStatus != OVERDUE) {
+            user.addOverdue(day, 1);
+        }
+        state.userId = userId;
+        state.status = status;
+        dirtyTasks.put(taskId, state);
+        trackDirty(user);
+    }
+
+    public UserStats userStats(long userId, LocalDate today, int days, long asOfOffset) {
+        int window = Math.min(Math.max(days, 1), retentionDays);
+        UserStats stats = new UserStats(userId, window, asOfOffset);
+        UserAggregate user = users.get(userId);
+        if (user != null) {
+            long to = today.toEpochDay();
+            int[] sums = user.sum(to - window + 1, to);
+            stats.setCounts(user.statusCounts[0], user.statusCounts[1], user.statusCounts[DONE],
+                    user.statusCounts[OVERDUE]);
+            stats.setWindow(sums[0], sums[1], sums[2]);
+        }
+        return stats;
+    }
+
+    public List<DailyStats> daily(long userId, LocalDate today, int days) {
+        int window = Math.min(Math.max(days, 1), retentionDays);
+        List<DailyStats> result = new ArrayList<>(window);
+        UserAggregate user = users.get(userId);
+        for (int i = window - 1; i >= 0; i--) {
+            LocalDate day = today.minusDays(i);
+            int[] counts = user != null ? user.day(day.toEpochDay()) : new int[3];
+            result.add(new DailyStats(day, counts[0], counts[1], counts[2]));
+        }
+        return result;
+    }
+
+    /** Active-user sketch over the days {@code from..to} inclusive. */
+    public HyperLogLog activeUsers(LocalDate from, LocalDate to) {
+        return sketches.activeUsers(from.toEpochDay(), to.toEpochDay());
+    }
+
+    /** Completion-latency sketch, in seconds, over the days {@code from..to} inclusive. */
+    public DDSketch completionLatency(LocalDate from, LocalDate to) {
+        return sketches.completionLatency(from.toEpochDay(), to.toEpochDay());
+    }
+
+    /** Copies everything changed since the previous call and clears the change tracking. */
+    public AggregationCheckpoint drainCheckpoint(long lastOffset) {
+        List<AggregationCheckpoint.TaskRow> taskRows = new ArrayList<>(dirtyTasks.size());
+        dirtyTasks.forEach((taskId, state) -> taskRows.add(new AggregationCheckpoint.TaskRow(taskId, state.userId,
+                state == DELETED ? null : STATUSES[state.status], toDateTime(state.createdAt))));
+        List<AggregationCheckpoint.DailyRow> dailyRows = new ArrayList<>();
+        dirtyUsers.forEach((userId, user) -> user.drainDirty(dailyRows));
+        List<AggregationCheckpoint.SketchRow> sketchRows = new ArrayList<>();
+        sketches.drainDirty(sketchRows);
+        dirtyTasks.clear();
+        dirtyUsers.clear();
+        return new AggregationCheckpoint(lastOffset, taskRows, dailyRows, sketchRows);
+    }
+
+    // Запись контрольной точки не удалась: строки снова помечаются изменёнными, в следующий раз уйдут их текущие значения
+    public void restoreDirty(AggregationCheckpoint checkpoint) {
+        for (AggregationCheckpoint.TaskRow row : checkpoint.tasks()) {
+            TaskState state = tasks.get(row.taskId());
+            dirtyTasks.put(row.taskId(), state != null ? state : DELETED);
+        }
+        for (AggregationCheckpoint.DailyRow row : checkpoint.days()) {
+            UserAggregate user = user(row.userId());
+            user.markDirty(row.day().toEpochDay());
+            trackDirty(user);
+        }
+        for (AggregationCheckpoint.SketchRow row : checkpoint.sketches()) {
+            sketches.markDirty(row.day().toEpochDay());
+        }
+    }
+
+    public void restoreTask(long taskId, long userId, String status, LocalDateTime createdAt) {
+        int index = statusIndex(status);
+        if (index >= 0) {
+            tasks.put(taskId, new TaskState(userId, index,
+                    createdAt != null ? createdAt.toEpochSecond(ZoneOffset.UTC) : UNKNOWN));
+            user(userId).statusCounts[index]++;
+        }
+    }
+
+    public void restoreDay(long userId, LocalDate day, int created, int completed, int overdue) {
+        user(userId).restoreDay(day.toEpochDay(), created, completed, overdue);
+    }
+
+    public void restoreSketches(LocalDate day, byte[] activeUsers, byte[] completionLatency) {
+        sketches.restoreDay(day.toEpochDay(), HyperLogLog.fromBytes(activeUsers),
+                DDSketch.fromBytes(completionLatency));
+    }
+
+    public int getRetentionDays() {
+        return retentionDays;
+    }
+
+    public int taskCount() {
+        return tasks.size();
+    }
+
+    private void trackDirty(UserAggregate user) {
+        if (user.isDirty()) {
+            dirtyUsers.put(user.userId, user);
+        }
+    }
+
+    private UserAggregate user(long userId) {
+        UserAggregate user = users.get(userId);
+        if (user == null) {
+            user = new UserAggregate(userId, retentionDays);
+            users.put(userId, user);
+        }
+        return user;
+    }
+
+    private static long createdAt(TaskSnapshot task) {
+        return task != null && task.getCreatedAt() != null ? task.getCreatedAt().toEpochSecond(ZoneOffset.UTC) : UNKNOWN;
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return epochSecond != UNKNOWN ? LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC) : null;
+    }
+
+    static int statusIndex(String status) {
+        if (status == null) {
+            return -1;
+        }
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static final class TaskState {
+        long userId;
+        int status;
+        long createdAt;
+
+        TaskState(long userId, int status, long createdAt) {
+            this.userId = userId;
+            this.status = status;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.analytics.aggregation;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Counters of one user: current tasks per status and a ring of daily buckets. A bucket is reused when its
+ * day falls out of the retention window, so daily windows tumble without any cleanup pass.
+ */
+final class UserAggregate {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    final long userId;
+    final int[] statusCounts = new int[TaskAggregates.STATUSES.length];
+
+    private final long[] days;
+    private final int[] created;
+    private final int[] completed;
+    private final int[] overdue;
+    private final boolean[] dirtyDays;
+    private boolean dirty;
+
+    UserAggregate(long userId, int retentionDays) {
+        this.userId = userId;
+        this.days = new long[retentionDays];
+        this.created = new int[retentionDays];
+        this.completed = new int[retentionDays];
+        this.overdue = new int[retentionDays];
+        this.dirtyDays = new boolean[retentionDays];
+        Arrays.fill(days, EMPTY);
+    }
+
+    void addCreated(long epochDay, int delta) {
+        int slot = bucket(epochDay);
+        if (slot >= 0) {
+            created[slot] += delta;
+            markDirty(slot);
+        }
+    }
+
+    void addCompleted(long epochDay, int delta) {
+        int slot = bucket(epochDay);
+        if (slot >= 0) {
+            completed[slot] += delta;
+            markDirty(slot);
+        }
+    }
+
+    void addOverdue(long epochDay, int delta) {
+        int slot = bucket(epochDay);
+        if (slot >= 0) {
+            overdue[slot] += delta;
+            markDirty(slot);
+        }
+    }
+
+    // Восстановление из контрольной точки: дни старше окна хранения просто не попадают в кольцо
+    void restoreDay(long epochDay, int created, int completed, int overdue) {
+        int slot = bucket(epochDay);
+        if (slot >= 0) {
+            this.created[slot] = created;
+            this.completed[slot] = completed;
+            this.overdue[slot] = overdue;
+        }
+    }
+
+    /** Sums {@code [created, completed, overdue]} over the days {@code from..to} inclusive. */
+    int[] sum(long fromDay, long toDay) {
+        int[] totals = new int[3];
+        for (int slot = 0; slot < days.length; slot++) {
+            if (days[slot] >= fromDay && days[slot] <= toDay) {
+                totals[0] += created[slot];
+                totals[1] += completed[slot];
+                totals[2] += overdue[slot];
+            }
+        }
+        return totals;
+    }
+
+    int[] day(long epochDay) {
+        int slot = slotOf(epochDay);
+        if (days[slot] != epochDay) {
+            return new int[3];
+        }
+        return new int[]{created[slot], completed[slot], overdue[slot]};
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    void markDirty(long epochDay) {
+        int slot = slotOf(epochDay);
+        if (days[slot] == epochDay) {
+            markDirty(slot);
+        }
+    }
+
+    // Снимает флаги изменённых дней и отдаёт их копии для записи в контрольную точку
+    void drainDirty(List<AggregationCheckpoint.DailyRow> rows) {
+        for (int slot = 0; slot < days.length; slot++) {
+            if (dirtyDays[slot]) {
+                rows.add(new AggregationCheckpoint.DailyRow(userId, LocalDate.ofEpochDay(days[slot]),
+                        created[slot], completed[slot], overdue[slot]));
+                dirtyDays[slot] = false;
+            }
+        }
+        dirty = false;
+    }
+
+    // Слот дня; если в нём лежит более старый день, он выталкивается (tumbling), более новый — событие опоздало
+    private int bucket(long epochDay) {
+        int slot = slotOf(epochDay);
+        if (days[slot] == epochDay) {
+            return slot;
+        }
+        if (days[slot] != EMPTY && days[slot] > epochDay) {
+            return -1;
+        }
+        days[slot] = epochDay;
+        created[slot] = 0;
+        completed[slot] = 0;
+        overdue[slot] = 0;
+        return slot;
+    }
+
+    private void markDirty(int slot) {
+        dirtyDays[slot] = true;
+        dirty = true;
+    }
+
+    private int slotOf(long epochDay) {
+        return (int) Math.floorMod(epochDay, (long) days.length);
+    }
+}
@@ -0,0 +1,40 @@
+package org.example.analytics.controller;
+
+import org.example.analytics.aggregation.AggregationEngine;
+import org.example.analytics.dto.ApiResponse;
+import org.example.analytics.dto.DailyStats;
+import org.example.analytics.dto.UserStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// Ответы строятся из агрегатов в памяти, без запросов к БД
+@RestController
+@RequestMapping("/api/analytics/users/{userId}")
+public class AnalyticsController {
+
+    @Autowired
+    private AggregationEngine aggregationEngine;
+
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<UserStats>> getUserStats(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "7") int days) {
+        UserStats stats = aggregationEngine.userStats(userId, days);
+        return ResponseEntity.ok(ApiResponse.success("User stats retrieved", stats));
+    }
+
+    @GetMapping("/daily")
+    public ResponseEntity<ApiResponse<List<DailyStats>>> getDailyStats(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "30") int days) {
+        List<DailyStats> daily = aggregationEngine.daily(userId, days);
+        return ResponseEntity.ok(ApiResponse.success("Daily stats retrieved", daily));
+    }
+}
@@ -0,0 +1,51 @@
+package org.example.analytics.controller;
+
+import org.example.analytics.dto.ApiResponse;
+import org.example.analytics.dto.CompletionTimeStats;
+import org.example.analytics.dto.PriorityMix;
+import org.example.analytics.history.TaskHistoryStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Запросы по всей истории задач; без userId — по всем пользователям
+@RestController
+@RequestMapping("/api/analytics/history")
+public class HistoryController {
+
+    @Autowired
+    private TaskHistoryStore taskHistoryStore;
+
+    @GetMapping("/completion-times")
+    public ResponseEntity<ApiResponse<CompletionTimeStats>> getCompletionTimes(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) String priority,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        CompletionTimeStats stats = taskHistoryStore.completionTimes(userId, priority, from, to);
+        return ResponseEntity.ok(ApiResponse.success("Completion times retrieved", stats));
+    }
+
+    @GetMapping("/priority-mix")
+    public ResponseEntity<ApiResponse<List<PriorityMix>>> getPriorityMix(
+            @RequestParam(required = false) Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "7") int bucketDays) {
+        List<PriorityMix> mix = taskHistoryStore.priorityMix(userId, from, to, bucketDays);
+        return ResponseEntity.ok(ApiResponse.success("Priority mix retrieved", mix));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiResponse<Void>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+    }
+}
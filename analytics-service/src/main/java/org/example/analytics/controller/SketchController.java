@@ -0,0 +1,59 @@
+package org.example.analytics.controller;
+
+import org.example.analytics.aggregation.AggregationEngine;
+import org.example.analytics.dto.ApiResponse;
+import org.example.analytics.dto.SketchExport;
+import org.example.analytics.dto.SketchSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Приближённые оценки по всем пользователям: HyperLogLog (ошибка ~0.81%) и DDSketch (квантили с точностью 1%)
+@RestController
+@RequestMapping("/api/analytics/sketches")
+public class SketchController {
+
+    @Autowired
+    private AggregationEngine aggregationEngine;
+
+    @GetMapping("/summary")
+    public ResponseEntity<ApiResponse<SketchSummary>> getSummary(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "0.5,0.9,0.99") List<Double> quantiles) {
+        SketchSummary summary = aggregationEngine.sketchSummary(from, to, quantiles);
+        return ResponseEntity.ok(ApiResponse.success("Sketch summary retrieved", summary));
+    }
+
+    // Скетчи этого экземпляра; вызывающая сторона собирает их со всех реплик и отправляет в /merge
+    @GetMapping("/export")
+    public ResponseEntity<ApiResponse<SketchExport>> export(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        SketchExport export = aggregationEngine.exportSketches(from, to);
+        return ResponseEntity.ok(ApiResponse.success("Sketches exported", export));
+    }
+
+    @PostMapping("/merge")
+    public ResponseEntity<ApiResponse<SketchSummary>> merge(
+            @RequestBody List<SketchExport> exports,
+            @RequestParam(defaultValue = "0.5,0.9,0.99") List<Double> quantiles) {
+        SketchSummary summary = aggregationEngine.mergeSketches(exports, quantiles);
+        return ResponseEntity.ok(ApiResponse.success("Sketches merged", summary));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiResponse<Void>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+    }
+}
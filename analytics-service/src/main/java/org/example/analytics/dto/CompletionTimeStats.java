@@ -0,0 +1,35 @@
+package org.example.analytics.dto;
+
+import java.time.LocalDate;
+
+// Время от создания до выполнения задач, выполненных в периоде [from, to), в секундах
+public class CompletionTimeStats {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final long count;
+    private final long meanSeconds;
+    private final long p50Seconds;
+    private final long p90Seconds;
+    private final long p99Seconds;
+
+    // Конструкторы
+    public CompletionTimeStats(LocalDate from, LocalDate to, long count, long meanSeconds,
+                               long p50Seconds, long p90Seconds, long p99Seconds) {
+        this.from = from;
+        this.to = to;
+        this.count = count;
+        this.meanSeconds = meanSeconds;
+        this.p50Seconds = p50Seconds;
+        this.p90Seconds = p90Seconds;
+        this.p99Seconds = p99Seconds;
+    }
+
+    // Геттеры
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+    public long getCount() { return count; }
+    public long getMeanSeconds() { return meanSeconds; }
+    public long getP50Seconds() { return p50Seconds; }
+    public long getP90Seconds() { return p90Seconds; }
+    public long getP99Seconds() { return p99Seconds; }
+}
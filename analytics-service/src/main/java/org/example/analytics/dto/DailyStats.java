@@ -0,0 +1,24 @@
+package org.example.analytics.dto;
+
+import java.time.LocalDate;
+
+public class DailyStats {
+    private final LocalDate day;
+    private final int created;
+    private final int completed;
+    private final int overdue;
+
+    // Конструкторы
+    public DailyStats(LocalDate day, int created, int completed, int overdue) {
+        this.day = day;
+        this.created = created;
+        this.completed = completed;
+        this.overdue = overdue;
+    }
+
+    // Геттеры
+    public LocalDate getDay() { return day; }
+    public int getCreated() { return created; }
+    public int getCompleted() { return completed; }
+    public int getOverdue() { return overdue; }
+}
@@ -0,0 +1,25 @@
+package org.example.analytics.dto;
+
+import java.time.LocalDate;
+
+// Задачи, созданные в корзине, начинающейся с bucketStart, по приоритетам
+public class PriorityMix {
+    private final LocalDate bucketStart;
+    private final long low;
+    private final long medium;
+    private final long high;
+
+    // Конструкторы
+    public PriorityMix(LocalDate bucketStart, long low, long medium, long high) {
+        this.bucketStart = bucketStart;
+        this.low = low;
+        this.medium = medium;
+        this.high = high;
+    }
+
+    // Геттеры
+    public LocalDate getBucketStart() { return bucketStart; }
+    public long getLow() { return low; }
+    public long getMedium() { return medium; }
+    public long getHigh() { return high; }
+}
@@ -0,0 +1,34 @@
+package org.example.analytics.dto;
+
+import java.time.LocalDate;
+
+// Сериализованные скетчи за период [from, to); массивы байт в JSON передаются в Base64
+public class SketchExport {
+    private LocalDate from;
+    private LocalDate to;
+    private byte[] activeUsers;
+    private byte[] completionLatency;
+
+    // Конструкторы
+    public SketchExport() {}
+
+    public SketchExport(LocalDate from, LocalDate to, byte[] activeUsers, byte[] completionLatency) {
+        this.from = from;
+        this.to = to;
+        this.activeUsers = activeUsers;
+        this.completionLatency = completionLatency;
+    }
+
+    // Геттеры и сеттеры
+    public LocalDate getFrom() { return from; }
+    public void setFrom(LocalDate from) { this.from = from; }
+
+    public LocalDate getTo() { return to; }
+    public void setTo(LocalDate to) { this.to = to; }
+
+    public byte[] getActiveUsers() { return activeUsers; }
+    public void setActiveUsers(byte[] activeUsers) { this.activeUsers = activeUsers; }
+
+    public byte[] getCompletionLatency() { return completionLatency; }
+    public void setCompletionLatency(byte[] completionLatency) { this.completionLatency = completionLatency; }
+}
@@ -0,0 +1,38 @@
+package org.example.analytics.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Оценки по скетчам за период [from, to): активные пользователи и квантили времени выполнения задач
+public class SketchSummary {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final long activeUsers;
+    private final double activeUsersStandardError;
+    private final long completions;
+    private final double latencyRelativeAccuracy;
+    private final List<LatencyQuantile> completionLatency;
+
+    // Конструкторы
+    public SketchSummary(LocalDate from, LocalDate to, long activeUsers, double activeUsersStandardError,
+                         long completions, double latencyRelativeAccuracy, List<LatencyQuantile> completionLatency) {
+        this.from = from;
+        this.to = to;
+        this.activeUsers = activeUsers;
+        this.activeUsersStandardError = activeUsersStandardError;
+        this.completions = completions;
+        this.latencyRelativeAccuracy = latencyRelativeAccuracy;
+        this.completionLatency = completionLatency;
+    }
+
+    // Геттеры
+    public LocalDate getFrom() { return from; }
+    public LocalDate getTo() { return to; }
+    public long getActiveUsers() { return activeUsers; }
+    public double getActiveUsersStandardError() { return activeUsersStandardError; }
+    public long getCompletions() { return completions; }
+    public double getLatencyRelativeAccuracy() { return latencyRelativeAccuracy; }
+    public List<LatencyQuantile> getCompletionLatency() { return completionLatency; }
+
+    public record LatencyQuantile(double quantile, long seconds) {}
+}
@@ -0,0 +1,69 @@
+package org.example.analytics.dto;
+
+public class UserStats {
+    private final long userId;
+    // Скользящее окно в днях, заканчивающееся сегодняшним днём
+    private final int windowDays;
+    // Смещение последнего учтённого события: насколько свежи данные
+    private final long asOfOffset;
+    private long todo;
+    private long inProgress;
+    private long done;
+    private long overdue;
+    private long createdInWindow;
+    private long completedInWindow;
+    private long overdueInWindow;
+
+    // Конструкторы
+    public UserStats(long userId, int windowDays, long asOfOffset) {
+        this.userId = userId;
+        this.windowDays = windowDays;
+        this.asOfOffset = asOfOffset;
+    }
+
+    public void setCounts(long todo, long inProgress, long done, long overdue) {
+        this.todo = todo;
+        this.inProgress = inProgress;
+        this.done = done;
+        this.overdue = overdue;
+    }
+
+    public void setWindow(long created, long completed, long overdue) {
+        this.createdInWindow = created;
+        this.completedInWindow = completed;
+        this.overdueInWindow = overdue;
+    }
+
+    // Геттеры
+    public long getUserId() { return userId; }
+    public int getWindowDays() { return windowDays; }
+    public long getAsOfOffset() { return asOfOffset; }
+    public long getTodo() { return todo; }
+    public long getInProgress() { return inProgress; }
+    public long getDone() { return done; }
+    public long getOverdue() { return overdue; }
+    public long getCreatedInWindow() { return createdInWindow; }
+    public long getCompletedInWindow() { return completedInWindow; }
+    public long getOverdueInWindow() { return overdueInWindow; }
+
+    public long getTotal() {
+        return todo + inProgress + done + overdue;
+    }
+
+    // Доля выполненных среди всех текущих задач
+    public double getCompletionRate() {
+        long total = getTotal();
+        return total == 0 ? 0 : (double) done / total;
+    }
+
+    // Доля просроченных среди незавершённых
+    public double getOverdueRatio() {
+        long open = todo + inProgress + overdue;
+        return open == 0 ? 0 : (double) overdue / open;
+    }
+
+    // Выполнено задач в среднем за день окна
+    public double getThroughputPerDay() {
+        return (double) completedInWindow / windowDays;
+    }
+}
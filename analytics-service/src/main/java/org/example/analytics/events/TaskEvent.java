@@ -0,0 +1,39 @@
+package org.example.analytics.events;
+
+import java.time.LocalDateTime;
+
+/**
+ * Task change event delivered by task-service. Offsets grow by one per event in the order the changes were
+ * committed; {@code task} is empty for deletions and bulk status updates.
+ */
+public class TaskEvent {
+    private long offset;
+    private TaskEventType type;
+    private Long taskId;
+    private Long userId;
+    private String status;
+    private LocalDateTime occurredAt;
+    private TaskSnapshot task;
+
+    // Геттеры и сеттеры
+    public long getOffset() { return offset; }
+    public void setOffset(long offset) { this.offset = offset; }
+
+    public TaskEventType getType() { return type; }
+    public void setType(TaskEventType type) { this.type = type; }
+
+    public Long getTaskId() { return taskId; }
+    public void setTaskId(Long taskId) { this.taskId = taskId; }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+    public void setOccurredAt(LocalDateTime occurredAt) { this.occurredAt = occurredAt; }
+
+    public TaskSnapshot getTask() { return task; }
+    public void setTask(TaskSnapshot task) { this.task = task; }
+}
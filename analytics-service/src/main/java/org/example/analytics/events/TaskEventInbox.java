@@ -0,0 +1,126 @@
+package org.example.analytics.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point of the task event stream. Delivery is at-least-once, so a batch can arrive again after a lost
+ * acknowledgement or a failed listener; every listener has its own applied offset and sees each event once.
+ * New events are journaled before the listeners run, and on startup every listener gets the journaled
+ * events after its durable offset.
+ */
+@Component
+@Slf4j
+public class TaskEventInbox {
+
+    private static final int REPLAY_BATCH_SIZE = 1000;
+
+    private final List<Subscriber> subscribers;
+    private final TaskEventJournal journal;
+    private final Counter received;
+    private final Counter duplicates;
+    private long lastOffset;
+
+    public TaskEventInbox(ObjectProvider<TaskEventListener> listeners,
+                          TaskEventJournal journal,
+                          MeterRegistry meterRegistry) {
+        this.journal = journal;
+        this.received = Counter.builder("task.events.received").register(meterRegistry);
+        this.duplicates = Counter.builder("task.events.duplicates").register(meterRegistry);
+        this.lastOffset = journal.lastOffset();
+        this.subscribers = listeners.orderedStream().map(Subscriber::new).toList();
+        for (Subscriber subscriber : subscribers) {
+            lastOffset = Math.max(lastOffset, subscriber.appliedOffset);
+        }
+        // Слушателю без состояния прошлое не нужно: он начинает с текущего места потока
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.appliedOffset == TaskEventListener.STATELESS) {
+                subscriber.appliedOffset = lastOffset;
+            }
+        }
+        replay();
+    }
+
+    // Пачки применяются по одной: слушатели видят события строго в порядке смещений
+    public synchronized void accept(List<TaskEvent> events) {
+        List<TaskEvent> fresh = after(events, lastOffset);
+        duplicates.increment(events.size() - fresh.size());
+        if (!fresh.isEmpty()) {
+            journal.append(fresh);
+            lastOffset = fresh.get(fresh.size() - 1).getOffset();
+            received.increment(fresh.size());
+        }
+        // Слушатель, упавший на прошлой доставке, получает события из повторной пачки
+        for (Subscriber subscriber : subscribers) {
+            subscriber.deliver(events);
+        }
+    }
+
+    public synchronized long getLastOffset() {
+        return lastOffset;
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.events.journal-trim-interval:PT1M}")
+    public void trimJournal() {
+        long upTo;
+        synchronized (this) {
+            upTo = lastOffset;
+            for (Subscriber subscriber : subscribers) {
+                long durable = subscriber.listener.durableOffset();
+                if (durable != TaskEventListener.STATELESS) {
+                    upTo = Math.min(upTo, durable);
+                }
+            }
+        }
+        journal.trim(upTo);
+    }
+
+    private void replay() {
+        for (Subscriber subscriber : subscribers) {
+            long replayed = 0;
+            List<TaskEvent> events;
+            while (!(events = journal.readAfter(subscriber.appliedOffset, REPLAY_BATCH_SIZE)).isEmpty()) {
+                subscriber.deliver(events);
+                replayed += events.size();
+            }
+            if (replayed > 0) {
+                log.info("Replayed {} journaled task events to {}", replayed, subscriber.listener.getClass().getSimpleName());
+            }
+        }
+    }
+
+    private static List<TaskEvent> after(List<TaskEvent> events, long offset) {
+        List<TaskEvent> result = new ArrayList<>(events.size());
+        for (TaskEvent event : events) {
+            if (event.getOffset() > offset) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    private static final class Subscriber {
+        private final TaskEventListener listener;
+        private long appliedOffset;
+
+        Subscriber(TaskEventListener listener) {
+            this.listener = listener;
+            this.appliedOffset = listener.durableOffset();
+        }
+
+        void deliver(List<TaskEvent> events) {
+            List<TaskEvent> fresh = after(events, appliedOffset);
+            if (!fresh.isEmpty()) {
+                listener.onEvents(fresh);
+                appliedOffset = fresh.get(fresh.size() - 1).getOffset();
+            }
+        }
+    }
+}
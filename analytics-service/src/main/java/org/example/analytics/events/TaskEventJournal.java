@@ -0,0 +1,98 @@
+package org.example.analytics.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Events received but not yet covered by the durable state of every listener. A batch is journaled before it is
+ * acknowledged, so a restart replays what the listeners had only in memory.
+ */
+@Component
+public class TaskEventJournal {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final RowMapper<TaskEvent> eventMapper;
+
+    public TaskEventJournal(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.eventMapper = (rs, rowNum) -> {
+            TaskEvent event = new TaskEvent();
+            event.setOffset(rs.getLong("event_offset"));
+            event.setType(TaskEventType.valueOf(rs.getString("type")));
+            event.setTaskId(rs.getLong("task_id"));
+            event.setUserId(rs.getLong("user_id"));
+            event.setStatus(rs.getString("status"));
+            event.setOccurredAt(rs.getTimestamp("occurred_at").toLocalDateTime());
+            String snapshot = rs.getString("task_snapshot");
+            event.setTask(snapshot != null ? deserialize(snapshot) : null);
+            return event;
+        };
+    }
+
+    // Повторно доставленная пачка перезаписывает свои строки, а не падает на первичном ключе
+    public void append(List<TaskEvent> events) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM task_event_journal WHERE event_offset BETWEEN ? AND ?",
+                    events.get(0).getOffset(), events.get(events.size() - 1).getOffset());
+            jdbcTemplate.batchUpdate("INSERT INTO task_event_journal (event_offset, type, task_id, user_id, " +
+                            "status, occurred_at, task_snapshot) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                    events, events.size(), (ps, event) -> {
+                        ps.setLong(1, event.getOffset());
+                        ps.setString(2, event.getType().name());
+                        ps.setLong(3, event.getTaskId());
+                        ps.setLong(4, event.getUserId());
+                        ps.setString(5, event.getStatus());
+                        ps.setTimestamp(6, Timestamp.valueOf(event.getOccurredAt()));
+                        if (event.getTask() != null) {
+                            ps.setString(7, serialize(event.getTask()));
+                        } else {
+                            ps.setNull(7, Types.VARCHAR);
+                        }
+                    });
+        });
+    }
+
+    public List<TaskEvent> readAfter(long offset, int limit) {
+        return jdbcTemplate.query("SELECT event_offset, type, task_id, user_id, status, occurred_at, task_snapshot " +
+                "FROM task_event_journal WHERE event_offset > ? ORDER BY event_offset LIMIT ?", eventMapper, offset, limit);
+    }
+
+    public long lastOffset() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(event_offset), 0) FROM task_event_journal", Long.class);
+    }
+
+    public int trim(long upToOffset) {
+        return jdbcTemplate.update("DELETE FROM task_event_journal WHERE event_offset <= ?", upToOffset);
+    }
+
+    private String serialize(TaskSnapshot snapshot) {
+        try {
+            return objectMapper.writeValueAsString(snapshot);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize task " + snapshot.getId(), e);
+        }
+    }
+
+    private TaskSnapshot deserialize(String snapshot) {
+        try {
+            return objectMapper.readValue(snapshot, TaskSnapshot.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read journaled task snapshot", e);
+        }
+    }
+}
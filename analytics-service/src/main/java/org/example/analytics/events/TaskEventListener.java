@@ -0,0 +1,23 @@
+package org.example.analytics.events;
+
+import java.util.List;
+
+/**
+ * Receives new task events in offset order, one delivered batch at a time. A listener that throws makes
+ * the whole batch fail, and task-service delivers it again.
+ */
+public interface TaskEventListener {
+
+    // Слушатель без сохранённого состояния: журнал ему не переигрывается и его не держит
+    long STATELESS = -1;
+
+    void onEvents(List<TaskEvent> events);
+
+    /**
+     * Offset up to which the state of the listener is stored durably. On startup the inbox replays the journaled
+     * events after it, and the journal is trimmed only up to the smallest durable offset of all listeners.
+     */
+    default long durableOffset() {
+        return STATELESS;
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.analytics.events;
+
+public enum TaskEventType {
+    CREATED,
+    UPDATED,
+    STATUS_CHANGED,
+    DELETED
+}
@@ -0,0 +1,28 @@
+package org.example.analytics.history;
+
+/**
+ * A vector of up to {@link #SIZE} consecutive rows copied from a column source into heap arrays. Scans work a
+ * chunk at a time: the bulk copy out of the mapped file is a memcpy, and the filter loops over plain arrays
+ * are simple enough for the JIT to unroll and vectorize.
+ */
+final class HistoryChunk {
+
+    static final int SIZE = 4096;
+
+    // Какие колонки копировать: сканы читают только нужные
+    static final int USER = 1;
+    static final int PRIORITY = 1 << 1;
+    static final int CREATED_AT = 1 << 2;
+    static final int DEADLINE = 1 << 3;
+    static final int COMPLETED_AT = 1 << 4;
+
+    final long[] userId = new long[SIZE];
+    // Статус копируется всегда: удалённые и вытесненные строки помечаются в нём
+    final byte[] status = new byte[SIZE];
+    final byte[] priority = new byte[SIZE];
+    final int[] createdAt = new int[SIZE];
+    final int[] deadline = new int[SIZE];
+    final int[] completedAt = new int[SIZE];
+    final int[] selection = new int[SIZE];
+    int length;
+}
@@ -0,0 +1,58 @@
+package org.example.analytics.history;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Encodings of the history columns. Status and priority are dictionary codes of one byte; timestamps are
+ * seconds from {@link #BASE_EPOCH_SECOND} in an int (frame of reference), which covers 2000 to 2068 in half
+ * the space of a long and keeps every column a plain primitive array for scans.
+ */
+final class HistoryCodec {
+
+    static final long BASE_EPOCH_SECOND = LocalDateTime.of(2000, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    // Нет значения: срока нет, задача не выполнена или снимок задачи не приходил
+    static final int NO_TIME = Integer.MIN_VALUE;
+    static final byte UNKNOWN = -1;
+    // Задача удалена или вытеснена более новой версией строки
+    static final byte DELETED = -2;
+
+    static final String[] STATUSES = {"TODO", "IN_PROGRESS", "DONE", "OVERDUE"};
+    static final byte DONE = 2;
+    static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH"};
+
+    private HistoryCodec() {}
+
+    static int time(LocalDateTime time) {
+        if (time == null) {
+            return NO_TIME;
+        }
+        long seconds = time.toEpochSecond(ZoneOffset.UTC) - BASE_EPOCH_SECOND;
+        return (int) Math.max(NO_TIME + 1L, Math.min(Integer.MAX_VALUE, seconds));
+    }
+
+    static LocalDateTime time(int seconds) {
+        return seconds == NO_TIME ? null
+                : LocalDateTime.ofEpochSecond(BASE_EPOCH_SECOND + seconds, 0, ZoneOffset.UTC);
+    }
+
+    static byte status(String status) {
+        return code(STATUSES, status);
+    }
+
+    static byte priority(String priority) {
+        return code(PRIORITIES, priority);
+    }
+
+    private static byte code(String[] dictionary, String value) {
+        if (value != null) {
+            for (int i = 0; i < dictionary.length; i++) {
+                if (dictionary[i].equals(value)) {
+                    return (byte) i;
+                }
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.analytics.history;
+
+/**
+ * Rows of task history stored column by column: a mapped segment or the in-memory tail.
+ */
+interface HistoryColumns {
+
+    int size();
+
+    /**
+     * Copies the requested columns of rows {@code from .. from + HistoryChunk.SIZE} into {@code chunk}. Rows
+     * replaced by a newer version come back with status {@link HistoryCodec#DELETED}.
+     */
+    void read(int from, HistoryChunk chunk, int columns);
+}
@@ -0,0 +1,133 @@
+package org.example.analytics.history;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scan kernels over history columns. Every kernel works a chunk at a time: a branch-free pass over the filter
+ * columns builds a selection vector of matching rows, and a second pass aggregates only those rows.
+ */
+final class HistoryScans {
+
+    static final long ANY_USER = Long.MIN_VALUE;
+    static final byte ANY_PRIORITY = HistoryCodec.UNKNOWN;
+
+    private HistoryScans() {}
+
+    /** Completion times in seconds of tasks completed in {@code [from, to)}. */
+    static int[] completionTimes(List<? extends HistoryColumns> sources, long userId, byte priority,
+                                 int from, int to) {
+        int columns = HistoryChunk.CREATED_AT | HistoryChunk.COMPLETED_AT
+                | (userId != ANY_USER ? HistoryChunk.USER : 0)
+                | (priority != ANY_PRIORITY ? HistoryChunk.PRIORITY : 0);
+        HistoryChunk chunk = new HistoryChunk();
+        int[] durations = new int[1024];
+        int count = 0;
+        for (HistoryColumns source : sources) {
+            for (int offset = 0; offset < source.size(); offset += HistoryChunk.SIZE) {
+                source.read(offset, chunk, columns);
+                int selected = selectCompleted(chunk, from, to);
+                if (userId != ANY_USER) {
+                    selected = refineUser(chunk, selected, userId);
+                }
+                if (priority != ANY_PRIORITY) {
+                    selected = refinePriority(chunk, selected, priority);
+                }
+                if (count + selected > durations.length) {
+                    durations = Arrays.copyOf(durations, Math.max(durations.length * 2, count + selected));
+                }
+                int[] selection = chunk.selection;
+                for (int i = 0; i < selected; i++) {
+                    int row = selection[i];
+                    durations[count++] = chunk.completedAt[row] - chunk.createdAt[row];
+                }
+            }
+        }
+        return Arrays.copyOf(durations, count);
+    }
+
+    /**
+     * Tasks created in {@code [from, to)} per bucket of {@code bucketSeconds} and priority:
+     * {@code counts[bucket * PRIORITIES + priority]}.
+     */
+    static long[] priorityMix(List<? extends HistoryColumns> sources, long userId, int from, int to,
+                              int bucketSeconds) {
+        int buckets = (int) (((long) to - from + bucketSeconds - 1) / bucketSeconds);
+        int priorities = HistoryCodec.PRIORITIES.length;
+        long[] counts = new long[buckets * priorities];
+        int columns = HistoryChunk.CREATED_AT | HistoryChunk.PRIORITY
+                | (userId != ANY_USER ? HistoryChunk.USER : 0);
+        HistoryChunk chunk = new HistoryChunk();
+        for (HistoryColumns source : sources) {
+            for (int offset = 0; offset < source.size(); offset += HistoryChunk.SIZE) {
+                source.read(offset, chunk, columns);
+                int selected = selectCreated(chunk, from, to);
+                if (userId != ANY_USER) {
+                    selected = refineUser(chunk, selected, userId);
+                }
+                int[] selection = chunk.selection;
+                for (int i = 0; i < selected; i++) {
+                    int row = selection[i];
+                    int bucket = (int) (((long) chunk.createdAt[row] - from) / bucketSeconds);
+                    counts[bucket * priorities + chunk.priority[row]]++;
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static int selectCompleted(HistoryChunk chunk, int from, int to) {
+        byte[] status = chunk.status;
+        int[] createdAt = chunk.createdAt;
+        int[] completedAt = chunk.completedAt;
+        int[] selection = chunk.selection;
+        int selected = 0;
+        for (int row = 0; row < chunk.length; row++) {
+            int completed = completedAt[row];
+            boolean match = status[row] == HistoryCodec.DONE & completed >= from & completed < to
+                    & createdAt[row] != HistoryCodec.NO_TIME;
+            selection[selected] = row;
+            selected += match ? 1 : 0;
+        }
+        return selected;
+    }
+
+    private static int selectCreated(HistoryChunk chunk, int from, int to) {
+        byte[] status = chunk.status;
+        byte[] priority = chunk.priority;
+        int[] createdAt = chunk.createdAt;
+        int[] selection = chunk.selection;
+        int selected = 0;
+        for (int row = 0; row < chunk.length; row++) {
+            int created = createdAt[row];
+            boolean match = status[row] >= 0 & priority[row] >= 0 & created >= from & created < to;
+            selection[selected] = row;
+            selected += match ? 1 : 0;
+        }
+        return selected;
+    }
+
+    private static int refineUser(HistoryChunk chunk, int selected, long userId) {
+        int[] selection = chunk.selection;
+        long[] users = chunk.userId;
+        int kept = 0;
+        for (int i = 0; i < selected; i++) {
+            int row = selection[i];
+            selection[kept] = row;
+            kept += users[row] == userId ? 1 : 0;
+        }
+        return kept;
+    }
+
+    private static int refinePriority(HistoryChunk chunk, int selected, byte priority) {
+        int[] selection = chunk.selection;
+        byte[] priorities = chunk.priority;
+        int kept = 0;
+        for (int i = 0; i < selected; i++) {
+            int row = selection[i];
+            selection[kept] = row;
+            kept += priorities[row] == priority ? 1 : 0;
+        }
+        return kept;
+    }
+}
@@ -0,0 +1,236 @@
+package org.example.analytics.history;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Immutable snapshot of task history in one memory-mapped file, one column after another, rows ordered by
+ * task id:
+ * <pre>
+ * header (32 bytes): magic, version, row count, reserved, event offset, time base
+ * task_id long[n] | user_id long[n] | created_at int[n] | deadline int[n] | completed_at int[n]
+ * status byte[n] | priority byte[n]
+ * </pre>
+ * A row takes 30 bytes. The file is read through the page cache, so it costs no heap and survives restarts;
+ * a scan copies only the columns it needs.
+ */
+final class HistorySegment implements HistoryColumns {
+
+    private static final int MAGIC = 0x54484953;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int ROW_SIZE = 30;
+
+    private final Path path;
+    private final int rowCount;
+    private final long snapshotOffset;
+    private final LongBuffer taskIds;
+    private final LongBuffer userIds;
+    private final IntBuffer createdAt;
+    private final IntBuffer deadline;
+    private final IntBuffer completedAt;
+    private final ByteBuffer status;
+    private final ByteBuffer priority;
+    // Строки, у которых в хвосте уже есть более новая версия
+    final BitSet superseded = new BitSet();
+
+    private HistorySegment(Path path, ByteBuffer file) {
+        file.order(ByteOrder.nativeOrder());
+        if (file.getInt(0) != MAGIC || file.getInt(4) != VERSION) {
+            throw new IllegalStateException("Not a task history segment: " + path);
+        }
+        if (file.getLong(24) != HistoryCodec.BASE_EPOCH_SECOND) {
+            throw new IllegalStateException("Unsupported time base in " + path);
+        }
+        this.path = path;
+        this.rowCount = file.getInt(8);
+        this.snapshotOffset = file.getLong(16);
+        int n = rowCount;
+        this.taskIds = column(file, HEADER_SIZE, 8L * n).asLongBuffer();
+        this.userIds = column(file, HEADER_SIZE + 8L * n, 8L * n).asLongBuffer();
+        this.createdAt = column(file, HEADER_SIZE + 16L * n, 4L * n).asIntBuffer();
+        this.deadline = column(file, HEADER_SIZE + 20L * n, 4L * n).asIntBuffer();
+        this.completedAt = column(file, HEADER_SIZE + 24L * n, 4L * n).asIntBuffer();
+        this.status = column(file, HEADER_SIZE + 28L * n, n);
+        this.priority = column(file, HEADER_SIZE + 29L * n, n);
+    }
+
+    static HistorySegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new HistorySegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the rows of {@code previous} (may be null) merged with the newer versions in {@code changes} to
+     * {@code path}, and opens the result. Deleted tasks are dropped. The file is written next to the target and
+     * renamed, so a crash never leaves a half-written segment behind.
+     */
+    static HistorySegment write(Path path, long snapshotOffset, HistorySegment previous, HistoryTail changes)
+            throws IOException {
+        int[] changed = changes.rowsByTaskId();
+        int rows = merge(previous, changes, changed, null);
+        long size = HEADER_SIZE + (long) ROW_SIZE * rows;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("History segment of " + rows + " rows exceeds 2 GB");
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            file.order(ByteOrder.nativeOrder());
+            file.putInt(0, MAGIC);
+            file.putInt(4, VERSION);
+            file.putInt(8, rows);
+            file.putLong(16, snapshotOffset);
+            file.putLong(24, HistoryCodec.BASE_EPOCH_SECOND);
+            merge(previous, changes, changed, new Writer(file, rows));
+            file.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(path);
+    }
+
+    // Слияние двух последовательностей, упорядоченных по task_id; без writer только считает строки
+    private static int merge(HistorySegment previous, HistoryTail changes, int[] changed, Writer writer) {
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        int previousSize = previous != null ? previous.rowCount : 0;
+        while (i < previousSize || j < changed.length) {
+            long oldId = i < previousSize ? previous.taskId(i) : Long.MAX_VALUE;
+            long newId = j < changed.length ? changes.taskId[changed[j]] : Long.MAX_VALUE;
+            if (newId <= oldId) {
+                int row = changed[j++];
+                if (newId == oldId) {
+                    i++;
+                }
+                if (changes.status[row] != HistoryCodec.DELETED) {
+                    if (writer != null) {
+                        writer.write(count, changes.taskId[row], changes.userId[row], changes.status[row],
+                                changes.priority[row], changes.createdAt[row], changes.deadline[row],
+                                changes.completedAt[row]);
+                    }
+                    count++;
+                }
+            } else {
+                if (writer != null) {
+                    writer.write(count, oldId, previous.userId(i), previous.status(i), previous.priority(i),
+                            previous.createdAt(i), previous.deadline(i), previous.completedAt(i));
+                }
+                count++;
+                i++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public int size() {
+        return rowCount;
+    }
+
+    long snapshotOffset() {
+        return snapshotOffset;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int indexOf(long task) {
+        int low = 0;
+        int high = rowCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long id = taskIds.get(middle);
+            if (id < task) {
+                low = middle + 1;
+            } else if (id > task) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    long taskId(int row) { return taskIds.get(row); }
+    long userId(int row) { return userIds.get(row); }
+    byte status(int row) { return status.get(row); }
+    byte priority(int row) { return priority.get(row); }
+    int createdAt(int row) { return createdAt.get(row); }
+    int deadline(int row) { return deadline.get(row); }
+    int completedAt(int row) { return completedAt.get(row); }
+
+    @Override
+    public void read(int from, HistoryChunk chunk, int columns) {
+        int length = Math.min(HistoryChunk.SIZE, rowCount - from);
+        status.get(from, chunk.status, 0, length);
+        if ((columns & HistoryChunk.USER) != 0) {
+            userIds.get(from, chunk.userId, 0, length);
+        }
+        if ((columns & HistoryChunk.PRIORITY) != 0) {
+            priority.get(from, chunk.priority, 0, length);
+        }
+        if ((columns & HistoryChunk.CREATED_AT) != 0) {
+            createdAt.get(from, chunk.createdAt, 0, length);
+        }
+        if ((columns & HistoryChunk.DEADLINE) != 0) {
+            deadline.get(from, chunk.deadline, 0, length);
+        }
+        if ((columns & HistoryChunk.COMPLETED_AT) != 0) {
+            completedAt.get(from, chunk.completedAt, 0, length);
+        }
+        for (int row = superseded.nextSetBit(from); row >= 0 && row < from + length;
+             row = superseded.nextSetBit(row + 1)) {
+            chunk.status[row - from] = HistoryCodec.DELETED;
+        }
+        chunk.length = length;
+    }
+
+    private static ByteBuffer column(ByteBuffer file, long position, long length) {
+        return file.slice((int) position, (int) length).order(ByteOrder.nativeOrder());
+    }
+
+    private static final class Writer {
+        private final LongBuffer taskIds;
+        private final LongBuffer userIds;
+        private final IntBuffer createdAt;
+        private final IntBuffer deadline;
+        private final IntBuffer completedAt;
+        private final ByteBuffer status;
+        private final ByteBuffer priority;
+
+        Writer(ByteBuffer file, int n) {
+            this.taskIds = column(file, HEADER_SIZE, 8L * n).asLongBuffer();
+            this.userIds = column(file, HEADER_SIZE + 8L * n, 8L * n).asLongBuffer();
+            this.createdAt = column(file, HEADER_SIZE + 16L * n, 4L * n).asIntBuffer();
+            this.deadline = column(file, HEADER_SIZE + 20L * n, 4L * n).asIntBuffer();
+            this.completedAt = column(file, HEADER_SIZE + 24L * n, 4L * n).asIntBuffer();
+            this.status = column(file, HEADER_SIZE + 28L * n, n);
+            this.priority = column(file, HEADER_SIZE + 29L * n, n);
+        }
+
+        void write(int row, long taskId, long userId, byte status, byte priority,
+                   int createdAt, int deadline, int completedAt) {
+            this.taskIds.put(row, taskId);
+            this.userIds.put(row, userId);
+            this.status.put(row, status);
+            this.priority.put(row, priority);
+            this.createdAt.put(row, createdAt);
+            this.deadline.put(row, deadline);
+            this.completedAt.put(row, completedAt);
+        }
+    }
+}
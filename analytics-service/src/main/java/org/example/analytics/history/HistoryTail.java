@@ -0,0 +1,114 @@
+package org.example.analytics.history;
+
+import org.example.analytics.aggregation.LongObjectMap;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Latest version of every task changed since the last snapshot, in growable heap columns. Rows are updated in
+ * place; a snapshot merges them into the next segment.
+ */
+final class HistoryTail implements HistoryColumns {
+
+    private final LongObjectMap<Integer> rows = new LongObjectMap<>();
+    // Строки замороженного хвоста, которые уже изменились в новом хвосте
+    final BitSet superseded = new BitSet();
+
+    long[] taskId = new long[1024];
+    long[] userId = new long[1024];
+    byte[] status = new byte[1024];
+    byte[] priority = new byte[1024];
+    int[] createdAt = new int[1024];
+    int[] deadline = new int[1024];
+    int[] completedAt = new int[1024];
+    private int size;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    int rowOf(long task) {
+        Integer row = rows.get(task);
+        return row != null ? row : -1;
+    }
+
+    int append(long task) {
+        if (size == taskId.length) {
+            int capacity = size * 2;
+            taskId = Arrays.copyOf(taskId, capacity);
+            userId = Arrays.copyOf(userId, capacity);
+            status = Arrays.copyOf(status, capacity);
+            priority = Arrays.copyOf(priority, capacity);
+            createdAt = Arrays.copyOf(createdAt, capacity);
+            deadline = Arrays.copyOf(deadline, capacity);
+            completedAt = Arrays.copyOf(completedAt, capacity);
+        }
+        int row = size++;
+        taskId[row] = task;
+        userId[row] = 0;
+        status[row] = HistoryCodec.UNKNOWN;
+        priority[row] = HistoryCodec.UNKNOWN;
+        createdAt[row] = HistoryCodec.NO_TIME;
+        deadline[row] = HistoryCodec.NO_TIME;
+        completedAt[row] = HistoryCodec.NO_TIME;
+        rows.put(task, row);
+        return row;
+    }
+
+    void copyRow(int row, HistoryTail source, int sourceRow) {
+        userId[row] = source.userId[sourceRow];
+        status[row] = source.status[sourceRow];
+        priority[row] = source.priority[sourceRow];
+        createdAt[row] = source.createdAt[sourceRow];
+        deadline[row] = source.deadline[sourceRow];
+        completedAt[row] = source.completedAt[sourceRow];
+    }
+
+    void copyRow(int row, HistorySegment source, int sourceRow) {
+        userId[row] = source.userId(sourceRow);
+        status[row] = source.status(sourceRow);
+        priority[row] = source.priority(sourceRow);
+        createdAt[row] = source.createdAt(sourceRow);
+        deadline[row] = source.deadline(sourceRow);
+        completedAt[row] = source.completedAt(sourceRow);
+    }
+
+    /** Row numbers ordered by task id, the order of segment files. */
+    int[] rowsByTaskId() {
+        long[] sorted = Arrays.copyOf(taskId, size);
+        Arrays.sort(sorted);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = rowOf(sorted[i]);
+        }
+        return order;
+    }
+
+    @Override
+    public void read(int from, HistoryChunk chunk, int columns) {
+        int length = Math.min(HistoryChunk.SIZE, size - from);
+        System.arraycopy(status, from, chunk.status, 0, length);
+        if ((columns & HistoryChunk.USER) != 0) {
+            System.arraycopy(userId, from, chunk.userId, 0, length);
+        }
+        if ((columns & HistoryChunk.PRIORITY) != 0) {
+            System.arraycopy(priority, from, chunk.priority, 0, length);
+        }
+        if ((columns & HistoryChunk.CREATED_AT) != 0) {
+            System.arraycopy(createdAt, from, chunk.createdAt, 0, length);
+        }
+        if ((columns & HistoryChunk.DEADLINE) != 0) {
+            System.arraycopy(deadline, from, chunk.deadline, 0, length);
+        }
+        if ((columns & HistoryChunk.COMPLETED_AT) != 0) {
+            System.arraycopy(completedAt, from, chunk.completedAt, 0, length);
+        }
+        for (int row = superseded.nextSetBit(from); row >= 0 && row < from + length;
+             row = superseded.nextSetBit(row + 1)) {
+            chunk.status[row - from] = HistoryCodec.DELETED;
+        }
+        chunk.length = length;
+    }
+}
@@ -0,0 +1,311 @@
+package org.example.analytics.history;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.analytics.dto.CompletionTimeStats;
+import org.example.analytics.dto.PriorityMix;
+import org.example.analytics.events.TaskEvent;
+import org.example.analytics.events.TaskEventListener;
+import org.example.analytics.events.TaskEventType;
+import org.example.analytics.events.TaskSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Columnar history of all tasks for long-range analytics. The bulk of the history lives in an immutable
+ * memory-mapped {@link HistorySegment}; tasks changed since then are kept in a heap {@link HistoryTail} that
+ * supersedes their segment rows. A periodic snapshot merges the tail into a new segment file and makes it
+ * the durable state: on startup the inbox replays the journal after the segment's offset.
+ * <p>
+ * While a snapshot is written, the tail being merged stays readable as a frozen tail and new changes go into a
+ * fresh one, so neither events nor queries wait for the disk. Queries share a read lock and scan all three
+ * sources chunk by chunk.
+ */
+@Component
+@Slf4j
+public class TaskHistoryStore implements TaskEventListener {
+
+    private static final String PREFIX = "history-";
+    private static final String SUFFIX = ".col";
+
+    private final Path directory;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object snapshotLock = new Object();
+    private HistorySegment segment;
+    private HistoryTail frozen;
+    private HistoryTail tail = new HistoryTail();
+    private long lastOffset;
+    private volatile long durableOffset;
+
+    public TaskHistoryStore(@Value("${analytics.history.directory:data/history}") Path directory) {
+        this.directory = directory;
+    }
+
+    // Последний полный сегмент; недописанные и устаревшие файлы остаются от прерванных снимков
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().startsWith(PREFIX)).toList();
+        }
+        Path latest = files.stream()
+                .filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                .max((a, b) -> Long.compare(offsetOf(a), offsetOf(b)))
+                .orElse(null);
+        for (Path file : files) {
+            if (!file.equals(latest)) {
+                Files.delete(file);
+            }
+        }
+        if (latest != null) {
+            segment = HistorySegment.open(latest);
+            lastOffset = segment.snapshotOffset();
+            durableOffset = lastOffset;
+            log.info("Opened task history segment {} with {} rows", latest.getFileName(), segment.size());
+        }
+    }
+
+    @Override
+    public void onEvents(List<TaskEvent> events) {
+        lock.writeLock().lock();
+        try {
+            for (TaskEvent event : events) {
+                apply(event);
+            }
+            lastOffset = events.get(events.size() - 1).getOffset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long durableOffset() {
+        return durableOffset;
+    }
+
+    public CompletionTimeStats completionTimes(Long userId, String priority, LocalDate from, LocalDate to) {
+        checkRange(from, to);
+        byte priorityCode = HistoryScans.ANY_PRIORITY;
+        if (priority != null) {
+            priorityCode = HistoryCodec.priority(priority);
+            if (priorityCode == HistoryCodec.UNKNOWN) {
+                throw new IllegalArgumentException("Unknown priority: " + priority);
+            }
+        }
+        int[] durations;
+        lock.readLock().lock();
+        try {
+            durations = HistoryScans.completionTimes(sources(), userId != null ? userId : HistoryScans.ANY_USER,
+                    priorityCode, HistoryCodec.time(from.atStartOfDay()), HistoryCodec.time(to.atStartOfDay()));
+        } finally {
+            lock.readLock().unlock();
+        }
+        Arrays.sort(durations);
+        return new CompletionTimeStats(from, to, durations.length, mean(durations),
+                percentile(durations, 0.5), percentile(durations, 0.9), percentile(durations, 0.99));
+    }
+
+    public List<PriorityMix> priorityMix(Long userId, LocalDate from, LocalDate to, int bucketDays) {
+        checkRange(from, to);
+        if (bucketDays < 1) {
+            throw new IllegalArgumentException("Bucket must be at least one day");
+        }
+        long[] counts;
+        lock.readLock().lock();
+        try {
+            counts = HistoryScans.priorityMix(sources(), userId != null ? userId : HistoryScans.ANY_USER,
+                    HistoryCodec.time(from.atStartOfDay()), HistoryCodec.time(to.atStartOfDay()), bucketDays * 86_400);
+        } finally {
+            lock.readLock().unlock();
+        }
+        int priorities = HistoryCodec.PRIORITIES.length;
+        List<PriorityMix> mix = new ArrayList<>(counts.length / priorities);
+        for (int bucket = 0; bucket * priorities < counts.length; bucket++) {
+            int base = bucket * priorities;
+            mix.add(new PriorityMix(from.plusDays((long) bucket * bucketDays),
+                    counts[base], counts[base + 1], counts[base + 2]));
+        }
+        return mix;
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.history.snapshot-interval:PT10M}",
+            initialDelayString = "${analytics.history.snapshot-interval:PT10M}")
+    public void snapshot() {
+        synchronized (snapshotLock) {
+            HistorySegment base;
+            HistoryTail changes;
+            long offset;
+            lock.writeLock().lock();
+            try {
+                if (tail.size() == 0) {
+                    return;
+                }
+                base = segment;
+                changes = tail;
+                offset = lastOffset;
+                frozen = tail;
+                tail = new HistoryTail();
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            long started = System.nanoTime();
+            HistorySegment next;
+            try {
+                next = HistorySegment.write(directory.resolve(PREFIX + offset + SUFFIX), offset, base, changes);
+            } catch (IOException | RuntimeException e) {
+                unfreeze();
+                log.warn("Task history snapshot at offset {} failed: {}", offset, e.getMessage());
+                return;
+            }
+
+            lock.writeLock().lock();
+            try {
+                // Строки нового сегмента, которые уже успели измениться в свежем хвосте
+                for (int row = 0; row < tail.size(); row++) {
+                    int index = next.indexOf(tail.taskId[row]);
+                    if (index >= 0) {
+                        next.superseded.set(index);
+                    }
+                }
+                segment = next;
+                frozen = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            durableOffset = offset;
+            if (base != null && !base.path().equals(next.path())) {
+                delete(base.path());
+            }
+            log.debug("Task history snapshot of {} rows at offset {} written in {} ms",
+                    next.size(), offset, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+
+    private void apply(TaskEvent event) {
+        long taskId = event.getTaskId();
+        int row = tail.rowOf(taskId);
+        if (row < 0) {
+            row = tail.append(taskId);
+            loadPrevious(taskId, row);
+        }
+        if (event.getType() == TaskEventType.DELETED) {
+            tail.status[row] = HistoryCodec.DELETED;
+            return;
+        }
+        tail.userId[row] = event.getUserId();
+        TaskSnapshot snapshot = event.getTask();
+        if (snapshot != null) {
+            tail.priority[row] = HistoryCodec.priority(snapshot.getPriority());
+            tail.createdAt[row] = HistoryCodec.time(snapshot.getCreatedAt());
+            tail.deadline[row] = HistoryCodec.time(snapshot.getDeadline());
+        }
+        byte status = HistoryCodec.status(event.getStatus());
+        if (status == HistoryCodec.UNKNOWN) {
+            return;
+        }
+        // Время выполнения — момент перехода в DONE; возврат из DONE его сбрасывает
+        if (status == HistoryCodec.DONE && tail.status[row] != HistoryCodec.DONE) {
+            tail.completedAt[row] = HistoryCodec.time(event.getOccurredAt());
+        } else if (status != HistoryCodec.DONE) {
+            tail.completedAt[row] = HistoryCodec.NO_TIME;
+        }
+        tail.status[row] = status;
+    }
+
+    // Новая строка хвоста начинается с предыдущей версии задачи, а та помечается вытесненной
+    private void loadPrevious(long taskId, int row) {
+        int frozenRow = frozen != null ? frozen.rowOf(taskId) : -1;
+        int segmentRow = segment != null ? segment.indexOf(taskId) : -1;
+        if (frozenRow >= 0) {
+            tail.copyRow(row, frozen, frozenRow);
+            frozen.superseded.set(frozenRow);
+        } else if (segmentRow >= 0) {
+            tail.copyRow(row, segment, segmentRow);
+        }
+        if (segmentRow >= 0) {
+            segment.superseded.set(segmentRow);
+        }
+    }
+
+    // Снимок не записан: изменения замороженного хвоста возвращаются в текущий
+    private void unfreeze() {
+        lock.writeLock().lock();
+        try {
+            for (int row = 0; row < frozen.size(); row++) {
+                if (tail.rowOf(frozen.taskId[row]) < 0) {
+                    tail.copyRow(tail.append(frozen.taskId[row]), frozen, row);
+                }
+            }
+            frozen = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<HistoryColumns> sources() {
+        List<HistoryColumns> sources = new ArrayList<>(3);
+        if (segment != null) {
+            sources.add(segment);
+        }
+        if (frozen != null) {
+            sources.add(frozen);
+        }
+        sources.add(tail);
+        return sources;
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("'from' must be before 'to'");
+        }
+    }
+
+    private static long mean(int[] sorted) {
+        long sum = 0;
+        for (int value : sorted) {
+            sum += value;
+        }
+        return sorted.length == 0 ? 0 : sum / sorted.length;
+    }
+
+    private static long percentile(int[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[(int) Math.ceil(quantile * sorted.length) - 1];
+    }
+
+    private static long offsetOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
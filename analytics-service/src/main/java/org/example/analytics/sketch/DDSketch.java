@@ -0,0 +1,183 @@
+package org.example.analytics.sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * DDSketch quantile sketch for non-negative values. Values fall into logarithmic buckets of ratio
+ * gamma = (1 + a) / (1 - a), so every quantile it returns is within relative error
+ * {@link #RELATIVE_ACCURACY} (1%) of the exact value, whatever the distribution. Buckets are plain counters,
+ * so sketches merge exactly by adding them. Seconds from one to a hundred years take about 1,100 buckets; when
+ * the values span more than {@value #MAX_BUCKETS} buckets (a ratio of about 4e35 between the smallest and the
+ * largest), the lowest ones are collapsed, which only affects the smallest quantiles.
+ */
+public class DDSketch {
+
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final byte VERSION = 1;
+    private static final int MAX_BUCKETS = 4096;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private long zeroCount;
+    private long count;
+    // Занятый диапазон индексов [minIndex, maxIndex]; массив может быть длиннее, но не больше MAX_BUCKETS
+    private int minIndex;
+    private int maxIndex;
+    private long[] buckets = new long[0];
+
+    public void add(double value) {
+        if (value < 0 || Double.isNaN(value)) {
+            throw new IllegalArgumentException("DDSketch accepts non-negative values only: " + value);
+        }
+        count++;
+        if (value < 1e-9) {
+            zeroCount++;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+        increment(index, 1);
+    }
+
+    public void merge(DDSketch other) {
+        zeroCount += other.zeroCount;
+        count += other.count;
+        for (int index = other.minIndex; other.buckets.length > 0 && index <= other.maxIndex; index++) {
+            long bucket = other.buckets[index - other.minIndex];
+            if (bucket != 0) {
+                increment(index, bucket);
+            }
+        }
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /** Value at {@code quantile} in [0, 1]; NaN for an empty sketch. */
+    public double quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be in [0, 1]: " + quantile);
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.floor(quantile * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int index = minIndex; index <= maxIndex; index++) {
+            seen += buckets[index - minIndex];
+            if (rank < seen) {
+                // Середина корзины в смысле относительной ошибки
+                return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+            }
+        }
+        return 2 * Math.pow(GAMMA, maxIndex) / (GAMMA + 1);
+    }
+
+    public DDSketch copy() {
+        DDSketch copy = new DDSketch();
+        copy.merge(this);
+        return copy;
+    }
+
+    public byte[] toBytes() {
+        int length = buckets.length == 0 ? 0 : maxIndex - minIndex + 1;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + length * 2);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeDouble(RELATIVE_ACCURACY);
+            out.writeLong(zeroCount);
+            out.writeInt(minIndex);
+            out.writeInt(length);
+            for (int i = 0; i < length; i++) {
+                writeVarLong(out, buckets[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static DDSketch fromBytes(byte[] bytes) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (in.readByte() != VERSION || in.readDouble() != RELATIVE_ACCURACY) {
+                throw new IllegalArgumentException("Not a DDSketch of relative accuracy " + RELATIVE_ACCURACY);
+            }
+            DDSketch sketch = new DDSketch();
+            sketch.zeroCount = in.readLong();
+            sketch.count = sketch.zeroCount;
+            int minIndex = in.readInt();
+            int length = in.readInt();
+            // Корзины проходят через increment: чужой экспорт не может раздуть массив сверх MAX_BUCKETS
+            for (int i = 0; i < length; i++) {
+                long bucket = readVarLong(in);
+                if (bucket != 0) {
+                    sketch.increment(minIndex + i, bucket);
+                    sketch.count += bucket;
+                }
+            }
+            return sketch;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupted DDSketch", e);
+        }
+    }
+
+    private void increment(int index, long delta) {
+        if (buckets.length == 0) {
+            minIndex = index;
+            maxIndex = index;
+            buckets = new long[8];
+        }
+        int low = Math.min(minIndex, index);
+        int high = Math.max(maxIndex, index);
+        if (high - low >= MAX_BUCKETS) {
+            // Самые мелкие корзины сливаются в нижнюю: точность теряют только нижние квантили
+            low = high - MAX_BUCKETS + 1;
+            index = Math.max(index, low);
+        }
+        if (low != minIndex || high >= minIndex + buckets.length) {
+            relocate(low, high);
+        }
+        buckets[index - minIndex] += delta;
+        maxIndex = high;
+    }
+
+    // Массив под диапазон [low, high]: растёт удвоением до MAX_BUCKETS, корзины ниже low складываются в low
+    private void relocate(int low, int high) {
+        int length = Math.min(MAX_BUCKETS, Math.max(high - low + 1, buckets.length * 2));
+        long[] relocated = new long[length];
+        for (int index = minIndex; index <= maxIndex; index++) {
+            relocated[Math.max(index, low) - low] += buckets[index - minIndex];
+        }
+        buckets = relocated;
+        minIndex = low;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
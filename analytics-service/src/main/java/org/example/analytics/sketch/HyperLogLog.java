@@ -0,0 +1,87 @@
+package org.example.analytics.sketch;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog distinct counter with 2^{@value #PRECISION} one-byte registers (16 KB). The relative standard
+ * error of the estimate is 1.04 / sqrt(2^14) = 0.81%, so about 99.7% of estimates are within 2.4% of the true
+ * count. Small cardinalities fall back to linear counting and are close to exact. Sketches built on different
+ * instances merge losslessly: the merged sketch equals the sketch of the union.
+ */
+public class HyperLogLog {
+
+    public static final int PRECISION = 14;
+    public static final double RELATIVE_STANDARD_ERROR = 1.04 / Math.sqrt(1 << PRECISION);
+
+    private static final byte VERSION = 1;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final byte[] registers;
+
+    public HyperLogLog() {
+        this.registers = new byte[REGISTERS];
+    }
+
+    private HyperLogLog(byte[] registers) {
+        this.registers = registers;
+    }
+
+    public void add(long value) {
+        long hash = mix(value);
+        int index = (int) (hash >>> (64 - PRECISION));
+        // Позиция первой единицы в оставшихся битах; страж не даёт выйти за 64 - PRECISION + 1
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        if (rank > registers[index]) {
+            registers[index] = (byte) rank;
+        }
+    }
+
+    public void merge(HyperLogLog other) {
+        for (int i = 0; i < REGISTERS; i++) {
+            if (other.registers[i] > registers[i]) {
+                registers[i] = other.registers[i];
+            }
+        }
+    }
+
+    public long estimate() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += Double.longBitsToDouble((1023L - register) << 52);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && zeros > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public HyperLogLog copy() {
+        return new HyperLogLog(registers.clone());
+    }
+
+    public byte[] toBytes() {
+        return ByteBuffer.allocate(2 + REGISTERS).put(VERSION).put((byte) PRECISION).put(registers).array();
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        if (bytes.length != 2 + REGISTERS || bytes[0] != VERSION || bytes[1] != PRECISION) {
+            throw new IllegalArgumentException("Not a HyperLogLog sketch of precision " + PRECISION);
+        }
+        return new HyperLogLog(Arrays.copyOfRange(bytes, 2, bytes.length));
+    }
+
+    // Финализатор splitmix64: последовательные идентификаторы пользователей дают равномерные хэши
+    private static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
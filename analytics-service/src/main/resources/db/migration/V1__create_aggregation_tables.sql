@@ -0,0 +1,34 @@
+-- Checkpoint of the in-memory aggregates: the offset of the last event they include
+CREATE TABLE aggregation_checkpoint (
+    id          INT          PRIMARY KEY,
+    last_offset BIGINT       NOT NULL,
+    taken_at    TIMESTAMP(6)
+);
+INSERT INTO aggregation_checkpoint (id, last_offset) VALUES (1, 0);
+
+-- Current status of every task, needed to turn the next event into a status transition
+CREATE TABLE aggregation_task_state (
+    task_id BIGINT      PRIMARY KEY,
+    user_id BIGINT      NOT NULL,
+    status  VARCHAR(32) NOT NULL
+);
+
+-- Daily buckets per user within the retention window
+CREATE TABLE aggregation_user_daily (
+    user_id    BIGINT NOT NULL,
+    bucket_day DATE   NOT NULL,
+    created    INT    NOT NULL,
+    completed  INT    NOT NULL,
+    overdue    INT    NOT NULL,
+    PRIMARY KEY (user_id, bucket_day)
+);
+
+-- Events received after the checkpoint; replayed on startup and trimmed by every checkpoint
+CREATE TABLE task_event_journal (
+    event_offset BIGINT       PRIMARY KEY,
+    type         VARCHAR(32)  NOT NULL,
+    task_id      BIGINT       NOT NULL,
+    user_id      BIGINT       NOT NULL,
+    status       VARCHAR(32),
+    occurred_at  TIMESTAMP(6) NOT NULL
+);
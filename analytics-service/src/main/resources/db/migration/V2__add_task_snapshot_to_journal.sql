@@ -0,0 +1,2 @@
+-- The journal now belongs to the inbox and is replayed to every listener, so it keeps the whole event
+ALTER TABLE task_event_journal ADD COLUMN task_snapshot VARCHAR(4000);
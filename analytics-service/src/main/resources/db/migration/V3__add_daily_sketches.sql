@@ -0,0 +1,9 @@
+-- Creation time of every task, needed to measure completion latency on the transition to DONE
+ALTER TABLE aggregation_task_state ADD COLUMN created_at TIMESTAMP(6);
+
+-- Service-wide sketches per day: HyperLogLog of active users and DDSketch of completion latency
+CREATE TABLE aggregation_daily_sketch (
+    bucket_day         DATE  PRIMARY KEY,
+    active_users       BYTEA NOT NULL,
+    completion_latency BYTEA NOT NULL
+);
@@ -0,0 +1,180 @@
+package org.example.analytics.aggregation;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.analytics.dto.DailyStats;
+import org.example.analytics.dto.SketchExport;
+import org.example.analytics.dto.SketchSummary;
+import org.example.analytics.dto.UserStats;
+import org.example.analytics.events.TaskEvent;
+import org.example.analytics.events.TaskEventInbox;
+import org.example.analytics.events.TaskEventJournal;
+import org.example.analytics.events.TaskEventListener;
+import org.example.analytics.events.TaskEventType;
+import org.example.analytics.events.TaskSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class AggregationEngineTest {
+
+    private static final AtomicLong USERS = new AtomicLong(1000);
+    private static final AtomicLong TASKS = new AtomicLong(1000);
+
+    @Autowired
+    private TaskEventInbox inbox;
+
+    @Autowired
+    private AggregationEngine engine;
+
+    @Autowired
+    private AggregationStore store;
+
+    @Autowired
+    private TaskEventJournal journal;
+
+    private long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = USERS.incrementAndGet();
+    }
+
+    @Test
+    void updatesStatsIncrementallyFromEvents() {
+        LocalDateTime now = LocalDateTime.now();
+        long first = TASKS.incrementAndGet();
+        long second = TASKS.incrementAndGet();
+        long third = TASKS.incrementAndGet();
+        deliver(event(TaskEventType.CREATED, first, "TODO", now.minusDays(2)),
+                event(TaskEventType.CREATED, second, "TODO", now.minusDays(1)),
+                event(TaskEventType.CREATED, third, "IN_PROGRESS", now),
+                event(TaskEventType.STATUS_CHANGED, first, "DONE", now),
+                event(TaskEventType.UPDATED, first, "DONE", now),
+                event(TaskEventType.STATUS_CHANGED, second, "OVERDUE", now),
+                event(TaskEventType.DELETED, third, "IN_PROGRESS", now));
+
+        UserStats stats = engine.userStats(userId, 7);
+
+        assertThat(stats.getTotal()).isEqualTo(2);
+        assertThat(stats.getDone()).isEqualTo(1);
+        assertThat(stats.getOverdue()).isEqualTo(1);
+        assertThat(stats.getCompletionRate()).isEqualTo(0.5);
+        assertThat(stats.getOverdueRatio()).isEqualTo(1.0);
+        assertThat(stats.getCreatedInWindow()).isEqualTo(3);
+        // Повторное UPDATED со статусом DONE не считается вторым выполнением
+        assertThat(stats.getCompletedInWindow()).isEqualTo(1);
+        assertThat(engine.userStats(userId, 1).getCreatedInWindow()).isEqualTo(1);
+
+        List<DailyStats> daily = engine.daily(userId, 3);
+        assertThat(daily).extracting(DailyStats::getCreated).containsExactly(1, 1, 1);
+        assertThat(daily).extracting(DailyStats::getCompleted).containsExactly(0, 0, 1);
+    }
+
+    @Test
+    void restoresFromCheckpointAndJournal() {
+        LocalDateTime now = LocalDateTime.now();
+        long first = TASKS.incrementAndGet();
+        long second = TASKS.incrementAndGet();
+        deliver(event(TaskEventType.CREATED, first, "TODO", now),
+                event(TaskEventType.CREATED, second, "TODO", now));
+        engine.checkpoint();
+        assertThat(engine.durableOffset()).isEqualTo(engine.lastAppliedOffset());
+
+        // После контрольной точки события есть только в журнале
+        deliver(event(TaskEventType.STATUS_CHANGED, first, "DONE", now),
+                event(TaskEventType.DELETED, second, "TODO", now));
+
+        AggregationEngine restarted = new AggregationEngine(store, 90);
+        restarted.restore();
+        assertThat(restarted.lastAppliedOffset()).isLessThan(engine.lastAppliedOffset());
+        StaticListableBeanFactory listeners = new StaticListableBeanFactory();
+        listeners.addBean("restarted", restarted);
+        new TaskEventInbox(listeners.getBeanProvider(TaskEventListener.class), journal, new SimpleMeterRegistry());
+
+        assertThat(restarted.lastAppliedOffset()).isEqualTo(engine.lastAppliedOffset());
+        UserStats expected = engine.userStats(userId, 7);
+        UserStats restored = restarted.userStats(userId, 7);
+        assertThat(restored).usingRecursiveComparison().isEqualTo(expected);
+        assertThat(restored.getDone()).isEqualTo(1);
+        assertThat(restored.getTotal()).isEqualTo(1);
+        assertThat(restored.getCreatedInWindow()).isEqualTo(2);
+        assertThat(restored.getCompletedInWindow()).isEqualTo(1);
+    }
+
+    @Test
+    void maintainsDailySketchesAcrossRestart() {
+        // Отдельный день, чтобы события других тестов не попали в скетчи
+        LocalDate day = LocalDate.now().minusDays(20);
+        LocalDateTime createdAt = day.atTime(9, 0);
+        long task = TASKS.incrementAndGet();
+        TaskEvent created = event(TaskEventType.CREATED, task, "TODO", createdAt);
+        created.setTask(snapshot(task, createdAt));
+        deliver(created, event(TaskEventType.STATUS_CHANGED, task, "DONE", createdAt.plusHours(2)));
+        userId = USERS.incrementAndGet();
+        deliver(event(TaskEventType.CREATED, TASKS.incrementAndGet(), "TODO", createdAt));
+
+        List<Double> quantiles = List.of(0.5, 0.99);
+        SketchSummary summary = engine.sketchSummary(day, day.plusDays(1), quantiles);
+        assertThat(summary.getActiveUsers()).isEqualTo(2);
+        assertThat(summary.getCompletions()).isEqualTo(1);
+        assertThat(summary.getCompletionLatency()).extracting(SketchSummary.LatencyQuantile::seconds)
+                .allSatisfy(seconds -> assertThat(Math.abs(seconds - 7200)).isLessThanOrEqualTo(72));
+
+        engine.checkpoint();
+        AggregationEngine restarted = new AggregationEngine(store, 90);
+        restarted.restore();
+        SketchExport export = restarted.exportSketches(day, day.plusDays(1));
+        assertThat(export.getActiveUsers()).isEqualTo(engine.exportSketches(day, day.plusDays(1)).getActiveUsers());
+
+        // Слияние одинаковых скетчей двух реплик не удваивает пользователей, но складывает выполнения
+        SketchSummary merged = engine.mergeSketches(List.of(export, engine.exportSketches(day, day.plusDays(1))),
+                quantiles);
+        assertThat(merged.getActiveUsers()).isEqualTo(2);
+        assertThat(merged.getCompletions()).isEqualTo(2);
+    }
+
+    @Test
+    void ignoresRedeliveredBatch() {
+        TaskEvent created = event(TaskEventType.CREATED, TASKS.incrementAndGet(), "TODO", LocalDateTime.now());
+        deliver(created);
+        inbox.accept(List.of(created));
+
+        assertThat(engine.userStats(userId, 7).getCreatedInWindow()).isEqualTo(1);
+    }
+
+    private void deliver(TaskEvent... events) {
+        for (TaskEvent event : events) {
+            event.setOffset(inbox.getLastOffset() + 1 + List.of(events).indexOf(event));
+        }
+        inbox.accept(List.of(events));
+    }
+
+    private TaskSnapshot snapshot(long taskId, LocalDateTime createdAt) {
+        TaskSnapshot snapshot = new TaskSnapshot();
+        snapshot.setId(taskId);
+        snapshot.setUserId(userId);
+        snapshot.setStatus("TODO");
+        snapshot.setCreatedAt(createdAt);
+        return snapshot;
+    }
+
+    private TaskEvent event(TaskEventType type, long taskId, String status, LocalDateTime occurredAt) {
+        TaskEvent event = new TaskEvent();
+        event.setType(type);
+        event.setTaskId(taskId);
+        event.setUserId(userId);
+        event.setStatus(status);
+        event.setOccurredAt(occurredAt);
+        return event;
+    }
+}
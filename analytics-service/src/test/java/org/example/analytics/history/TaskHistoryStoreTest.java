@@ -0,0 +1,119 @@
+package org.example.analytics.history;
+
+import org.example.analytics.dto.CompletionTimeStats;
+import org.example.analytics.dto.PriorityMix;
+import org.example.analytics.events.TaskEvent;
+import org.example.analytics.events.TaskEventType;
+import org.example.analytics.events.TaskSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskHistoryStoreTest {
+
+    private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2024, 1, 15);
+
+    @TempDir
+    Path directory;
+
+    private long offset;
+
+    @Test
+    void answersFromTailSegmentAndBoth() throws IOException {
+        TaskHistoryStore store = open();
+        // Задачи 1..10 выполнены за 1..10 часов, приоритеты по кругу
+        for (int task = 1; task <= 10; task++) {
+            LocalDateTime created = FROM.atTime(9, 0).plusDays(task % 7);
+            deliver(store, event(TaskEventType.CREATED, task, "TODO", created, snapshot(task, created)));
+            deliver(store, event(TaskEventType.STATUS_CHANGED, task, "DONE", created.plusHours(task), null));
+        }
+        CompletionTimeStats fromTail = store.completionTimes(null, null, FROM, TO);
+        assertThat(fromTail.getCount()).isEqualTo(10);
+        assertThat(fromTail.getP50Seconds()).isEqualTo(5 * 3600);
+        assertThat(fromTail.getP90Seconds()).isEqualTo(9 * 3600);
+
+        store.snapshot();
+        assertThat(store.durableOffset()).isEqualTo(offset);
+        assertThat(store.completionTimes(null, null, FROM, TO))
+                .usingRecursiveComparison().isEqualTo(fromTail);
+
+        // После снимка: задача 10 переоткрыта, задача 9 удалена — их строки в сегменте вытеснены
+        deliver(store, event(TaskEventType.STATUS_CHANGED, 10, "IN_PROGRESS", FROM.atTime(12, 0), null));
+        deliver(store, event(TaskEventType.DELETED, 9, "DONE", FROM.atTime(12, 0), null));
+        CompletionTimeStats mixed = store.completionTimes(null, null, FROM, TO);
+        assertThat(mixed.getCount()).isEqualTo(8);
+        assertThat(mixed.getP99Seconds()).isEqualTo(8 * 3600);
+        assertThat(store.completionTimes(2L, "HIGH", FROM, TO).getCount()).isEqualTo(1);
+
+        store.snapshot();
+        TaskHistoryStore reopened = open();
+        assertThat(reopened.durableOffset()).isEqualTo(offset);
+        assertThat(reopened.completionTimes(null, null, FROM, TO)).usingRecursiveComparison().isEqualTo(mixed);
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    @Test
+    void groupsCreatedTasksByBucketAndPriority() throws IOException {
+        TaskHistoryStore store = open();
+        for (int task = 1; task <= 9; task++) {
+            LocalDateTime created = FROM.atStartOfDay().plusDays(task - 1);
+            deliver(store, event(TaskEventType.CREATED, task, "TODO", created, snapshot(task, created)));
+        }
+        store.snapshot();
+        deliver(store, event(TaskEventType.DELETED, 1, "TODO", FROM.atTime(12, 0), null));
+
+        List<PriorityMix> mix = store.priorityMix(null, FROM, FROM.plusDays(9), 3);
+
+        assertThat(mix).extracting(PriorityMix::getBucketStart)
+                .containsExactly(FROM, FROM.plusDays(3), FROM.plusDays(6));
+        // Задача 1 (MEDIUM) удалена
+        assertThat(mix).extracting(bucket -> bucket.getLow() + "/" + bucket.getMedium() + "/" + bucket.getHigh())
+                .containsExactly("1/0/1", "1/1/1", "1/1/1");
+    }
+
+    private TaskHistoryStore open() throws IOException {
+        TaskHistoryStore store = new TaskHistoryStore(directory);
+        store.open();
+        return store;
+    }
+
+    private void deliver(TaskHistoryStore store, TaskEvent event) {
+        event.setOffset(++offset);
+        store.onEvents(List.of(event));
+    }
+
+    private static TaskSnapshot snapshot(long task, LocalDateTime created) {
+        TaskSnapshot snapshot = new TaskSnapshot();
+        snapshot.setId(task);
+        snapshot.setUserId(task % 4);
+        snapshot.setPriority(HistoryCodec.PRIORITIES[(int) (task % 3)]);
+        snapshot.setStatus("TODO");
+        snapshot.setCreatedAt(created);
+        snapshot.setDeadline(created.plusDays(3));
+        return snapshot;
+    }
+
+    private static TaskEvent event(TaskEventType type, long task, String status, LocalDateTime occurredAt,
+                                   TaskSnapshot snapshot) {
+        TaskEvent event = new TaskEvent();
+        event.setType(type);
+        event.setTaskId(task);
+        event.setUserId(task % 4);
+        event.setStatus(status);
+        event.setOccurredAt(occurredAt);
+        event.setTask(snapshot);
+        return event;
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.analytics.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.offset;
+
+class DDSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.01, 0.25, 0.5, 0.9, 0.99, 0.999, 1};
+
+    @Test
+    void quantilesWithinRelativeAccuracy() {
+        // Логнормальное распределение: от секунд до месяцев, как время выполнения задач
+        Random random = new Random(7);
+        double[] values = new double[200_000];
+        DDSketch sketch = new DDSketch();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.round(Math.exp(9 + 2.5 * random.nextGaussian()));
+            sketch.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double quantile : QUANTILES) {
+            double exact = values[(int) Math.floor(quantile * (values.length - 1))];
+            assertThat(sketch.quantile(quantile))
+                    .isCloseTo(exact, offset(exact * DDSketch.RELATIVE_ACCURACY + 1e-9));
+        }
+        assertThat(sketch.count()).isEqualTo(values.length);
+    }
+
+    @Test
+    void mergeEqualsSketchOfUnion() {
+        Random random = new Random(11);
+        DDSketch left = new DDSketch();
+        DDSketch right = new DDSketch();
+        DDSketch union = new DDSketch();
+        for (int i = 0; i < 100_000; i++) {
+            double value = random.nextInt(1_000_000);
+            (i % 2 == 0 ? left : right).add(value);
+            union.add(value);
+        }
+
+        left.merge(right);
+
+        for (double quantile : QUANTILES) {
+            assertThat(left.quantile(quantile)).isEqualTo(union.quantile(quantile));
+        }
+        assertThat(left.count()).isEqualTo(union.count());
+    }
+
+    @Test
+    void extremeOutliersKeepAccuracyAndCollapseOnlyTheLowestBuckets() {
+        // Выбросы приходят чужим экспортом, как в /merge; от 1e-8 до 1e27 — около 4030 корзин, всё помещается
+        DDSketch outliers = new DDSketch();
+        for (double outlier : new double[]{1e-8, 1e26, 1e27}) {
+            outliers.add(outlier);
+        }
+        DDSketch sketch = sketchOfOneToThousand();
+        sketch.merge(DDSketch.fromBytes(outliers.toBytes()));
+
+        assertThat(sketch.count()).isEqualTo(1003);
+        assertThat(sketch.quantile(0)).isCloseTo(1e-8, offset(1e-8 * DDSketch.RELATIVE_ACCURACY));
+        assertThat(sketch.quantile(0.5)).isCloseTo(501, offset(501 * DDSketch.RELATIVE_ACCURACY));
+        assertThat(sketch.quantile(0.99)).isCloseTo(991, offset(991 * DDSketch.RELATIVE_ACCURACY));
+        assertThat(sketch.quantile(1)).isCloseTo(1e27, offset(1e27 * DDSketch.RELATIVE_ACCURACY));
+
+        // 1e36 уже не помещается: сворачиваются только самые нижние корзины, около 49 штук
+        DDSketch wide = sketchOfOneToThousand();
+        wide.add(1e36);
+
+        assertThat(wide.quantile(0)).isBetween(2.0, 3.0);
+        assertThat(wide.quantile(0.01)).isCloseTo(11, offset(11 * DDSketch.RELATIVE_ACCURACY));
+        assertThat(wide.quantile(0.5)).isCloseTo(501, offset(501 * DDSketch.RELATIVE_ACCURACY));
+        assertThat(wide.quantile(1)).isCloseTo(1e36, offset(1e36 * DDSketch.RELATIVE_ACCURACY));
+        assertThat(wide.toBytes().length).isLessThan(4096 + 32);
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        DDSketch sketch = new DDSketch();
+        sketch.add(0);
+        for (int i = 1; i <= 10_000; i++) {
+            sketch.add(i * 17.0);
+        }
+
+        DDSketch restored = DDSketch.fromBytes(sketch.toBytes());
+
+        assertThat(restored.count()).isEqualTo(sketch.count());
+        for (double quantile : QUANTILES) {
+            assertThat(restored.quantile(quantile)).isEqualTo(sketch.quantile(quantile));
+        }
+        assertThat(new DDSketch().quantile(0.5)).isNaN();
+    }
+
+    private static DDSketch sketchOfOneToThousand() {
+        DDSketch sketch = new DDSketch();
+        for (int i = 1; i <= 1000; i++) {
+            sketch.add(i);
+        }
+        return sketch;
+    }
+}
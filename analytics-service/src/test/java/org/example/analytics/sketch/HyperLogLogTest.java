@@ -0,0 +1,58 @@
+package org.example.analytics.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HyperLogLogTest {
+
+    @Test
+    void estimatesWithinDocumentedError() {
+        // Три стандартные ошибки (~2.4%) на разных порядках величины
+        for (int cardinality : new int[]{100, 10_000, 1_000_000}) {
+            HyperLogLog sketch = new HyperLogLog();
+            for (long user = 0; user < cardinality; user++) {
+                sketch.add(user);
+                sketch.add(user);
+            }
+            double error = Math.abs(sketch.estimate() - cardinality) / (double) cardinality;
+            assertThat(error).isLessThan(3 * HyperLogLog.RELATIVE_STANDARD_ERROR);
+        }
+    }
+
+    @Test
+    void mergeEqualsSketchOfUnion() {
+        HyperLogLog left = new HyperLogLog();
+        HyperLogLog right = new HyperLogLog();
+        HyperLogLog union = new HyperLogLog();
+        for (long user = 0; user < 300_000; user++) {
+            // Множества пересекаются на трети пользователей
+            if (user % 3 != 1) {
+                left.add(user);
+            }
+            if (user % 3 != 0) {
+                right.add(user);
+            }
+            union.add(user);
+        }
+
+        left.merge(right);
+
+        assertThat(left.toBytes()).isEqualTo(union.toBytes());
+    }
+
+    @Test
+    void roundTripsThroughBytes() {
+        HyperLogLog sketch = new HyperLogLog();
+        for (long user = 0; user < 50_000; user++) {
+            sketch.add(user * 31);
+        }
+
+        HyperLogLog restored = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertThat(restored.estimate()).isEqualTo(sketch.estimate());
+        assertThatThrownBy(() -> HyperLogLog.fromBytes(new byte[16]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
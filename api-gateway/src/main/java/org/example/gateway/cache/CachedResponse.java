@@ -0,0 +1,63 @@
+package org.example.gateway.cache;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.util.DigestUtils;
+
+import java.util.Set;
+
+/**
+ * Fully buffered upstream response shared between coalesced requests and kept in the response cache.
+ */
+public class CachedResponse {
+    private final HttpStatusCode status;
+    private final HttpHeaders headers;
+    private final byte[] body;
+    private final String etag;
+    private final String scope;
+    // Пользователи из userId/userIds запроса; пусто — ответ не привязан к пользователю
+    private final Set<String> userIds;
+
+    // Конструкторы
+    public CachedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body, String scope, Set<String> userIds) {
+        HttpHeaders copy = new HttpHeaders();
+        copy.addAll(headers);
+        // Длина и кодирование выставляются заново при каждой отдаче
+        copy.remove(HttpHeaders.CONTENT_LENGTH);
+        copy.remove(HttpHeaders.TRANSFER_ENCODING);
+        copy.remove(HttpHeaders.CONNECTION);
+        copy.remove(HttpHeaders.ETAG);
+        this.status = status;
+        this.headers = HttpHeaders.readOnlyHttpHeaders(copy);
+        this.body = body;
+        this.etag = "\"0" + DigestUtils.md5DigestAsHex(body) + "\"";
+        this.scope = scope;
+        this.userIds = Set.copyOf(userIds);
+    }
+
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null || !status.is2xxSuccessful()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Изменение без userId задевает всю область, ответ без пользователей — любое изменение в области
+    public boolean belongsTo(String scope, String userId) {
+        return this.scope.equals(scope) && (userId == null || userIds.isEmpty() || userIds.contains(userId));
+    }
+
+    // Геттеры
+    public HttpStatusCode getStatus() { return status; }
+    public HttpHeaders getHeaders() { return headers; }
+    public byte[] getBody() { return body; }
+    public String getEtag() { return etag; }
+    public String getScope() { return scope; }
+    public Set<String> getUserIds() { return userIds; }
+}
@@ -0,0 +1,277 @@
+package org.example.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-TTL cache for GET responses with request coalescing: identical GETs that arrive while the first
+ * one is still upstream wait for its response instead of going to the backend themselves. Responses carry
+ * an ETag and If-None-Match is answered with 304. Bodies are held in memory only up to the size limit; a
+ * larger body is streamed through uncached. Any other method on a cached path invalidates the entries of its
+ * service, narrowed to one user when the request has a userId parameter: entries of that user, of several
+ * users including it ({@code userIds}) and entries tied to no user at all.
+ */
+@Component
+public class ResponseCacheFilter implements GlobalFilter, Ordered {
+
+    // Ключ кэша запроса: по нему fallback находит последнюю удачную копию ответа
+    public static final String CACHE_KEY_ATTR = ResponseCacheFilter.class.getName() + ".key";
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final Cache<String, CachedResponse> entries;
+    private final StaleResponseStore staleResponses;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    // Увеличивается при каждой инвалидации: ответ, начатый до неё, в кэш не попадает
+    private final AtomicLong invalidations = new AtomicLong();
+    private final boolean enabled;
+    private final List<String> paths;
+    private final int maxBodySize;
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter coalesced;
+    private final Counter notModified;
+
+    public ResponseCacheFilter(MeterRegistry meterRegistry,
+                               StaleResponseStore staleResponses,
+                               @Value("${gateway.response-cache.enabled:true}") boolean enabled,
+                               @Value("${gateway.response-cache.paths:/api/tasks/**}") List<String> paths,
+                               @Value("${gateway.response-cache.ttl:2s}") Duration ttl,
+                               @Value("${gateway.response-cache.maximum-size:10000}") long maximumSize,
+                               @Value("${gateway.response-cache.max-body-size:262144}") int maxBodySize) {
+        this.staleResponses = staleResponses;
+        this.enabled = enabled;
+        this.paths = paths;
+        this.maxBodySize = maxBodySize;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "gateway.responses");
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.coalesced = requests(meterRegistry, "coalesced");
+        this.notModified = requests(meterRegistry, "not_modified");
+        meterRegistry.gauge("gateway.response.cache.in.flight", inFlight, Map::size);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getPath().pathWithinApplication().value();
+        if (!enabled || paths.stream().noneMatch(pattern -> PATH_MATCHER.match(pattern, path))) {
+            return chain.filter(exchange);
+        }
+        HttpMethod method = request.getMethod();
+        if (HttpMethod.GET.equals(method)) {
+            return isCacheable(request) ? serve(exchange, chain, path) : chain.filter(exchange);
+        }
+        if (HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)) {
+            return chain.filter(exchange);
+        }
+        String userId = request.getQueryParams().getFirst("userId");
+        // До отправки ответа клиенту: следующий его GET уже не увидит старые данные
+        exchange.getResponse().beforeCommit(() -> Mono.fromRunnable(() -> invalidate(scope(path), userId)));
+        return chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        // Раньше NettyWriteResponseFilter, чтобы тело ответа писалось через наш декоратор
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, GatewayFilterChain chain, String path) {
+        ServerHttpRequest request = exchange.getRequest();
+        String key = key(request, path);
+        exchange.getAttributes().put(CACHE_KEY_ATTR, key);
+        CachedResponse cached = entries.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return write(exchange, cached);
+        }
+
+        InFlight leader = new InFlight(Sinks.one(), scope(path), userIds(request));
+        InFlight existing = inFlight.putIfAbsent(key, leader);
+        if (existing != null) {
+            coalesced.increment();
+            // Если запрос-лидер не получил ответа, идём в upstream сами
+            return existing.sink().asMono()
+                    .flatMap(response -> write(exchange, response))
+                    .onErrorResume(e -> chain.filter(exchange));
+        }
+
+        misses.increment();
+        long generation = invalidations.get();
+        ServerHttpResponseDecorator capturing = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                // Тело копится, пока укладывается в maxBodySize; первая порция сверх лимита уходит клиенту
+                // вместе с накопленным, остальное — потоком
+                AtomicLong size = new AtomicLong();
+                return Flux.<DataBuffer>from(body)
+                        .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                        .bufferUntil(buffer -> size.addAndGet(buffer.readableByteCount()) > maxBodySize)
+                        .switchOnFirst((first, parts) -> first.hasValue() && size.get() <= maxBodySize
+                                ? parts.concatMap(this::capture)
+                                : streamThrough(parts))
+                        .then();
+            }
+
+            private Mono<Void> capture(List<DataBuffer> parts) {
+                DataBuffer buffer = bufferFactory().join(parts);
+                byte[] bytes = new byte[buffer.readableByteCount()];
+                buffer.read(bytes);
+                DataBufferUtils.release(buffer);
+                CachedResponse response = new CachedResponse(getStatusCode(), getHeaders(), bytes,
+                        leader.scope(), leader.userIds());
+                boolean fresh = !exchange.getAttributes().containsKey(StaleResponseStore.SERVED_STALE_ATTR);
+                complete(key, leader, response, fresh ? generation : -1);
+                if (response.matches(request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH))) {
+                    notModified.increment();
+                    getDelegate().setStatusCode(HttpStatus.NOT_MODIFIED);
+                    getDelegate().getHeaders().setETag(response.getEtag());
+                    getDelegate().getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                    return getDelegate().setComplete();
+                }
+                getDelegate().getHeaders().setETag(response.getEtag());
+                return getDelegate().writeWith(Mono.just(bufferFactory().wrap(bytes)));
+            }
+
+            // Слишком большое или пустое тело: ожидающие сразу идут в upstream сами, ответ не кэшируется
+            private Mono<Void> streamThrough(Flux<List<DataBuffer>> parts) {
+                abandon(key, leader);
+                return getDelegate().writeWith(parts.concatMapIterable(buffers -> buffers));
+            }
+        };
+        return chain.filter(exchange.mutate().response(capturing).build())
+                // Ответ не дошёл до writeWith (ошибка, отмена, нет тела) — отпускаем ожидающих
+                .doFinally(signal -> abandon(key, leader));
+    }
+
+    private void abandon(String key, InFlight leader) {
+        if (inFlight.remove(key, leader)) {
+            leader.sink().tryEmitError(new IllegalStateException("Upstream response was not captured"));
+        }
+    }
+
+    // generation = -1: ответ не из upstream (устаревшая копия от fallback), в кэш не кладётся
+    private void complete(String key, InFlight leader, CachedResponse response, long generation) {
+        if (response.getStatus().value() == HttpStatus.OK.value() && response.getBody().length <= maxBodySize
+                && invalidations.get() == generation) {
+            entries.put(key, response);
+            staleResponses.put(key, response);
+        }
+        inFlight.remove(key, leader);
+        leader.sink().tryEmitValue(response);
+    }
+
+    private Mono<Void> write(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setETag(cached.getEtag());
+        if (cached.matches(exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH))) {
+            notModified.increment();
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        response.setStatusCode(cached.getStatus());
+        response.getHeaders().addAll(cached.getHeaders());
+        response.getHeaders().setContentLength(cached.getBody().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.getBody())));
+    }
+
+    private void invalidate(String scope, String userId) {
+        invalidations.incrementAndGet();
+        entries.asMap().values().removeIf(response -> response.belongsTo(scope, userId));
+        staleResponses.invalidate(scope, userId);
+        inFlight.values().removeIf(request -> request.scope().equals(scope)
+                && (userId == null || request.userIds().isEmpty() || request.userIds().contains(userId)));
+    }
+
+    private boolean isCacheable(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        // Потоковые ответы (NDJSON, SSE) не буферизуются
+        for (MediaType accept : headers.getAccept()) {
+            if (MediaType.APPLICATION_NDJSON.equalsTypeAndSubtype(accept)
+                    || MediaType.TEXT_EVENT_STREAM.equalsTypeAndSubtype(accept)) {
+                return false;
+            }
+        }
+        String cacheControl = headers.getCacheControl();
+        return cacheControl == null || !cacheControl.contains("no-cache");
+    }
+
+    private static String key(ServerHttpRequest request, String path) {
+        StringBuilder key = new StringBuilder(path).append('?');
+        MultiValueMap<String, String> params = request.getQueryParams();
+        new TreeMap<>(params).forEach((name, values) -> values.forEach(value ->
+                key.append(name).append('=').append(value).append('&')));
+        return key.append('|').append(request.getHeaders().getFirst(HttpHeaders.ACCEPT)).toString();
+    }
+
+    // Пользователи запроса: userId и список userIds (через запятую или повтором параметра)
+    private static Set<String> userIds(ServerHttpRequest request) {
+        Set<String> userIds = new HashSet<>();
+        MultiValueMap<String, String> params = request.getQueryParams();
+        for (String name : new String[]{"userId", "userIds"}) {
+            for (String value : params.getOrDefault(name, List.of())) {
+                for (String userId : value.split(",")) {
+                    if (!userId.isBlank()) {
+                        userIds.add(userId.trim());
+                    }
+                }
+            }
+        }
+        return userIds;
+    }
+
+    // Область инвалидации — сервис: /api/tasks/5 -> /api/tasks
+    private static String scope(String path) {
+        int second = path.indexOf('/', 1);
+        int third = second < 0 ? -1 : path.indexOf('/', second + 1);
+        return third < 0 ? path : path.substring(0, third);
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.response.cache.requests")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record InFlight(Sinks.One<CachedResponse> sink, String scope, Set<String> userIds) {}
+}
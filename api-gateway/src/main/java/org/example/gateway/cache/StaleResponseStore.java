@@ -0,0 +1,52 @@
+package org.example.gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Last good 200 response of every cached GET, kept well past the response cache TTL so that fallbacks can
+ * answer with slightly old data instead of an error while the upstream is down. Mutations invalidate it
+ * together with the response cache, so a stale copy never outlives a known change.
+ */
+@Component
+public class StaleResponseStore {
+
+    // Выставляется fallback'ом, отдавшим устаревшую копию: такой ответ не должен снова попасть в кэш
+    public static final String SERVED_STALE_ATTR = StaleResponseStore.class.getName() + ".servedStale";
+
+    private final Cache<String, CachedResponse> entries;
+    private final boolean enabled;
+
+    public StaleResponseStore(MeterRegistry meterRegistry,
+                              @Value("${gateway.response-cache.stale-ttl:5m}") Duration staleTtl,
+                              @Value("${gateway.response-cache.stale-maximum-size:10000}") long maximumSize) {
+        // stale-ttl=0 отключает отдачу устаревших копий
+        this.enabled = !staleTtl.isZero() && maximumSize > 0;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(staleTtl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "gateway.responses.stale");
+    }
+
+    public void put(String key, CachedResponse response) {
+        if (enabled) {
+            entries.put(key, response);
+        }
+    }
+
+    public CachedResponse get(String key) {
+        return enabled && key != null ? entries.getIfPresent(key) : null;
+    }
+
+    public void invalidate(String scope, String userId) {
+        entries.asMap().values().removeIf(response -> response.belongsTo(scope, userId));
+    }
+}
@@ -0,0 +1,134 @@
+package org.example.gateway.concurrency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Adaptive concurrency limit per upstream instance, learned from response latency (see {@link GradientLimit}).
+ * Runs right after the load balancer has chosen the instance, ahead of the instance stats. Requests over
+ * their priority's share of the limit are answered 503 at once instead of queueing in front of an already
+ * saturated instance.
+ */
+@Component
+public class AdaptiveConcurrencyFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+
+    private static final byte[] OVERLOADED_BODY = ("{\"status\":\"SERVICE_OVERLOADED\"," +
+            "\"message\":\"Service is overloaded. Please retry later.\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    // Экземпляры приходят и уходят вместе со списком из Eureka: неиспользуемые лимитеры удаляются
+    private final Cache<String, InstanceLimiter> limiters;
+
+    public AdaptiveConcurrencyFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.limiters = Caffeine.newBuilder()
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .removalListener((String key, InstanceLimiter limiter, RemovalCause cause) -> removeMeters(key))
+                .build();
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        URI target = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+        if (!properties.isEnabled() || route == null || target == null
+                || !properties.getServices().contains(route.getUri().getHost())) {
+            return chain.filter(exchange);
+        }
+        // Поток событий (SSE) открыт часами и почти всё время простаивает: слот лимита он занимал бы зря
+        if (exchange.getRequest().getHeaders().getAccept().stream()
+                .anyMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype)) {
+            return chain.filter(exchange);
+        }
+        String service = route.getUri().getHost();
+        String key = service + '|' + target.getHost() + ':' + target.getPort();
+        InstanceLimiter limiter = limiters.get(key, this::register);
+
+        RequestPriority priority = RequestPriority.of(exchange.getRequest());
+        if (!limiter.tryAcquire(properties.shareOf(priority))) {
+            Counter.builder("gateway.concurrency.shed")
+                    .tag("service", service)
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry)
+                    .increment();
+            return overloaded(exchange.getResponse());
+        }
+
+        // Длительность потоковых ответов не говорит о задержке сервиса
+        boolean streaming = exchange.getRequest().getHeaders().getAccept().stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL || streaming) {
+                limiter.release();
+                return;
+            }
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            boolean dropped = signal == SignalType.ON_ERROR || status != null && status.is5xxServerError();
+            limiter.release(System.nanoTime() - start, dropped);
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private InstanceLimiter register(String key) {
+        InstanceLimiter limiter = new InstanceLimiter(properties.newLimit());
+        String[] tags = tags(key);
+        Gauge.builder("gateway.concurrency.limit", limiter, InstanceLimiter::getLimit)
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.in.flight", limiter, InstanceLimiter::getInFlight)
+                .tags(tags)
+                .register(meterRegistry);
+        return limiter;
+    }
+
+    private void removeMeters(String key) {
+        String[] tags = tags(key);
+        meterRegistry.find("gateway.concurrency.limit").tags(tags).meters().forEach(meterRegistry::remove);
+        meterRegistry.find("gateway.concurrency.in.flight").tags(tags).meters().forEach(meterRegistry::remove);
+    }
+
+    private static String[] tags(String key) {
+        int separator = key.indexOf('|');
+        return new String[]{"service", key.substring(0, separator), "instance", key.substring(separator + 1)};
+    }
+
+    private static Mono<Void> overloaded(ServerHttpResponse response) {
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(OVERLOADED_BODY.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(OVERLOADED_BODY)));
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.gateway.concurrency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "gateway.concurrency-limit")
+public class ConcurrencyLimitProperties {
+    private boolean enabled = true;
+    // Сервисы (хост lb://-маршрута), для которых лимит подбирается по каждому экземпляру
+    private List<String> services = List.of("task-service");
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    private int maxLimit = 500;
+    private double smoothing = 0.2;
+    private double rttTolerance = 1.5;
+    private double backoffRatio = 0.9;
+    private int longWindow = 600;
+    // Доля лимита, доступная запросам каждого приоритета
+    private Map<RequestPriority, Double> shares = new EnumMap<>(Map.of(
+            RequestPriority.STATS, 0.7,
+            RequestPriority.READ, 0.85,
+            RequestPriority.WRITE, 1.0));
+
+    public double shareOf(RequestPriority priority) {
+        return shares.getOrDefault(priority, 1.0);
+    }
+
+    public GradientLimit newLimit() {
+        return new GradientLimit(initialLimit, minLimit, maxLimit, smoothing, rttTolerance, backoffRatio, longWindow);
+    }
+
+    // Геттеры и сеттеры
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public List<String> getServices() { return services; }
+    public void setServices(List<String> services) { this.services = services; }
+
+    public int getInitialLimit() { return initialLimit; }
+    public void setInitialLimit(int initialLimit) { this.initialLimit = initialLimit; }
+
+    public int getMinLimit() { return minLimit; }
+    public void setMinLimit(int minLimit) { this.minLimit = minLimit; }
+
+    public int getMaxLimit() { return maxLimit; }
+    public void setMaxLimit(int maxLimit) { this.maxLimit = maxLimit; }
+
+    public double getSmoothing() { return smoothing; }
+    public void setSmoothing(double smoothing) { this.smoothing = smoothing; }
+
+    public double getRttTolerance() { return rttTolerance; }
+    public void setRttTolerance(double rttTolerance) { this.rttTolerance = rttTolerance; }
+
+    public double getBackoffRatio() { return backoffRatio; }
+    public void setBackoffRatio(double backoffRatio) { this.backoffRatio = backoffRatio; }
+
+    public int getLongWindow() { return longWindow; }
+    public void setLongWindow(int longWindow) { this.longWindow = longWindow; }
+
+    public Map<RequestPriority, Double> getShares() { return shares; }
+    public void setShares(Map<RequestPriority, Double> shares) { this.shares = shares; }
+}
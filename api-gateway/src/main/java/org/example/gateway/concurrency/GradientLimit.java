@@ -0,0 +1,64 @@
+package org.example.gateway.concurrency;
+
+/**
+ * Concurrency limit learned from latency, after the gradient algorithm of Netflix concurrency-limits:
+ * the limit grows by about sqrt(limit) while recent RTT stays close to the long-term RTT, and shrinks
+ * in proportion once queueing inflates it. Failed requests back the limit off multiplicatively.
+ */
+public class GradientLimit {
+
+    private static final int WARMUP_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final double backoffRatio;
+    private final int longWindow;
+
+    private volatile double estimatedLimit;
+    private double longRtt;
+    private long samples;
+
+    public GradientLimit(int initialLimit, int minLimit, int maxLimit, double smoothing,
+                         double rttTolerance, double backoffRatio, int longWindow) {
+        this.estimatedLimit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.backoffRatio = backoffRatio;
+        this.longWindow = longWindow;
+    }
+
+    public int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped) {
+            estimatedLimit = Math.max(minLimit, estimatedLimit * backoffRatio);
+            return;
+        }
+        double shortRtt = rttNanos;
+        // Долгое RTT: среднее на прогреве, дальше экспоненциальное окно
+        samples++;
+        if (samples <= WARMUP_SAMPLES) {
+            longRtt += (shortRtt - longRtt) / samples;
+        } else {
+            longRtt += (shortRtt - longRtt) * 2 / (longWindow + 1);
+        }
+        // После долгой перегрузки долгое RTT завышено — даём ему вернуться к текущему уровню
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        // Нагрузка меньше половины лимита ничего не говорит о ёмкости
+        if (inFlight < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.gateway.concurrency;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-flight counter and learned limit of one upstream instance.
+ */
+public class InstanceLimiter {
+
+    private final GradientLimit limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public InstanceLimiter(GradientLimit limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Admits the request if in-flight requests stay below the given share of the limit; lower priorities
+     * get a smaller share, so they are shed before the instance is saturated.
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = Math.max(1, (int) (limit.getLimit() * share));
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release(long rttNanos, boolean dropped) {
+        limit.onSample(rttNanos, inFlight.getAndDecrement(), dropped);
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,20 @@
+package org.example.gateway.concurrency;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+
+/**
+ * Order in which requests are shed under overload: statistics first, then reads, writes last.
+ */
+public enum RequestPriority {
+    STATS,
+    READ,
+    WRITE;
+
+    public static RequestPriority of(ServerHttpRequest request) {
+        if (!HttpMethod.GET.equals(request.getMethod()) && !HttpMethod.HEAD.equals(request.getMethod())) {
+            return WRITE;
+        }
+        return request.getPath().value().contains("/stats") ? STATS : READ;
+    }
+}
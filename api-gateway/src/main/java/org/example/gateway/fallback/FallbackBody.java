@@ -0,0 +1,56 @@
+package org.example.gateway.fallback;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Pre-serialized JSON body of a fallback response. The constant fields are encoded once; the timestamp
+ * has second precision, so the whole body is rebuilt at most once a second and the same byte array is
+ * served to every fallback within that second.
+ */
+public class FallbackBody {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final byte[] prefix;
+    private final byte[] suffix = "\"}".getBytes(StandardCharsets.UTF_8);
+    private final ZoneId zone = ZoneId.systemDefault();
+    private volatile Rendered rendered = new Rendered(Long.MIN_VALUE, new byte[0]);
+
+    // Конструкторы
+    public FallbackBody(Map<String, String> fields) {
+        JsonStringEncoder encoder = JsonStringEncoder.getInstance();
+        StringBuilder json = new StringBuilder("{");
+        fields.forEach((name, value) -> json.append('"').append(encoder.quoteAsString(name)).append("\":\"")
+                .append(encoder.quoteAsString(value)).append("\","));
+        this.prefix = json.append("\"timestamp\":\"").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public byte[] bytes() {
+        long second = Math.floorDiv(System.currentTimeMillis(), 1000);
+        Rendered current = rendered;
+        if (current.second() != second) {
+            // Гонка двух потоков на границе секунды безопасна: оба соберут одинаковое тело
+            current = render(second);
+            rendered = current;
+        }
+        return current.body();
+    }
+
+    private Rendered render(long second) {
+        byte[] timestamp = TIMESTAMP_FORMAT.format(LocalDateTime.ofInstant(Instant.ofEpochSecond(second), zone))
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] body = new byte[prefix.length + timestamp.length + suffix.length];
+        System.arraycopy(prefix, 0, body, 0, prefix.length);
+        System.arraycopy(timestamp, 0, body, prefix.length, timestamp.length);
+        System.arraycopy(suffix, 0, body, prefix.length + timestamp.length, suffix.length);
+        return new Rendered(second, body);
+    }
+
+    private record Rendered(long second, byte[] body) {}
+}
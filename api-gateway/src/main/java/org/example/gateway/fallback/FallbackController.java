@@ -1,42 +1,94 @@
 package org.example.gateway.fallback;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.gateway.cache.CachedResponse;
+import org.example.gateway.cache.ResponseCacheFilter;
+import org.example.gateway.cache.StaleResponseStore;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+/**
+ * Fallbacks are served during outages, at the highest request rate and with the least headroom, so the
+ * bodies are pre-serialized and written as raw bytes. A GET that has a last good response in
+ * {@link StaleResponseStore} gets that copy with a Warning header instead of a 503.
+ */
 @RestController
 public class FallbackController {
 
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
+    private final StaleResponseStore staleResponses;
+    private final Fallback taskService;
+    private final Fallback defaultService;
+
+    public FallbackController(StaleResponseStore staleResponses, MeterRegistry meterRegistry) {
+        this.staleResponses = staleResponses;
+
+        Map<String, String> taskServiceFields = new LinkedHashMap<>();
+        taskServiceFields.put("status", "SERVICE_UNAVAILABLE");
+        taskServiceFields.put("message", "Task Service is temporarily unavailable. Please try again later.");
+        taskServiceFields.put("service", "task-service");
+        this.taskService = new Fallback(new FallbackBody(taskServiceFields),
+                responses(meterRegistry, "task-service", "stale"),
+                responses(meterRegistry, "task-service", "unavailable"));
+
+        Map<String, String> defaultFields = new LinkedHashMap<>();
+        defaultFields.put("status", "SERVICE_UNAVAILABLE");
+        defaultFields.put("message", "Service is temporarily unavailable.");
+        this.defaultService = new Fallback(new FallbackBody(defaultFields),
+                responses(meterRegistry, "default", "stale"),
+                responses(meterRegistry, "default", "unavailable"));
+    }
+
     @RequestMapping("/fallback/task-service")
-    public Mono<ResponseEntity<Map<String, Object>>> taskServiceFallback() {
-        return Mono.fromSupplier(() -> {
-            Map<String, Object> fallbackResponse = new HashMap<>();
-            fallbackResponse.put("status", "SERVICE_UNAVAILABLE");
-            fallbackResponse.put("message", "Task Service is temporarily unavailable. Please try again later.");
-            fallbackResponse.put("timestamp", LocalDateTime.now().toString());
-            fallbackResponse.put("service", "task-service");
-
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                    .body(fallbackResponse);
-        });
+    public Mono<Void> taskServiceFallback(ServerWebExchange exchange) {
+        return serve(exchange, taskService);
     }
 
     @RequestMapping("/fallback/default")
-    public Mono<ResponseEntity<Map<String, Object>>> defaultFallback() {
-        return Mono.fromSupplier(() -> {
-            Map<String, Object> fallbackResponse = new HashMap<>();
-            fallbackResponse.put("status", "SERVICE_UNAVAILABLE");
-            fallbackResponse.put("message", "Service is temporarily unavailable.");
-            fallbackResponse.put("timestamp", LocalDateTime.now().toString());
-
-            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                    .body(fallbackResponse);
-        });
+    public Mono<Void> defaultFallback(ServerWebExchange exchange) {
+        return serve(exchange, defaultService);
     }
-}
\ No newline at end of file
+
+    private Mono<Void> serve(ServerWebExchange exchange, Fallback fallback) {
+        ServerHttpResponse response = exchange.getResponse();
+        if (HttpMethod.GET.equals(exchange.getRequest().getMethod())) {
+            CachedResponse stale = staleResponses.get(exchange.getAttribute(ResponseCacheFilter.CACHE_KEY_ATTR));
+            if (stale != null) {
+                fallback.stale().increment();
+                exchange.getAttributes().put(StaleResponseStore.SERVED_STALE_ATTR, Boolean.TRUE);
+                response.setStatusCode(stale.getStatus());
+                response.getHeaders().addAll(stale.getHeaders());
+                response.getHeaders().set(HttpHeaders.WARNING, STALE_WARNING);
+                response.getHeaders().setContentLength(stale.getBody().length);
+                return response.writeWith(Mono.just(response.bufferFactory().wrap(stale.getBody())));
+            }
+        }
+        fallback.unavailable().increment();
+        byte[] body = fallback.body().bytes();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+
+    private static Counter responses(MeterRegistry meterRegistry, String service, String result) {
+        return Counter.builder("gateway.fallback.responses")
+                .tag("service", service)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Fallback(FallbackBody body, Counter stale, Counter unavailable) {}
+}
@@ -0,0 +1,63 @@
+package org.example.gateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Outstanding requests and peak-EWMA latency of one upstream instance. A slower sample replaces the
+ * average at once (peak), faster ones pull it down gradually; without new samples the value decays
+ * toward zero, so an instance that was slow once gets probed again.
+ */
+public class InstanceStats {
+
+    private final long decayNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private double rttNanos;
+    private long updatedAt;
+    private boolean sampled;
+
+    public InstanceStats(long decayNanos) {
+        this.decayNanos = decayNanos;
+    }
+
+    public void start() {
+        inFlight.incrementAndGet();
+    }
+
+    public void complete() {
+        inFlight.decrementAndGet();
+    }
+
+    public synchronized void complete(long rtt, long now) {
+        inFlight.decrementAndGet();
+        double current = decayed(now);
+        if (!sampled || rtt > current) {
+            rttNanos = rtt;
+        } else {
+            double weight = Math.exp(-(double) (now - updatedAt) / decayNanos);
+            rttNanos = current * weight + rtt * (1 - weight);
+        }
+        updatedAt = now;
+        sampled = true;
+    }
+
+    /**
+     * Expected wait on this instance: latency times the queue the new request would join.
+     */
+    public synchronized double cost(long now, double unsampledPenalty) {
+        int outstanding = inFlight.get();
+        if (!sampled) {
+            // Нового экземпляра не заваливаем: пока нет замеров, он дёшев только пустым
+            return outstanding == 0 ? 0 : unsampledPenalty + outstanding;
+        }
+        return decayed(now) * (outstanding + 1);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private double decayed(long now) {
+        return sampled ? rttNanos * Math.exp(-(double) (now - updatedAt) / decayNanos) : 0;
+    }
+}
@@ -0,0 +1,71 @@
+package org.example.gateway.loadbalancer;
+
+import org.example.gateway.concurrency.AdaptiveConcurrencyFilter;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds {@link InstanceStatsRegistry} from the instance chosen by the load balancer. Done in a filter
+ * rather than a LoadBalancerLifecycle because the lifecycle is not told about cancelled requests,
+ * which would leave their in-flight count behind forever. Runs after {@link AdaptiveConcurrencyFilter}, so
+ * requests the gateway sheds with a 503 never reach the instance and are not counted as its failures.
+ */
+@Component
+public class InstanceStatsFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = AdaptiveConcurrencyFilter.ORDER + 1;
+
+    private static final long FAILURE_RTT = TimeUnit.SECONDS.toNanos(1);
+
+    private final InstanceStatsRegistry registry;
+
+    public InstanceStatsFilter(InstanceStatsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> chosen = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (chosen == null || !chosen.hasServer()) {
+            return chain.filter(exchange);
+        }
+        // Десятки тысяч простаивающих потоков событий (SSE) не должны выглядеть как очередь к экземпляру
+        if (exchange.getRequest().getHeaders().getAccept().stream()
+                .anyMatch(MediaType.TEXT_EVENT_STREAM::equalsTypeAndSubtype)) {
+            return chain.filter(exchange);
+        }
+        InstanceStats stats = registry.get(chosen.getServer());
+        boolean streaming = exchange.getRequest().getHeaders().getAccept().stream()
+                .anyMatch(MediaType.APPLICATION_NDJSON::equalsTypeAndSubtype);
+        long start = System.nanoTime();
+        stats.start();
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL || streaming) {
+                stats.complete();
+                return;
+            }
+            long now = System.nanoTime();
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            // Ошибку считаем медленным ответом, чтобы сбойный экземпляр тоже терял долю трафика
+            boolean failed = signal == SignalType.ON_ERROR || status != null && status.is5xxServerError();
+            stats.complete(failed ? Math.max(now - start, FAILURE_RTT) : now - start, now);
+        });
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.gateway.loadbalancer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Stats of every upstream instance, keyed by host:port so they survive changes in the instance list.
+ * Instances that stop receiving traffic are dropped after the idle timeout.
+ */
+@Component
+public class InstanceStatsRegistry {
+
+    private final Cache<String, InstanceStats> stats;
+    private final long decayNanos;
+
+    public InstanceStatsRegistry(@Value("${gateway.load-balancer.decay-time:10s}") Duration decayTime,
+                                 @Value("${gateway.load-balancer.idle-timeout:10m}") Duration idleTimeout) {
+        this.decayNanos = decayTime.toNanos();
+        this.stats = Caffeine.newBuilder()
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    public InstanceStats get(ServiceInstance instance) {
+        return get(instance.getHost(), instance.getPort());
+    }
+
+    public InstanceStats get(String host, int port) {
+        return stats.get(host + ':' + port, key -> new InstanceStats(decayNanos));
+    }
+}
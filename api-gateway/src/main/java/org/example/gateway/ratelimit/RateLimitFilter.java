@@ -0,0 +1,127 @@
+package org.example.gateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-client token-bucket limit applied to every route before anything else touches the request.
+ * The client is the X-API-Key header, else the userId parameter, else the remote address. Neither the key
+ * nor the userId is authenticated here, so every request is also charged to its remote address under the
+ * address quota: rotating keys splits an address's allowance but never adds to it.
+ * Rejected requests get 429 with Retry-After in seconds.
+ */
+@Component
+public class RateLimitFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = -200;
+    public static final String API_KEY_HEADER = "X-API-Key";
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+
+    private static final byte[] TOO_MANY_REQUESTS_BODY = ("{\"status\":\"TOO_MANY_REQUESTS\"," +
+            "\"message\":\"Request rate limit exceeded. Please retry later.\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final RateLimitProperties properties;
+    private final TokenBucketRateLimiter limiter;
+    private final Counter allowed;
+    private final Counter denied;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.limiter = new TokenBucketRateLimiter(properties.getMaxBuckets(), properties.getIdleTimeout());
+        CaffeineCacheMetrics.monitor(meterRegistry, limiter.getBuckets(), "gateway.ratelimit.buckets");
+        this.allowed = requests(meterRegistry, "allowed");
+        this.denied = requests(meterRegistry, "denied");
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        String routeId = route != null ? route.getId() : "default";
+        RateLimitProperties.Quota quota = properties.quotaFor(routeId);
+        if (quota.getReplenishRate() <= 0) {
+            return chain.filter(exchange);
+        }
+
+        ServerHttpRequest request = exchange.getRequest();
+        // Клиент проверяется первым: превысивший свою квоту не тратит общий запас адреса
+        long result = consume(routeId + '|' + clientKey(request), quota);
+        if (result >= 0) {
+            // Весь трафик адреса идёт в его квоту: смена X-API-Key или userId не даёт нового запаса
+            result = Math.min(result, consume(routeId + "|address|" + remoteAddress(request),
+                    properties.getAddressQuota()));
+        }
+        ServerHttpResponse response = exchange.getResponse();
+        if (result >= 0) {
+            allowed.increment();
+            response.getHeaders().set(REMAINING_HEADER, Long.toString(result));
+            return chain.filter(exchange);
+        }
+
+        denied.increment();
+        long retryAfterSeconds = Math.max(1, (-result + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.getHeaders().set(REMAINING_HEADER, "0");
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(TOO_MANY_REQUESTS_BODY.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(TOO_MANY_REQUESTS_BODY)));
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    private long consume(String key, RateLimitProperties.Quota quota) {
+        // Квота 0 — без ограничения
+        if (quota.getReplenishRate() <= 0) {
+            return quota.getBurstCapacity();
+        }
+        return limiter.tryConsume(key, quota.getReplenishRate(), quota.getBurstCapacity(), quota.getRequestedTokens());
+    }
+
+    private static String clientKey(ServerHttpRequest request) {
+        String apiKey = request.getHeaders().getFirst(API_KEY_HEADER);
+        if (apiKey != null && !apiKey.isBlank()) {
+            return "key:" + apiKey;
+        }
+        String userId = request.getQueryParams().getFirst("userId");
+        if (userId != null && !userId.isBlank()) {
+            return "user:" + userId;
+        }
+        return "ip:" + remoteAddress(request);
+    }
+
+    // За прокси адрес клиента даёт server.forward-headers-strategy; сами X-Forwarded-* здесь не читаются
+    private static String remoteAddress(ServerHttpRequest request) {
+        InetSocketAddress remoteAddress = request.getRemoteAddress();
+        return remoteAddress != null ? remoteAddress.getAddress().getHostAddress() : "anonymous";
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("gateway.ratelimit.requests")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
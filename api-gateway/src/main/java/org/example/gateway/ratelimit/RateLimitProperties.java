@@ -0,0 +1,74 @@
+package org.example.gateway.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Quotas per route id, e.g. gateway.rate-limit.routes.task-service.replenish-rate=20, with
+ * default-quota for routes that have none. address-quota caps each remote address on every route, whatever
+ * client keys its requests carry. Served by config-server and rebound on refresh.
+ */
+@Component
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private long maxBuckets = 200_000;
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private Quota defaultQuota = new Quota();
+    // Потолок для адреса: запросы с разными X-API-Key или userId с одного адреса делят его
+    private Quota addressQuota = new Quota(200, 400);
+    private Map<String, Quota> routes = new HashMap<>();
+
+    public Quota quotaFor(String routeId) {
+        return routes.getOrDefault(routeId, defaultQuota);
+    }
+
+    // Геттеры и сеттеры
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public long getMaxBuckets() { return maxBuckets; }
+    public void setMaxBuckets(long maxBuckets) { this.maxBuckets = maxBuckets; }
+
+    public Duration getIdleTimeout() { return idleTimeout; }
+    public void setIdleTimeout(Duration idleTimeout) { this.idleTimeout = idleTimeout; }
+
+    public Quota getDefaultQuota() { return defaultQuota; }
+    public void setDefaultQuota(Quota defaultQuota) { this.defaultQuota = defaultQuota; }
+
+    public Quota getAddressQuota() { return addressQuota; }
+    public void setAddressQuota(Quota addressQuota) { this.addressQuota = addressQuota; }
+
+    public Map<String, Quota> getRoutes() { return routes; }
+    public void setRoutes(Map<String, Quota> routes) { this.routes = routes; }
+
+    public static class Quota {
+        // Токенов в секунду; 0 — без ограничения
+        private long replenishRate = 50;
+        private long burstCapacity = 100;
+        private long requestedTokens = 1;
+
+        // Конструкторы
+        public Quota() {
+        }
+
+        public Quota(long replenishRate, long burstCapacity) {
+            this.replenishRate = replenishRate;
+            this.burstCapacity = burstCapacity;
+        }
+
+        // Геттеры и сеттеры
+        public long getReplenishRate() { return replenishRate; }
+        public void setReplenishRate(long replenishRate) { this.replenishRate = replenishRate; }
+
+        public long getBurstCapacity() { return burstCapacity; }
+        public void setBurstCapacity(long burstCapacity) { this.burstCapacity = burstCapacity; }
+
+        public long getRequestedTokens() { return requestedTokens; }
+        public void setRequestedTokens(long requestedTokens) { this.requestedTokens = requestedTokens; }
+    }
+}
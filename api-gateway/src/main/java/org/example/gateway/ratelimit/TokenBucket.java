@@ -0,0 +1,38 @@
+package org.example.gateway.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in GCRA form: the whole state is one "theoretical arrival time", so a bucket
+ * is a single {@link AtomicLong} updated with CAS. A bucket that has been idle long enough to refill
+ * needs no state at all, which is what makes evicting idle buckets safe.
+ */
+public final class TokenBucket {
+
+    private final AtomicLong theoreticalArrival;
+
+    public TokenBucket(long nowNanos) {
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes {@code tokens} from a bucket that refills one token per {@code intervalNanos} up to
+     * {@code capacity}. Returns the remaining tokens (zero or more) when allowed, otherwise a negative
+     * number whose absolute value is the wait in nanoseconds until the request would be allowed.
+     */
+    public long tryConsume(long nowNanos, long tokens, long intervalNanos, long capacity) {
+        long burstNanos = intervalNanos * capacity;
+        long increment = intervalNanos * tokens;
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, nowNanos) + increment;
+            long wait = next - nowNanos - burstNanos;
+            if (wait > 0) {
+                return -wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return (burstNanos - (next - nowNanos)) / intervalNanos;
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.example.gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory token buckets keyed by client and route. Memory is bounded by the bucket count, and buckets
+ * idle for longer than the idle timeout are evicted; the timeout must exceed the time a bucket takes to
+ * refill, otherwise eviction would hand out a fresh burst early.
+ */
+public class TokenBucketRateLimiter {
+
+    private final Cache<String, TokenBucket> buckets;
+
+    public TokenBucketRateLimiter(long maximumBuckets, Duration idleTimeout) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumBuckets)
+                .expireAfterAccess(idleTimeout)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Same contract as {@link TokenBucket#tryConsume}: remaining tokens, or minus the wait in nanoseconds.
+     */
+    public long tryConsume(String key, long replenishRate, long burstCapacity, long tokens) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.get(key, k -> new TokenBucket(now));
+        long intervalNanos = Math.max(1, TimeUnit.SECONDS.toNanos(1) / replenishRate);
+        return bucket.tryConsume(now, tokens, intervalNanos, burstCapacity);
+    }
+
+    public Cache<String, TokenBucket> getBuckets() {
+        return buckets;
+    }
+}
@@ -0,0 +1,206 @@
+package org.example.gateway.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheFilterTest {
+
+    private static final int MAX_BODY_SIZE = 16;
+    private static final GatewayFilterChain MUTATION = exchange -> {
+        exchange.getResponse().setStatusCode(HttpStatus.NO_CONTENT);
+        return exchange.getResponse().setComplete();
+    };
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private ResponseCacheFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        StaleResponseStore staleResponses = new StaleResponseStore(meterRegistry, Duration.ofMinutes(5), 100);
+        filter = new ResponseCacheFilter(meterRegistry, staleResponses, true, List.of("/api/tasks/**"),
+                Duration.ofMinutes(1), 100, MAX_BODY_SIZE);
+    }
+
+    @Test
+    void servesRepeatedGetsFromCacheAndAnswersMatchingIfNoneMatchWith304() {
+        MockServerWebExchange first = get("/api/tasks?userId=1");
+        filter.filter(first, upstream()).block();
+        MockServerWebExchange second = get("/api/tasks?userId=1");
+        filter.filter(second, upstream()).block();
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("v1");
+        String etag = first.getResponse().getHeaders().getETag();
+        assertThat(second.getResponse().getHeaders().getETag()).isEqualTo(etag).isNotNull();
+
+        MockServerWebExchange revalidated = MockServerWebExchange.from(MockServerHttpRequest.get("/api/tasks?userId=1")
+                .header(HttpHeaders.IF_NONE_MATCH, etag));
+        filter.filter(revalidated, upstream()).block();
+        assertThat(revalidated.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(revalidated.getResponse().getBodyAsString().block()).isEmpty();
+
+        // Другие параметры — другой ключ; после инвалидации 304 отдаёт уже запрос-лидер
+        filter.filter(get("/api/tasks?userId=2"), upstream()).block();
+        filter.filter(mutation("/api/tasks/5?userId=1"), MUTATION).block();
+        String nextEtag = "\"0" + DigestUtils.md5DigestAsHex("v3".getBytes(StandardCharsets.UTF_8)) + "\"";
+        MockServerWebExchange leader = MockServerWebExchange.from(MockServerHttpRequest.get("/api/tasks?userId=1")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + nextEtag));
+        filter.filter(leader, upstream()).block();
+        assertThat(upstreamCalls).hasValue(3);
+        assertThat(leader.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(leader.getResponse().getHeaders().getETag()).isEqualTo(nextEtag);
+        assertThat(counter("hit")).isEqualTo(2);
+        assertThat(counter("miss")).isEqualTo(3);
+    }
+
+    @Test
+    void coalescesIdenticalGetsIntoOneUpstreamRequest() {
+        Sinks.Empty<Void> gate = Sinks.empty();
+        MockServerWebExchange leader = get("/api/tasks?userId=1&status=TODO");
+        MockServerWebExchange follower = get("/api/tasks?status=TODO&userId=1");
+        CompletableFuture<Void> leading = filter.filter(leader, upstream(gate.asMono())).toFuture();
+        CompletableFuture<Void> following = filter.filter(follower, upstream()).toFuture();
+
+        assertThat(upstreamCalls).hasValue(1);
+        assertThat(following).isNotDone();
+        gate.tryEmitEmpty();
+        CompletableFuture.allOf(leading, following).join();
+
+        assertThat(leader.getResponse().getBodyAsString().block()).isEqualTo("v1");
+        assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo("v1");
+        assertThat(follower.getResponse().getHeaders().getETag()).isEqualTo(leader.getResponse().getHeaders().getETag());
+        assertThat(counter("coalesced")).isEqualTo(1);
+    }
+
+    @Test
+    void mutationDuringAnInFlightGetKeepsItsResponseOutOfTheCache() {
+        Sinks.Empty<Void> gate = Sinks.empty();
+        MockServerWebExchange leader = get("/api/tasks?userId=1");
+        CompletableFuture<Void> leading = filter.filter(leader, upstream(gate.asMono())).toFuture();
+
+        filter.filter(mutation("/api/tasks/5?userId=1"), MUTATION).block();
+        // Запрос после изменения не ждёт старого лидера, а идёт в upstream сам
+        MockServerWebExchange afterMutation = get("/api/tasks?userId=1");
+        filter.filter(afterMutation, upstream()).block();
+        assertThat(afterMutation.getResponse().getBodyAsString().block()).isEqualTo("v2");
+
+        gate.tryEmitEmpty();
+        leading.join();
+        assertThat(leader.getResponse().getBodyAsString().block()).isEqualTo("v1");
+
+        MockServerWebExchange next = get("/api/tasks?userId=1");
+        filter.filter(next, upstream()).block();
+        assertThat(next.getResponse().getBodyAsString().block()).isEqualTo("v2");
+        assertThat(upstreamCalls).hasValue(2);
+    }
+
+    @Test
+    void mutationOfOneUserEvictsMultiUserStatsThatIncludeIt() {
+        filter.filter(get("/api/tasks/stats?userIds=1,2"), upstream()).block();
+        filter.filter(get("/api/tasks/stats?userIds=3&userIds=4"), upstream()).block();
+
+        filter.filter(mutation("/api/tasks/7?userId=2"), MUTATION).block();
+        filter.filter(get("/api/tasks/stats?userIds=1,2"), upstream()).block();
+        filter.filter(get("/api/tasks/stats?userIds=3&userIds=4"), upstream()).block();
+        assertThat(upstreamCalls).hasValue(3);
+
+        filter.filter(mutation("/api/tasks/7?userId=4"), MUTATION).block();
+        filter.filter(get("/api/tasks/stats?userIds=3&userIds=4"), upstream()).block();
+        assertThat(upstreamCalls).hasValue(4);
+    }
+
+    @Test
+    void streamsBodiesPastTheSizeLimitThroughUncached() {
+        Sinks.Many<String> chunks = Sinks.many().unicast().onBackpressureBuffer();
+        List<String> written = new CopyOnWriteArrayList<>();
+        MockServerWebExchange large = get("/api/tasks?userId=1");
+        large.getResponse().setWriteHandler(body -> body
+                .doOnNext(buffer -> {
+                    written.add(buffer.toString(StandardCharsets.UTF_8));
+                    DataBufferUtils.release(buffer);
+                })
+                .then());
+        GatewayFilterChain upstream = exchange -> upstreamCalls.incrementAndGet() == 1
+                ? write(exchange, chunks.asFlux())
+                : write(exchange, Flux.just("small"));
+
+        CompletableFuture<Void> streaming = filter.filter(large, upstream).toFuture();
+        chunks.tryEmitNext("0123456789");
+        MockServerWebExchange follower = get("/api/tasks?userId=1");
+        CompletableFuture<Void> following = filter.filter(follower, upstream).toFuture();
+        assertThat(written).isEmpty();
+        assertThat(following).isNotDone();
+
+        // Лимит превышен: накопленное уходит клиенту, ожидающий запрос идёт в upstream сам
+        chunks.tryEmitNext("abcdefghij");
+        assertThat(written).containsExactly("0123456789", "abcdefghij");
+        following.join();
+        assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo("small");
+        chunks.tryEmitNext("tail");
+        assertThat(written).containsExactly("0123456789", "abcdefghij", "tail");
+        assertThat(streaming).isNotDone();
+        chunks.tryEmitComplete();
+        streaming.join();
+
+        assertThat(large.getResponse().getHeaders().getETag()).isNull();
+        filter.filter(get("/api/tasks?userId=1"), upstream).block();
+        assertThat(upstreamCalls).hasValue(3);
+    }
+
+    private GatewayFilterChain upstream() {
+        return upstream(Mono.empty());
+    }
+
+    // Тело ответа — номер обращения к upstream: v1, v2, ...
+    private GatewayFilterChain upstream(Mono<Void> gate) {
+        return exchange -> {
+            String body = "v" + upstreamCalls.incrementAndGet();
+            return gate.then(Mono.defer(() -> write(exchange, Flux.just(body))));
+        };
+    }
+
+    private static Mono<Void> write(ServerWebExchange exchange, Flux<String> body) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(body.map(chunk -> (DataBuffer) response.bufferFactory()
+                .wrap(chunk.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private static MockServerWebExchange get(String uri) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(uri));
+    }
+
+    private static MockServerWebExchange mutation(String uri) {
+        return MockServerWebExchange.from(MockServerHttpRequest.put(uri));
+    }
+
+    private double counter(String result) {
+        return meterRegistry.counter("gateway.response.cache.requests", "result", result).count();
+    }
+}
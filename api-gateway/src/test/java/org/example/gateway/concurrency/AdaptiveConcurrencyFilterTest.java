@@ -0,0 +1,89 @@
+package org.example.gateway.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.gateway.loadbalancer.InstanceStats;
+import org.example.gateway.loadbalancer.InstanceStatsFilter;
+import org.example.gateway.loadbalancer.InstanceStatsRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyFilterTest {
+
+    private static final Route ROUTE = Route.async()
+            .id("task-service")
+            .uri(URI.create("lb://task-service"))
+            .predicate(exchange -> true)
+            .build();
+
+    @Test
+    void shedRequestsDoNotCountAsInstanceFailures() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(1);
+        properties.setMinLimit(1);
+        InstanceStatsRegistry registry = new InstanceStatsRegistry(Duration.ofSeconds(10), Duration.ofMinutes(10));
+        AdaptiveConcurrencyFilter limiter = new AdaptiveConcurrencyFilter(properties, new SimpleMeterRegistry());
+        InstanceStatsFilter stats = new InstanceStatsFilter(registry);
+        assertThat(stats.getOrder()).isGreaterThan(limiter.getOrder());
+
+        // Цепочка собирается по getOrder(), как в шлюзе
+        Sinks.Empty<Void> gate = Sinks.empty();
+        GatewayFilterChain chain = chain(List.of(stats, limiter), exchange -> gate.asMono().then(Mono.fromRunnable(
+                () -> exchange.getResponse().setStatusCode(HttpStatus.OK))));
+        CompletableFuture<Void> admitted = chain.filter(exchange()).toFuture();
+
+        MockServerWebExchange shed = exchange();
+        chain.filter(shed).block();
+        assertThat(shed.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(shed.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+        InstanceStats instance = registry.get("10.0.0.1", 8081);
+        assertThat(instance.getInFlight()).isEqualTo(1);
+        gate.tryEmitEmpty();
+        admitted.join();
+        // Отклонённый запрос не записан в экземпляр как медленный сбой в одну секунду
+        assertThat(instance.getInFlight()).isZero();
+        assertThat(instance.cost(System.nanoTime(), 0)).isLessThan(Duration.ofMillis(500).toNanos());
+    }
+
+    private static MockServerWebExchange exchange() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/tasks?userId=1"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR,
+                URI.create("http://10.0.0.1:8081/api/tasks?userId=1"));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(
+                new DefaultServiceInstance("task-service-1", "task-service", "10.0.0.1", 8081, false)));
+        return exchange;
+    }
+
+    private static <F extends GlobalFilter & Ordered> GatewayFilterChain chain(List<F> filters,
+                                                                               GatewayFilterChain upstream) {
+        List<F> ordered = filters.stream().sorted(Comparator.comparingInt(Ordered::getOrder)).toList();
+        GatewayFilterChain chain = upstream;
+        for (int i = ordered.size() - 1; i >= 0; i--) {
+            GlobalFilter filter = ordered.get(i);
+            GatewayFilterChain next = chain;
+            chain = exchange -> filter.filter(exchange, next);
+        }
+        return chain;
+    }
+}
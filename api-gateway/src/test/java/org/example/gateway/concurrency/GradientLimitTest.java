@@ -0,0 +1,68 @@
+package org.example.gateway.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientLimitTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    void growsWhileLatencyHoldsAndStopsAtMaxLimit() {
+        GradientLimit limit = newLimit();
+        int previous = limit.getLimit();
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(RTT, limit.getLimit(), false);
+        }
+        assertThat(limit.getLimit()).isGreaterThan(previous + 20);
+
+        for (int i = 0; i < 5_000; i++) {
+            limit.onSample(RTT, limit.getLimit(), false);
+        }
+        assertThat(limit.getLimit()).isEqualTo(200);
+    }
+
+    @Test
+    void shrinksOnceQueueingInflatesLatency() {
+        GradientLimit limit = newLimit();
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(RTT, limit.getLimit(), false);
+        }
+        int saturated = limit.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(RTT * 4, limit.getLimit(), false);
+        }
+        assertThat(limit.getLimit()).isLessThan(saturated / 2);
+
+        for (int i = 0; i < 1_000; i++) {
+            limit.onSample(RTT * 4, limit.getLimit(), false);
+        }
+        // При затяжной перегрузке лимит не опускается ниже минимума
+        assertThat(limit.getLimit()).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    void ignoresLightLoadAndBacksOffOnDrops() {
+        GradientLimit limit = newLimit();
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(RTT, 3, false);
+        }
+        // Меньше половины лимита в работе: ёмкость не проверялась
+        assertThat(limit.getLimit()).isEqualTo(20);
+
+        limit.onSample(RTT, 20, true);
+        assertThat(limit.getLimit()).isEqualTo(18);
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(RTT, 20, true);
+        }
+        assertThat(limit.getLimit()).isEqualTo(4);
+    }
+
+    private static GradientLimit newLimit() {
+        return new GradientLimit(20, 4, 200, 0.2, 1.5, 0.9, 600);
+    }
+}
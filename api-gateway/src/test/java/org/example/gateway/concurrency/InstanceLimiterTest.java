@@ -0,0 +1,51 @@
+package org.example.gateway.concurrency;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InstanceLimiterTest {
+
+    private final ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+
+    @Test
+    void shedsLowerPrioritiesFirst() {
+        // Лимит 20: статистике достаётся 14 мест, чтению 17, записи все 20
+        InstanceLimiter limiter = new InstanceLimiter(properties.newLimit());
+
+        assertThat(admitted(limiter, RequestPriority.STATS, 20)).isEqualTo(14);
+        assertThat(admitted(limiter, RequestPriority.READ, 20)).isEqualTo(3);
+        assertThat(admitted(limiter, RequestPriority.WRITE, 20)).isEqualTo(3);
+        assertThat(limiter.getInFlight()).isEqualTo(20);
+
+        // Освобождённое место достаётся записи, а статистика ждёт, пока нагрузка не спадёт ниже её доли
+        limiter.release();
+        assertThat(limiter.tryAcquire(properties.shareOf(RequestPriority.STATS))).isFalse();
+        assertThat(limiter.tryAcquire(properties.shareOf(RequestPriority.WRITE))).isTrue();
+        for (int i = 0; i < 7; i++) {
+            limiter.release();
+        }
+        assertThat(limiter.tryAcquire(properties.shareOf(RequestPriority.STATS))).isTrue();
+    }
+
+    @Test
+    void admitsOneRequestEvenWhenTheShareRoundsToZero() {
+        properties.setInitialLimit(1);
+        properties.setMinLimit(1);
+        InstanceLimiter limiter = new InstanceLimiter(properties.newLimit());
+
+        assertThat(admitted(limiter, RequestPriority.STATS, 5)).isEqualTo(1);
+        limiter.release(1_000_000, false);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    private int admitted(InstanceLimiter limiter, RequestPriority priority, int attempts) {
+        int admitted = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (limiter.tryAcquire(properties.shareOf(priority))) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+}
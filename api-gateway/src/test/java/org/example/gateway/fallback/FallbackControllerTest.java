@@ -0,0 +1,129 @@
+package org.example.gateway.fallback;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.gateway.cache.ResponseCacheFilter;
+import org.example.gateway.cache.StaleResponseStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FallbackControllerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+    private StaleResponseStore staleResponses;
+    private FallbackController fallbackController;
+    // Один фильтр наполняет хранилище, второй — с пустым кэшем — видит то же, что шлюз после истечения TTL кэша
+    private ResponseCacheFilter warm;
+    private ResponseCacheFilter expired;
+
+    @BeforeEach
+    void setUp() {
+        staleResponses = new StaleResponseStore(meterRegistry, Duration.ofMinutes(5), 100);
+        fallbackController = new FallbackController(staleResponses, meterRegistry);
+        warm = cacheFilter();
+        expired = cacheFilter();
+    }
+
+    @Test
+    void servesLastGoodCopyWithWarningAndKeepsItOutOfTheCache() {
+        warm.filter(get("/api/tasks?userId=1"), upstream()).block();
+
+        MockServerWebExchange stale = get("/api/tasks?userId=1");
+        expired.filter(stale, fallback()).block();
+        assertThat(stale.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(stale.getResponse().getHeaders().getFirst(HttpHeaders.WARNING))
+                .isEqualTo("110 - \"Response is Stale\"");
+        assertThat(stale.getResponse().getBodyAsString().block()).isEqualTo("v1");
+        assertThat(stale.getAttributes()).containsKey(StaleResponseStore.SERVED_STALE_ATTR);
+
+        // Устаревшая копия не легла в кэш: следующий GET снова идёт в upstream
+        MockServerWebExchange recovered = get("/api/tasks?userId=1");
+        expired.filter(recovered, upstream()).block();
+        assertThat(recovered.getResponse().getBodyAsString().block()).isEqualTo("v2");
+        assertThat(recovered.getResponse().getHeaders().containsKey(HttpHeaders.WARNING)).isFalse();
+        assertThat(upstreamCalls).hasValue(2);
+        assertThat(responses("task-service", "stale")).isEqualTo(1);
+    }
+
+    @Test
+    void mutationDropsStaleCopiesOfItsUserOnly() {
+        warm.filter(get("/api/tasks?userId=1"), upstream()).block();
+        warm.filter(get("/api/tasks?userId=2"), upstream()).block();
+        warm.filter(MockServerWebExchange.from(MockServerHttpRequest.put("/api/tasks/5?userId=1")), exchange -> {
+            exchange.getResponse().setStatusCode(HttpStatus.NO_CONTENT);
+            return exchange.getResponse().setComplete();
+        }).block();
+
+        MockServerWebExchange unavailable = get("/api/tasks?userId=1");
+        expired.filter(unavailable, fallback()).block();
+        assertThat(unavailable.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(unavailable.getResponse().getHeaders().containsKey(HttpHeaders.WARNING)).isFalse();
+        assertThat(unavailable.getResponse().getBodyAsString().block())
+                .startsWith("{\"status\":\"SERVICE_UNAVAILABLE\",")
+                .contains("\"service\":\"task-service\",\"timestamp\":\"");
+
+        MockServerWebExchange other = get("/api/tasks?userId=2");
+        expired.filter(other, fallback()).block();
+        assertThat(other.getResponse().getBodyAsString().block()).isEqualTo("v2");
+        assertThat(responses("task-service", "unavailable")).isEqualTo(1);
+        assertThat(responses("task-service", "stale")).isEqualTo(1);
+    }
+
+    @Test
+    void neverAnswersNonGetRequestsWithAStaleCopy() {
+        MockServerWebExchange cached = get("/api/tasks?userId=1");
+        warm.filter(cached, upstream()).block();
+        MockServerWebExchange post = MockServerWebExchange.from(MockServerHttpRequest.post("/api/tasks?userId=1"));
+        post.getAttributes().put(ResponseCacheFilter.CACHE_KEY_ATTR,
+                cached.getAttributes().get(ResponseCacheFilter.CACHE_KEY_ATTR));
+
+        fallbackController.defaultFallback(post).block();
+        assertThat(post.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(responses("default", "unavailable")).isEqualTo(1);
+    }
+
+    private ResponseCacheFilter cacheFilter() {
+        return new ResponseCacheFilter(meterRegistry, staleResponses, true, List.of("/api/tasks/**"),
+                Duration.ofMinutes(1), 100, 1024);
+    }
+
+    // Upstream недоступен: запрос переадресован на fallback
+    private GatewayFilterChain fallback() {
+        return exchange -> fallbackController.taskServiceFallback(exchange);
+    }
+
+    // Тело ответа — номер обращения к upstream: v1, v2, ...
+    private GatewayFilterChain upstream() {
+        return exchange -> {
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.OK);
+            response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            byte[] body = ("v" + upstreamCalls.incrementAndGet()).getBytes(StandardCharsets.UTF_8);
+            return response.writeWith(Mono.just((DataBuffer) response.bufferFactory().wrap(body)));
+        };
+    }
+
+    private static MockServerWebExchange get(String uri) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(uri));
+    }
+
+    private double responses(String service, String result) {
+        return meterRegistry.counter("gateway.fallback.responses", "service", service, "result", result).count();
+    }
+}
@@ -0,0 +1,155 @@
+package org.example.gateway.loadbalancer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Discrete-event simulation on a synthetic clock: a fixed number of clients send requests back to back to
+ * three instances, one of them stalled (as if in a long GC pause). Every instance answers after its own
+ * fixed delay, and InstanceStats gets exactly those timings, so the outcome does not depend on the host.
+ * The first requests, while no instance has latency samples yet, are not measured.
+ */
+class PeakEwmaLoadBalancerSimulationTest {
+
+    private static final String SERVICE = "task-service";
+    private static final int WARMUP = 100;
+    private static final int REQUESTS = 600;
+    private static final int CONCURRENCY = 8;
+    private static final Duration DECAY_TIME = Duration.ofSeconds(30);
+    private static final long FAST = Duration.ofMillis(5).toNanos();
+    private static final long STALLED = Duration.ofMillis(400).toNanos();
+
+    private static final List<ServiceInstance> INSTANCES = List.of(
+            instance("fast-1", 8081), instance("fast-2", 8082), instance("stalled", 8083));
+
+    @Test
+    void peakEwmaCutsTailLatencyWhenOneInstanceStalls() {
+        Map<String, Long> delays = delays(STALLED);
+        RoundRobinLoadBalancer roundRobin = new RoundRobinLoadBalancer(
+                ServiceInstanceListSuppliers.toProvider(SERVICE, INSTANCES.toArray(ServiceInstance[]::new)), SERVICE);
+        Result rr = simulate(now -> roundRobin.choose(new DefaultRequest<>()).block().getServer(),
+                new InstanceStatsRegistry(DECAY_TIME, Duration.ofMinutes(1)), delays, 0);
+
+        InstanceStatsRegistry registry = new InstanceStatsRegistry(DECAY_TIME, Duration.ofMinutes(1));
+        PeakEwmaLoadBalancer balancer = new PeakEwmaLoadBalancer(
+                ServiceInstanceListSuppliers.toProvider(SERVICE, INSTANCES.toArray(ServiceInstance[]::new)), registry);
+        Result peakEwma = simulate(now -> balancer.choose(INSTANCES, now).getServer(), registry, delays, 0);
+
+        // Round-robin отдаёт застрявшему экземпляру каждый третий запрос, и хвост задержек — это его пауза
+        assertThat(rr.share("stalled")).isCloseTo(1.0 / 3, within(0.01));
+        assertThat(rr.p99()).isEqualTo(STALLED);
+        assertThat(peakEwma.share("stalled")).isZero();
+        assertThat(peakEwma.p99()).isEqualTo(FAST);
+    }
+
+    @Test
+    void stalledInstanceIsProbedAgainOnceItsLatencyDecays() {
+        InstanceStatsRegistry registry = new InstanceStatsRegistry(DECAY_TIME, Duration.ofMinutes(10));
+        PeakEwmaLoadBalancer balancer = new PeakEwmaLoadBalancer(
+                ServiceInstanceListSuppliers.toProvider(SERVICE, INSTANCES.toArray(ServiceInstance[]::new)), registry);
+        Result stalled = simulate(now -> balancer.choose(INSTANCES, now).getServer(), registry, delays(STALLED), 0);
+        assertThat(stalled.share("stalled")).isZero();
+
+        // Пауза закончилась; через несколько периодов затухания экземпляр снова получает свою долю
+        long later = stalled.finishedAt() + DECAY_TIME.multipliedBy(4).toNanos();
+        Result recovered = simulate(now -> balancer.choose(INSTANCES, now).getServer(), registry, delays(FAST), later);
+        assertThat(recovered.share("stalled")).isGreaterThan(0.25);
+        assertThat(recovered.p99()).isEqualTo(FAST);
+    }
+
+    @Test
+    void newInstanceJoinsAndRemovedInstanceIsNotChosen() {
+        InstanceStatsRegistry registry = new InstanceStatsRegistry(DECAY_TIME, Duration.ofMinutes(1));
+        long now = System.nanoTime();
+        for (ServiceInstance instance : INSTANCES.subList(0, 2)) {
+            InstanceStats stats = registry.get(instance);
+            stats.start();
+            stats.complete(Duration.ofMillis(20).toNanos(), now);
+        }
+        ServiceInstance joined = instance("joined", 1);
+
+        PeakEwmaLoadBalancer balancer = new PeakEwmaLoadBalancer(
+                ServiceInstanceListSuppliers.toProvider(SERVICE, INSTANCES.get(1), joined), registry);
+        Map<String, AtomicInteger> picks = new ConcurrentHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            String id = balancer.choose(new DefaultRequest<>()).block().getServer().getInstanceId();
+            picks.computeIfAbsent(id, key -> new AtomicInteger()).incrementAndGet();
+        }
+
+        assertThat(picks).containsKey("joined");
+        assertThat(picks).doesNotContainKey(INSTANCES.get(0).getInstanceId());
+    }
+
+    // CONCURRENCY клиентов: каждый отправляет следующий запрос, как только получил ответ на предыдущий
+    private static Result simulate(Chooser chooser, InstanceStatsRegistry registry, Map<String, Long> delays,
+                                   long start) {
+        PriorityQueue<Call> calls = new PriorityQueue<>(Comparator.comparingLong(Call::finishesAt));
+        int dispatched = 0;
+        for (; dispatched < CONCURRENCY; dispatched++) {
+            calls.add(dispatch(chooser, registry, delays, dispatched, start));
+        }
+        List<Long> latencies = new ArrayList<>();
+        Map<String, Integer> hits = new HashMap<>();
+        long now = start;
+        while (!calls.isEmpty()) {
+            Call call = calls.poll();
+            now = call.finishesAt();
+            long latency = now - call.startedAt();
+            registry.get(call.instance()).complete(latency, now);
+            if (call.index() >= WARMUP) {
+                latencies.add(latency);
+                hits.merge(call.instance().getInstanceId(), 1, Integer::sum);
+            }
+            if (dispatched < WARMUP + REQUESTS) {
+                calls.add(dispatch(chooser, registry, delays, dispatched++, now));
+            }
+        }
+        latencies.sort(null);
+        return new Result(latencies.get((int) Math.ceil(latencies.size() * 0.99) - 1), hits, now);
+    }
+
+    private static Call dispatch(Chooser chooser, InstanceStatsRegistry registry, Map<String, Long> delays,
+                                 int index, long now) {
+        ServiceInstance instance = chooser.choose(now);
+        registry.get(instance).start();
+        return new Call(index, instance, now, now + delays.get(instance.getInstanceId()));
+    }
+
+    private static Map<String, Long> delays(long stalled) {
+        return Map.of("fast-1", FAST, "fast-2", FAST, "stalled", stalled);
+    }
+
+    private static ServiceInstance instance(String id, int port) {
+        return new DefaultServiceInstance(id, SERVICE, "10.0.0.1", port, false);
+    }
+
+    @FunctionalInterface
+    private interface Chooser {
+        ServiceInstance choose(long now);
+    }
+
+    private record Call(int index, ServiceInstance instance, long startedAt, long finishesAt) {}
+
+    private record Result(long p99, Map<String, Integer> hits, long finishedAt) {
+        double share(String instanceId) {
+            return hits.getOrDefault(instanceId, 0) / (double) REQUESTS;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.gateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private static final GatewayFilterChain UPSTREAM = exchange -> Mono.empty();
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        // Клиенту 5 запросов без пополнения в пределах теста, адресу — 10
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setDefaultQuota(new RateLimitProperties.Quota(1, 5));
+        properties.setAddressQuota(new RateLimitProperties.Quota(1, 10));
+        filter = new RateLimitFilter(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void limitsEachNamedClient() {
+        assertThat(admitted(20, "10.0.0.1", i -> request -> request.header(RateLimitFilter.API_KEY_HEADER, "key")))
+                .isEqualTo(5);
+        assertThat(admitted(20, "10.0.0.1", i -> request -> request.queryParam("userId", "7"))).isEqualTo(5);
+    }
+
+    @Test
+    void rotatingKeysOrUserIdsDoesNotEscapeTheAddressQuota() {
+        assertThat(admitted(20, "10.0.0.1", i -> request -> request.header(RateLimitFilter.API_KEY_HEADER, "key" + i)))
+                .isEqualTo(10);
+        assertThat(admitted(20, "10.0.0.1", i -> request -> request.queryParam("userId", Integer.toString(i))))
+                .isZero();
+
+        // Другой адрес со своим запасом
+        assertThat(admitted(20, "10.0.0.2", i -> request -> request.queryParam("userId", Integer.toString(i))))
+                .isEqualTo(10);
+        MockServerWebExchange denied = exchange("10.0.0.2", request -> request);
+        filter.filter(denied, UPSTREAM).block();
+        assertThat(denied.getResponse().getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(denied.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(denied.getResponse().getHeaders().getFirst(RateLimitFilter.REMAINING_HEADER)).isEqualTo("0");
+    }
+
+    @Test
+    void anonymousClientIsItsAddress() {
+        assertThat(admitted(20, "10.0.0.3", i -> request -> request)).isEqualTo(5);
+    }
+
+    private int admitted(int requests, String address,
+                         IntFunction<UnaryOperator<MockServerHttpRequest.BaseBuilder<?>>> customizer) {
+        int admitted = 0;
+        for (int i = 0; i < requests; i++) {
+            MockServerWebExchange exchange = exchange(address, customizer.apply(i));
+            filter.filter(exchange, UPSTREAM).block();
+            if (exchange.getResponse().getStatusCode() == null) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+
+    private static MockServerWebExchange exchange(String address,
+                                                  UnaryOperator<MockServerHttpRequest.BaseBuilder<?>> customizer) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/tasks")
+                .remoteAddress(new InetSocketAddress(address, 40000));
+        return MockServerWebExchange.from(customizer.apply(request).build());
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketRateLimiterTest {
+
+    @Test
+    void keepsOneBucketPerKey() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(100, Duration.ofMinutes(10));
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryConsume("route|user:1", 1, 5, 1)).isGreaterThanOrEqualTo(0);
+        }
+        assertThat(limiter.tryConsume("route|user:1", 1, 5, 1)).isNegative();
+        assertThat(limiter.tryConsume("route|user:2", 1, 5, 1)).isEqualTo(4);
+    }
+
+    @Test
+    void boundsTheNumberOfBuckets() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(100, Duration.ofMinutes(10));
+
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryConsume("route|user:" + i, 50, 100, 1);
+        }
+        limiter.getBuckets().cleanUp();
+
+        assertThat(limiter.getBuckets().estimatedSize()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    void evictsIdleBucketsWhichAreFullByThen() throws InterruptedException {
+        // Запас 2 при 100 токенах в секунду восстанавливается за 20 мс — быстрее, чем истекает простой
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(100, Duration.ofMillis(50));
+        limiter.tryConsume("route|user:1", 100, 2, 1);
+        limiter.tryConsume("route|user:1", 100, 2, 1);
+
+        Thread.sleep(200);
+        limiter.getBuckets().cleanUp();
+
+        assertThat(limiter.getBuckets().estimatedSize()).isZero();
+        assertThat(limiter.tryConsume("route|user:1", 100, 2, 1)).isEqualTo(1);
+    }
+}
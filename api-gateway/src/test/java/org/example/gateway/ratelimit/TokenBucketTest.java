@@ -0,0 +1,85 @@
+package org.example.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    // 10 токенов в секунду, запас 10
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long CAPACITY = 10;
+
+    @Test
+    void spendsTheBurstThenReportsTheWaitForTheNextToken() {
+        TokenBucket bucket = new TokenBucket(0);
+        for (long remaining = CAPACITY - 1; remaining >= 0; remaining--) {
+            assertThat(bucket.tryConsume(0, 1, INTERVAL, CAPACITY)).isEqualTo(remaining);
+        }
+
+        assertThat(bucket.tryConsume(0, 1, INTERVAL, CAPACITY)).isEqualTo(-INTERVAL);
+        assertThat(bucket.tryConsume(INTERVAL / 2, 1, INTERVAL, CAPACITY)).isEqualTo(-INTERVAL / 2);
+        // Отказ не расходует токенов: ровно через интервал запрос проходит
+        assertThat(bucket.tryConsume(INTERVAL, 1, INTERVAL, CAPACITY)).isZero();
+        assertThat(bucket.tryConsume(INTERVAL, 1, INTERVAL, CAPACITY)).isEqualTo(-INTERVAL);
+    }
+
+    @Test
+    void refillsAtTheReplenishRateUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(0);
+        for (int i = 0; i < CAPACITY; i++) {
+            bucket.tryConsume(0, 1, INTERVAL, CAPACITY);
+        }
+
+        // За 350 мс набралось 3 токена
+        long now = TimeUnit.MILLISECONDS.toNanos(350);
+        assertThat(bucket.tryConsume(now, 3, INTERVAL, CAPACITY)).isZero();
+        assertThat(bucket.tryConsume(now, 1, INTERVAL, CAPACITY)).isEqualTo(-TimeUnit.MILLISECONDS.toNanos(50));
+
+        // Долгий простой не копит больше запаса
+        long later = TimeUnit.SECONDS.toNanos(60);
+        assertThat(bucket.tryConsume(later, 4, INTERVAL, CAPACITY)).isEqualTo(CAPACITY - 4);
+    }
+
+    @Test
+    void neverAdmitsARequestLargerThanTheBurst() {
+        TokenBucket bucket = new TokenBucket(0);
+
+        assertThat(bucket.tryConsume(TimeUnit.HOURS.toNanos(1), CAPACITY + 1, INTERVAL, CAPACITY)).isNegative();
+        assertThat(bucket.tryConsume(TimeUnit.HOURS.toNanos(1), CAPACITY, INTERVAL, CAPACITY)).isZero();
+    }
+
+    @Test
+    void concurrentConsumersShareOneBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(0);
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int j = 0; j < 1_000; j++) {
+                    if (bucket.tryConsume(0, 1, INTERVAL, CAPACITY) >= 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(admitted).hasValue((int) CAPACITY);
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.benchmarks.analytics;
+
+import org.example.analytics.aggregation.TaskAggregates;
+import org.example.analytics.dto.UserStats;
+import org.example.analytics.events.TaskEvent;
+import org.example.analytics.events.TaskEventType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the analytics aggregates with {@value #USERS} users and {@value #TASKS} tasks loaded: applying one
+ * status change event, and answering a 30-day stats query for one user.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AggregationBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int TASKS = 1_000_000;
+    private static final String[] STATUSES = {"TODO", "IN_PROGRESS", "DONE", "OVERDUE"};
+
+    private TaskAggregates aggregates;
+    private TaskEvent event;
+    private LocalDate today;
+    private long next;
+
+    @Setup
+    public void setUp() {
+        aggregates = new TaskAggregates(90);
+        LocalDateTime now = LocalDateTime.now();
+        for (int task = 0; task < TASKS; task++) {
+            aggregates.apply(event(TaskEventType.CREATED, task, STATUSES[task % 2], now.minusDays(task % 60)));
+        }
+        aggregates.drainCheckpoint(TASKS);
+        event = event(TaskEventType.STATUS_CHANGED, 0, "DONE", now);
+        today = now.toLocalDate();
+    }
+
+    // Задачи по кругу переходят между статусами, так что каждое событие — настоящий переход
+    @Benchmark
+    public TaskAggregates applyStatusChange() {
+        long task = next++ % TASKS;
+        event.setTaskId(task);
+        event.setUserId(task % USERS);
+        event.setStatus(STATUSES[(int) ((task + next / TASKS + 1) % STATUSES.length)]);
+        aggregates.apply(event);
+        return aggregates;
+    }
+
+    @Benchmark
+    public UserStats userStats() {
+        return aggregates.userStats(next++ % USERS, today, 30, TASKS);
+    }
+
+    private static TaskEvent event(TaskEventType type, long taskId, String status, LocalDateTime occurredAt) {
+        TaskEvent event = new TaskEvent();
+        event.setType(type);
+        event.setTaskId(taskId);
+        event.setUserId(taskId % USERS);
+        event.setStatus(status);
+        event.setOccurredAt(occurredAt);
+        return event;
+    }
+}
@@ -0,0 +1,218 @@
+package org.example.benchmarks.analytics;
+
+import org.example.analytics.dto.CompletionTimeStats;
+import org.example.analytics.dto.PriorityMix;
+import org.example.analytics.events.TaskEvent;
+import org.example.analytics.events.TaskEventType;
+import org.example.analytics.events.TaskSnapshot;
+import org.example.analytics.history.TaskHistoryStore;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Three years of history, {@value #TASKS} tasks of {@value #USERS} users, queried over the whole range: the
+ * columnar segment of analytics-service against the same rows in an indexed H2 table. Both sides compute
+ * count, mean and p50/p90/p99 of completion times, and weekly priority mix.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class HistoryScanBenchmark {
+
+    private static final int TASKS = 1_000_000;
+    private static final int USERS = 1_000;
+    private static final String[] PRIORITIES = {"LOW", "MEDIUM", "HIGH"};
+    private static final LocalDate FROM = LocalDate.of(2022, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 1, 1);
+
+    private static final String COMPLETION_SQL = "SELECT COUNT(*), AVG(d), " +
+            "PERCENTILE_DISC(0.5) WITHIN GROUP (ORDER BY d), PERCENTILE_DISC(0.9) WITHIN GROUP (ORDER BY d), " +
+            "PERCENTILE_DISC(0.99) WITHIN GROUP (ORDER BY d) FROM (SELECT DATEDIFF(SECOND, created_at, " +
+            "completed_at) AS d FROM task_history WHERE status = 'DONE' AND completed_at >= ? AND completed_at < ?)";
+    private static final String PRIORITY_MIX_SQL = "SELECT DATEDIFF(SECOND, ?, created_at) / ? AS bucket, " +
+            "priority, COUNT(*) FROM task_history WHERE created_at >= ? AND created_at < ? " +
+            "GROUP BY bucket, priority ORDER BY bucket, priority";
+
+    private Path directory;
+    private TaskHistoryStore store;
+    private Connection connection;
+
+    @Setup
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("history-benchmark");
+        store = new TaskHistoryStore(directory);
+        store.open();
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:history;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE");
+        connection = dataSource.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE task_history (task_id BIGINT PRIMARY KEY, user_id BIGINT, " +
+                    "status VARCHAR(32), priority VARCHAR(32), created_at TIMESTAMP, deadline TIMESTAMP, " +
+                    "completed_at TIMESTAMP)");
+            statement.execute("CREATE INDEX idx_history_created ON task_history (created_at)");
+            statement.execute("CREATE INDEX idx_history_completed ON task_history (completed_at)");
+        }
+
+        Random random = new Random(7);
+        long seconds = TO.atStartOfDay().minusDays(30).toEpochSecond(ZoneOffset.UTC)
+                - FROM.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        List<TaskEvent> batch = new ArrayList<>();
+        long offset = 0;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO task_history VALUES (?, ?, ?, ?, ?, ?, ?)")) {
+            for (int task = 1; task <= TASKS; task++) {
+                LocalDateTime created = FROM.atStartOfDay().plusSeconds((long) (random.nextDouble() * seconds));
+                String priority = PRIORITIES[random.nextInt(PRIORITIES.length)];
+                boolean done = random.nextInt(10) < 7;
+                LocalDateTime completed = done ? created.plusSeconds(random.nextInt(14 * 86_400)) : null;
+                long userId = task % USERS;
+
+                batch.add(event(++offset, TaskEventType.CREATED, task, userId, "TODO", created,
+                        snapshot(task, userId, priority, created)));
+                if (done) {
+                    batch.add(event(++offset, TaskEventType.STATUS_CHANGED, task, userId, "DONE", completed, null));
+                }
+                if (batch.size() >= 1000) {
+                    store.onEvents(batch);
+                    batch = new ArrayList<>();
+                }
+
+                insert.setLong(1, task);
+                insert.setLong(2, userId);
+                insert.setString(3, done ? "DONE" : "TODO");
+                insert.setString(4, priority);
+                insert.setTimestamp(5, Timestamp.valueOf(created));
+                insert.setTimestamp(6, Timestamp.valueOf(created.plusDays(3)));
+                insert.setTimestamp(7, completed != null ? Timestamp.valueOf(completed) : null);
+                insert.addBatch();
+                if (task % 1000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            store.onEvents(batch);
+        }
+        // Вся история в сегменте на диске, хвост пуст
+        store.snapshot();
+
+        // Обе стороны должны считать одно и то же
+        long columnar = store.completionTimes(null, null, FROM, TO).getCount();
+        try (PreparedStatement query = connection.prepareStatement(COMPLETION_SQL)) {
+            query.setTimestamp(1, Timestamp.valueOf(FROM.atStartOfDay()));
+            query.setTimestamp(2, Timestamp.valueOf(TO.atStartOfDay()));
+            try (ResultSet rs = query.executeQuery()) {
+                rs.next();
+                if (rs.getLong(1) != columnar) {
+                    throw new IllegalStateException("SQL counted " + rs.getLong(1) + " tasks, columnar " + columnar);
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException, SQLException {
+        connection.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public CompletionTimeStats completionTimesColumnar() {
+        return store.completionTimes(null, null, FROM, TO);
+    }
+
+    @Benchmark
+    public void completionTimesSql(Blackhole blackhole) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement(COMPLETION_SQL)) {
+            query.setTimestamp(1, Timestamp.valueOf(FROM.atStartOfDay()));
+            query.setTimestamp(2, Timestamp.valueOf(TO.atStartOfDay()));
+            try (ResultSet rs = query.executeQuery()) {
+                rs.next();
+                for (int column = 1; column <= 5; column++) {
+                    blackhole.consume(rs.getLong(column));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public List<PriorityMix> priorityMixColumnar() {
+        return store.priorityMix(null, FROM, TO, 7);
+    }
+
+    @Benchmark
+    public void priorityMixSql(Blackhole blackhole) throws SQLException {
+        try (PreparedStatement query = connection.prepareStatement(PRIORITY_MIX_SQL)) {
+            query.setTimestamp(1, Timestamp.valueOf(FROM.atStartOfDay()));
+            query.setLong(2, 7 * 86_400);
+            query.setTimestamp(3, Timestamp.valueOf(FROM.atStartOfDay()));
+            query.setTimestamp(4, Timestamp.valueOf(TO.atStartOfDay()));
+            try (ResultSet rs = query.executeQuery()) {
+                while (rs.next()) {
+                    blackhole.consume(rs.getLong(3));
+                }
+            }
+        }
+    }
+
+    private static TaskSnapshot snapshot(long task, long userId, String priority, LocalDateTime created) {
+        TaskSnapshot snapshot = new TaskSnapshot();
+        snapshot.setId(task);
+        snapshot.setUserId(userId);
+        snapshot.setPriority(priority);
+        snapshot.setStatus("TODO");
+        snapshot.setCreatedAt(created);
+        snapshot.setDeadline(created.plusDays(3));
+        return snapshot;
+    }
+
+    private static TaskEvent event(long offset, TaskEventType type, long task, long userId, String status,
+                                   LocalDateTime occurredAt, TaskSnapshot snapshot) {
+        TaskEvent event = new TaskEvent();
+        event.setOffset(offset);
+        event.setType(type);
+        event.setTaskId(task);
+        event.setUserId(userId);
+        event.setStatus(status);
+        event.setOccurredAt(occurredAt);
+        event.setTask(snapshot);
+        return event;
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.benchmarks.analytics;
+
+import org.example.analytics.aggregation.TaskAggregates;
+import org.example.analytics.events.TaskEvent;
+import org.example.analytics.events.TaskEventType;
+import org.example.analytics.events.TaskSnapshot;
+import org.example.analytics.sketch.DDSketch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Distinct active users and the p99 completion latency over {@value #DAYS} days of {@value #TASKS_PER_DAY}
+ * completed tasks a day by up to {@value #USERS} users: merging the daily sketches of {@link TaskAggregates}
+ * against the exact answer, a hash set of user ids and a sort of all latencies.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SketchBenchmark {
+
+    private static final int DAYS = 30;
+    private static final int TASKS_PER_DAY = 50_000;
+    private static final int USERS = 500_000;
+
+    private TaskAggregates aggregates;
+    private long[] userIds;
+    private long[] latencies;
+    private LocalDate from;
+    private LocalDate to;
+
+    @Setup
+    public void setUp() {
+        aggregates = new TaskAggregates(90);
+        userIds = new long[DAYS * TASKS_PER_DAY];
+        latencies = new long[DAYS * TASKS_PER_DAY];
+        to = LocalDate.now();
+        from = to.minusDays(DAYS - 1);
+        Random random = new Random(42);
+        TaskEvent event = new TaskEvent();
+        TaskSnapshot snapshot = new TaskSnapshot();
+        for (int i = 0; i < userIds.length; i++) {
+            LocalDateTime completedAt = from.plusDays(i / TASKS_PER_DAY).atTime(12, 0);
+            userIds[i] = random.nextInt(USERS);
+            latencies[i] = 60 + (long) Math.exp(8 + 2 * random.nextGaussian());
+            snapshot.setCreatedAt(completedAt.minusSeconds(latencies[i]));
+            event.setTaskId((long) i);
+            event.setUserId(userIds[i]);
+            event.setType(TaskEventType.CREATED);
+            event.setStatus("TODO");
+            event.setTask(snapshot);
+            event.setOccurredAt(snapshot.getCreatedAt());
+            aggregates.apply(event);
+            event.setType(TaskEventType.STATUS_CHANGED);
+            event.setStatus("DONE");
+            event.setTask(null);
+            event.setOccurredAt(completedAt);
+            aggregates.apply(event);
+        }
+        aggregates.drainCheckpoint(0);
+    }
+
+    @Benchmark
+    public long sketchActiveUsers() {
+        return aggregates.activeUsers(from, to).estimate();
+    }
+
+    @Benchmark
+    public double sketchP99Latency() {
+        DDSketch latency = aggregates.completionLatency(from, to);
+        return latency.quantile(0.99);
+    }
+
+    @Benchmark
+    public long exactActiveUsers() {
+        Set<Long> distinct = new HashSet<>();
+        for (long userId : userIds) {
+            distinct.add(userId);
+        }
+        return distinct.size();
+    }
+
+    @Benchmark
+    public long exactP99Latency() {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.floor(0.99 * (sorted.length - 1))];
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.benchmarks.gateway;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.gateway.cache.CachedResponse;
+import org.example.gateway.cache.StaleResponseStore;
+import org.example.gateway.fallback.FallbackBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gateway fallback body during an outage, with every thread producing fallbacks: a map and a fresh
+ * timestamp serialized per response (the previous controller) versus the pre-serialized body, and the
+ * lookup of a stale copy among 10k cached GETs. Run with -prof gc to compare allocation per response.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class FallbackBenchmark {
+
+    private static final int STALE_KEYS = 10_000;
+
+    // Та же конфигурация, что Spring Boot применяет к ObjectMapper шлюза
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private FallbackBody body;
+    private StaleResponseStore staleResponses;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("status", "SERVICE_UNAVAILABLE");
+        fields.put("message", "Task Service is temporarily unavailable. Please try again later.");
+        fields.put("service", "task-service");
+        body = new FallbackBody(fields);
+
+        staleResponses = new StaleResponseStore(new SimpleMeterRegistry(), Duration.ofMinutes(5), STALE_KEYS);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        keys = new String[STALE_KEYS];
+        for (int i = 0; i < STALE_KEYS; i++) {
+            keys[i] = "/api/tasks?userId=" + i + "&|application/json";
+            byte[] json = ("{\"success\":true,\"data\":{\"items\":[],\"userId\":" + i + "}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            staleResponses.put(keys[i], new CachedResponse(HttpStatus.OK, headers, json, "/api/tasks",
+                    Set.of(String.valueOf(i))));
+        }
+    }
+
+    @Benchmark
+    public byte[] mapPerResponse() throws JsonProcessingException {
+        Map<String, Object> fallbackResponse = new HashMap<>();
+        fallbackResponse.put("status", "SERVICE_UNAVAILABLE");
+        fallbackResponse.put("message", "Task Service is temporarily unavailable. Please try again later.");
+        fallbackResponse.put("timestamp", LocalDateTime.now().toString());
+        fallbackResponse.put("service", "task-service");
+        return objectMapper.writeValueAsBytes(fallbackResponse);
+    }
+
+    @Benchmark
+    public byte[] precomputed() {
+        return body.bytes();
+    }
+
+    @Benchmark
+    public CachedResponse staleLookup() {
+        return staleResponses.get(keys[ThreadLocalRandom.current().nextInt(STALE_KEYS)]);
+    }
+}
@@ -0,0 +1,99 @@
+package org.example.benchmarks.gateway;
+
+import org.example.gateway.ratelimit.TokenBucketRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gateway rate limiter under contention: the lock-free CAS buckets versus a map of synchronized
+ * buckets, with every thread hitting one hot key or spreading over 100k distinct keys.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private static final long REPLENISH_RATE = 1000;
+    private static final long BURST_CAPACITY = 2000;
+
+    @Param({"1", "100000"})
+    private int keys;
+
+    private String[] clientKeys;
+    private TokenBucketRateLimiter limiter;
+    private SynchronizedLimiter synchronizedLimiter;
+
+    @Setup
+    public void setUp() {
+        clientKeys = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            clientKeys[i] = "task-service|user:" + i;
+        }
+        limiter = new TokenBucketRateLimiter(200_000, Duration.ofMinutes(10));
+        synchronizedLimiter = new SynchronizedLimiter();
+    }
+
+    @Benchmark
+    public long lockFree() {
+        return limiter.tryConsume(nextKey(), REPLENISH_RATE, BURST_CAPACITY, 1);
+    }
+
+    @Benchmark
+    public long synchronizedBuckets() {
+        return synchronizedLimiter.tryConsume(nextKey());
+    }
+
+    private String nextKey() {
+        return clientKeys[ThreadLocalRandom.current().nextInt(clientKeys.length)];
+    }
+
+    /**
+     * Classic token bucket (tokens + last refill) under one lock per bucket, and a global lock on the map.
+     */
+    private static final class SynchronizedLimiter {
+        private final Map<String, Bucket> buckets = new HashMap<>();
+
+        long tryConsume(String key) {
+            Bucket bucket;
+            synchronized (buckets) {
+                bucket = buckets.computeIfAbsent(key, k -> new Bucket());
+            }
+            synchronized (bucket) {
+                long now = System.nanoTime();
+                bucket.tokens = Math.min(BURST_CAPACITY,
+                        bucket.tokens + (now - bucket.refilledAt) * REPLENISH_RATE / 1_000_000_000.0);
+                bucket.refilledAt = now;
+                if (bucket.tokens < 1) {
+                    return -1;
+                }
+                bucket.tokens -= 1;
+                return (long) bucket.tokens;
+            }
+        }
+
+        private static final class Bucket {
+            double tokens = BURST_CAPACITY;
+            long refilledAt = System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package org.example.benchmarks.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.task.TaskServiceApplication;
+import org.example.task.dto.TaskRequest;
+import org.example.task.events.TaskEventStream;
+import org.example.task.service.TaskService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds many idle SSE connections to GET /api/tasks/stream (one user each) and measures what they cost
+ * task-service: heap and threads per connection, then the delay from a task change to its arrival on the
+ * user's stream while all of them stay open. Clients are non-blocking sockets on one selector thread in the
+ * same JVM, so the heap figure also includes their small per-socket state.
+ * Results are written to target/sse-load-result.json.
+ */
+public class SseConnectionLoadTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("sse.connections", 8000);
+    private static final int CHANGES = Integer.getInteger("sse.changes", 2000);
+    private static final int CHANGES_PER_SECOND = 200;
+    private static final int CONNECT_BATCH = 100;
+    private static final byte[] CREATED = "event:CREATED".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] READY = "event:READY".getBytes(StandardCharsets.US_ASCII);
+
+    public static void main(String[] args) throws Exception {
+        String[] springArgs = {
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:sse-load;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+                        + "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.cloud.config.enabled=false",
+                "--eureka.client.enabled=false",
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--task.events.consumers.analytics-service=",
+                "--task.events.consumers.notification-service=",
+                "--task.events.relay.interval=PT0.05S",
+                "--task.events.relay.initial-delay=PT0S",
+                "--task.events.stream.poll-interval=PT0.05S",
+                "--task.events.stream.initial-delay=PT0S",
+                "--logging.level.root=OFF"};
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TaskServiceApplication.class)
+                .logStartupInfo(false)
+                .run(springArgs)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            TaskEventStream stream = context.getBean(TaskEventStream.class);
+            TaskService taskService = context.getBean(TaskService.class);
+
+            long heapBefore = usedHeap();
+            int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+            Clients clients = new Clients(port);
+            Thread reader = Thread.ofPlatform().daemon().name("sse-clients").start(clients::run);
+            long connectStart = System.nanoTime();
+            for (int opened = 0; opened < CONNECTIONS; opened += CONNECT_BATCH) {
+                int batch = Math.min(CONNECT_BATCH, CONNECTIONS - opened);
+                clients.open(opened, batch);
+                // Пачками: очередь принимаемых соединений Tomcat (accept-count) короткая
+                while (clients.ready.get() < opened + batch) {
+                    Thread.sleep(10);
+                }
+            }
+            double connectSeconds = (System.nanoTime() - connectStart) / 1e9;
+            long heapAfter = usedHeap();
+            int threadsAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+            System.out.printf("connections=%d (server %d) opened in %.1fs, heap +%.1f KB/connection, threads %d -> %d%n",
+                    CONNECTIONS, stream.connections(), connectSeconds,
+                    (heapAfter - heapBefore) / 1024.0 / CONNECTIONS, threadsBefore, threadsAfter);
+
+            long pause = 1_000_000_000L / CHANGES_PER_SECOND;
+            long next = System.nanoTime();
+            for (int i = 0; i < CHANGES; i++) {
+                int client = ThreadLocalRandom.current().nextInt(CONNECTIONS);
+                TaskRequest request = new TaskRequest();
+                request.setTitle("Change " + i);
+                request.setUserId(userOf(client));
+                clients.changedAt[client] = System.nanoTime();
+                taskService.createTask(request);
+                next += pause;
+                long sleep = next - System.nanoTime();
+                if (sleep > 0) {
+                    Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+                }
+            }
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (clients.delivered.get() < CHANGES && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            clients.stop();
+            reader.join();
+
+            long[] latencies = Arrays.copyOf(clients.latencies, clients.delivered.get());
+            Arrays.sort(latencies);
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("connections", CONNECTIONS);
+            report.put("connectSeconds", Math.round(connectSeconds * 10) / 10.0);
+            report.put("heapPerConnectionKb", Math.round((heapAfter - heapBefore) / 1024.0 / CONNECTIONS * 10) / 10.0);
+            report.put("threadsBefore", threadsBefore);
+            report.put("threadsAfter", threadsAfter);
+            report.put("changes", CHANGES);
+            report.put("delivered", latencies.length);
+            report.put("p50Ms", percentile(latencies, 0.50) / 1e6);
+            report.put("p99Ms", percentile(latencies, 0.99) / 1e6);
+            report.put("maxMs", latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1e6);
+            System.out.println(report);
+
+            File output = new File("target/sse-load-result.json");
+            output.getParentFile().mkdirs();
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, report);
+            System.out.println("SSE load test result is saved to " + output.getAbsolutePath());
+        }
+    }
+
+    private static long userOf(int client) {
+        return 1_000_000L + client;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    /**
+     * All client sockets on one selector. Only the markers that matter are looked for in what arrives:
+     * the READY greeting and CREATED events; a marker split across two reads is not counted.
+     */
+    private static final class Clients {
+
+        private final int port;
+        private final Selector selector;
+        private final long[] changedAt = new long[CONNECTIONS];
+        private final long[] latencies = new long[CHANGES];
+        private final AtomicInteger ready = new AtomicInteger();
+        private final AtomicInteger delivered = new AtomicInteger();
+        private volatile boolean running = true;
+
+        Clients(int port) throws IOException {
+            this.port = port;
+            this.selector = Selector.open();
+        }
+
+        void open(int first, int count) throws IOException {
+            for (int client = first; client < first + count; client++) {
+                SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", port));
+                channel.write(ByteBuffer.wrap(("GET /api/tasks/stream?userId=" + userOf(client) + " HTTP/1.1\r\n"
+                        + "Host: localhost\r\nAccept: text/event-stream\r\n\r\n").getBytes(StandardCharsets.US_ASCII)));
+                channel.configureBlocking(false);
+                synchronized (this) {
+                    selector.wakeup();
+                    channel.register(selector, SelectionKey.OP_READ, client);
+                }
+            }
+        }
+
+        void run() {
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            try {
+                while (running) {
+                    synchronized (this) {
+                        // регистрация новых каналов идёт, пока селектор разбужен
+                    }
+                    selector.select(100);
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        buffer.clear();
+                        int read = ((SocketChannel) key.channel()).read(buffer);
+                        if (read < 0) {
+                            key.cancel();
+                            continue;
+                        }
+                        int client = (Integer) key.attachment();
+                        if (count(buffer, READY) > 0) {
+                            ready.incrementAndGet();
+                        }
+                        for (int events = count(buffer, CREATED); events > 0; events--) {
+                            int index = delivered.getAndIncrement();
+                            if (index < latencies.length) {
+                                latencies[index] = System.nanoTime() - changedAt[client];
+                            }
+                        }
+                    }
+                }
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+                selector.close();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        void stop() {
+            running = false;
+            selector.wakeup();
+        }
+
+        private static int count(ByteBuffer buffer, byte[] marker) {
+            byte[] data = buffer.array();
+            int end = buffer.position() - marker.length;
+            int found = 0;
+            outer:
+            for (int i = 0; i <= end; i++) {
+                for (int j = 0; j < marker.length; j++) {
+                    if (data[i + j] != marker[j]) {
+                        continue outer;
+                    }
+                }
+                found++;
+            }
+            return found;
+        }
+    }
+}
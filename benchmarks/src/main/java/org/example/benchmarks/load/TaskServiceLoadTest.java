@@ -0,0 +1,209 @@
+package org.example.benchmarks.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.example.task.TaskServiceApplication;
+import org.example.task.dto.TaskRequest;
+import org.example.task.service.TaskService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Closed-loop HTTP load test of GET /api/tasks with platform threads and with the
+ * virtual-threads profile. For each mode and concurrency level it records p50/p99/max latency,
+ * throughput and errors (including circuit breaker fallbacks), and reports the highest level that stayed within the p99 target.
+ * <p>
+ * Runs against an in-memory H2 database by default; extra arguments are passed to task-service,
+ * e.g. {@code --spring.datasource.url=jdbc:postgresql://...} for numbers against a real database.
+ * Results are written to target/load-result.json.
+ */
+public class TaskServiceLoadTest {
+
+    private static final int[] CONCURRENCY = Arrays.stream(System.getProperty("load.concurrency", "50,200,800,2000")
+            .split(",")).mapToInt(Integer::parseInt).toArray();
+    private static final Duration LEVEL_DURATION = Duration.ofSeconds(Long.getLong("load.seconds", 10));
+    private static final Duration P99_TARGET = Duration.ofMillis(250);
+    private static final int USERS = 100;
+    private static final int TASKS_PER_USER = 200;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("p99TargetMs", P99_TARGET.toMillis());
+        report.put("platform", run("platform", args));
+        report.put("virtual", run("virtual", withArg(args, "--spring.profiles.active=virtual-threads")));
+
+        File output = new File("target/load-result.json");
+        output.getParentFile().mkdirs();
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, report);
+        System.out.println("Load test result is saved to " + output.getAbsolutePath());
+    }
+
+    private static Map<String, Object> run(String mode, String[] args) throws Exception {
+        String[] springArgs = Stream.concat(Stream.of(
+                        "--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + mode
+                                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.cloud.config.enabled=false",
+                        "--eureka.client.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--logging.level.root=OFF"),
+                Arrays.stream(args)).toArray(String[]::new);
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(TaskServiceApplication.class)
+                .logStartupInfo(false)
+                .run(springArgs)) {
+            seed(context.getBean(TaskService.class));
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            List<Map<String, Object>> levels = new ArrayList<>();
+            int maxConcurrency = 0;
+            for (int concurrency : CONCURRENCY) {
+                LevelResult result = runLevel(port, concurrency);
+                levels.add(result.toMap());
+                System.out.printf("%-8s c=%-5d %s%n", mode, concurrency, result);
+                if (result.errors == 0 && result.p99Nanos <= P99_TARGET.toNanos()) {
+                    maxConcurrency = concurrency;
+                }
+            }
+            Map<String, Object> modeReport = new LinkedHashMap<>();
+            modeReport.put("maxConcurrencyWithinTarget", maxConcurrency);
+            modeReport.put("levels", levels);
+            return modeReport;
+        }
+    }
+
+    private static void seed(TaskService taskService) {
+        for (long userId = 1; userId <= USERS; userId++) {
+            List<TaskRequest> requests = new ArrayList<>(TASKS_PER_USER);
+            for (int i = 0; i < TASKS_PER_USER; i++) {
+                TaskRequest request = new TaskRequest();
+                request.setTitle("Task " + i);
+                request.setUserId(userId);
+                requests.add(request);
+            }
+            taskService.createTasks(requests);
+        }
+    }
+
+    private static LevelResult runLevel(int port, int concurrency) throws Exception {
+        long deadline = System.nanoTime() + LEVEL_DURATION.toNanos();
+        AtomicInteger errors = new AtomicInteger();
+        List<Future<long[]>> clients = new ArrayList<>(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .executor(executor)
+                     .connectTimeout(Duration.ofSeconds(5))
+                     .build()) {
+            for (int c = 0; c < concurrency; c++) {
+                long userId = 1 + c % USERS;
+                HttpRequest request = HttpRequest.newBuilder(
+                                URI.create("http://localhost:" + port + "/api/tasks?userId=" + userId + "&limit=50"))
+                        .timeout(Duration.ofSeconds(30))
+                        .build();
+                clients.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                            // Пустая страница у засеянного пользователя — это fallback circuit breaker'а
+                            if (response.statusCode() != 200 || response.body().contains("\"items\":[]")) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+            long[] all = new long[0];
+            for (Future<long[]> future : clients) {
+                long[] latencies = future.get();
+                int offset = all.length;
+                all = Arrays.copyOf(all, offset + latencies.length);
+                System.arraycopy(latencies, 0, all, offset, latencies.length);
+            }
+            Arrays.sort(all);
+            return new LevelResult(concurrency, all, errors.get(), LEVEL_DURATION);
+        }
+    }
+
+    private static String[] withArg(String[] args, String arg) {
+        String[] result = Arrays.copyOf(args, args.length + 1);
+        result[args.length] = arg;
+        return result;
+    }
+
+    private static final class LevelResult {
+        private final int concurrency;
+        private final long requests;
+        private final int errors;
+        private final double throughput;
+        private final long p50Nanos;
+        private final long p99Nanos;
+        private final long maxNanos;
+
+        private LevelResult(int concurrency, long[] sortedLatencies, int errors, Duration duration) {
+            this.concurrency = concurrency;
+            this.requests = sortedLatencies.length;
+            this.errors = errors;
+            this.throughput = requests / (double) duration.toSeconds();
+            this.p50Nanos = percentile(sortedLatencies, 0.50);
+            this.p99Nanos = percentile(sortedLatencies, 0.99);
+            this.maxNanos = sortedLatencies.length == 0 ? 0 : sortedLatencies[sortedLatencies.length - 1];
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+        }
+
+        private Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("concurrency", concurrency);
+            map.put("requests", requests);
+            map.put("errors", errors);
+            map.put("throughputPerSec", Math.round(throughput));
+            map.put("p50Ms", p50Nanos / 1_000_000.0);
+            map.put("p99Ms", p99Nanos / 1_000_000.0);
+            map.put("maxMs", maxNanos / 1_000_000.0);
+            return map;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("rps=%.0f p50=%.1fms p99=%.1fms max=%.1fms errors=%d",
+                    throughput, p50Nanos / 1e6, p99Nanos / 1e6, maxNanos / 1e6, errors);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.example.benchmarks.notification;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.notification.dispatch.Delivery;
+import org.example.notification.dispatch.Digest;
+import org.example.notification.dispatch.DispatchPipeline;
+import org.example.notification.dispatch.DispatchQueue;
+import org.example.notification.dispatch.NotificationChannel;
+import org.example.notification.events.TaskEvent;
+import org.example.notification.events.TaskEventType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The notification pipeline under overdue sweeps: one invocation is one second's worth of
+ * {@value #EVENTS_PER_MINUTE} overdue events a minute for {@value #USERS} users, delivered in relay batches of
+ * {@value #RELAY_BATCH} to two channels with 2 ms send latency and 8 sends in flight each. The score is events
+ * per second through to the channels, with and without coalescing into per-user digests; delivery latency
+ * percentiles are printed after each trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchPipelineBenchmark {
+
+    private static final int EVENTS_PER_MINUTE = 100_000;
+    private static final int SWEEP = EVENTS_PER_MINUTE / 60;
+    private static final int USERS = 500;
+    private static final int RELAY_BATCH = 500;
+
+    @Param({"true", "false"})
+    public boolean coalesce;
+
+    private Path directory;
+    private DispatchQueue queue;
+    private DispatchPipeline pipeline;
+    private final AtomicInteger delivered = new AtomicInteger();
+    private final AtomicLongArray latencies = new AtomicLongArray(1 << 20);
+    private final AtomicInteger latencyCount = new AtomicInteger();
+    private long offset;
+    private long task;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("dispatch-bench");
+        queue = new DispatchQueue(directory);
+        StaticListableBeanFactory channels = new StaticListableBeanFactory();
+        channels.addBean("email", new StubChannel("email"));
+        channels.addBean("push", new StubChannel("push"));
+        pipeline = new DispatchPipeline(channels.getBeanProvider(NotificationChannel.class), queue,
+                new SimpleMeterRegistry(), Duration.ZERO, coalesce ? 100 : 1, 5, Duration.ofSeconds(1));
+        pipeline.restore();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        pipeline.shutdown();
+        int count = Math.min(latencyCount.get(), latencies.length());
+        long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+        if (count > 0) {
+            System.out.printf("%ncoalesce=%s: delivery latency p50 %d ms, p99 %d ms over %d notifications%n",
+                    coalesce, sorted[count / 2], sorted[(int) (count * 0.99)], count);
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SWEEP)
+    public int overdueSweep() throws InterruptedException {
+        int expected = delivered.get() + SWEEP * 2;
+        List<TaskEvent> batch = new ArrayList<>(RELAY_BATCH);
+        for (int i = 0; i < SWEEP; i++) {
+            batch.add(overdue(task++));
+            if (batch.size() == RELAY_BATCH || i == SWEEP - 1) {
+                pipeline.onEvents(batch);
+                batch = new ArrayList<>(RELAY_BATCH);
+            }
+        }
+        pipeline.flush();
+        while (delivered.get() < expected) {
+            Thread.sleep(1);
+        }
+        return delivered.get();
+    }
+
+    private TaskEvent overdue(long taskId) {
+        TaskEvent event = new TaskEvent();
+        event.setOffset(++offset);
+        event.setType(TaskEventType.STATUS_CHANGED);
+        event.setTaskId(taskId);
+        event.setUserId(taskId % USERS);
+        event.setStatus("OVERDUE");
+        event.setOccurredAt(LocalDateTime.now());
+        return event;
+    }
+
+    private final class StubChannel implements NotificationChannel {
+        private final String name;
+
+        StubChannel(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void send(Digest digest) {
+            try {
+                Thread.sleep(2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            long now = System.currentTimeMillis();
+            for (Delivery delivery : digest.deliveries()) {
+                int index = latencyCount.getAndIncrement();
+                if (index < latencies.length()) {
+                    latencies.set(index, now - delivery.enqueuedAt());
+                }
+            }
+            delivered.addAndGet(digest.deliveries().size());
+        }
+
+        @Override
+        public int ratePerSecond() {
+            return 100_000;
+        }
+
+        @Override
+        public int concurrency() {
+            return 8;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.benchmarks.notification;
+
+import org.example.notification.reminder.ReminderStore;
+import org.example.notification.reminder.TimingWheel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deadline reminder wheel holding {@value #REMINDERS} reminders due over the next 90 days: rescheduling
+ * one (a deadline change), advancing the wheel by one second including the reminders that fire and the
+ * cascades, and encoding the crash-recovery snapshot.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class ReminderWheelBenchmark {
+
+    private static final int REMINDERS = 10_000_000;
+    private static final int HORIZON = 90 * 86_400;
+    private static final int START = 200_000_000;
+
+    private TimingWheel wheel;
+    private SplittableRandom random;
+    private long tick;
+    private long fired;
+    private long nextTask = REMINDERS;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new SplittableRandom(42);
+        wheel = new TimingWheel(START, REMINDERS);
+        for (long task = 0; task < REMINDERS; task++) {
+            int deadline = START + 3600 + random.nextInt(HORIZON);
+            wheel.schedule(task, task % 100_000, deadline, deadline - 3600);
+        }
+        tick = START;
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        System.out.printf("%n%d reminders pending, %d fired while advancing%n", wheel.size(), fired);
+    }
+
+    @Benchmark
+    public TimingWheel reschedule() {
+        long task = random.nextInt(REMINDERS);
+        int deadline = (int) tick + 3600 + random.nextInt(HORIZON);
+        wheel.schedule(task, task % 100_000, deadline, deadline - 3600);
+        return wheel;
+    }
+
+    // Сработавшие напоминания сразу планируются заново, чтобы в колесе оставалось 10M записей
+    @Benchmark
+    public long advanceOneSecond() {
+        tick++;
+        wheel.advanceTo(tick, (taskId, userId, deadline) -> fired++);
+        while (wheel.size() < REMINDERS) {
+            long task = nextTask++;
+            int deadline = (int) tick + 3600 + random.nextInt(HORIZON);
+            wheel.schedule(task, task % 100_000, deadline, deadline - 3600);
+        }
+        return fired;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public int encodeSnapshot() {
+        return ReminderStore.encodeSnapshot(wheel, 0).length;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.benchmarks.task;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.task.dto.ApiResponse;
+import org.example.task.dto.TaskPage;
+import org.example.task.dto.TaskResponse;
+import org.example.task.model.Priority;
+import org.example.task.model.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ApiResponseSerializationBenchmark {
+
+    @Param({"1", "100"})
+    private int items;
+
+    // Та же конфигурация, что Spring Boot применяет к ObjectMapper в task-service
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private ApiResponse<TaskResponse> single;
+    private ApiResponse<TaskPage> page;
+
+    @Setup
+    public void setUp() {
+        LocalDateTime now = LocalDateTime.now();
+        List<TaskResponse> tasks = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            tasks.add(new TaskResponse((long) i, "Task " + i, "Description " + i, TaskStatus.TODO,
+                    Priority.MEDIUM, now.plusDays(i), 42L, now, now));
+        }
+        single = ApiResponse.success("Task retrieved successfully", tasks.get(0));
+        page = ApiResponse.success("Tasks retrieved successfully", new TaskPage(tasks, "cursor", true));
+    }
+
+    @Benchmark
+    public byte[] singleTask() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(single);
+    }
+
+    @Benchmark
+    public byte[] taskPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.benchmarks.task;
+
+import org.example.task.dto.BatchItemResult;
+import org.example.task.dto.TaskRequest;
+import org.example.task.repository.TaskRepository;
+import org.example.task.service.TaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Imports {@code size} tasks either one POST at a time or through a single batch call.
+ * Both benchmarks create the same number of rows per invocation, so scores compare directly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchCreateBenchmark {
+
+    private static final Long USER = 1L;
+
+    @Param({"100", "1000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private TaskRepository taskRepository;
+    private List<TaskRequest> requests;
+
+    @Setup
+    public void setUp() {
+        context = TaskServiceContext.start("batch");
+        taskService = context.getBean(TaskService.class);
+        taskRepository = context.getBean(TaskRepository.class);
+        requests = TaskFixtures.requests(size, USER);
+    }
+
+    @TearDown(Level.Iteration)
+    public void truncate() {
+        taskRepository.deleteAllInBatch();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void singleItem(Blackhole blackhole) {
+        for (TaskRequest request : requests) {
+            blackhole.consume(taskService.createTask(request));
+        }
+    }
+
+    @Benchmark
+    public List<BatchItemResult> batch() {
+        return taskService.createTasks(requests);
+    }
+}
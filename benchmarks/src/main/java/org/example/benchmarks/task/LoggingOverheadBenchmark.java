@@ -0,0 +1,107 @@
+package org.example.benchmarks.task;
+
+import org.example.task.dto.TaskPage;
+import org.example.task.dto.TaskResponse;
+import org.example.task.service.TaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of task reads with the old logging setup (show-sql, format_sql, INFO per call, synchronous
+ * console appender) versus the prod profile (no SQL echo, async bounded appender). stdout is redirected
+ * to target/logging-benchmark-{mode}.log so the cost of writing it is measured without flooding the
+ * JMH output.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class LoggingOverheadBenchmark {
+
+    private static final int USERS = 20;
+    private static final int TASKS_PER_USER = 200;
+
+    @Param({"verbose", "prod"})
+    private String logging;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private List<Long> taskIds;
+    private PrintStream stdout;
+
+    @Setup
+    public void setUp() throws FileNotFoundException {
+        stdout = System.out;
+        System.setOut(new PrintStream(new FileOutputStream("target/logging-benchmark-" + logging + ".log"), true));
+
+        Map<String, String> properties = "verbose".equals(logging)
+                ? Map.of("logging.config", "classpath:logback-sync.xml",
+                        "logging.level.root", "INFO",
+                        // Прежний уровень: каждый вызов TaskService пишет строку лога
+                        "logging.level.org.example.task", "DEBUG",
+                        "spring.jpa.show-sql", "true",
+                        "spring.jpa.properties.hibernate.format_sql", "true")
+                : Map.of("spring.profiles.active", "prod",
+                        "logging.level.root", "INFO");
+        context = TaskServiceContext.start("logging-" + logging, properties);
+        taskService = context.getBean(TaskService.class);
+        for (long userId = 1; userId <= USERS; userId++) {
+            TaskFixtures.seed(taskService, TASKS_PER_USER, userId);
+        }
+        taskIds = taskService.getTasksWithFilters(1L, null, null, null, TASKS_PER_USER).getItems().stream()
+                .map(TaskResponse::getId)
+                .toList();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public TaskPage pageRead(ThreadCounter counter) {
+        return taskService.getTasksWithFilters(counter.nextUser(), null, null, null, 50);
+    }
+
+    @Benchmark
+    public Optional<TaskResponse> cachedLookup(ThreadCounter counter) {
+        return taskService.getTaskById(taskIds.get(counter.next() % taskIds.size()), 1L);
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadCounter {
+        private int value;
+
+        int next() {
+            return value++ & Integer.MAX_VALUE;
+        }
+
+        long nextUser() {
+            return 1 + next() % USERS;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.example.benchmarks.task;
+
+import com.sun.net.httpserver.HttpServer;
+import org.example.task.events.TaskEventRelay;
+import org.example.task.service.TaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relays {@value #EVENTS} outbox events per invocation to a local HTTP consumer: stamping, batched POSTs
+ * and the purge. The score is in events per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutboxRelayBenchmark {
+
+    private static final int EVENTS = 2000;
+    private static final Long USER = 1L;
+
+    @Param({"100", "500"})
+    private int batchSize;
+
+    private HttpServer consumer;
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private TaskEventRelay taskEventRelay;
+
+    @Setup
+    public void setUp() throws IOException {
+        consumer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        consumer.createContext("/events", exchange -> {
+            exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        consumer.start();
+        context = TaskServiceContext.start("relay", Map.of(
+                "task.events.consumers.bench", "http://event-stub/events",
+                "task.events.relay.batch-size", String.valueOf(batchSize),
+                "spring.cloud.discovery.client.simple.instances.event-stub[0].uri",
+                "http://localhost:" + consumer.getAddress().getPort()));
+        taskService = context.getBean(TaskService.class);
+        taskEventRelay = context.getBean(TaskEventRelay.class);
+    }
+
+    // Каждый вызов начинает с заполненного outbox: события CREATED от пакетного импорта
+    @Setup(Level.Invocation)
+    public void fillOutbox() {
+        TaskFixtures.seed(taskService, EVENTS, USER);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        consumer.stop(0);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS)
+    public long relay() {
+        long delivered = 0;
+        while (delivered < EVENTS) {
+            delivered += taskEventRelay.relayOnce();
+        }
+        return delivered;
+    }
+}
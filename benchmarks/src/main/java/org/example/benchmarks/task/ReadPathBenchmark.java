@@ -0,0 +1,84 @@
+package org.example.benchmarks.task;
+
+import jakarta.persistence.EntityManager;
+import org.example.task.dto.TaskResponse;
+import org.example.task.model.Task;
+import org.example.task.service.TaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading all tasks of a user the old way (managed entities in a read-write transaction, then copied
+ * into TaskResponse) versus a constructor projection in a read-only transaction. Compare
+ * gc.alloc.rate.norm from the gc profiler for allocation per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadPathBenchmark {
+
+    private static final Long USER = 1L;
+
+    @Param({"1000", "10000"})
+    private int rows;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp() {
+        context = TaskServiceContext.start("reads" + rows);
+        TaskFixtures.seed(context.getBean(TaskService.class), rows, USER);
+        entityManager = context.getBean(EntityManager.class);
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TaskResponse> entityHydration() {
+        return readWrite.execute(status -> entityManager
+                .createQuery("SELECT t FROM Task t WHERE t.userId = :userId", Task.class)
+                .setParameter("userId", USER)
+                .getResultStream()
+                .map(TaskResponse::new)
+                .toList());
+    }
+
+    @Benchmark
+    public List<TaskResponse> projection() {
+        return readOnly.execute(status -> entityManager
+                .createQuery("SELECT new org.example.task.dto.TaskResponse(t.id, t.title, t.description, t.status, " +
+                        "t.priority, t.deadline, t.userId, t.createdAt, t.updatedAt) " +
+                        "FROM Task t WHERE t.userId = :userId", TaskResponse.class)
+                .setParameter("userId", USER)
+                .getResultList());
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.benchmarks.task;
+
+import org.example.task.dto.TaskRequest;
+import org.example.task.model.Priority;
+import org.example.task.model.TaskStatus;
+import org.example.task.service.TaskService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+final class TaskFixtures {
+
+    private TaskFixtures() {}
+
+    static TaskRequest request(int i, Long userId) {
+        TaskRequest request = new TaskRequest();
+        request.setTitle("Task " + i);
+        request.setDescription("Benchmark task number " + i + " with a short description");
+        request.setStatus(TaskStatus.values()[i % 3]);
+        request.setPriority(Priority.values()[i % Priority.values().length]);
+        request.setDeadline(LocalDateTime.now().plusDays(1 + i % 30));
+        request.setUserId(userId);
+        return request;
+    }
+
+    static List<TaskRequest> requests(int count, Long userId) {
+        List<TaskRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(request(i, userId));
+        }
+        return requests;
+    }
+
+    static void seed(TaskService taskService, int count, Long userId) {
+        for (int from = 0; from < count; from += TaskService.MAX_BATCH_SIZE) {
+            int size = Math.min(TaskService.MAX_BATCH_SIZE, count - from);
+            taskService.createTasks(requests(size, userId));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.example.benchmarks.task;
+
+import org.example.task.dto.TaskResponse;
+import org.example.task.model.Priority;
+import org.example.task.model.Task;
+import org.example.task.model.TaskStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TaskResponseMappingBenchmark {
+
+    private Task task;
+
+    @Setup
+    public void setUp() {
+        task = new Task("Write report", "Quarterly numbers", Priority.HIGH, LocalDateTime.now().plusDays(3), 42L);
+        task.setId(1L);
+        task.setStatus(TaskStatus.IN_PROGRESS);
+        task.setCreatedAt(LocalDateTime.now());
+        task.setUpdatedAt(LocalDateTime.now());
+    }
+
+    @Benchmark
+    public TaskResponse fromEntity() {
+        return new TaskResponse(task);
+    }
+
+    @Benchmark
+    public TaskResponse fromProjection() {
+        return new TaskResponse(task.getId(), task.getTitle(), task.getDescription(), task.getStatus(),
+                task.getPriority(), task.getDeadline(), task.getUserId(), task.getCreatedAt(), task.getUpdatedAt());
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.benchmarks.task;
+
+import org.example.task.model.Priority;
+import org.example.task.model.TaskStatus;
+import org.example.task.search.TaskSearchIndex;
+import org.example.task.search.TaskSearchSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over {@value #TASKS} tasks of {@value #USERS} users in the in-memory index: an exact word,
+ * the prefix of a word being typed, a word with two letters swapped and a two-word query. The sample mode
+ * reports the p99 of a single search. Building the index and writing and reading its snapshot are timed once
+ * and printed after the run.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+@State(Scope.Benchmark)
+public class TaskSearchBenchmark {
+
+    private static final int TASKS = 10_000_000;
+    private static final int USERS = 100_000;
+    private static final int VOCABULARY = 20_000;
+    private static final String[] SYLLABLES = {"ka", "lo", "mi", "ne", "ru", "sa", "ti", "vo", "der", "pan",
+            "mor", "lin", "gest", "tor", "bel", "ost"};
+
+    private String[] words;
+    private TaskSearchIndex index;
+    private SplittableRandom random;
+    private long buildMillis;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int n = i; word.length() < 4 || n > 0; n /= SYLLABLES.length) {
+                word.append(SYLLABLES[n % SYLLABLES.length]);
+            }
+            words[i] = word.toString();
+        }
+        long started = System.nanoTime();
+        index = new TaskSearchIndex(TASKS);
+        for (long task = 0; task < TASKS; task++) {
+            index.put(task, task % USERS, TaskStatus.values()[(int) (task % 3)],
+                    Priority.values()[(int) (task / 3 % 3)], text(task, 0, 3), text(task, 3, 8));
+        }
+        buildMillis = (System.nanoTime() - started) / 1_000_000;
+        random = new SplittableRandom(42);
+    }
+
+    @TearDown(Level.Trial)
+    public void report() throws IOException {
+        Path directory = Files.createTempDirectory("task-search");
+        TaskSearchSnapshot snapshots = new TaskSearchSnapshot(directory);
+        long started = System.nanoTime();
+        snapshots.write(index, TASKS, LocalDateTime.now());
+        long writeMillis = (System.nanoTime() - started) / 1_000_000;
+        long bytes = Files.size(directory.resolve("tasks.index"));
+        int terms = index.terms();
+        // Загрузка снимка строит второй индекс: прежний отпускается, чтобы уложиться в кучу
+        index = null;
+        started = System.nanoTime();
+        TaskSearchIndex loaded = snapshots.read().index();
+        long readMillis = (System.nanoTime() - started) / 1_000_000;
+        System.out.printf("%n%d tasks, %d terms: built in %d ms; snapshot of %d MB written in %d ms, read in %d ms%n",
+                loaded.size(), terms, buildMillis, bytes >> 20, writeMillis, readMillis);
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public List<TaskSearchIndex.Hit> exactWord() {
+        long task = random.nextInt(TASKS);
+        return index.search(task % USERS, word(task, random.nextInt(8)), null, null, 20);
+    }
+
+    @Benchmark
+    public List<TaskSearchIndex.Hit> prefix() {
+        long task = random.nextInt(TASKS);
+        return index.search(task % USERS, word(task, random.nextInt(3)).substring(0, 3), null, null, 20);
+    }
+
+    @Benchmark
+    public List<TaskSearchIndex.Hit> typo() {
+        long task = random.nextInt(TASKS);
+        char[] word = word(task, random.nextInt(8)).toCharArray();
+        char swapped = word[1];
+        word[1] = word[2];
+        word[2] = swapped;
+        return index.search(task % USERS, new String(word), null, null, 20);
+    }
+
+    @Benchmark
+    public List<TaskSearchIndex.Hit> twoWordsWithStatus() {
+        long task = random.nextInt(TASKS);
+        return index.search(task % USERS, word(task, 0) + " " + word(task, 4), TaskStatus.values()[(int) (task % 3)],
+                null, 20);
+    }
+
+    // Текст задачи выводится из её id, чтобы запросы брали слова, которые у пользователя действительно есть
+    private String text(long task, int from, int to) {
+        StringBuilder text = new StringBuilder();
+        for (int position = from; position < to; position++) {
+            text.append(word(task, position)).append(' ');
+        }
+        return text.toString();
+    }
+
+    // Частоты слов неравномерны, как в живом тексте: первые слова словаря встречаются намного чаще
+    private String word(long task, int position) {
+        double uniform = new SplittableRandom(task * 8 + position).nextDouble();
+        return words[(int) (VOCABULARY * uniform * uniform * uniform)];
+    }
+}
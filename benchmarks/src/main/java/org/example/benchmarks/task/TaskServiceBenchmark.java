@@ -0,0 +1,77 @@
+package org.example.benchmarks.task;
+
+import org.example.task.dto.TaskPage;
+import org.example.task.dto.TaskResponse;
+import org.example.task.dto.TaskStats;
+import org.example.task.service.TaskService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read and write paths of TaskService against an embedded database, through the Spring proxies
+ * (transactions, cache, circuit breaker) exactly as the controller calls them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskServiceBenchmark {
+
+    private static final Long READ_USER = 1L;
+    private static final Long WRITE_USER = 2L;
+    private static final int TASKS = 1000;
+
+    private ConfigurableApplicationContext context;
+    private TaskService taskService;
+    private Long taskId;
+    private int counter;
+
+    @Setup
+    public void setUp() {
+        context = TaskServiceContext.start("service");
+        taskService = context.getBean(TaskService.class);
+        TaskFixtures.seed(taskService, TASKS, READ_USER);
+        taskId = taskService.getAllTasksByUser(READ_USER, null, 1).getItems().get(0).getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<TaskResponse> getTaskById() {
+        return taskService.getTaskById(taskId, READ_USER);
+    }
+
+    @Benchmark
+    public TaskPage getFirstPage() {
+        return taskService.getAllTasksByUser(READ_USER, null, TaskService.DEFAULT_PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<TaskStats> getTaskStats() {
+        return taskService.getTaskStats(List.of(READ_USER));
+    }
+
+    @Benchmark
+    public TaskResponse createTask() {
+        return taskService.createTask(TaskFixtures.request(counter++, WRITE_USER));
+    }
+}
@@ -0,0 +1,49 @@
+package org.example.benchmarks.task;
+
+import org.example.task.TaskServiceApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Boots task-service without the web layer against an in-memory H2 database in PostgreSQL mode.
+ * Properties are passed as command-line arguments so they win over the packaged application.properties.
+ */
+final class TaskServiceContext {
+
+    private TaskServiceContext() {}
+
+    static ConfigurableApplicationContext start(String databaseName) {
+        return start(databaseName, Map.of());
+    }
+
+    static ConfigurableApplicationContext start(String databaseName, Map<String, String> overrides) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:" + databaseName
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+        properties.put("spring.datasource.username", "sa");
+        properties.put("spring.datasource.password", "");
+        properties.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        properties.put("spring.cloud.config.enabled", "false");
+        properties.put("eureka.client.enabled", "false");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+        properties.put("task.overdue-sweeper.initial-delay", "PT24H");
+        properties.put("task.events.relay.initial-delay", "PT24H");
+        properties.put("task.events.consumers.analytics-service", "");
+        properties.put("task.events.consumers.notification-service", "");
+        properties.put("logging.level.root", "WARN");
+        // Повторный аргумент с тем же ключом склеился бы через запятую, поэтому переопределения вливаются в map
+        properties.putAll(overrides);
+
+        return new SpringApplicationBuilder(TaskServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .run(properties.entrySet().stream()
+                        .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                        .toArray(String[]::new));
+    }
+}
@@ -0,0 +1,4 @@
+package org.example.notification.dispatch;
+
+// Уведомление, поставленное в очередь одного канала; enqueuedAt — для задержки доставки
+public record Delivery(long id, String channel, Notification notification, long enqueuedAt) {}
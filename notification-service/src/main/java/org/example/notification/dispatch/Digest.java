@@ -0,0 +1,39 @@
+package org.example.notification.dispatch;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Notifications of one user for one channel, sent as a single message. {@code attempt} counts delivery
+ * attempts, starting from 1.
+ */
+public record Digest(String channel, long userId, List<Delivery> deliveries, int attempt) {
+
+    public Digest nextAttempt() {
+        return new Digest(channel, userId, deliveries, attempt + 1);
+    }
+
+    // Одно уведомление уходит как есть, несколько — одной сводкой по видам
+    public String text() {
+        if (deliveries.size() == 1) {
+            return deliveries.get(0).notification().text();
+        }
+        Map<String, Integer> counts = new TreeMap<>();
+        for (Delivery delivery : deliveries) {
+            counts.merge(delivery.notification().kind(), 1, Integer::sum);
+        }
+        StringBuilder text = new StringBuilder();
+        counts.forEach((kind, count) -> {
+            if (!text.isEmpty()) {
+                text.append("; ");
+            }
+            text.append(switch (kind) {
+                case Notification.TASK_OVERDUE -> count + " tasks are overdue";
+                case Notification.DEADLINE_REMINDER -> count + " task deadlines are coming up";
+                default -> count + " " + kind.toLowerCase() + " notifications";
+            });
+        });
+        return text.toString();
+    }
+}
@@ -0,0 +1,284 @@
+package org.example.notification.dispatch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.notification.events.TaskEvent;
+import org.example.notification.events.TaskEventListener;
+import org.example.notification.events.TaskEventType;
+import org.example.notification.reminder.Reminder;
+import org.example.notification.reminder.ReminderListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Turns overdue transitions and deadline reminders into notifications and delivers them through every
+ * {@link NotificationChannel}. Notifications are made durable in the {@link DispatchQueue}, then held per user
+ * and channel for {@code notification.dispatch.coalesce-window} so that a sweep marking many tasks overdue
+ * becomes one digest per user and channel instead of one message per task. Each channel sends from its own
+ * pool of {@link NotificationChannel#concurrency()} threads paced by a token bucket, and a failed digest is
+ * retried with exponential backoff and jitter until {@code max-attempts}, after which it is dropped and logged.
+ */
+@Component
+@Slf4j
+public class DispatchPipeline implements TaskEventListener, ReminderListener {
+
+    private static final long MAX_BACKOFF_MILLIS = Duration.ofMinutes(5).toMillis();
+
+    private final DispatchQueue queue;
+    private final Map<String, ChannelWorker> workers = new LinkedHashMap<>();
+    private final long coalesceWindowNanos;
+    private final int maxDigestSize;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final ScheduledExecutorService retries;
+    private final Counter submitted;
+    private final Counter dropped;
+    // Накопители по (канал, пользователь); защищены монитором пайплайна
+    private final Map<BufferKey, Buffer> buffers = new HashMap<>();
+    private long lastOffset;
+
+    public DispatchPipeline(ObjectProvider<NotificationChannel> channels,
+                            DispatchQueue queue,
+                            MeterRegistry meterRegistry,
+                            @Value("${notification.dispatch.coalesce-window:PT5S}") Duration coalesceWindow,
+                            @Value("${notification.dispatch.max-digest-size:100}") int maxDigestSize,
+                            @Value("${notification.dispatch.max-attempts:5}") int maxAttempts,
+                            @Value("${notification.dispatch.initial-backoff:PT1S}") Duration initialBackoff) {
+        this.queue = queue;
+        this.coalesceWindowNanos = coalesceWindow.toNanos();
+        this.maxDigestSize = maxDigestSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.retries = Executors.newSingleThreadScheduledExecutor(daemonThreads("dispatch-retry"));
+        this.submitted = Counter.builder("notifications.submitted").register(meterRegistry);
+        this.dropped = Counter.builder("notifications.dropped").register(meterRegistry);
+        channels.orderedStream()
+                .forEach(channel -> workers.put(channel.name(), new ChannelWorker(channel, meterRegistry)));
+    }
+
+    // Недоставленные до остановки уведомления снова попадают в накопители
+    @PostConstruct
+    public synchronized void restore() throws IOException {
+        lastOffset = queue.load(delivery -> {
+            if (workers.containsKey(delivery.channel())) {
+                buffer(delivery, new ArrayList<>());
+            }
+        });
+    }
+
+    @Override
+    public void onEvents(List<TaskEvent> events) {
+        List<Notification> notifications = new ArrayList<>();
+        for (TaskEvent event : events) {
+            // Переход в OVERDUE приходит только STATUS_CHANGED, в том числе пачками от свипера
+            if (event.getType() == TaskEventType.STATUS_CHANGED && "OVERDUE".equals(event.getStatus())) {
+                String title = event.getTask() != null
+                        ? "\"" + event.getTask().getTitle() + "\"" : "#" + event.getTaskId();
+                notifications.add(new Notification(event.getUserId(), event.getTaskId(), Notification.TASK_OVERDUE,
+                        "Task " + title + " is overdue"));
+            }
+        }
+        submit(events.get(events.size() - 1).getOffset(), notifications);
+    }
+
+    @Override
+    public void onReminders(List<Reminder> reminders) {
+        List<Notification> notifications = new ArrayList<>(reminders.size());
+        for (Reminder reminder : reminders) {
+            notifications.add(new Notification(reminder.userId(), reminder.taskId(), Notification.DEADLINE_REMINDER,
+                    "Task #" + reminder.taskId() + " is due at " + reminder.deadline()));
+        }
+        submit(0, notifications);
+    }
+
+    @Override
+    public synchronized long lastAppliedOffset() {
+        return lastOffset;
+    }
+
+    public void submit(long offset, List<Notification> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        List<Digest> full = new ArrayList<>();
+        synchronized (this) {
+            long now = System.currentTimeMillis();
+            List<Delivery> deliveries = new ArrayList<>(notifications.size() * workers.size());
+            for (Notification notification : notifications) {
+                for (String channel : workers.keySet()) {
+                    deliveries.add(new Delivery(0, channel, notification, now));
+                }
+            }
+            for (Delivery delivery : queue.enqueue(offset, deliveries)) {
+                buffer(delivery, full);
+            }
+            lastOffset = Math.max(lastOffset, offset);
+        }
+        submitted.increment(notifications.size());
+        full.forEach(this::dispatch);
+    }
+
+    /** Sends every buffer whose coalescing window has elapsed. */
+    @Scheduled(fixedDelayString = "${notification.dispatch.flush-interval:PT0.2S}")
+    public void flush() {
+        flush(false);
+    }
+
+    public void flushAll() {
+        flush(true);
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        retries.shutdownNow();
+        for (ChannelWorker worker : workers.values()) {
+            worker.executor.shutdown();
+        }
+        for (ChannelWorker worker : workers.values()) {
+            worker.executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        // Не отправленное остаётся в очереди и уйдёт после перезапуска
+        queue.close();
+    }
+
+    private void flush(boolean all) {
+        List<Digest> due = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (this) {
+            Iterator<Map.Entry<BufferKey, Buffer>> iterator = buffers.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<BufferKey, Buffer> entry = iterator.next();
+                if (all || now - entry.getValue().openedAt >= coalesceWindowNanos) {
+                    BufferKey key = entry.getKey();
+                    due.add(new Digest(key.channel(), key.userId(), entry.getValue().deliveries, 1));
+                    iterator.remove();
+                }
+            }
+        }
+        due.forEach(this::dispatch);
+    }
+
+    private void buffer(Delivery delivery, List<Digest> full) {
+        BufferKey key = new BufferKey(delivery.channel(), delivery.notification().userId());
+        Buffer buffer = buffers.computeIfAbsent(key, k -> new Buffer(System.nanoTime()));
+        buffer.deliveries.add(delivery);
+        if (buffer.deliveries.size() >= maxDigestSize) {
+            buffers.remove(key);
+            full.add(new Digest(key.channel(), key.userId(), buffer.deliveries, 1));
+        }
+    }
+
+    private void dispatch(Digest digest) {
+        workers.get(digest.channel()).submit(digest);
+    }
+
+    private long backoffMillis(int attempt) {
+        long backoff = Math.min(initialBackoffMillis << Math.min(attempt - 1, 20), MAX_BACKOFF_MILLIS);
+        // Разброс ±20%, чтобы повторы разных дайджестов не шли волной
+        return (long) (backoff * ThreadLocalRandom.current().nextDouble(0.8, 1.2));
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record BufferKey(String channel, long userId) {}
+
+    private static final class Buffer {
+        final long openedAt;
+        final List<Delivery> deliveries = new ArrayList<>();
+
+        Buffer(long openedAt) {
+            this.openedAt = openedAt;
+        }
+    }
+
+    /** Sends the digests of one channel within its concurrency and rate limits. */
+    private final class ChannelWorker {
+        private final NotificationChannel channel;
+        private final ExecutorService executor;
+        private final TokenBucket bucket = new TokenBucket(System.nanoTime());
+        private final long intervalNanos;
+        private final long burst;
+        private final Counter sent;
+        private final Counter failed;
+        private final Timer latency;
+
+        ChannelWorker(NotificationChannel channel, MeterRegistry meterRegistry) {
+            this.channel = channel;
+            this.executor = Executors.newFixedThreadPool(channel.concurrency(),
+                    daemonThreads("dispatch-" + channel.name()));
+            this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / channel.ratePerSecond();
+            this.burst = Math.max(1, channel.ratePerSecond());
+            this.sent = Counter.builder("notifications.digests.sent").tag("channel", channel.name())
+                    .register(meterRegistry);
+            this.failed = Counter.builder("notifications.digests.failed").tag("channel", channel.name())
+                    .register(meterRegistry);
+            this.latency = Timer.builder("notifications.delivery.latency").tag("channel", channel.name())
+                    .publishPercentiles(0.5, 0.99).register(meterRegistry);
+        }
+
+        void submit(Digest digest) {
+            executor.execute(() -> send(digest));
+        }
+
+        private void send(Digest digest) {
+            // Ждать токена здесь — значит держать одну из concurrency-нитей канала, что и ограничивает темп
+            long wait;
+            while ((wait = bucket.tryConsume(System.nanoTime(), 1, intervalNanos, burst)) < 0) {
+                LockSupport.parkNanos(-wait);
+            }
+            try {
+                channel.send(digest);
+            } catch (RuntimeException e) {
+                failed.increment();
+                if (digest.attempt() < maxAttempts) {
+                    long backoff = backoffMillis(digest.attempt());
+                    log.warn("Sending {} digest to user {} failed (attempt {}), retrying in {} ms: {}",
+                            channel.name(), digest.userId(), digest.attempt(), backoff, e.getMessage());
+                    retries.schedule(() -> submit(digest.nextAttempt()), backoff, TimeUnit.MILLISECONDS);
+                    return;
+                }
+                log.error("Dropping {} digest to user {} after {} attempts", channel.name(), digest.userId(),
+                        digest.attempt(), e);
+                dropped.increment(digest.deliveries().size());
+                queue.complete(digest.deliveries());
+                return;
+            }
+            sent.increment();
+            long now = System.currentTimeMillis();
+            for (Delivery delivery : digest.deliveries()) {
+                latency.record(now - delivery.enqueuedAt(), TimeUnit.MILLISECONDS);
+            }
+            queue.complete(digest.deliveries());
+        }
+    }
+}
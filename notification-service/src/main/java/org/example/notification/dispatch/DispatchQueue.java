@@ -0,0 +1,178 @@
+package org.example.notification.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.notification.storage.RecordLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Durable local queue of undelivered notifications: an enqueue record is forced to disk before the events
+ * behind it are acknowledged, and a completion record follows once the digest is sent or given up. Completions
+ * are not forced, so a crash can resend a digest: delivery is at-least-once. When completed records outweigh
+ * the pending ones, the log is rewritten with just the pending deliveries.
+ */
+@Component
+@Slf4j
+public class DispatchQueue {
+
+    private static final byte ENQUEUE = 1;
+    private static final byte COMPLETE = 2;
+    private static final int COMPACT_AFTER = 10_000;
+
+    private final Path file;
+    private final Map<Long, Delivery> pending = new LinkedHashMap<>();
+    private RecordLog journal;
+    private long nextId = 1;
+    private long lastOffset;
+    private int completedSinceCompaction;
+
+    public DispatchQueue(@Value("${notification.dispatch.directory:data/dispatch}") Path directory) {
+        this.file = directory.resolve("dispatch.log");
+    }
+
+    /** Replays the log, passes every pending delivery to {@code restored} and returns the last event offset. */
+    public synchronized long load(Consumer<Delivery> restored) throws IOException {
+        Files.createDirectories(file.getParent());
+        journal = RecordLog.open(file, this::replay);
+        pending.values().forEach(restored);
+        log.info("Restored {} undelivered notifications", pending.size());
+        return lastOffset;
+    }
+
+    /** Assigns ids to the deliveries and makes them durable together with event {@code offset}. */
+    public synchronized List<Delivery> enqueue(long offset, List<Delivery> deliveries) {
+        List<Delivery> queued = new ArrayList<>(deliveries.size());
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + deliveries.size() * 64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(ENQUEUE);
+            out.writeLong(Math.max(offset, lastOffset));
+            out.writeInt(deliveries.size());
+            for (Delivery delivery : deliveries) {
+                Delivery withId = new Delivery(nextId++, delivery.channel(), delivery.notification(),
+                        delivery.enqueuedAt());
+                write(out, withId);
+                queued.add(withId);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try {
+            journal.append(bytes.toByteArray(), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lastOffset = Math.max(offset, lastOffset);
+        queued.forEach(delivery -> pending.put(delivery.id(), delivery));
+        return queued;
+    }
+
+    public synchronized void complete(Collection<Delivery> deliveries) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8 + deliveries.size() * 8);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(COMPLETE);
+            out.writeInt(deliveries.size());
+            for (Delivery delivery : deliveries) {
+                out.writeLong(delivery.id());
+                pending.remove(delivery.id());
+            }
+            journal.append(bytes.toByteArray(), false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        completedSinceCompaction += deliveries.size();
+        if (completedSinceCompaction > COMPACT_AFTER && completedSinceCompaction > pending.size()) {
+            compact();
+        }
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    public synchronized void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    // Новый журнал только из ожидающих доставок подменяет старый атомарно
+    private void compact() {
+        Path temporary = file.resolveSibling("dispatch.log.tmp");
+        try {
+            Files.deleteIfExists(temporary);
+            try (RecordLog compacted = RecordLog.open(temporary, payload -> { })) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + pending.size() * 64);
+                try (DataOutputStream out = new DataOutputStream(bytes)) {
+                    out.writeByte(ENQUEUE);
+                    out.writeLong(lastOffset);
+                    out.writeInt(pending.size());
+                    for (Delivery delivery : pending.values()) {
+                        write(out, delivery);
+                    }
+                }
+                compacted.append(bytes.toByteArray(), true);
+            }
+            journal.close();
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            journal = RecordLog.open(file, payload -> { });
+            completedSinceCompaction = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void replay(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte type = in.readByte();
+            if (type == ENQUEUE) {
+                lastOffset = Math.max(lastOffset, in.readLong());
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    Delivery delivery = read(in);
+                    pending.put(delivery.id(), delivery);
+                    nextId = Math.max(nextId, delivery.id() + 1);
+                }
+            } else {
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    pending.remove(in.readLong());
+                }
+            }
+        }
+    }
+
+    private static void write(DataOutputStream out, Delivery delivery) throws IOException {
+        Notification notification = delivery.notification();
+        out.writeLong(delivery.id());
+        out.writeUTF(delivery.channel());
+        out.writeLong(delivery.enqueuedAt());
+        out.writeLong(notification.userId());
+        out.writeLong(notification.taskId());
+        out.writeUTF(notification.kind());
+        out.writeUTF(notification.text());
+    }
+
+    private static Delivery read(DataInputStream in) throws IOException {
+        long id = in.readLong();
+        String channel = in.readUTF();
+        long enqueuedAt = in.readLong();
+        Notification notification = new Notification(in.readLong(), in.readLong(), in.readUTF(), in.readUTF());
+        return new Delivery(id, channel, notification, enqueuedAt);
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.notification.dispatch;
+
+// Одно уведомление пользователю; kind группирует уведомления при сворачивании в дайджест
+public record Notification(long userId, long taskId, String kind, String text) {
+
+    public static final String TASK_OVERDUE = "TASK_OVERDUE";
+    public static final String DEADLINE_REMINDER = "DEADLINE_REMINDER";
+}
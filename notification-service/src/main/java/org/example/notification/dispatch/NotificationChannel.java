@@ -0,0 +1,17 @@
+package org.example.notification.dispatch;
+
+/**
+ * Delivery channel adapter. {@link DispatchPipeline} calls {@link #send} from at most {@link #concurrency()}
+ * threads and at most {@link #ratePerSecond()} times a second; an exception counts as a failed attempt
+ * and the digest is retried with backoff.
+ */
+public interface NotificationChannel {
+
+    String name();
+
+    void send(Digest digest);
+
+    int ratePerSecond();
+
+    int concurrency();
+}
@@ -0,0 +1,19 @@
+package org.example.notification.dispatch;
+
+final class StubChannels {
+
+    private StubChannels() {}
+
+    // Имитация сетевого вызова внешнего провайдера
+    static void pause(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while sending", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.notification.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Локальная заглушка почтового канала: только задержка отправки и запись в лог
+@Component
+@Slf4j
+public class StubEmailChannel implements NotificationChannel {
+
+    private final int ratePerSecond;
+    private final int concurrency;
+    private final long latencyMillis;
+
+    public StubEmailChannel(@Value("${notification.channels.email.rate-per-second:20}") int ratePerSecond,
+                            @Value("${notification.channels.email.concurrency:4}") int concurrency,
+                            @Value("${notification.channels.email.latency:PT0.05S}") Duration latency) {
+        this.ratePerSecond = ratePerSecond;
+        this.concurrency = concurrency;
+        this.latencyMillis = latency.toMillis();
+    }
+
+    @Override
+    public String name() {
+        return "email";
+    }
+
+    @Override
+    public void send(Digest digest) {
+        StubChannels.pause(latencyMillis);
+        log.debug("Email to user {}: {}", digest.userId(), digest.text());
+    }
+
+    @Override
+    public int ratePerSecond() {
+        return ratePerSecond;
+    }
+
+    @Override
+    public int concurrency() {
+        return concurrency;
+    }
+}
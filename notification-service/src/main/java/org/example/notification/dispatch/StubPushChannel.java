@@ -0,0 +1,46 @@
+package org.example.notification.dispatch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+// Локальная заглушка push-канала: только задержка отправки и запись в лог
+@Component
+@Slf4j
+public class StubPushChannel implements NotificationChannel {
+
+    private final int ratePerSecond;
+    private final int concurrency;
+    private final long latencyMillis;
+
+    public StubPushChannel(@Value("${notification.channels.push.rate-per-second:100}") int ratePerSecond,
+                            @Value("${notification.channels.push.concurrency:16}") int concurrency,
+                            @Value("${notification.channels.push.latency:PT0.01S}") Duration latency) {
+        this.ratePerSecond = ratePerSecond;
+        this.concurrency = concurrency;
+        this.latencyMillis = latency.toMillis();
+    }
+
+    @Override
+    public String name() {
+        return "push";
+    }
+
+    @Override
+    public void send(Digest digest) {
+        StubChannels.pause(latencyMillis);
+        log.debug("Push to user {}: {}", digest.userId(), digest.text());
+    }
+
+    @Override
+    public int ratePerSecond() {
+        return ratePerSecond;
+    }
+
+    @Override
+    public int concurrency() {
+        return concurrency;
+    }
+}
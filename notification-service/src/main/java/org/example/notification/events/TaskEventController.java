@@ -0,0 +1,23 @@
+package org.example.notification.events;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// Пачки событий от relay task-service; 2xx подтверждает всю пачку
+@RestController
+public class TaskEventController {
+
+    @Autowired
+    private TaskEventInbox taskEventInbox;
+
+    @PostMapping("/api/internal/task-events")
+    public ResponseEntity<Void> receive(@RequestBody List<TaskEvent> events) {
+        taskEventInbox.accept(events);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,53 @@
+package org.example.notification.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entry point of the task event stream. Delivery is at-least-once, so a batch can arrive again after a lost
+ * acknowledgement; events at or below the last applied offset are dropped before the listeners see them.
+ */
+@Component
+public class TaskEventInbox {
+
+    private final List<TaskEventListener> listeners;
+    private final Counter received;
+    private final Counter duplicates;
+    private long lastOffset;
+
+    public TaskEventInbox(ObjectProvider<TaskEventListener> listeners, MeterRegistry meterRegistry) {
+        this.listeners = listeners.orderedStream().toList();
+        this.received = Counter.builder("task.events.received").register(meterRegistry);
+        this.duplicates = Counter.builder("task.events.duplicates").register(meterRegistry);
+        // Продолжаем с наименьшего из сохранённых смещений, чтобы ни один слушатель не пропустил события
+        this.lastOffset = this.listeners.stream().mapToLong(TaskEventListener::lastAppliedOffset).min().orElse(0);
+    }
+
+    // Пачки применяются по одной: слушатели видят события строго в порядке смещений
+    public synchronized void accept(List<TaskEvent> events) {
+        List<TaskEvent> fresh = new ArrayList<>(events.size());
+        for (TaskEvent event : events) {
+            if (event.getOffset() > lastOffset) {
+                fresh.add(event);
+            }
+        }
+        duplicates.increment(events.size() - fresh.size());
+        if (fresh.isEmpty()) {
+            return;
+        }
+        for (TaskEventListener listener : listeners) {
+            listener.onEvents(fresh);
+        }
+        lastOffset = fresh.get(fresh.size() - 1).getOffset();
+        received.increment(fresh.size());
+    }
+
+    public synchronized long getLastOffset() {
+        return lastOffset;
+    }
+}
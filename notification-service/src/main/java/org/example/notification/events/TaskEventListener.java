@@ -0,0 +1,17 @@
+package org.example.notification.events;
+
+import java.util.List;
+
+/**
+ * Receives new task events in offset order, one delivered batch at a time. A listener that throws makes
+ * the whole batch fail, and task-service delivers it again.
+ */
+public interface TaskEventListener {
+
+    void onEvents(List<TaskEvent> events);
+
+    // Последнее смещение, уже сохранённое слушателем: после перезапуска входящие события до него пропускаются
+    default long lastAppliedOffset() {
+        return 0;
+    }
+}
@@ -0,0 +1,8 @@
+package org.example.notification.events;
+
+public enum TaskEventType {
+    CREATED,
+    UPDATED,
+    STATUS_CHANGED,
+    DELETED
+}
@@ -0,0 +1,6 @@
+package org.example.notification.reminder;
+
+import java.time.LocalDateTime;
+
+// Напоминание о приближающемся дедлайне задачи
+public record Reminder(long taskId, long userId, LocalDateTime deadline) {}
@@ -0,0 +1,12 @@
+package org.example.notification.reminder;
+
+import java.util.List;
+
+/**
+ * Receives the reminders that came due in one tick of the {@link ReminderScheduler}. Called outside the
+ * scheduler lock; a reminder is removed from the wheel before it is handed out, so it is delivered at most once.
+ */
+public interface ReminderListener {
+
+    void onReminders(List<Reminder> reminders);
+}
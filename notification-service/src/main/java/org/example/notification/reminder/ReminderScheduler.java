@@ -0,0 +1,205 @@
+package org.example.notification.reminder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.notification.events.TaskEvent;
+import org.example.notification.events.TaskEventListener;
+import org.example.notification.events.TaskEventType;
+import org.example.notification.events.TaskSnapshot;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deadline reminders fed by task events: a task with a deadline that is not done yet gets a reminder
+ * {@code notification.reminders.lead-time} before the deadline (at once if that moment has already passed),
+ * and an update of the deadline or status reschedules or cancels it. Pending reminders live in a
+ * {@link TimingWheel} ticked every second, so nothing polls the task table; {@link ReminderStore} makes them
+ * survive restarts.
+ */
+@Component
+@Slf4j
+public class ReminderScheduler implements TaskEventListener {
+
+    // Тики колеса — секунды от 2020-01-01T00:00Z: int хватает до 2088 года
+    static final long EPOCH_SECOND = 1_577_836_800L;
+
+    private final ReminderStore store;
+    private final List<ReminderListener> listeners;
+    private final long leadSeconds;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Counter fired;
+    private final Object snapshotLock = new Object();
+    private TimingWheel wheel;
+    private long lastOffset;
+
+    public ReminderScheduler(ReminderStore store,
+                             ObjectProvider<ReminderListener> listeners,
+                             MeterRegistry meterRegistry,
+                             @Value("${notification.reminders.lead-time:PT1H}") Duration leadTime) {
+        this.store = store;
+        this.listeners = listeners.orderedStream().toList();
+        this.leadSeconds = leadTime.toSeconds();
+        this.fired = Counter.builder("reminders.fired").register(meterRegistry);
+        Gauge.builder("reminders.pending", this, ReminderScheduler::pending).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public synchronized void restore() throws IOException {
+        long started = System.nanoTime();
+        long now = tick(Instant.now());
+        wheel = new TimingWheel(now, 1024);
+        lastOffset = store.load(new ReminderStore.Recovery() {
+            @Override
+            public void schedule(long taskId, long userId, int deadline) {
+                scheduleAt(taskId, userId, deadline, now);
+            }
+
+            @Override
+            public void cancel(long taskId) {
+                wheel.cancel(taskId);
+            }
+        });
+        log.info("Restored {} pending reminders up to offset {} in {} ms",
+                wheel.size(), lastOffset, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Журнал сбрасывается на диск до возврата, то есть до подтверждения пачки; при ошибке пачка придёт снова,
+    // а повторное применение тех же изменений ничего не меняет
+    @Override
+    public synchronized void onEvents(List<TaskEvent> events) {
+        long now = tick(Instant.now());
+        long offset = events.get(events.size() - 1).getOffset();
+        ReminderStore.Batch batch = new ReminderStore.Batch(offset);
+        for (TaskEvent event : events) {
+            apply(event, now, batch);
+        }
+        store.append(batch);
+        lastOffset = offset;
+    }
+
+    @Override
+    public synchronized long lastAppliedOffset() {
+        return lastOffset;
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void tick() {
+        advanceTo(Instant.now());
+    }
+
+    /** Fires every reminder due up to {@code now}; returns how many fired. */
+    public int advanceTo(Instant now) {
+        List<Reminder> due = new ArrayList<>();
+        synchronized (this) {
+            ReminderStore.Batch batch = new ReminderStore.Batch(lastOffset);
+            wheel.advanceTo(tick(now), (taskId, userId, deadline) -> {
+                due.add(new Reminder(taskId, userId, toDateTime(deadline)));
+                batch.cancel(taskId);
+            });
+            // Сработавшие напоминания помечаются в журнале, чтобы после перезапуска не сработать повторно
+            store.append(batch);
+        }
+        if (!due.isEmpty()) {
+            fired.increment(due.size());
+            for (ReminderListener listener : listeners) {
+                listener.onReminders(due);
+            }
+            log.debug("Fired {} deadline reminders", due.size());
+        }
+        return due.size();
+    }
+
+    public synchronized boolean isScheduled(long taskId) {
+        return wheel.contains(taskId);
+    }
+
+    public synchronized int pending() {
+        return wheel.size();
+    }
+
+    @Scheduled(fixedDelayString = "${notification.reminders.snapshot-interval:PT5M}",
+            initialDelayString = "${notification.reminders.snapshot-interval:PT5M}")
+    public void snapshot() {
+        synchronized (snapshotLock) {
+            byte[] snapshot;
+            try {
+                // Под блокировкой только кодирование в память и смена файла журнала
+                synchronized (this) {
+                    snapshot = ReminderStore.encodeSnapshot(wheel, lastOffset);
+                    store.rotate();
+                }
+                store.writeSnapshot(snapshot);
+            } catch (IOException e) {
+                log.warn("Reminder snapshot failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() throws IOException {
+        snapshot();
+        store.close();
+    }
+
+    private void apply(TaskEvent event, long now, ReminderStore.Batch batch) {
+        long taskId = event.getTaskId();
+        TaskSnapshot task = event.getTask();
+        boolean finished = "DONE".equals(event.getStatus()) || "OVERDUE".equals(event.getStatus());
+        if (event.getType() == TaskEventType.DELETED || finished) {
+            cancel(taskId, batch);
+            return;
+        }
+        // Массовая смена статуса приходит без снимка: дедлайн не менялся, напоминание остаётся
+        if (task == null) {
+            return;
+        }
+        if (task.getDeadline() == null) {
+            cancel(taskId, batch);
+            return;
+        }
+        long deadline = tick(task.getDeadline().atZone(zone).toInstant());
+        if (deadline <= now || deadline > Integer.MAX_VALUE) {
+            cancel(taskId, batch);
+            return;
+        }
+        scheduleAt(taskId, event.getUserId(), (int) deadline, now);
+        batch.schedule(taskId, event.getUserId(), (int) deadline);
+    }
+
+    private void cancel(long taskId, ReminderStore.Batch batch) {
+        if (wheel.cancel(taskId)) {
+            batch.cancel(taskId);
+        }
+    }
+
+    private void scheduleAt(long taskId, long userId, int deadline, long now) {
+        if (deadline <= now) {
+            wheel.cancel(taskId);
+            return;
+        }
+        wheel.schedule(taskId, userId, deadline, (int) Math.max(deadline - leadSeconds, now));
+    }
+
+    private static long tick(Instant instant) {
+        return instant.getEpochSecond() - EPOCH_SECOND;
+    }
+
+    private LocalDateTime toDateTime(int deadline) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(EPOCH_SECOND + deadline), zone).toLocalDateTime();
+    }
+}
@@ -0,0 +1,301 @@
+package org.example.notification.reminder;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.notification.storage.RecordLog;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Crash recovery of the pending reminders: a compact snapshot of the wheel plus a write-ahead log of the
+ * changes since. Every record is a last-writer-wins change of one task's reminder, so replaying a log over a
+ * snapshot that already includes it is harmless. A log batch is forced to disk before the events that produced
+ * it are acknowledged; a torn batch at the end of the log is cut off on startup and delivered again.
+ * <p>
+ * Entries are varint-encoded with task ids delta-coded in wheel order, about 10 bytes per reminder.
+ */
+@Component
+@Slf4j
+public class ReminderStore {
+
+    private static final int MAGIC = 0x524D4E44;
+    private static final byte VERSION = 1;
+    private static final byte SCHEDULE = 1;
+    private static final byte CANCEL = 2;
+
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final Path previousLogFile;
+    private RecordLog journal;
+
+    public ReminderStore(@Value("${notification.reminders.directory:data/reminders}") Path directory) {
+        this.snapshotFile = directory.resolve("reminders.snapshot");
+        this.logFile = directory.resolve("reminders.log");
+        this.previousLogFile = directory.resolve("reminders.log.prev");
+    }
+
+    /** Replays the snapshot and both logs into {@code recovery}, opens the log and returns the last offset. */
+    public synchronized long load(Recovery recovery) throws IOException {
+        Files.createDirectories(logFile.getParent());
+        long lastOffset = 0;
+        if (Files.exists(snapshotFile)) {
+            lastOffset = readSnapshot(recovery);
+        }
+        long[] logOffset = {lastOffset};
+        RecordLog.Handler replay = payload -> logOffset[0] = Math.max(logOffset[0], applyBatch(payload, recovery));
+        if (Files.exists(previousLogFile)) {
+            RecordLog.replay(previousLogFile, replay);
+        }
+        journal = RecordLog.open(logFile, replay);
+        return logOffset[0];
+    }
+
+    public synchronized void append(Batch batch) {
+        if (batch.count == 0) {
+            return;
+        }
+        try {
+            journal.append(batch.payload(), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Starts a new log for the changes after a snapshot point. The previous log is kept until the snapshot is
+     * written; if an earlier snapshot failed, the current log is appended to it instead.
+     */
+    public synchronized void rotate() throws IOException {
+        journal.close();
+        if (Files.exists(previousLogFile)) {
+            try (FileChannel previous = FileChannel.open(previousLogFile, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+                 FileChannel current = FileChannel.open(logFile, StandardOpenOption.READ)) {
+                current.transferTo(0, current.size(), previous);
+                previous.force(false);
+            }
+            Files.delete(logFile);
+        } else {
+            Files.move(logFile, previousLogFile, StandardCopyOption.ATOMIC_MOVE);
+        }
+        journal = RecordLog.open(logFile, payload -> { });
+    }
+
+    // Снимок пишется во временный файл и атомарно подменяет прежний; только после этого удаляется старый журнал
+    public void writeSnapshot(byte[] snapshot) throws IOException {
+        Path temporary = snapshotFile.resolveSibling("reminders.snapshot.tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        synchronized (this) {
+            Files.deleteIfExists(previousLogFile);
+        }
+    }
+
+    /** Encodes the pending reminders of {@code wheel}; run under the scheduler lock, written later. */
+    public static byte[] encodeSnapshot(TimingWheel wheel, long lastOffset) {
+        // Кодирование прямо в массив: потоки с побайтовой записью втрое медленнее на миллионах записей
+        SnapshotBuffer buffer = new SnapshotBuffer(32 + wheel.size() * 12);
+        buffer.putInt(MAGIC);
+        buffer.bytes[buffer.position++] = VERSION;
+        buffer.putLong(lastOffset);
+        buffer.putInt(wheel.size());
+        wheel.forEach((taskId, userId, deadline, due) -> {
+            buffer.putVarLong(zigZag(taskId - buffer.previousTaskId));
+            buffer.putVarLong(userId);
+            buffer.putVarLong(deadline);
+            buffer.previousTaskId = taskId;
+        });
+        CRC32 crc = new CRC32();
+        crc.update(buffer.bytes, 0, buffer.position);
+        buffer.putInt((int) crc.getValue());
+        return Arrays.copyOf(buffer.bytes, buffer.position);
+    }
+
+    public synchronized void close() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    private long readSnapshot(Recovery recovery) throws IOException {
+        byte[] snapshot = Files.readAllBytes(snapshotFile);
+        CRC32 crc = new CRC32();
+        crc.update(snapshot, 0, Math.max(snapshot.length - 4, 0));
+        if (snapshot.length < 4 || (int) crc.getValue() != ByteBuffer.wrap(snapshot, snapshot.length - 4, 4).getInt()) {
+            throw new IOException("Corrupted reminder snapshot " + snapshotFile);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Not a reminder snapshot: " + snapshotFile);
+            }
+            long lastOffset = in.readLong();
+            int count = in.readInt();
+            long taskId = 0;
+            for (int i = 0; i < count; i++) {
+                taskId += unZigZag(readVarLong(in));
+                recovery.schedule(taskId, readVarLong(in), (int) readVarLong(in));
+            }
+            log.info("Loaded {} reminders from snapshot at offset {}", count, lastOffset);
+            return lastOffset;
+        }
+    }
+
+    private static long applyBatch(byte[] payload, Recovery recovery) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            long offset = readVarLong(in);
+            long count = readVarLong(in);
+            for (long i = 0; i < count; i++) {
+                byte op = in.readByte();
+                long taskId = readVarLong(in);
+                if (op == SCHEDULE) {
+                    recovery.schedule(taskId, readVarLong(in), (int) readVarLong(in));
+                } else {
+                    recovery.cancel(taskId);
+                }
+            }
+            return offset;
+        }
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /** Changes to the pending reminders, in the order they were applied, up to event {@code offset}. */
+    public static final class Batch {
+        private final ByteArrayOutputStream ops = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(ops);
+        private final long offset;
+        private int count;
+
+        public Batch(long offset) {
+            this.offset = offset;
+        }
+
+        public void schedule(long taskId, long userId, int deadline) {
+            try {
+                out.writeByte(SCHEDULE);
+                writeVarLong(out, taskId);
+                writeVarLong(out, userId);
+                writeVarLong(out, deadline);
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public void cancel(long taskId) {
+            try {
+                out.writeByte(CANCEL);
+                writeVarLong(out, taskId);
+                count++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        public int size() {
+            return count;
+        }
+
+        private byte[] payload() {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(ops.size() + 16);
+            try (DataOutputStream header = new DataOutputStream(bytes)) {
+                writeVarLong(header, offset);
+                writeVarLong(header, count);
+                ops.writeTo(header);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private static final class SnapshotBuffer {
+        private byte[] bytes;
+        private int position;
+        private long previousTaskId;
+
+        private SnapshotBuffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        private void putVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[position++] = (byte) value;
+        }
+
+        private void putInt(int value) {
+            ensure(4);
+            ByteBuffer.wrap(bytes, position, 4).putInt(value);
+            position += 4;
+        }
+
+        private void putLong(long value) {
+            ensure(8);
+            ByteBuffer.wrap(bytes, position, 8).putLong(value);
+            position += 8;
+        }
+
+        private void ensure(int needed) {
+            if (position + needed > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 3 / 2, position + needed));
+            }
+        }
+    }
+
+    public interface Recovery {
+        void schedule(long taskId, long userId, int deadline);
+
+        void cancel(long taskId);
+    }
+}
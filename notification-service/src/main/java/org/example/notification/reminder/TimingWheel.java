@@ -0,0 +1,261 @@
+package org.example.notification.reminder;
+
+import java.util.Arrays;
+
+/**
+ * Hierarchical timing wheel of reminders keyed by task id, with a tick of one second. Five levels of 64 slots
+ * cover 2^30 ticks (34 years); a level-0 slot holds the reminders due at one tick, and higher-level slots are
+ * cascaded down as the lower level wraps, so scheduling, cancelling and firing are all O(1) per reminder.
+ * <p>
+ * Reminders live in parallel primitive arrays linked into per-slot circular lists, with an open-addressing
+ * index from task id to entry: about 40 bytes per reminder and no object per entry, so ten million pending
+ * reminders fit in a few hundred megabytes without burdening the garbage collector.
+ * <p>
+ * Not thread-safe: {@link ReminderScheduler} serializes access.
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 5;
+    private static final long MAX_DELTA = 1L << (SLOT_BITS * LEVELS);
+    // Первые записи массивов — стражи циклических списков слотов
+    private static final int SENTINELS = SLOTS * LEVELS;
+    private static final int FREE = -2;
+
+    private long[] taskIds;
+    private long[] userIds;
+    private int[] deadlines;
+    private int[] dues;
+    private int[] next;
+    private int[] prev;
+    private int allocated = SENTINELS;
+    private int freeHead = -1;
+    private int size;
+
+    // Индекс taskId -> запись + 1; 0 — пустая ячейка
+    private int[] index;
+    private int mask;
+
+    private long currentTick;
+
+    public TimingWheel(long startTick, int expectedSize) {
+        int capacity = SENTINELS + Math.max(expectedSize, 16);
+        this.taskIds = new long[capacity];
+        this.userIds = new long[capacity];
+        this.deadlines = new int[capacity];
+        this.dues = new int[capacity];
+        this.next = new int[capacity];
+        this.prev = new int[capacity];
+        for (int sentinel = 0; sentinel < SENTINELS; sentinel++) {
+            next[sentinel] = sentinel;
+            prev[sentinel] = sentinel;
+        }
+        int tableSize = Integer.highestOneBit(Math.max(expectedSize, 16) * 4 / 3) * 2;
+        this.index = new int[tableSize];
+        this.mask = tableSize - 1;
+        this.currentTick = startTick;
+    }
+
+    /** Schedules the reminder of {@code taskId} at tick {@code due}, replacing any earlier one. */
+    public void schedule(long taskId, long userId, int deadline, int due) {
+        int entry = find(taskId);
+        if (entry >= 0) {
+            unlink(entry);
+        } else {
+            entry = allocate();
+            taskIds[entry] = taskId;
+            insertIndex(entry);
+            size++;
+        }
+        userIds[entry] = userId;
+        deadlines[entry] = deadline;
+        dues[entry] = due;
+        place(entry);
+    }
+
+    public boolean cancel(long taskId) {
+        int entry = find(taskId);
+        if (entry < 0) {
+            return false;
+        }
+        unlink(entry);
+        release(entry);
+        return true;
+    }
+
+    public boolean contains(long taskId) {
+        return find(taskId) >= 0;
+    }
+
+    /** Processes every tick up to {@code tick} inclusive and passes the reminders due to {@code expired}. */
+    public int advanceTo(long tick, Expired expired) {
+        int fired = 0;
+        while (currentTick <= tick) {
+            int slot = (int) (currentTick & (SLOTS - 1));
+            if (slot == 0) {
+                cascade();
+            }
+            int sentinel = slot;
+            for (int entry = next[sentinel]; entry != sentinel; entry = next[sentinel]) {
+                expired.accept(taskIds[entry], userIds[entry], deadlines[entry]);
+                unlink(entry);
+                release(entry);
+                fired++;
+            }
+            currentTick++;
+        }
+        return fired;
+    }
+
+    public void forEach(Entry consumer) {
+        for (int entry = SENTINELS; entry < allocated; entry++) {
+            if (prev[entry] != FREE) {
+                consumer.accept(taskIds[entry], userIds[entry], deadlines[entry], dues[entry]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long currentTick() {
+        return currentTick;
+    }
+
+    // Слот младшего уровня обернулся: записи очередного слота старших уровней раскладываются заново
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            int slot = (int) ((currentTick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+            int sentinel = level * SLOTS + slot;
+            int entry = next[sentinel];
+            // Список отцепляется целиком, иначе перенесённые записи могли бы вернуться в него же
+            next[sentinel] = sentinel;
+            prev[sentinel] = sentinel;
+            while (entry != sentinel) {
+                int following = next[entry];
+                place(entry);
+                entry = following;
+            }
+            if (slot != 0) {
+                return;
+            }
+        }
+    }
+
+    private void place(int entry) {
+        long due = Math.max(dues[entry], currentTick);
+        long delta = Math.min(due - currentTick, MAX_DELTA - 1);
+        int level = 0;
+        while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        long slotTick = currentTick + delta;
+        int slot = (int) ((slotTick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+        int sentinel = level * SLOTS + slot;
+        int tail = prev[sentinel];
+        next[tail] = entry;
+        prev[entry] = tail;
+        next[entry] = sentinel;
+        prev[sentinel] = entry;
+    }
+
+    private void unlink(int entry) {
+        next[prev[entry]] = next[entry];
+        prev[next[entry]] = prev[entry];
+    }
+
+    private int allocate() {
+        if (freeHead >= 0) {
+            int entry = freeHead;
+            freeHead = next[entry];
+            return entry;
+        }
+        if (allocated == taskIds.length) {
+            int capacity = taskIds.length + (taskIds.length >> 1);
+            taskIds = Arrays.copyOf(taskIds, capacity);
+            userIds = Arrays.copyOf(userIds, capacity);
+            deadlines = Arrays.copyOf(deadlines, capacity);
+            dues = Arrays.copyOf(dues, capacity);
+            next = Arrays.copyOf(next, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+        }
+        return allocated++;
+    }
+
+    private void release(int entry) {
+        removeIndex(entry);
+        prev[entry] = FREE;
+        next[entry] = freeHead;
+        freeHead = entry;
+        size--;
+    }
+
+    private int find(long taskId) {
+        for (int i = hash(taskId) & mask; index[i] != 0; i = (i + 1) & mask) {
+            if (taskIds[index[i] - 1] == taskId) {
+                return index[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private void insertIndex(int entry) {
+        if ((size + 1) * 4L > index.length * 3L) {
+            rehash(index.length * 2);
+        }
+        int i = hash(taskIds[entry]) & mask;
+        while (index[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        index[i] = entry + 1;
+    }
+
+    // Удаление со сдвигом назад: цепочки проб остаются без «дыр» и надгробий
+    private void removeIndex(int entry) {
+        int i = hash(taskIds[entry]) & mask;
+        while (index[i] != entry + 1) {
+            i = (i + 1) & mask;
+        }
+        int gap = i;
+        for (int j = (gap + 1) & mask; index[j] != 0; j = (j + 1) & mask) {
+            int home = hash(taskIds[index[j] - 1]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                index[gap] = index[j];
+                gap = j;
+            }
+        }
+        index[gap] = 0;
+    }
+
+    private void rehash(int tableSize) {
+        int[] old = index;
+        index = new int[tableSize];
+        mask = tableSize - 1;
+        for (int slot : old) {
+            if (slot != 0) {
+                int i = hash(taskIds[slot - 1]) & mask;
+                while (index[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                index[i] = slot;
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    @FunctionalInterface
+    public interface Expired {
+        void accept(long taskId, long userId, int deadline);
+    }
+
+    @FunctionalInterface
+    public interface Entry {
+        void accept(long taskId, long userId, int deadline, int due);
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.notification.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of length- and CRC-framed records. A record torn by a crash, and anything after it, is
+ * cut off when the file is replayed, so readers only ever see whole records in the order they were appended.
+ */
+@Slf4j
+public final class RecordLog implements Closeable {
+
+    private final Path file;
+    private final FileChannel channel;
+
+    private RecordLog(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /** Replays the existing records of {@code file} into {@code handler} and opens it for appending. */
+    public static RecordLog open(Path file, Handler handler) throws IOException {
+        if (Files.exists(file)) {
+            replay(file, handler);
+        }
+        return new RecordLog(file);
+    }
+
+    // Чтение до первой неполной или испорченной записи; хвост после неё обрезается
+    public static int replay(Path file, Handler handler) throws IOException {
+        long size = Files.size(file);
+        long valid = 0;
+        int records = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            while (true) {
+                byte[] payload;
+                int expectedCrc;
+                try {
+                    int length = in.readInt();
+                    if (length < 0 || length > size - valid - 8) {
+                        break;
+                    }
+                    payload = new byte[length];
+                    expectedCrc = in.readInt();
+                    in.readFully(payload);
+                } catch (EOFException e) {
+                    break;
+                }
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != expectedCrc) {
+                    break;
+                }
+                handler.accept(payload);
+                valid += 8 + payload.length;
+                records++;
+            }
+        }
+        if (valid < size) {
+            log.warn("Cutting torn tail of {} at byte {}", file.getFileName(), valid);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(valid);
+            }
+        }
+        return records;
+    }
+
+    /** Appends one record; with {@code force} it is on disk when the call returns. */
+    public void append(byte[] payload, boolean force) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(8 + payload.length)
+                .putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        if (force) {
+            channel.force(false);
+        }
+    }
+
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        void accept(byte[] payload) throws IOException;
+    }
+}
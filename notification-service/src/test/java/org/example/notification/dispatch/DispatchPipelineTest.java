@@ -0,0 +1,163 @@
+package org.example.notification.dispatch;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.notification.events.TaskEvent;
+import org.example.notification.events.TaskEventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DispatchPipelineTest {
+
+    @TempDir
+    Path directory;
+
+    private long offset;
+
+    @Test
+    void coalescesOverdueSweepIntoDigestsPerUserAndChannel() throws Exception {
+        RecordingChannel email = new RecordingChannel("email", 0);
+        RecordingChannel push = new RecordingChannel("push", 0);
+        DispatchQueue queue = new DispatchQueue(directory);
+        DispatchPipeline pipeline = open(queue, 5, email, push);
+
+        List<TaskEvent> sweep = new ArrayList<>();
+        for (int task = 0; task < 250; task++) {
+            sweep.add(event(TaskEventType.STATUS_CHANGED, task, task < 200 ? 1 : task < 240 ? 2 : 3, "OVERDUE"));
+        }
+        sweep.add(event(TaskEventType.STATUS_CHANGED, 999, 3, "DONE"));
+        pipeline.onEvents(sweep);
+        pipeline.flushAll();
+
+        await(() -> queue.size() == 0);
+        // Пользователь 1: два полных дайджеста по 100, пользователи 2 и 3 — по одному
+        for (RecordingChannel channel : List.of(email, push)) {
+            assertThat(channel.sent).hasSize(4);
+            assertThat(channel.sent).extracting(digest -> digest.deliveries().size())
+                    .containsExactlyInAnyOrder(100, 100, 40, 10);
+        }
+        assertThat(email.sent).filteredOn(digest -> digest.userId() == 3)
+                .extracting(Digest::text).containsExactly("10 tasks are overdue");
+        assertThat(pipeline.lastAppliedOffset()).isEqualTo(offset);
+        pipeline.shutdown();
+    }
+
+    @Test
+    void retriesFailedDigestsWithBackoff() throws Exception {
+        RecordingChannel flaky = new RecordingChannel("email", 2);
+        DispatchQueue queue = new DispatchQueue(directory);
+        DispatchPipeline pipeline = open(queue, 5, flaky);
+
+        pipeline.onEvents(List.of(event(TaskEventType.STATUS_CHANGED, 1, 1, "OVERDUE")));
+        pipeline.flushAll();
+
+        await(() -> queue.size() == 0);
+        assertThat(flaky.attempts.get()).isEqualTo(3);
+        assertThat(flaky.sent).extracting(Digest::attempt).containsExactly(3);
+        pipeline.shutdown();
+    }
+
+    @Test
+    void redeliversUnsentNotificationsAfterRestart() throws Exception {
+        RecordingChannel down = new RecordingChannel("email", Integer.MAX_VALUE);
+        DispatchQueue queue = new DispatchQueue(directory);
+        DispatchPipeline pipeline = open(queue, 100, down);
+        pipeline.onEvents(List.of(event(TaskEventType.STATUS_CHANGED, 1, 1, "OVERDUE"),
+                event(TaskEventType.STATUS_CHANGED, 2, 1, "OVERDUE")));
+        pipeline.flushAll();
+        await(() -> down.attempts.get() >= 1);
+        pipeline.shutdown();
+
+        RecordingChannel up = new RecordingChannel("email", 0);
+        DispatchQueue reopened = new DispatchQueue(directory);
+        DispatchPipeline restarted = open(reopened, 5, up);
+        assertThat(restarted.lastAppliedOffset()).isEqualTo(offset);
+        restarted.flushAll();
+
+        await(() -> reopened.size() == 0);
+        assertThat(up.sent).hasSize(1);
+        assertThat(up.sent.peek().deliveries()).extracting(delivery -> delivery.notification().taskId())
+                .containsExactly(1L, 2L);
+        restarted.shutdown();
+    }
+
+    private DispatchPipeline open(DispatchQueue queue, int maxAttempts, NotificationChannel... channels)
+            throws IOException {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        for (NotificationChannel channel : channels) {
+            beans.addBean(channel.name(), channel);
+        }
+        DispatchPipeline pipeline = new DispatchPipeline(beans.getBeanProvider(NotificationChannel.class), queue,
+                new SimpleMeterRegistry(), Duration.ofHours(1), 100, maxAttempts, Duration.ofMillis(10));
+        pipeline.restore();
+        return pipeline;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private TaskEvent event(TaskEventType type, long taskId, long userId, String status) {
+        TaskEvent event = new TaskEvent();
+        event.setOffset(++offset);
+        event.setType(type);
+        event.setTaskId(taskId);
+        event.setUserId(userId);
+        event.setStatus(status);
+        event.setOccurredAt(LocalDateTime.now());
+        return event;
+    }
+
+    // Канал, который первые failures попыток падает, а затем запоминает отправленные дайджесты
+    private static final class RecordingChannel implements NotificationChannel {
+        private final String name;
+        private final int failures;
+        private final AtomicInteger attempts = new AtomicInteger();
+        private final Queue<Digest> sent = new ConcurrentLinkedQueue<>();
+
+        RecordingChannel(String name, int failures) {
+            this.name = name;
+            this.failures = failures;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void send(Digest digest) {
+            if (attempts.incrementAndGet() <= failures) {
+                throw new IllegalStateException("Provider unavailable");
+            }
+            sent.add(digest);
+        }
+
+        @Override
+        public int ratePerSecond() {
+            return 1000;
+        }
+
+        @Override
+        public int concurrency() {
+            return 2;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.notification.reminder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.notification.events.TaskEvent;
+import org.example.notification.events.TaskEventType;
+import org.example.notification.events.TaskSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReminderSchedulerTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<Reminder> reminders = new ArrayList<>();
+    private long offset;
+
+    @Test
+    void schedulesReschedulesAndCancelsFromEvents() throws IOException {
+        ReminderScheduler scheduler = open();
+        LocalDateTime now = LocalDateTime.now();
+        scheduler.onEvents(List.of(
+                event(TaskEventType.CREATED, 1, "TODO", now.plusHours(3)),
+                event(TaskEventType.CREATED, 2, "TODO", now.plusHours(5)),
+                event(TaskEventType.CREATED, 3, "TODO", null),
+                event(TaskEventType.CREATED, 4, "TODO", now.minusHours(1)),
+                event(TaskEventType.CREATED, 5, "TODO", now.plusMinutes(30))));
+        assertThat(scheduler.pending()).isEqualTo(3);
+
+        // Дедлайн задачи 2 перенесён вперёд, задача 1 выполнена, задача 5 удалена
+        scheduler.onEvents(List.of(
+                event(TaskEventType.UPDATED, 2, "IN_PROGRESS", now.plusDays(2)),
+                bulkStatusChange(1, "DONE"),
+                event(TaskEventType.DELETED, 5, "TODO", now.plusMinutes(30))));
+        assertThat(scheduler.isScheduled(1)).isFalse();
+        assertThat(scheduler.isScheduled(5)).isFalse();
+
+        Instant inFourHours = Instant.now().plus(Duration.ofHours(4));
+        assertThat(scheduler.advanceTo(inFourHours)).isZero();
+        assertThat(scheduler.advanceTo(inFourHours.plus(Duration.ofDays(2)))).isEqualTo(1);
+        assertThat(reminders).extracting(Reminder::taskId).containsExactly(2L);
+        assertThat(reminders.get(0).deadline()).isEqualTo(now.plusDays(2).withNano(0));
+    }
+
+    @Test
+    void recoversFromSnapshotAndLog() throws IOException {
+        ReminderScheduler scheduler = open();
+        LocalDateTime now = LocalDateTime.now();
+        for (int task = 1; task <= 100; task++) {
+            scheduler.onEvents(List.of(event(TaskEventType.CREATED, task, "TODO", now.plusDays(task))));
+        }
+        scheduler.snapshot();
+        // После снимка изменения есть только в журнале, последняя пачка оборвана при записи
+        scheduler.onEvents(List.of(event(TaskEventType.DELETED, 7, "TODO", null),
+                event(TaskEventType.UPDATED, 8, "TODO", now.plusMinutes(10))));
+        scheduler.advanceTo(Instant.now().plusSeconds(1));
+        long acknowledged = offset;
+        scheduler.onEvents(List.of(event(TaskEventType.DELETED, 9, "TODO", null)));
+        Path log = directory.resolve("reminders.log");
+        byte[] bytes = Files.readAllBytes(log);
+        Files.write(log, Arrays.copyOf(bytes, bytes.length - 3));
+
+        ReminderScheduler restarted = open();
+
+        assertThat(restarted.lastAppliedOffset()).isEqualTo(acknowledged);
+        assertThat(restarted.pending()).isEqualTo(98);
+        assertThat(restarted.isScheduled(7)).isFalse();
+        assertThat(restarted.isScheduled(8)).isFalse();
+        assertThat(restarted.isScheduled(9)).isTrue();
+        assertThat(reminders).extracting(Reminder::taskId).containsExactly(8L);
+    }
+
+    private ReminderScheduler open() throws IOException {
+        StaticListableBeanFactory listeners = new StaticListableBeanFactory();
+        listeners.addBean("recorder", (ReminderListener) reminders::addAll);
+        ReminderScheduler scheduler = new ReminderScheduler(new ReminderStore(directory),
+                listeners.getBeanProvider(ReminderListener.class), new SimpleMeterRegistry(), Duration.ofHours(1));
+        scheduler.restore();
+        return scheduler;
+    }
+
+    private TaskEvent bulkStatusChange(long taskId, String status) {
+        TaskEvent event = event(TaskEventType.STATUS_CHANGED, taskId, status, null);
+        event.setTask(null);
+        return event;
+    }
+
+    private TaskEvent event(TaskEventType type, long taskId, String status, LocalDateTime deadline) {
+        TaskSnapshot task = new TaskSnapshot();
+        task.setId(taskId);
+        task.setStatus(status);
+        task.setDeadline(deadline);
+        task.setUserId(42L);
+        TaskEvent event = new TaskEvent();
+        event.setOffset(++offset);
+        event.setType(type);
+        event.setTaskId(taskId);
+        event.setUserId(42L);
+        event.setStatus(status);
+        event.setOccurredAt(LocalDateTime.now());
+        event.setTask(type == TaskEventType.DELETED ? null : task);
+        return event;
+    }
+}
@@ -0,0 +1,78 @@
+package org.example.notification.reminder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    @Test
+    void firesEveryReminderExactlyAtItsTick() {
+        long start = 1_000_003;
+        TimingWheel wheel = new TimingWheel(start, 16);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        // Сроки от секунд до месяцев: записи проходят через все уровни колеса
+        for (long task = 0; task < 50_000; task++) {
+            int due = (int) (start + (long) Math.pow(2, random.nextDouble() * 23));
+            wheel.schedule(task, task % 100, due + 3600, due);
+            expected.put(task, due);
+        }
+        for (long task = 0; task < 50_000; task += 3) {
+            if (random.nextBoolean()) {
+                assertThat(wheel.cancel(task)).isTrue();
+                expected.remove(task);
+            } else {
+                int due = (int) (start + random.nextInt(1 << 20));
+                wheel.schedule(task, task % 100, due + 3600, due);
+                expected.put(task, due);
+            }
+        }
+        assertThat(wheel.size()).isEqualTo(expected.size());
+
+        List<String> mismatches = new ArrayList<>();
+        long end = start + (1 << 23) + 1;
+        long previous = start - 1;
+        for (long tick = start; tick <= end; tick += 1 + random.nextInt(500)) {
+            long now = tick;
+            long from = previous;
+            // Тики обрабатываются отрезками: срок должен попадать в только что пройденный отрезок
+            wheel.advanceTo(now, (taskId, userId, deadline) -> {
+                Integer due = expected.remove(taskId);
+                if (due == null || due > now || due <= from || deadline != due + 3600 || userId != taskId % 100) {
+                    mismatches.add(taskId + "@" + now);
+                }
+            });
+            previous = now;
+        }
+
+        assertThat(mismatches).isEmpty();
+        assertThat(expected).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void overdueAndRescheduledEntriesFireOnNextTick() {
+        TimingWheel wheel = new TimingWheel(100, 16);
+        List<Long> fired = new ArrayList<>();
+        wheel.schedule(1, 1, 200, 50);
+        wheel.schedule(2, 1, 10_000, 9_000);
+        wheel.schedule(2, 1, 300, 150);
+
+        wheel.advanceTo(100, (taskId, userId, deadline) -> fired.add(taskId));
+        assertThat(fired).containsExactly(1L);
+        wheel.advanceTo(149, (taskId, userId, deadline) -> fired.add(taskId));
+        assertThat(fired).containsExactly(1L);
+        wheel.advanceTo(150, (taskId, userId, deadline) -> fired.add(taskId));
+
+        assertThat(fired).containsExactly(1L, 2L);
+        assertThat(wheel.contains(2)).isFalse();
+    }
+}
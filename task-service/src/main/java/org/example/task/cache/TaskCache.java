@@ -0,0 +1,84 @@
+package org.example.task.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for task queries, keyed by (user, generation, query shape, arguments).
+ * Invalidating a user bumps their generation, so stale entries become unreachable at once
+ * and are reclaimed by the size/TTL policy instead of being scanned for.
+ */
+@Component
+public class TaskCache {
+
+    private final Cache<Key, Object> entries;
+    private final Cache<Long, Long> generations;
+    private final AtomicLong generationSequence = new AtomicLong();
+
+    public TaskCache(MeterRegistry meterRegistry,
+                     @Value("${task.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${task.cache.ttl:30s}") Duration ttl) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        // Поколение живёт дольше записей: если его вытеснили, новое значение всё равно уникально
+        this.generations = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(ttl.multipliedBy(2))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, entries, "tasks");
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Long userId, String shape, Supplier<T> loader, Object... args) {
+        Key key = new Key(userId, generation(userId), shape, Arrays.asList(args));
+        Object cached = entries.getIfPresent(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        T value = loader.get();
+        entries.put(key, value);
+        return value;
+    }
+
+    /**
+     * Drops every cached query of the user. Inside a transaction this happens after commit,
+     * so a concurrent reader cannot repopulate the cache with pre-commit data.
+     */
+    public void invalidateUser(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpGeneration(userId);
+                }
+            });
+        } else {
+            bumpGeneration(userId);
+        }
+    }
+
+    private long generation(Long userId) {
+        return generations.get(userId, id -> generationSequence.incrementAndGet());
+    }
+
+    private void bumpGeneration(Long userId) {
+        generations.put(userId, generationSequence.incrementAndGet());
+    }
+
+    private record Key(Long userId, long generation, String shape, List<Object> args) {}
+}
@@ -0,0 +1,41 @@
+package org.example.task.config;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4jBulkheadProvider;
+import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+/**
+ * Circuit breaker setup for spring.threads.virtual.enabled=true (profile "virtual-threads").
+ * Request threads are cheap there, so the limit on concurrent DB work moves from the Tomcat pool
+ * to a semaphore bulkhead sized to the connection pool.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    // TimeLimiter по умолчанию запускает вызовы в cached thread pool платформенных потоков
+    @Bean
+    public Customizer<Resilience4JCircuitBreakerFactory> virtualThreadTimeLimiter() {
+        return factory -> factory.configureExecutorService(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean
+    public Customizer<Resilience4jBulkheadProvider> taskServiceBulkhead(
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxConcurrentCalls,
+            @Value("${task.bulkhead.max-wait:50ms}") Duration maxWait) {
+        return provider -> provider.configure(builder -> builder
+                .bulkheadConfig(BulkheadConfig.custom()
+                        .maxConcurrentCalls(maxConcurrentCalls)
+                        .maxWaitDuration(maxWait)
+                        .build()), "taskService");
+    }
+}
@@ -1,17 +1,38 @@
 package org.example.task.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.example.task.dto.ApiResponse;
+import org.example.task.dto.BatchDeleteRequest;
+import org.example.task.dto.BatchItemResult;
+import org.example.task.dto.BatchStatusRequest;
+import org.example.task.dto.TaskChanges;
+import org.example.task.dto.TaskPage;
 import org.example.task.dto.TaskRequest;
 import org.example.task.dto.TaskResponse;
+import org.example.task.dto.TaskStats;
+import org.example.task.events.TaskEventStream;
 import org.example.task.model.TaskStatus;
 import org.example.task.model.Priority;
+import org.example.task.repository.TaskFilter;
+import org.example.task.search.TaskSearchService;
 import org.example.task.service.TaskService;
+import org.example.task.service.TaskStreamHandler;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -19,16 +40,76 @@ import java.util.List;
 @Slf4j
 public class TaskController {
 
+    private static final String DEFAULT_PAGE_SIZE = "" + TaskService.DEFAULT_PAGE_SIZE;
+
     @Autowired
     private TaskService taskService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TaskEventStream taskEventStream;
+
+    @Autowired
+    private TaskSearchService taskSearchService;
+
     @GetMapping
-    public ResponseEntity<ApiResponse<List<TaskResponse>>> getAllTasksByUser(
-            @RequestParam Long userId) {
-        List<TaskResponse> tasks = taskService.getAllTasksByUser(userId);
+    public ResponseEntity<ApiResponse<TaskPage>> getAllTasksByUser(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        TaskPage tasks = taskService.getAllTasksByUser(userId, cursor, limit);
         return ResponseEntity.ok(ApiResponse.success("Tasks retrieved successfully", tasks));
     }
 
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllTasksByUser(
+            @RequestParam Long userId) {
+        return ndjson(out -> taskService.streamTasksWithFilters(userId, null, null, out));
+    }
+
+    // Дельта-синхронизация: без токена — весь список, дальше только изменения и удаления после nextToken
+    @GetMapping("/changes")
+    public ResponseEntity<ApiResponse<TaskChanges>> getTaskChanges(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
+        TaskChanges changes = taskService.getChanges(userId, since, limit);
+        return ResponseEntity.ok(ApiResponse.success("Task changes retrieved", changes));
+    }
+
+    // Поиск по названию и описанию; пока индекс загружается — 503
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<TaskResponse>>> searchTasks(
+            @RequestParam Long userId,
+            @RequestParam String q,
+            @RequestParam(required = false) TaskStatus status,
+            @RequestParam(required = false) Priority priority,
+            @RequestParam(defaultValue = "20") int limit) {
+        List<TaskResponse> tasks = taskSearchService.search(userId, q, status, priority, limit);
+        if (tasks == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(ApiResponse.error("Search index is still loading"));
+        }
+        return ResponseEntity.ok(ApiResponse.success("Tasks found", tasks));
+    }
+
+    // Изменения задач пользователя (server-sent events); браузер при переподключении шлёт Last-Event-ID сам
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTaskChanges(
+            @RequestParam Long userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        SseEmitter emitter = taskEventStream.subscribe(userId, lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<TaskResponse>> getTaskById(
             @PathVariable Long id,
@@ -46,6 +127,31 @@ public class TaskController {
         return ResponseEntity.ok(ApiResponse.success("Task created successfully", createdTask));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<BatchItemResult>>> createTasks(
+            @RequestBody List<TaskRequest> taskRequests) {
+
+        List<BatchItemResult> results = taskService.createTasks(taskRequests);
+        return ResponseEntity.ok(ApiResponse.success("Batch processed", results));
+    }
+
+    @PatchMapping("/batch/status")
+    public ResponseEntity<ApiResponse<List<BatchItemResult>>> updateTaskStatuses(
+            @Valid @RequestBody BatchStatusRequest request) {
+
+        List<BatchItemResult> results = taskService.updateTaskStatuses(
+                request.getUserId(), request.getIds(), request.getStatus());
+        return ResponseEntity.ok(ApiResponse.success("Batch processed", results));
+    }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<ApiResponse<List<BatchItemResult>>> deleteTasks(
+            @Valid @RequestBody BatchDeleteRequest request) {
+
+        List<BatchItemResult> results = taskService.deleteTasks(request.getUserId(), request.getIds());
+        return ResponseEntity.ok(ApiResponse.success("Batch processed", results));
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ApiResponse<TaskResponse>> updateTask(
             @PathVariable Long id,
@@ -79,41 +185,90 @@ public class TaskController {
     }
 
     @GetMapping("/filter/status")
-    public ResponseEntity<ApiResponse<List<TaskResponse>>> getTasksByStatus(
+    public ResponseEntity<ApiResponse<TaskPage>> getTasksByStatus(
             @RequestParam Long userId,
-            @RequestParam TaskStatus status) {
+            @RequestParam TaskStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
 
-        List<TaskResponse> tasks = taskService.getTasksByStatus(userId, status);
+        TaskPage tasks = taskService.getTasksByStatus(userId, status, cursor, limit);
         return ResponseEntity.ok(ApiResponse.success("Tasks filtered by status", tasks));
     }
 
+    @GetMapping(value = "/filter/status", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTasksByStatus(
+            @RequestParam Long userId,
+            @RequestParam TaskStatus status) {
+        return ndjson(out -> taskService.streamTasksWithFilters(userId, status, null, out));
+    }
+
     @GetMapping("/filter/priority")
-    public ResponseEntity<ApiResponse<List<TaskResponse>>> getTasksByPriority(
+    public ResponseEntity<ApiResponse<TaskPage>> getTasksByPriority(
             @RequestParam Long userId,
-            @RequestParam Priority priority) {
+            @RequestParam Priority priority,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
 
-        List<TaskResponse> tasks = taskService.getTasksByPriority(userId, priority);
+        TaskPage tasks = taskService.getTasksByPriority(userId, priority, cursor, limit);
         return ResponseEntity.ok(ApiResponse.success("Tasks filtered by priority", tasks));
     }
 
+    @GetMapping(value = "/filter/priority", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTasksByPriority(
+            @RequestParam Long userId,
+            @RequestParam Priority priority) {
+        return ndjson(out -> taskService.streamTasksWithFilters(userId, null, priority, out));
+    }
+
     @GetMapping("/overdue")
-    public ResponseEntity<ApiResponse<List<TaskResponse>>> getOverdueTasks(
-            @RequestParam Long userId) {
+    public ResponseEntity<ApiResponse<TaskPage>> getOverdueTasks(
+            @RequestParam Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
 
-        List<TaskResponse> tasks = taskService.getOverdueTasks(userId);
+        TaskPage tasks = taskService.getOverdueTasks(userId, cursor, limit);
         return ResponseEntity.ok(ApiResponse.success("Overdue tasks retrieved", tasks));
     }
 
+    @GetMapping(value = "/overdue", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamOverdueTasks(
+            @RequestParam Long userId) {
+        return ndjson(out -> taskService.streamOverdueTasks(userId, out));
+    }
+
     @GetMapping("/filter")
-    public ResponseEntity<ApiResponse<List<TaskResponse>>> getTasksWithFilters(
+    public ResponseEntity<ApiResponse<TaskPage>> getTasksWithFilters(
             @RequestParam Long userId,
             @RequestParam(required = false) TaskStatus status,
-            @RequestParam(required = false) Priority priority) {
+            @RequestParam(required = false) Priority priority,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = DEFAULT_PAGE_SIZE) int limit) {
 
-        List<TaskResponse> tasks = taskService.getTasksWithFilters(userId, status, priority);
+        TaskPage tasks = taskService.getTasksWithFilters(userId, status, priority, cursor, limit);
         return ResponseEntity.ok(ApiResponse.success("Tasks filtered successfully", tasks));
     }
 
+    // Фильтр собирается до начала ответа: неверный диапазон даёт 400, а не оборванный поток
+    @GetMapping(value = "/filter", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamTasksWithFilters(
+            @RequestParam Long userId,
+            @RequestParam(required = false) TaskStatus status,
+            @RequestParam(required = false) Priority priority,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime deadlineFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime deadlineTo,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime createdFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime createdTo,
+            @RequestParam(required = false) TaskFilter.SortField sort,
+            @RequestParam(required = false) Sort.Direction direction) {
+        TaskFilter filter = TaskFilter.forUser(userId)
+                .status(status)
+                .priority(priority)
+                .deadlineBetween(deadlineFrom, deadlineTo)
+                .createdBetween(createdFrom, createdTo)
+                .sortBy(sort, direction);
+        return ndjson(out -> taskService.streamTasks(filter, out));
+    }
+
     @GetMapping("/stats/count")
     public ResponseEntity<ApiResponse<Long>> getTaskCountByStatus(
             @RequestParam Long userId,
@@ -122,6 +277,15 @@ public class TaskController {
         long count = taskService.getTaskCountByStatus(userId, status);
         return ResponseEntity.ok(ApiResponse.success("Task count retrieved", count));
     }
+
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<List<TaskStats>>> getTaskStats(
+            @RequestParam List<Long> userIds) {
+
+        List<TaskStats> stats = taskService.getTaskStats(userIds);
+        return ResponseEntity.ok(ApiResponse.success("Task stats retrieved", stats));
+    }
+
     @GetMapping("/{id}/belongs-to-user")
     public ResponseEntity<ApiResponse<Boolean>> taskBelongsToUser(
             @PathVariable Long id,
@@ -130,4 +294,25 @@ public class TaskController {
         boolean belongs = taskService.taskBelongsToUser(id, userId);
         return ResponseEntity.ok(ApiResponse.success("Task ownership checked", belongs));
     }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiResponse<Void>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+    }
+
+    // Каждая задача пишется отдельной строкой JSON по мере чтения из БД
+    private ResponseEntity<StreamingResponseBody> ndjson(NdjsonQuery query) {
+        StreamingResponseBody body = out -> query.run(task -> {
+            out.write(objectMapper.writeValueAsBytes(task));
+            out.write('\n');
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @FunctionalInterface
+    private interface NdjsonQuery {
+        void run(TaskStreamHandler handler) throws IOException;
+    }
 }
\ No newline at end of file
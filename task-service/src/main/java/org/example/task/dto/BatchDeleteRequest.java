@@ -0,0 +1,24 @@
+package org.example.task.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.util.List;
+
+public class BatchDeleteRequest {
+
+    @NotNull(message = "User ID is required")
+    @Positive(message = "User ID must be a positive number")
+    private Long userId;
+
+    @NotEmpty(message = "Task IDs are required")
+    private List<Long> ids;
+
+    // Геттеры и сеттеры
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public List<Long> getIds() { return ids; }
+    public void setIds(List<Long> ids) { this.ids = ids; }
+}
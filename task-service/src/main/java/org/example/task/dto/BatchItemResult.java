@@ -0,0 +1,33 @@
+package org.example.task.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult {
+    private final int index;
+    private final Long id;
+    private final boolean success;
+    private final String error;
+
+    // Конструкторы
+    public BatchItemResult(int index, Long id, boolean success, String error) {
+        this.index = index;
+        this.id = id;
+        this.success = success;
+        this.error = error;
+    }
+
+    public static BatchItemResult success(int index, Long id) {
+        return new BatchItemResult(index, id, true, null);
+    }
+
+    public static BatchItemResult failure(int index, Long id, String error) {
+        return new BatchItemResult(index, id, false, error);
+    }
+
+    // Геттеры
+    public int getIndex() { return index; }
+    public Long getId() { return id; }
+    public boolean isSuccess() { return success; }
+    public String getError() { return error; }
+}
@@ -0,0 +1,42 @@
+package org.example.task.dto;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a user's task changes after a sync token: created or updated tasks and the ids of deleted
+ * ones, in change order. {@code resyncRequired} means the token is older than the kept tombstones, so the
+ * client has to reload its list and sync again without a token.
+ */
+public class TaskChanges {
+    private final List<TaskResponse> items;
+    private final List<Long> deleted;
+    private final String nextToken;
+    private final boolean hasMore;
+    private final boolean resyncRequired;
+
+    // Конструкторы
+    public TaskChanges(List<TaskResponse> items, List<Long> deleted, String nextToken, boolean hasMore) {
+        this(items, deleted, nextToken, hasMore, false);
+    }
+
+    private TaskChanges(List<TaskResponse> items, List<Long> deleted, String nextToken, boolean hasMore,
+                        boolean resyncRequired) {
+        this.items = items;
+        this.deleted = deleted;
+        this.nextToken = nextToken;
+        this.hasMore = hasMore;
+        this.resyncRequired = resyncRequired;
+    }
+
+    public static TaskChanges resync() {
+        return new TaskChanges(Collections.emptyList(), Collections.emptyList(), null, false, true);
+    }
+
+    // Геттеры
+    public List<TaskResponse> getItems() { return items; }
+    public List<Long> getDeleted() { return deleted; }
+    public String getNextToken() { return nextToken; }
+    public boolean isHasMore() { return hasMore; }
+    public boolean isResyncRequired() { return resyncRequired; }
+}
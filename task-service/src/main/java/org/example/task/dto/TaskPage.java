@@ -0,0 +1,40 @@
+package org.example.task.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.example.task.service.TaskCursor;
+import org.springframework.data.domain.Window;
+
+import java.util.Collections;
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TaskPage {
+    private final List<TaskResponse> items;
+    private final String nextCursor;
+    private final boolean hasNext;
+
+    // Конструкторы
+    public TaskPage(List<TaskResponse> items, String nextCursor, boolean hasNext) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+
+    public static TaskPage of(Window<TaskResponse> window) {
+        List<TaskResponse> items = window.getContent();
+        if (!window.hasNext() || items.isEmpty()) {
+            return new TaskPage(items, null, false);
+        }
+        TaskResponse last = items.get(items.size() - 1);
+        return new TaskPage(items, TaskCursor.encode(last.getCreatedAt(), last.getId()), true);
+    }
+
+    public static TaskPage empty() {
+        return new TaskPage(Collections.emptyList(), null, false);
+    }
+
+    // Геттеры
+    public List<TaskResponse> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+    public boolean isHasNext() { return hasNext; }
+}
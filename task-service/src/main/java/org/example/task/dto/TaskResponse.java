@@ -2,6 +2,7 @@ package org.example.task.dto;
 
 import org.example.task.model.Priority;
 import org.example.task.model.TaskStatus;
+import org.springframework.data.annotation.PersistenceCreator;
 
 import java.time.LocalDateTime;
 
@@ -29,6 +30,21 @@ public class TaskResponse {
         this.updatedAt = task.getUpdatedAt();
     }
 
+    // Конструктор для проекций: заполняется прямо из запроса, без управляемой сущности
+    @PersistenceCreator
+    public TaskResponse(Long id, String title, String description, TaskStatus status, Priority priority,
+                        LocalDateTime deadline, Long userId, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.status = status;
+        this.priority = priority;
+        this.deadline = deadline;
+        this.userId = userId;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+    }
+
     // Геттеры
     public Long getId() { return id; }
     public String getTitle() { return title; }
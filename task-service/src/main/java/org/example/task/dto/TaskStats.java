@@ -0,0 +1,43 @@
+package org.example.task.dto;
+
+import org.example.task.model.Priority;
+import org.example.task.model.TaskStatus;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class TaskStats {
+    private final Long userId;
+    private final Map<TaskStatus, Map<Priority, Long>> counts = new EnumMap<>(TaskStatus.class);
+    private long total;
+    private long overdue;
+    private long dueThisWeek;
+
+    // Конструкторы
+    public TaskStats(Long userId) {
+        this.userId = userId;
+        for (TaskStatus status : TaskStatus.values()) {
+            Map<Priority, Long> byPriority = new EnumMap<>(Priority.class);
+            for (Priority priority : Priority.values()) {
+                byPriority.put(priority, 0L);
+            }
+            counts.put(status, byPriority);
+        }
+    }
+
+    public void add(TaskStatus status, Priority priority, long count, long dueThisWeek) {
+        counts.get(status).merge(priority, count, Long::sum);
+        this.total += count;
+        this.dueThisWeek += dueThisWeek;
+        if (status == TaskStatus.OVERDUE) {
+            this.overdue += count;
+        }
+    }
+
+    // Геттеры
+    public Long getUserId() { return userId; }
+    public Map<TaskStatus, Map<Priority, Long>> getCounts() { return counts; }
+    public long getTotal() { return total; }
+    public long getOverdue() { return overdue; }
+    public long getDueThisWeek() { return dueThisWeek; }
+}
@@ -0,0 +1,45 @@
+package org.example.task.events;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import org.example.task.model.TaskStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Task change event as shipped to consumers. {@code offset} is the position in the event stream: it grows
+ * by one per event and consumers use it to skip redelivered events. {@code task} is the task snapshot
+ * after the change (already serialized JSON); it is absent for deletions and bulk status updates.
+ */
+public class TaskEvent {
+    private final long offset;
+    private final TaskEventType type;
+    private final Long taskId;
+    private final Long userId;
+    private final TaskStatus status;
+    private final LocalDateTime occurredAt;
+    private final String task;
+
+    // Конструкторы
+    public TaskEvent(long offset, TaskEventType type, Long taskId, Long userId, TaskStatus status,
+                     LocalDateTime occurredAt, String task) {
+        this.offset = offset;
+        this.type = type;
+        this.taskId = taskId;
+        this.userId = userId;
+        this.status = status;
+        this.occurredAt = occurredAt;
+        this.task = task;
+    }
+
+    // Геттеры
+    public long getOffset() { return offset; }
+    public TaskEventType getType() { return type; }
+    public Long getTaskId() { return taskId; }
+    public Long getUserId() { return userId; }
+    public TaskStatus getStatus() { return status; }
+    public LocalDateTime getOccurredAt() { return occurredAt; }
+
+    // Снимок уже сериализован при записи события, в тело запроса он вставляется как есть
+    @JsonRawValue
+    public String getTask() { return task; }
+}
@@ -0,0 +1,102 @@
+package org.example.task.events;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "task.events")
+public class TaskEventProperties {
+
+    // Запись событий в outbox вместе с изменениями задач
+    private boolean enabled = true;
+    private final Relay relay = new Relay();
+    private final Stream stream = new Stream();
+    // Имя потребителя -> URL, куда отправляются пачки событий; пустой URL отключает потребителя
+    private Map<String, String> consumers = new LinkedHashMap<>();
+
+    public static class Relay {
+        private boolean enabled = true;
+        private int batchSize = 500;
+        private Duration connectTimeout = Duration.ofSeconds(1);
+        private Duration readTimeout = Duration.ofSeconds(5);
+        private Duration initialBackoff = Duration.ofSeconds(1);
+        private Duration maxBackoff = Duration.ofSeconds(30);
+
+        // Геттеры и сеттеры
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getBatchSize() { return batchSize; }
+        public void setBatchSize(int batchSize) { this.batchSize = batchSize; }
+
+        public Duration getConnectTimeout() { return connectTimeout; }
+        public void setConnectTimeout(Duration connectTimeout) { this.connectTimeout = connectTimeout; }
+
+        public Duration getReadTimeout() { return readTimeout; }
+        public void setReadTimeout(Duration readTimeout) { this.readTimeout = readTimeout; }
+
+        public Duration getInitialBackoff() { return initialBackoff; }
+        public void setInitialBackoff(Duration initialBackoff) { this.initialBackoff = initialBackoff; }
+
+        public Duration getMaxBackoff() { return maxBackoff; }
+        public void setMaxBackoff(Duration maxBackoff) { this.maxBackoff = maxBackoff; }
+    }
+
+    public static class Stream {
+        private boolean enabled = true;
+        // Сколько последних событий держится в памяти для продолжения с Last-Event-ID
+        private int bufferSize = 10_000;
+        // Доставленные события хранятся в outbox ещё столько, чтобы переподключившийся клиент их дочитал
+        private Duration retention = Duration.ofMinutes(15);
+        private int replayLimit = 1000;
+        // Недоставленных событий на соединение; медленный клиент отключается и догоняет при переподключении
+        private int maxQueued = 256;
+        private int maxConnections = 25_000;
+        private Duration timeout = Duration.ofMinutes(30);
+        private Duration heartbeatInterval = Duration.ofSeconds(30);
+        private Duration reconnectDelay = Duration.ofSeconds(2);
+
+        // Геттеры и сеттеры
+        public boolean isEnabled() { return enabled; }
+        public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+        public int getBufferSize() { return bufferSize; }
+        public void setBufferSize(int bufferSize) { this.bufferSize = bufferSize; }
+
+        public Duration getRetention() { return retention; }
+        public void setRetention(Duration retention) { this.retention = retention; }
+
+        public int getReplayLimit() { return replayLimit; }
+        public void setReplayLimit(int replayLimit) { this.replayLimit = replayLimit; }
+
+        public int getMaxQueued() { return maxQueued; }
+        public void setMaxQueued(int maxQueued) { this.maxQueued = maxQueued; }
+
+        public int getMaxConnections() { return maxConnections; }
+        public void setMaxConnections(int maxConnections) { this.maxConnections = maxConnections; }
+
+        public Duration getTimeout() { return timeout; }
+        public void setTimeout(Duration timeout) { this.timeout = timeout; }
+
+        public Duration getHeartbeatInterval() { return heartbeatInterval; }
+        public void setHeartbeatInterval(Duration heartbeatInterval) { this.heartbeatInterval = heartbeatInterval; }
+
+        public Duration getReconnectDelay() { return reconnectDelay; }
+        public void setReconnectDelay(Duration reconnectDelay) { this.reconnectDelay = reconnectDelay; }
+    }
+
+    // Геттеры и сеттеры
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    public Relay getRelay() { return relay; }
+
+    public Stream getStream() { return stream; }
+
+    public Map<String, String> getConsumers() { return consumers; }
+    public void setConsumers(Map<String, String> consumers) { this.consumers = consumers; }
+}
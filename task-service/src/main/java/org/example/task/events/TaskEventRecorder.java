@@ -0,0 +1,123 @@
+package org.example.task.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.example.task.dto.TaskResponse;
+import org.example.task.model.Task;
+import org.example.task.model.TaskStatus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Collects the task change events of the current transaction and writes them to the outbox table right
+ * before commit, as one JDBC batch. The persistence context is flushed first, so the rows of the changed
+ * tasks are already locked when the events get their ids: two transactions changing the same task insert
+ * their events in the order they commit.
+ */
+@Component
+public class TaskEventRecorder {
+
+    private static final String INSERT_SQL = "INSERT INTO task_events " +
+            "(user_id, task_id, type, status, payload, occurred_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int jdbcBatchSize;
+
+    public TaskEventRecorder(JdbcTemplate jdbcTemplate,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper,
+                             TaskEventProperties properties,
+                             @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int jdbcBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.enabled = properties.isEnabled();
+        this.jdbcBatchSize = jdbcBatchSize;
+    }
+
+    // Снимок задачи снимается перед коммитом, после @PreUpdate: в событие попадают итоговые updatedAt и статус
+    public void record(TaskEventType type, Task task) {
+        if (enabled) {
+            pending().add(new PendingEvent(type, task.getUserId(), task.getId(), null, task));
+        }
+    }
+
+    // Массовые операции: снимка нет, только идентификаторы и новый статус
+    public void record(TaskEventType type, Long userId, Collection<Long> taskIds, TaskStatus status) {
+        if (enabled) {
+            List<PendingEvent> events = pending();
+            taskIds.forEach(taskId -> events.add(new PendingEvent(type, userId, taskId, status, null)));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PendingEvent> pending() {
+        List<PendingEvent> events = (List<PendingEvent>) TransactionSynchronizationManager.getResource(this);
+        if (events != null) {
+            return events;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Task events can only be recorded inside a transaction");
+        }
+        List<PendingEvent> created = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                write(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(TaskEventRecorder.this);
+            }
+        });
+        return created;
+    }
+
+    private void write(List<PendingEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+        Timestamp occurredAt = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, events, jdbcBatchSize, (ps, event) -> {
+            Task task = event.task();
+            TaskStatus status = task != null ? task.getStatus() : event.status();
+            ps.setLong(1, event.userId());
+            ps.setLong(2, event.taskId());
+            ps.setString(3, event.type().name());
+            ps.setString(4, status != null ? status.name() : null);
+            if (task != null && event.type() != TaskEventType.DELETED) {
+                ps.setString(5, serialize(task));
+            } else {
+                ps.setNull(5, Types.VARCHAR);
+            }
+            ps.setTimestamp(6, occurredAt);
+        });
+    }
+
+    private String serialize(Task task) {
+        try {
+            return objectMapper.writeValueAsString(new TaskResponse(task));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize task " + task.getId(), e);
+        }
+    }
+
+    private record PendingEvent(TaskEventType type, Long userId, Long taskId, TaskStatus status, Task task) {}
+}
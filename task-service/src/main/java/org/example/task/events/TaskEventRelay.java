@@ -0,0 +1,233 @@
+package org.example.task.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.example.task.model.TaskStatus;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClient;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ships outbox events to consumers in batches. It works in two steps, each in a short transaction:
+ * <ul>
+ *     <li>stamping: committed events that have no offset yet get consecutive offsets in id order. Only
+ *     the relay assigns offsets, so a transaction that commits late gets a later offset instead of
+ *     leaving a hole behind a consumer cursor;</li>
+ *     <li>delivery: every consumer has a cursor; the next batch after it is posted and the cursor moves
+ *     only when the consumer answers 2xx. A failed batch is sent again (at-least-once), consumers skip
+ *     offsets they have already applied.</li>
+ * </ul>
+ * Events are delivered in offset order, and the offsets of one task follow its commit order, so every
+ * user sees their changes in order. Events delivered to all consumers are purged once they are older than
+ * the stream retention, so that {@link TaskEventStream} clients can still resume from them.
+ */
+@Component
+@Slf4j
+public class TaskEventRelay {
+
+    // Ограничение на число пачек, проставляемых за один проход, чтобы доставка не ждала бесконечно
+    private static final int MAX_STAMP_ROUNDS = 20;
+
+    public static final String SELECT_EVENTS_SQL = "SELECT relay_offset, type, task_id, user_id, status, " +
+            "payload, occurred_at FROM task_events WHERE relay_offset > ? ORDER BY relay_offset LIMIT ?";
+
+    public static final RowMapper<TaskEvent> EVENT_MAPPER = (rs, rowNum) -> {
+        String status = rs.getString("status");
+        return new TaskEvent(rs.getLong("relay_offset"),
+                TaskEventType.valueOf(rs.getString("type")),
+                rs.getLong("task_id"),
+                rs.getLong("user_id"),
+                status != null ? TaskStatus.valueOf(status) : null,
+                rs.getTimestamp("occurred_at").toLocalDateTime(),
+                rs.getString("payload"));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskEventProperties properties;
+    private final RestClient restClient;
+    private final Map<String, Consumer> consumers = new ConcurrentHashMap<>();
+    private volatile boolean registered;
+
+    public TaskEventRelay(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          TaskEventProperties properties,
+                          RestClient.Builder loadBalancedRestClientBuilder,
+                          MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(properties.getRelay().getConnectTimeout());
+        requestFactory.setReadTimeout(properties.getRelay().getReadTimeout());
+        this.restClient = loadBalancedRestClientBuilder.clone().requestFactory(requestFactory).build();
+        properties.getConsumers().forEach((name, url) -> {
+            if (url != null && !url.isBlank()) {
+                consumers.put(name, new Consumer(name, url, meterRegistry));
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${task.events.relay.interval:PT0.2S}",
+            initialDelayString = "${task.events.relay.initial-delay:PT5S}")
+    public void relay() {
+        if (properties.getRelay().isEnabled()) {
+            relayOnce();
+        }
+    }
+
+    /**
+     * Stamps everything committed so far, delivers it to every consumer that is not backing off and purges
+     * what all consumers have received. Returns the number of events delivered.
+     */
+    public long relayOnce() {
+        registerConsumers();
+        int batchSize = properties.getRelay().getBatchSize();
+        for (int round = 0; round < MAX_STAMP_ROUNDS; round++) {
+            if (transactionTemplate.execute(status -> stamp(batchSize)) < batchSize) {
+                break;
+            }
+        }
+        long delivered = 0;
+        for (Consumer consumer : consumers.values()) {
+            delivered += deliver(consumer, batchSize);
+        }
+        transactionTemplate.executeWithoutResult(status -> purge());
+        return delivered;
+    }
+
+    private int stamp(int batchSize) {
+        Long lastOffset = jdbcTemplate.queryForObject(
+                "SELECT last_offset FROM task_event_relay WHERE id = 1 FOR UPDATE", Long.class);
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM task_events WHERE relay_offset IS NULL ORDER BY id LIMIT ?", Long.class, batchSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> offsets = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            offsets.add(new Object[]{lastOffset + i + 1, ids.get(i)});
+        }
+        jdbcTemplate.batchUpdate("UPDATE task_events SET relay_offset = ? WHERE id = ?", offsets);
+        jdbcTemplate.update("UPDATE task_event_relay SET last_offset = ? WHERE id = 1", lastOffset + ids.size());
+        return ids.size();
+    }
+
+    private long deliver(Consumer consumer, int batchSize) {
+        long delivered = 0;
+        while (System.nanoTime() - consumer.retryAt >= 0) {
+            try {
+                Integer sent = transactionTemplate.execute(status -> deliverBatch(consumer, batchSize));
+                consumer.backoff = null;
+                delivered += sent;
+                if (sent < batchSize) {
+                    break;
+                }
+            } catch (RuntimeException e) {
+                Duration backoff = consumer.backoff == null ? properties.getRelay().getInitialBackoff()
+                        : min(consumer.backoff.multipliedBy(2), properties.getRelay().getMaxBackoff());
+                consumer.backoff = backoff;
+                consumer.retryAt = System.nanoTime() + backoff.toNanos();
+                consumer.failures.increment();
+                log.warn("Delivery of task events to {} failed, retrying in {}: {}",
+                        consumer.name, backoff, e.getMessage());
+                break;
+            }
+        }
+        return delivered;
+    }
+
+    // Блокировка строки курсора не даёт двум экземплярам task-service слать одному потребителю одновременно
+    private int deliverBatch(Consumer consumer, int batchSize) {
+        Long deliveredOffset = jdbcTemplate.queryForObject(
+                "SELECT delivered_offset FROM task_event_consumers WHERE name = ? FOR UPDATE",
+                Long.class, consumer.name);
+        List<TaskEvent> events = jdbcTemplate.query(SELECT_EVENTS_SQL, EVENT_MAPPER, deliveredOffset, batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        restClient.post()
+                .uri(consumer.url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(events)
+                .retrieve()
+                .toBodilessEntity();
+        jdbcTemplate.update("UPDATE task_event_consumers SET delivered_offset = ? WHERE name = ?",
+                events.get(events.size() - 1).getOffset(), consumer.name);
+        consumer.delivered.increment(events.size());
+        return events.size();
+    }
+
+    private void purge() {
+        Timestamp retainedSince = Timestamp.valueOf(LocalDateTime.now().minus(properties.getStream().getRetention()));
+        if (consumers.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM task_events WHERE relay_offset IS NOT NULL AND occurred_at < ?",
+                    retainedSince);
+            return;
+        }
+        // Курсоры потребителей, убранных из конфигурации, не задерживают удаление
+        String placeholders = String.join(", ", Collections.nCopies(consumers.size(), "?"));
+        List<Object> args = new ArrayList<>(consumers.keySet());
+        args.add(retainedSince);
+        jdbcTemplate.update("DELETE FROM task_events WHERE relay_offset <= " +
+                "(SELECT MIN(delivered_offset) FROM task_event_consumers WHERE name IN (" + placeholders + ")) " +
+                "AND occurred_at < ?", args.toArray());
+    }
+
+    // Новый потребитель начинает с самого старого ещё не удалённого события
+    private void registerConsumers() {
+        if (registered) {
+            return;
+        }
+        for (String name : consumers.keySet()) {
+            try {
+                jdbcTemplate.update("INSERT INTO task_event_consumers (name, delivered_offset) SELECT ?, 0 " +
+                        "WHERE NOT EXISTS (SELECT 1 FROM task_event_consumers WHERE name = ?)", name, name);
+            } catch (DuplicateKeyException e) {
+                // другой экземпляр зарегистрировал потребителя одновременно с нами
+            }
+        }
+        registered = true;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static final class Consumer {
+        private final String name;
+        private final String url;
+        private final Counter delivered;
+        private final Counter failures;
+        private volatile long retryAt = System.nanoTime();
+        private volatile Duration backoff;
+
+        Consumer(String name, String url, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.url = url;
+            this.delivered = Counter.builder("task.events.delivered")
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+            this.failures = Counter.builder("task.events.delivery.failures")
+                    .tag("consumer", name)
+                    .register(meterRegistry);
+        }
+    }
+}
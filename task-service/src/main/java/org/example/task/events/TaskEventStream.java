@@ -0,0 +1,235 @@
+package org.example.task.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes task changes to the users' open event streams (server-sent events). Every instance tails the
+ * stamped outbox by relay offset on its own, so a client may connect to any instance; the offset is the
+ * SSE event id.
+ * <p>
+ * The latest events are kept in a ring buffer. A client that reconnects with {@code Last-Event-ID}
+ * gets what it missed from the buffer, or from the outbox while the events are still retained there;
+ * when neither has them it gets a {@code RESET} event and reloads its tasks. Registration and fan-out
+ * share one lock, so a resuming client sees every event exactly once and in order.
+ */
+@Component
+@Slf4j
+public class TaskEventStream {
+
+    public static final String READY_EVENT = "READY";
+    public static final String RESET_EVENT = "RESET";
+
+    private static final int POLL_BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskEventProperties.Stream properties;
+    private final Object lock = new Object();
+    private final TaskEvent[] buffer;
+    private final Map<Long, Set<TaskEventSubscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    // Отправка идёт в виртуальных потоках: запись медленному клиенту не держит платформенный поток
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter overflows;
+    private final Counter rejected;
+    // Последнее прочитанное смещение и самое старое из тех, что ещё в буфере; -1 — поток ещё не читался
+    private long lastSeen = -1;
+    private long bufferStart;
+
+    public TaskEventStream(JdbcTemplate jdbcTemplate, TaskEventProperties properties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties.getStream();
+        this.buffer = new TaskEvent[this.properties.getBufferSize()];
+        this.overflows = meterRegistry.counter("task.events.stream.overflows");
+        this.rejected = meterRegistry.counter("task.events.stream.rejected");
+        meterRegistry.gauge("task.events.stream.connections", connections);
+    }
+
+    /**
+     * Opens an event stream of the user's task changes after {@code lastEventId} (only new changes when it
+     * is null). Returns null when this instance already holds the maximum number of streams.
+     */
+    public SseEmitter subscribe(long userId, Long lastEventId) {
+        if (connections.incrementAndGet() > properties.getMaxConnections()) {
+            connections.decrementAndGet();
+            rejected.increment();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(properties.getTimeout().toMillis());
+        long resumeAfter = lastEventId != null ? lastEventId : Long.MAX_VALUE;
+        TaskEventSubscriber subscriber = new TaskEventSubscriber(userId, emitter, senders,
+                properties.getMaxQueued(), lastEventId != null ? lastEventId : 0);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> unsubscribe(subscriber));
+
+        long position;
+        List<TaskEvent> backlog;
+        synchronized (lock) {
+            if (lastSeen < 0) {
+                lastSeen = stampedOffset();
+                bufferStart = lastSeen + 1;
+            }
+            position = lastSeen;
+            backlog = resumeAfter >= position ? List.of() : buffered(userId, resumeAfter);
+            subscribers.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        if (backlog == null) {
+            backlog = stored(userId, resumeAfter, position);
+        }
+        if (backlog == null) {
+            subscriber.start(greeting(RESET_EVENT, position), List.of(), position);
+        } else {
+            subscriber.start(greeting(READY_EVENT, position), backlog, position);
+        }
+        return emitter;
+    }
+
+    /**
+     * Reads the events stamped since the last poll into the buffer and hands them to the subscribers of their
+     * users. Returns the number of events read.
+     */
+    @Scheduled(fixedDelayString = "${task.events.stream.poll-interval:PT0.1S}",
+            initialDelayString = "${task.events.stream.initial-delay:PT5S}")
+    public int poll() {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        long after;
+        synchronized (lock) {
+            if (lastSeen < 0) {
+                lastSeen = stampedOffset();
+                bufferStart = lastSeen + 1;
+            }
+            after = lastSeen;
+        }
+        List<TaskEvent> events = jdbcTemplate.query(TaskEventRelay.SELECT_EVENTS_SQL, TaskEventRelay.EVENT_MAPPER,
+                after, POLL_BATCH_SIZE);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        synchronized (lock) {
+            if (events.get(0).getOffset() != lastSeen + 1) {
+                resetAll(events.get(0).getOffset());
+            }
+            for (TaskEvent event : events) {
+                buffer[(int) (event.getOffset() % buffer.length)] = event;
+                lastSeen = event.getOffset();
+                bufferStart = Math.max(bufferStart, lastSeen - buffer.length + 1);
+                Set<TaskEventSubscriber> listening = subscribers.get(event.getUserId());
+                if (listening != null) {
+                    for (TaskEventSubscriber subscriber : listening) {
+                        if (!subscriber.offer(event)) {
+                            overflows.increment();
+                        }
+                    }
+                }
+            }
+        }
+        return events.size();
+    }
+
+    @Scheduled(fixedDelayString = "${task.events.stream.heartbeat-interval:PT30S}",
+            initialDelayString = "${task.events.stream.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        // Под замком: позиция не обгоняет события, ещё не переданные подписчикам
+        synchronized (lock) {
+            long position = lastSeen;
+            if (position >= 0) {
+                for (Set<TaskEventSubscriber> listening : subscribers.values()) {
+                    listening.forEach(subscriber -> subscriber.heartbeat(position));
+                }
+            }
+        }
+    }
+
+    public int connections() {
+        return connections.get();
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.values().forEach(listening -> listening.forEach(subscriber -> subscriber.emitter().complete()));
+        senders.shutdown();
+    }
+
+    // null — нужные события уже вытеснены из буфера
+    private List<TaskEvent> buffered(long userId, long after) {
+        if (after + 1 < bufferStart) {
+            return null;
+        }
+        List<TaskEvent> events = new ArrayList<>();
+        for (long offset = after + 1; offset <= lastSeen; offset++) {
+            TaskEvent event = buffer[(int) (offset % buffer.length)];
+            if (event.getUserId() == userId) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    // Смещения после after, которые ещё лежат в outbox; null — часть уже удалена или пропущено слишком много
+    private List<TaskEvent> stored(long userId, long after, long upTo) {
+        int limit = properties.getReplayLimit();
+        List<TaskEvent> events = jdbcTemplate.query("SELECT relay_offset, type, task_id, user_id, status, " +
+                        "payload, occurred_at FROM task_events WHERE relay_offset > ? AND relay_offset <= ? " +
+                        "AND user_id = ? ORDER BY relay_offset LIMIT ?",
+                TaskEventRelay.EVENT_MAPPER, after, upTo, userId, limit + 1);
+        // Проверка после чтения: удаление между запросами тоже будет замечено
+        Long oldest = jdbcTemplate.queryForObject("SELECT MIN(relay_offset) FROM task_events", Long.class);
+        if (oldest == null || oldest > after + 1 || events.size() > limit) {
+            return null;
+        }
+        return events;
+    }
+
+    // Поток отстал от очистки outbox: подписчики не знают, что пропустили, и перечитывают задачи
+    private void resetAll(long first) {
+        log.warn("Task event stream skipped offsets {}..{}, resetting {} streams", lastSeen + 1, first - 1,
+                connections.get());
+        for (Set<TaskEventSubscriber> listening : subscribers.values()) {
+            for (TaskEventSubscriber subscriber : listening) {
+                subscriber.close();
+                subscriber.emitter().complete();
+            }
+        }
+        bufferStart = first;
+    }
+
+    private void unsubscribe(TaskEventSubscriber subscriber) {
+        subscriber.close();
+        subscribers.computeIfPresent(subscriber.userId(), (userId, listening) -> {
+            if (listening.remove(subscriber)) {
+                connections.decrementAndGet();
+            }
+            return listening.isEmpty() ? null : listening;
+        });
+    }
+
+    // Без id: позицию клиента сдвигает отметка после пропущенных событий
+    private SseEmitter.SseEventBuilder greeting(String name, long offset) {
+        return SseEmitter.event()
+                .name(name)
+                .reconnectTime(properties.getReconnectDelay().toMillis())
+                .data("{\"offset\":" + offset + "}");
+    }
+
+    private long stampedOffset() {
+        return jdbcTemplate.queryForObject("SELECT last_offset FROM task_event_relay WHERE id = 1", Long.class);
+    }
+}
@@ -0,0 +1,159 @@
+package org.example.task.events;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * One open event stream of a user. Events are queued by the stream's poller and written by a drain task
+ * that runs only while there is something to send, so an idle connection costs a queue and no thread.
+ * A client that does not keep up gets its queue dropped and the stream closed: it reconnects with the last
+ * event id it received and catches up from the buffer instead of holding memory on the server.
+ */
+final class TaskEventSubscriber {
+
+    private final long userId;
+    private final SseEmitter emitter;
+    private final Executor executor;
+    private final int maxQueued;
+    // События и отметки позиции (Long): отметка сдвигает Last-Event-ID клиента, не показывая ему события
+    private final ArrayDeque<Object> queue = new ArrayDeque<>();
+    private SseEmitter.SseEventBuilder greeting;
+    private long lastSent;
+    private boolean started;
+    private boolean draining;
+    private boolean overflowed;
+    private boolean closed;
+
+    TaskEventSubscriber(long userId, SseEmitter emitter, Executor executor, int maxQueued, long lastSent) {
+        this.userId = userId;
+        this.emitter = emitter;
+        this.executor = executor;
+        this.maxQueued = maxQueued;
+        this.lastSent = lastSent;
+    }
+
+    long userId() {
+        return userId;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    /**
+     * Starts sending: the greeting, the missed events, then the stream position they were read up to. Live
+     * events queued while the backlog was read follow them.
+     */
+    synchronized void start(SseEmitter.SseEventBuilder greeting, List<TaskEvent> backlog, long position) {
+        this.greeting = greeting;
+        queue.addFirst(position);
+        for (int i = backlog.size() - 1; i >= 0; i--) {
+            queue.addFirst(backlog.get(i));
+        }
+        started = true;
+        schedule();
+    }
+
+    /**
+     * Queues a live event. Returns false when the subscriber has just overflowed and will be disconnected.
+     */
+    synchronized boolean offer(TaskEvent event) {
+        if (closed || overflowed) {
+            return true;
+        }
+        if (queue.size() >= maxQueued) {
+            overflowed = true;
+            queue.clear();
+            schedule();
+            return false;
+        }
+        queue.add(event);
+        schedule();
+        return true;
+    }
+
+    // Раз в интервал: не даёт прокси закрыть простаивающее соединение, выявляет отключившихся клиентов
+    // и продвигает их позицию, чтобы переподключение не упиралось в давно очищенные события
+    synchronized void heartbeat(long position) {
+        if (!closed && !overflowed && queue.isEmpty()) {
+            queue.add(position);
+            schedule();
+        }
+    }
+
+    synchronized void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    private void schedule() {
+        if (started && !draining) {
+            draining = true;
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            SseEmitter.SseEventBuilder next;
+            boolean overflow = false;
+            synchronized (this) {
+                if (closed) {
+                    draining = false;
+                    return;
+                }
+                if (greeting != null) {
+                    next = greeting;
+                    greeting = null;
+                } else if (overflowed) {
+                    next = null;
+                    overflow = true;
+                    closed = true;
+                } else {
+                    Object item = queue.poll();
+                    if (item == null) {
+                        draining = false;
+                        return;
+                    }
+                    if (item instanceof TaskEvent event) {
+                        if (event.getOffset() <= lastSent) {
+                            continue;
+                        }
+                        lastSent = event.getOffset();
+                        next = toSse(event);
+                    } else if ((Long) item > lastSent) {
+                        lastSent = (Long) item;
+                        next = SseEmitter.event().id(Long.toString(lastSent)).comment("keep-alive");
+                    } else {
+                        // Позиция не сдвигается назад, но соединение всё равно надо держать живым
+                        next = SseEmitter.event().comment("keep-alive");
+                    }
+                }
+            }
+            if (overflow) {
+                emitter.complete();
+                return;
+            }
+            try {
+                emitter.send(next);
+            } catch (IOException | IllegalStateException e) {
+                // Клиент отключился: контейнер завершит запрос, onCompletion уберёт подписчика
+                close();
+                emitter.completeWithError(e);
+                return;
+            }
+        }
+    }
+
+    static SseEmitter.SseEventBuilder toSse(TaskEvent event) {
+        return SseEmitter.event()
+                .id(Long.toString(event.getOffset()))
+                .name(event.getType().name())
+                .data(event, MediaType.APPLICATION_JSON);
+    }
+}
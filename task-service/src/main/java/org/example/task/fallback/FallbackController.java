@@ -1,21 +1,24 @@
 package org.example.task.fallback;
 
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
 
 @RestController
 public class FallbackController {
 
+    // Тело собрано заранее: при отказе не создаём Map и не сериализуем его на каждый запрос.
+    // Время ответа клиент видит в заголовке Date
+    private static final byte[] TASK_SERVICE_BODY = "{\"message\":\"Task service is temporarily unavailable\"}"
+            .getBytes(StandardCharsets.UTF_8);
+
     @GetMapping("/fallback/task-service")
-    public ResponseEntity<Map<String, Object>> taskServiceFallback() {
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "Task service is temporarily unavailable");
-        response.put("timestamp", LocalDateTime.now().toString());
-        return ResponseEntity.status(503).body(response);
+    public ResponseEntity<byte[]> taskServiceFallback() {
+        return ResponseEntity.status(503)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(TASK_SERVICE_BODY);
     }
 }
@@ -0,0 +1,48 @@
+package org.example.task.logging;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logs a random sample of requests instead of every one. Server errors and requests slower than
+ * the threshold are always logged.
+ */
+@Component
+@Slf4j
+public class SampledRequestLoggingFilter extends OncePerRequestFilter {
+
+    @Value("${task.logging.request-sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${task.logging.slow-request-threshold:1s}")
+    private Duration slowRequestThreshold;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            int status = response.getStatus();
+            if (status >= 500 || elapsed >= slowRequestThreshold.toNanos()) {
+                log.warn("{} {} -> {} in {} ms", request.getMethod(), request.getRequestURI(), status,
+                        elapsed / 1_000_000);
+            } else if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                log.info("{} {} -> {} in {} ms", request.getMethod(), request.getRequestURI(), status,
+                        elapsed / 1_000_000);
+            }
+        }
+    }
+}
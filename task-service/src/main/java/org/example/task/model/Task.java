@@ -11,7 +11,8 @@ import java.time.LocalDateTime;
 @Table(name = "tasks")
 public class Task {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tasks_seq")
+    @SequenceGenerator(name = "tasks_seq", sequenceName = "tasks_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Title is required")
@@ -50,19 +51,12 @@ public class Task {
     protected void onCreate() {
         createdAt = LocalDateTime.now();
         updatedAt = LocalDateTime.now();
-        checkOverdue();
     }
 
+    // Статус OVERDUE проставляет только OverdueTaskSweeper
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
-        checkOverdue();
-    }
-
-    private void checkOverdue() {
-        if (deadline != null && LocalDateTime.now().isAfter(deadline) && status != TaskStatus.DONE) {
-            status = TaskStatus.OVERDUE;
-        }
     }
 
     // Конструкторы
@@ -0,0 +1,34 @@
+package org.example.task.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Marker of a deleted task, kept for a while so that clients syncing by token learn about the deletion.
+ * Rows are only inserted (from the tasks being deleted) and purged, never updated.
+ */
+@Entity
+@Table(name = "task_tombstones")
+public class TaskTombstone {
+    @Id
+    @Column(name = "task_id")
+    private Long taskId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+
+    // Конструкторы
+    protected TaskTombstone() {}
+
+    // Геттеры
+    public Long getTaskId() { return taskId; }
+    public Long getUserId() { return userId; }
+    public LocalDateTime getDeletedAt() { return deletedAt; }
+}
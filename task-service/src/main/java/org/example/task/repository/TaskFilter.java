@@ -0,0 +1,104 @@
+package org.example.task.repository;
+
+import org.example.task.model.Priority;
+import org.example.task.model.TaskStatus;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filter over one user's tasks for {@link TaskFilterRepository}. Every criterion is optional: a null value is
+ * not filtered on, and the query gets no predicate for it at all. Ranges include the lower bound and exclude
+ * the upper one; either bound may be left open. Tasks are ordered by the sort field, then by id.
+ */
+public class TaskFilter {
+
+    private final Long userId;
+    private TaskStatus status;
+    private Priority priority;
+    private LocalDateTime deadlineFrom;
+    private LocalDateTime deadlineTo;
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+    private SortField sortField = SortField.CREATED_AT;
+    private Sort.Direction direction = Sort.Direction.ASC;
+
+    // Конструкторы
+    private TaskFilter(Long userId) {
+        this.userId = userId;
+    }
+
+    public static TaskFilter forUser(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID is required");
+        }
+        return new TaskFilter(userId);
+    }
+
+    public TaskFilter status(TaskStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    public TaskFilter priority(Priority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    public TaskFilter deadlineBetween(LocalDateTime from, LocalDateTime to) {
+        requireOrdered(from, to, "Deadline");
+        this.deadlineFrom = from;
+        this.deadlineTo = to;
+        return this;
+    }
+
+    public TaskFilter createdBetween(LocalDateTime from, LocalDateTime to) {
+        requireOrdered(from, to, "Creation");
+        this.createdFrom = from;
+        this.createdTo = to;
+        return this;
+    }
+
+    // null оставляет порядок по умолчанию: по дате создания, по возрастанию
+    public TaskFilter sortBy(SortField sortField, Sort.Direction direction) {
+        if (sortField != null) {
+            this.sortField = sortField;
+        }
+        if (direction != null) {
+            this.direction = direction;
+        }
+        return this;
+    }
+
+    private static void requireOrdered(LocalDateTime from, LocalDateTime to, String range) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException(range + " range is empty: " + from + " is not before " + to);
+        }
+    }
+
+    // Геттеры
+    public Long getUserId() { return userId; }
+    public TaskStatus getStatus() { return status; }
+    public Priority getPriority() { return priority; }
+    public LocalDateTime getDeadlineFrom() { return deadlineFrom; }
+    public LocalDateTime getDeadlineTo() { return deadlineTo; }
+    public LocalDateTime getCreatedFrom() { return createdFrom; }
+    public LocalDateTime getCreatedTo() { return createdTo; }
+    public SortField getSortField() { return sortField; }
+    public Sort.Direction getDirection() { return direction; }
+
+    /** Sort keys backed by an index that starts with user_id. */
+    public enum SortField {
+        CREATED_AT("createdAt"),
+        UPDATED_AT("updatedAt"),
+        DEADLINE("deadline");
+
+        private final String attribute;
+
+        SortField(String attribute) {
+            this.attribute = attribute;
+        }
+
+        public String getAttribute() { return attribute; }
+    }
+}
@@ -0,0 +1,16 @@
+package org.example.task.repository;
+
+import org.example.task.dto.TaskResponse;
+
+import java.util.stream.Stream;
+
+/**
+ * Dynamic task listing: the query is assembled from the criteria a {@link TaskFilter} actually carries, so each
+ * combination of filters is its own statement with its own plan instead of one generic plan of
+ * {@code (:param IS NULL OR column = :param)} branches.
+ */
+public interface TaskFilterRepository {
+
+    // Поток читается курсором JDBC; закрыть его должен вызывающий
+    Stream<TaskResponse> streamByFilter(TaskFilter filter);
+}
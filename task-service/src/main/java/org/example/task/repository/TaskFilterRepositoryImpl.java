@@ -0,0 +1,76 @@
+package org.example.task.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.example.task.dto.TaskResponse;
+import org.example.task.model.Task;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+/**
+ * Criteria API implementation of {@link TaskFilterRepository}, picked up by Spring Data as a fragment of
+ * {@link TaskRepository}.
+ */
+public class TaskFilterRepositoryImpl implements TaskFilterRepository {
+
+    private static final int FETCH_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<TaskResponse> streamByFilter(TaskFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TaskResponse> query = cb.createQuery(TaskResponse.class);
+        Root<Task> task = query.from(Task.class);
+        query.select(cb.construct(TaskResponse.class, task.get("id"), task.get("title"), task.get("description"),
+                task.get("status"), task.get("priority"), task.get("deadline"), task.get("userId"),
+                task.get("createdAt"), task.get("updatedAt")));
+
+        // Только заданные условия: равенства идут первыми, как колонки в индексах (user_id, status, priority, ...)
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(task.get("userId"), filter.getUserId()));
+        if (filter.getStatus() != null) {
+            predicates.add(cb.equal(task.get("status"), filter.getStatus()));
+        }
+        if (filter.getPriority() != null) {
+            predicates.add(cb.equal(task.get("priority"), filter.getPriority()));
+        }
+        addRange(cb, predicates, task.get("deadline"), filter.getDeadlineFrom(), filter.getDeadlineTo());
+        addRange(cb, predicates, task.get("createdAt"), filter.getCreatedFrom(), filter.getCreatedTo());
+        query.where(predicates.toArray(Predicate[]::new));
+
+        query.orderBy(order(cb, task.get(filter.getSortField().getAttribute()), filter.getDirection()),
+                order(cb, task.get("id"), filter.getDirection()));
+
+        return entityManager.createQuery(query)
+                .setHint(HINT_FETCH_SIZE, FETCH_SIZE)
+                .getResultStream();
+    }
+
+    private static void addRange(CriteriaBuilder cb, List<Predicate> predicates,
+                                 Expression<LocalDateTime> column, LocalDateTime from, LocalDateTime to) {
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(column, from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(column, to));
+        }
+    }
+
+    private static Order order(CriteriaBuilder cb, Expression<?> column, Sort.Direction direction) {
+        return direction.isDescending() ? cb.desc(column) : cb.asc(column);
+    }
+}
@@ -1,35 +1,109 @@
 package org.example.task.repository;
 
+import org.example.task.dto.TaskResponse;
 import org.example.task.model.Task;
 import org.example.task.model.TaskStatus;
 import org.example.task.model.Priority;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface TaskRepository extends JpaRepository<Task, Long> {
+public interface TaskRepository extends JpaRepository<Task, Long>, TaskFilterRepository {
 
-    List<Task> findByUserId(Long userId);
+    // Чтение идёт сразу в TaskResponse: Hibernate выбирает только колонки, без управляемых сущностей
+    Optional<TaskResponse> findByIdAndUserId(Long id, Long userId);
 
-    List<Task> findByUserIdAndStatus(Long userId, TaskStatus status);
+    // Keyset-пагинация: все списки упорядочены по (createdAt, id)
+    Window<TaskResponse> findByUserIdOrderByCreatedAtAscIdAsc(Long userId, ScrollPosition position, Limit limit);
 
-    List<Task> findByUserIdAndPriority(Long userId, Priority priority);
+    Window<TaskResponse> findByUserIdAndStatusOrderByCreatedAtAscIdAsc(Long userId, TaskStatus status,
+                                                                       ScrollPosition position, Limit limit);
 
-    List<Task> findByUserIdAndDeadlineBeforeAndStatusNot(Long userId, LocalDateTime date, TaskStatus status);
+    Window<TaskResponse> findByUserIdAndPriorityOrderByCreatedAtAscIdAsc(Long userId, Priority priority,
+                                                                         ScrollPosition position, Limit limit);
 
-    @Query("SELECT t FROM Task t WHERE t.userId = :userId AND " +
-            "(:status IS NULL OR t.status = :status) AND " +
-            "(:priority IS NULL OR t.priority = :priority)")
-    List<Task> findByUserIdAndFilters(@Param("userId") Long userId,
-                                      @Param("status") TaskStatus status,
-                                      @Param("priority") Priority priority);
+    Window<TaskResponse> findByUserIdAndStatusAndPriorityOrderByCreatedAtAscIdAsc(Long userId, TaskStatus status,
+                                                                                  Priority priority,
+                                                                                  ScrollPosition position, Limit limit);
+
+    // Дельта-синхронизация: задачи, изменённые после позиции (updatedAt, id) и до until; условие >= даёт
+    // диапазон по индексу
+    @Query("SELECT new org.example.task.dto.TaskResponse(t.id, t.title, t.description, t.status, t.priority, " +
+            "t.deadline, t.userId, t.createdAt, t.updatedAt) FROM Task t WHERE t.userId = :userId AND " +
+            "t.updatedAt >= :since AND (t.updatedAt > :since OR t.id > :afterId) AND t.updatedAt < :until " +
+            "ORDER BY t.updatedAt, t.id")
+    List<TaskResponse> findChangedSince(@Param("userId") Long userId,
+                                        @Param("since") LocalDateTime since,
+                                        @Param("afterId") Long afterId,
+                                        @Param("until") LocalDateTime until,
+                                        Limit limit);
+
+    // Просроченные задачи в порядке дедлайна — источник для OverdueTaskSweeper.
+    // Статусы записаны литералами: только так PostgreSQL сопоставляет запрос с частичным индексом
+    @Query("SELECT t.id AS id, t.userId AS userId FROM Task t WHERE t.status IN " +
+            "(org.example.task.model.TaskStatus.TODO, org.example.task.model.TaskStatus.IN_PROGRESS) " +
+            "AND t.deadline < :now ORDER BY t.deadline")
+    List<ExpiredTask> findExpired(@Param("now") LocalDateTime now, Limit limit);
+
+    @Modifying
+    @Query("UPDATE Task t SET t.status = org.example.task.model.TaskStatus.OVERDUE, t.updatedAt = :now " +
+            "WHERE t.id IN :ids AND t.status IN " +
+            "(org.example.task.model.TaskStatus.TODO, org.example.task.model.TaskStatus.IN_PROGRESS) " +
+            "AND t.deadline < :now")
+    int markOverdue(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Задачи, которые markOverdue перевёл в OVERDUE с этой отметкой времени
+    @Query("SELECT t.id AS id, t.userId AS userId FROM Task t WHERE t.id IN :ids " +
+            "AND t.status = org.example.task.model.TaskStatus.OVERDUE AND t.updatedAt = :now")
+    List<ExpiredTask> findMarkedOverdue(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Query("SELECT t.id FROM Task t WHERE t.userId = :userId AND t.id IN :ids")
+    List<Long> findOwnedIds(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Task t SET t.status = :status, t.updatedAt = :now WHERE t.userId = :userId AND t.id IN :ids")
+    int updateStatusByUserIdAndIdIn(@Param("userId") Long userId,
+                                    @Param("ids") Collection<Long> ids,
+                                    @Param("status") TaskStatus status,
+                                    @Param("now") LocalDateTime now);
+
+    // Вся статистика дашборда одним GROUP BY вместо отдельного count на каждый статус
+    @Query("SELECT t.userId AS userId, t.status AS status, t.priority AS priority, COUNT(t) AS count, " +
+            "SUM(CASE WHEN t.status <> org.example.task.model.TaskStatus.DONE " +
+            "AND t.deadline >= :weekStart AND t.deadline < :weekEnd THEN 1 ELSE 0 END) AS dueThisWeek " +
+            "FROM Task t WHERE t.userId IN :userIds GROUP BY t.userId, t.status, t.priority")
+    List<StatsRow> aggregateStats(@Param("userIds") Collection<Long> userIds,
+                                  @Param("weekStart") LocalDateTime weekStart,
+                                  @Param("weekEnd") LocalDateTime weekEnd);
+
+    // Задачи, найденные поиском: одним запросом по первичному ключу
+    List<TaskResponse> findByUserIdAndIdIn(Long userId, Collection<Long> ids);
 
     boolean existsByIdAndUserId(Long id, Long userId);
 
     long countByUserIdAndStatus(Long userId, TaskStatus status);
-}
\ No newline at end of file
+
+    interface StatsRow {
+        Long getUserId();
+        TaskStatus getStatus();
+        Priority getPriority();
+        Long getCount();
+        Long getDueThisWeek();
+    }
+
+    interface ExpiredTask {
+        Long getId();
+        Long getUserId();
+    }
+}
@@ -0,0 +1,37 @@
+package org.example.task.repository;
+
+import org.example.task.model.TaskTombstone;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TaskTombstoneRepository extends JpaRepository<TaskTombstone, Long> {
+
+    // Вызывается до удаления задач: надгробия пишутся одним INSERT ... SELECT из удаляемых строк
+    @Modifying
+    @Query(value = "INSERT INTO task_tombstones (task_id, user_id, deleted_at) " +
+            "SELECT id, user_id, :now FROM tasks WHERE id IN :ids", nativeQuery = true)
+    int insertForTasks(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Та же позиция (deletedAt, taskId), что и у изменений задач; условие >= даёт диапазон по индексу
+    @Query("SELECT t FROM TaskTombstone t WHERE t.userId = :userId AND t.deletedAt >= :since " +
+            "AND (t.deletedAt > :since OR t.taskId > :afterId) AND t.deletedAt < :until " +
+            "ORDER BY t.deletedAt, t.taskId")
+    List<TaskTombstone> findDeletedSince(@Param("userId") Long userId,
+                                         @Param("since") LocalDateTime since,
+                                         @Param("afterId") Long afterId,
+                                         @Param("until") LocalDateTime until,
+                                         Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM TaskTombstone t WHERE t.deletedAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
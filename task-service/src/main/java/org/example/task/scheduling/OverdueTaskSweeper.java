@@ -0,0 +1,107 @@
+package org.example.task.scheduling;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.example.task.cache.TaskCache;
+import org.example.task.events.TaskEventRecorder;
+import org.example.task.events.TaskEventType;
+import org.example.task.model.TaskStatus;
+import org.example.task.repository.TaskRepository;
+import org.example.task.repository.TaskRepository.ExpiredTask;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Periodically moves tasks whose deadline has passed to OVERDUE. Expired rows are picked
+ * in deadline order and updated in batches, each batch in its own short transaction.
+ */
+@Component
+@Slf4j
+public class OverdueTaskSweeper {
+
+    private final TaskRepository taskRepository;
+    private final TaskCache taskCache;
+    private final TaskEventRecorder taskEventRecorder;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Timer sweepTimer;
+    private final DistributionSummary sweptRows;
+
+    public OverdueTaskSweeper(TaskRepository taskRepository,
+                              TaskCache taskCache,
+                              TaskEventRecorder taskEventRecorder,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${task.overdue-sweeper.batch-size:1000}") int batchSize) {
+        this.taskRepository = taskRepository;
+        this.taskCache = taskCache;
+        this.taskEventRecorder = taskEventRecorder;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sweepTimer = Timer.builder("tasks.overdue.sweep")
+                .description("Duration of a full overdue sweep")
+                .register(meterRegistry);
+        this.sweptRows = DistributionSummary.builder("tasks.overdue.sweep.rows")
+                .description("Tasks moved to OVERDUE per sweep")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${task.overdue-sweeper.interval:PT1M}",
+            initialDelayString = "${task.overdue-sweeper.initial-delay:PT10S}")
+    public void sweep() {
+        long moved = sweepTimer.record(this::sweepAll);
+        sweptRows.record(moved);
+        if (moved > 0) {
+            log.info("Marked {} tasks as OVERDUE", moved);
+        }
+    }
+
+    long sweepAll() {
+        // Точность колонки updated_at — микросекунды: по этой отметке потом перечитываются обновлённые строки
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        long total = 0;
+        Batch batch;
+        do {
+            batch = transactionTemplate.execute(status -> sweepBatch(now));
+            total += batch.moved();
+            // Строки, изменённые параллельно, не попадают в moved: продолжаем, пока выборка полная
+        } while (batch.expired() == batchSize);
+        return total;
+    }
+
+    private Batch sweepBatch(LocalDateTime now) {
+        List<ExpiredTask> expired = taskRepository.findExpired(now, Limit.of(batchSize));
+        if (expired.isEmpty()) {
+            return new Batch(0, 0);
+        }
+        List<Long> ids = expired.stream().map(ExpiredTask::getId).toList();
+        int updated = taskRepository.markOverdue(ids, now);
+        if (updated > 0) {
+            // Пока транзакция не завершена, обновлённые строки заблокированы: перечитываем ровно их
+            taskRepository.findMarkedOverdue(ids, now).stream()
+                    .collect(Collectors.groupingBy(ExpiredTask::getUserId,
+                            Collectors.mapping(ExpiredTask::getId, Collectors.toList())))
+                    .forEach((userId, taskIds) -> taskEventRecorder.record(
+                            TaskEventType.STATUS_CHANGED, userId, taskIds, TaskStatus.OVERDUE));
+        }
+        expired.stream()
+                .map(ExpiredTask::getUserId)
+                .distinct()
+                .forEach(taskCache::invalidateUser);
+        return new Batch(expired.size(), updated);
+    }
+
+    private record Batch(int expired, int moved) {
+    }
+}
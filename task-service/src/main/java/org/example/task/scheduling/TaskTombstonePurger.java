@@ -0,0 +1,39 @@
+package org.example.task.scheduling;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.task.repository.TaskTombstoneRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Drops tombstones of deleted tasks once they are older than the retention. Sync tokens that old are
+ * answered with a full resync, so nobody needs those tombstones any more.
+ */
+@Component
+@Slf4j
+public class TaskTombstonePurger {
+
+    private final TaskTombstoneRepository taskTombstoneRepository;
+    private final Duration retention;
+
+    public TaskTombstonePurger(TaskTombstoneRepository taskTombstoneRepository,
+                               @Value("${task.sync.tombstone-retention:P30D}") Duration retention) {
+        this.taskTombstoneRepository = taskTombstoneRepository;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${task.sync.purge-interval:PT1H}",
+            initialDelayString = "${task.sync.purge-initial-delay:PT1M}")
+    @Transactional
+    public void purge() {
+        int purged = taskTombstoneRepository.deleteOlderThan(LocalDateTime.now().minus(retention));
+        if (purged > 0) {
+            log.info("Purged {} task tombstones", purged);
+        }
+    }
+}
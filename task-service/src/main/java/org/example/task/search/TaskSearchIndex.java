@@ -0,0 +1,686 @@
+package org.example.task.search;
+
+import org.example.task.model.Priority;
+import org.example.task.model.TaskStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * In-memory inverted index of task titles and descriptions. Every version of a task's text is a document with a
+ * dense ordinal; a term's posting list holds the ordinals of the documents containing it in ascending order,
+ * with a weight (occurrences in the title count {@value #TITLE_WEIGHT} times). A change of the text appends a
+ * new document and marks the old one dead; a change of status or priority alone updates it in place. Dead
+ * entries are dropped from a posting list when it next has to grow, and {@link #compact()} renumbers the whole
+ * index once a quarter of the documents are dead.
+ * <p>
+ * A search runs over one user's live documents that pass the status and priority filters, intersecting them
+ * with the posting lists of the query terms. Each query term matches exactly, as a typo within one edit (two
+ * for terms of eight characters or more) and, for the last term, as a prefix of its most frequent
+ * completions; all query terms must match.
+ * Documents are ranked by BM25, with prefix and typo matches weighted down.
+ * <p>
+ * Documents, the task-id index and the posting lists are primitive arrays: about 30 bytes per task plus
+ * 5 bytes per distinct term of its text. Not thread-safe: {@link TaskSearchService} guards it with a
+ * read-write lock.
+ */
+public class TaskSearchIndex {
+
+    // Слово из заголовка весит как три слова описания
+    static final int TITLE_WEIGHT = 3;
+    static final int MAX_QUERY_TERMS = 8;
+    // Сколько терминов перебирается на одно слово запроса по опечатке и по префиксу
+    static final int MAX_EXPANSIONS = 256;
+    static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MIN_TYPO_LENGTH = 4;
+    private static final int MIN_TWO_TYPOS_LENGTH = 8;
+    private static final float PREFIX_BOOST = 0.8f;
+    private static final float[] TYPO_BOOST = {1f, 0.6f, 0.4f};
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int MIN_DEAD_TO_COMPACT = 10_000;
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    // Документы по ordinal; версии, вытесненные новым текстом, остаются мёртвыми до уплотнения
+    private long[] taskIds;
+    private long[] userIds;
+    private byte[] statuses;
+    private byte[] priorities;
+    private short[] lengths;
+    private int[] textHashes;
+    private long[] live;
+    private int docs;
+    private int liveDocs;
+    private long totalLength;
+
+    // Индекс taskId -> живой документ + 1; 0 — пустая ячейка
+    private int[] index;
+    private int mask;
+
+    private final Map<Long, UserDocs> users = new HashMap<>();
+    private final TermDictionary dictionary;
+    private int[][] postings;
+    private byte[][] weights;
+    private int[] postingSizes;
+
+    public TaskSearchIndex(int expectedTasks) {
+        int capacity = Math.max(expectedTasks, 16);
+        taskIds = new long[capacity];
+        userIds = new long[capacity];
+        statuses = new byte[capacity];
+        priorities = new byte[capacity];
+        lengths = new short[capacity];
+        textHashes = new int[capacity];
+        live = new long[(capacity + 63) >>> 6];
+        int tableSize = Integer.highestOneBit(capacity * 4 / 3) * 2;
+        index = new int[tableSize];
+        mask = tableSize - 1;
+        dictionary = new TermDictionary(1024);
+        postings = new int[1024][];
+        weights = new byte[1024][];
+        postingSizes = new int[1024];
+    }
+
+    /** Indexes the current version of a task, replacing the previous one. */
+    public void put(long taskId, long userId, TaskStatus status, Priority priority, String title,
+                    String description) {
+        int hash = 31 * Objects.hashCode(title) + Objects.hashCode(description);
+        int slot = findSlot(taskId);
+        int current = slot >= 0 ? index[slot] - 1 : -1;
+        if (current >= 0 && textHashes[current] == hash && userIds[current] == userId) {
+            statuses[current] = (byte) status.ordinal();
+            priorities[current] = (byte) priority.ordinal();
+            return;
+        }
+        Map<String, int[]> terms = new HashMap<>();
+        TaskTokenizer.tokenize(title, term -> terms.computeIfAbsent(term, t -> new int[1])[0] += TITLE_WEIGHT);
+        TaskTokenizer.tokenize(description, term -> terms.computeIfAbsent(term, t -> new int[1])[0]++);
+        int length = 0;
+        for (int[] weight : terms.values()) {
+            length += weight[0];
+        }
+        if (current >= 0) {
+            kill(current);
+        }
+        int doc = addDoc(taskId, userId, status, priority, Math.min(length, Short.MAX_VALUE), hash);
+        for (Map.Entry<String, int[]> term : terms.entrySet()) {
+            appendPosting(dictionary.add(term.getKey()), doc, Math.min(term.getValue()[0], 255));
+        }
+        if (slot >= 0) {
+            index[slot] = doc + 1;
+        } else {
+            insertIndex(doc);
+        }
+    }
+
+    /** Changes the status of an indexed task; returns false when the task is not indexed. */
+    public boolean updateStatus(long taskId, TaskStatus status) {
+        int slot = findSlot(taskId);
+        if (slot < 0) {
+            return false;
+        }
+        statuses[index[slot] - 1] = (byte) status.ordinal();
+        return true;
+    }
+
+    public boolean remove(long taskId) {
+        int slot = findSlot(taskId);
+        if (slot < 0) {
+            return false;
+        }
+        kill(index[slot] - 1);
+        removeSlot(slot);
+        return true;
+    }
+
+    public boolean contains(long taskId) {
+        return findSlot(taskId) >= 0;
+    }
+
+    /**
+     * Finds the user's tasks matching every word of {@code query} and passing the filters (null matches any),
+     * best first; equal scores go to the newer task.
+     */
+    public List<Hit> search(long userId, String query, TaskStatus status, Priority priority, int limit) {
+        UserDocs user = users.get(userId);
+        List<String> terms = queryTerms(query);
+        if (user == null || terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int[] candidates = new int[user.size];
+        int count = 0;
+        for (int i = 0; i < user.size; i++) {
+            int doc = user.docs[i];
+            if (isLive(doc) && (status == null || statuses[doc] == status.ordinal())
+                    && (priority == null || priorities[doc] == priority.ordinal())) {
+                candidates[count++] = doc;
+            }
+        }
+        float[] scores = new float[count];
+        float averageLength = liveDocs == 0 ? 1f : (float) totalLength / liveDocs;
+        for (int q = 0; q < terms.size() && count > 0; q++) {
+            String term = terms.get(q);
+            Matcher matcher = new Matcher(candidates, count, averageLength);
+            int exact = dictionary.get(term);
+            if (exact >= 0) {
+                matcher.score(exact, 1f);
+            }
+            if (q == terms.size() - 1 && term.length() >= MIN_PREFIX_LENGTH) {
+                for (int termId : frequentCompletions(term)) {
+                    matcher.score(termId, PREFIX_BOOST);
+                }
+            }
+            if (term.length() >= MIN_TYPO_LENGTH) {
+                int maxEdits = term.length() >= MIN_TWO_TYPOS_LENGTH ? 2 : 1;
+                dictionary.similar(term, maxEdits, MAX_EXPANSIONS,
+                        (termId, edits) -> matcher.score(termId, TYPO_BOOST[edits]));
+            }
+            // Обязательны все слова запроса: документ без совпадения выбывает
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                if (matcher.scores[i] > 0) {
+                    candidates[kept] = candidates[i];
+                    scores[kept++] = scores[i] + matcher.scores[i];
+                }
+            }
+            count = kept;
+        }
+        return top(candidates, scores, count, limit);
+    }
+
+    /** Number of indexed tasks. */
+    public int size() {
+        return liveDocs;
+    }
+
+    public int terms() {
+        return dictionary.size();
+    }
+
+    public boolean needsCompaction() {
+        int dead = docs - liveDocs;
+        return dead >= MIN_DEAD_TO_COMPACT && dead * 4L >= docs;
+    }
+
+    /**
+     * Returns a copy without dead documents and unused terms, ordinals renumbered in the same order. Only reads
+     * this index, so searches may go on while it is built.
+     */
+    public TaskSearchIndex compact() {
+        TaskSearchIndex target = new TaskSearchIndex(liveDocs);
+        int[] remap = copyLiveDocs(target);
+        dictionary.forEach((term, termId) -> {
+            int[] list = postings[termId];
+            byte[] listWeights = weights[termId];
+            int size = postingSizes[termId];
+            int[] docs = new int[size];
+            byte[] docWeights = new byte[size];
+            int kept = 0;
+            for (int j = 0; j < size; j++) {
+                int doc = remap[list[j]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    docWeights[kept++] = listWeights[j];
+                }
+            }
+            if (kept > 0) {
+                target.addTerm(term, docs, docWeights, kept);
+            }
+        });
+        return target;
+    }
+
+    /** Writes the live documents and postings; {@link #readFrom} restores a compacted index from it. */
+    void writeTo(TaskSearchSnapshot.Output output) {
+        output.putVarInt(liveDocs);
+        int[] remap = new int[docs];
+        int next = 0;
+        long previousTaskId = 0;
+        for (int doc = 0; doc < docs; doc++) {
+            if (!isLive(doc)) {
+                remap[doc] = -1;
+                continue;
+            }
+            remap[doc] = next++;
+            output.putVarLong(zigZag(taskIds[doc] - previousTaskId));
+            output.putVarLong(userIds[doc]);
+            output.putByte(statuses[doc]);
+            output.putByte(priorities[doc]);
+            output.putVarInt(lengths[doc]);
+            output.putInt(textHashes[doc]);
+            previousTaskId = taskIds[doc];
+        }
+        dictionary.forEach((term, termId) -> {
+            int[] list = postings[termId];
+            int size = postingSizes[termId];
+            int kept = 0;
+            for (int j = 0; j < size; j++) {
+                if (remap[list[j]] >= 0) {
+                    kept++;
+                }
+            }
+            if (kept == 0) {
+                return;
+            }
+            output.putString(term);
+            output.putVarInt(kept);
+            int previous = 0;
+            for (int j = 0; j < size; j++) {
+                int doc = remap[list[j]];
+                if (doc >= 0) {
+                    output.putVarInt(doc - previous);
+                    output.putByte(weights[termId][j]);
+                    previous = doc;
+                }
+            }
+        });
+        // Пустая строка завершает список терминов
+        output.putString("");
+    }
+
+    static TaskSearchIndex readFrom(TaskSearchSnapshot.Input input) {
+        int count = input.getVarInt();
+        TaskSearchIndex target = new TaskSearchIndex(count);
+        long taskId = 0;
+        for (int i = 0; i < count; i++) {
+            taskId += unZigZag(input.getVarLong());
+            long userId = input.getVarLong();
+            TaskStatus status = STATUSES[input.getByte()];
+            Priority priority = PRIORITIES[input.getByte()];
+            int length = input.getVarInt();
+            int doc = target.addDoc(taskId, userId, status, priority, length, input.getInt());
+            target.insertIndex(doc);
+        }
+        for (String term = input.getString(); !term.isEmpty(); term = input.getString()) {
+            int size = input.getVarInt();
+            int[] docs = new int[size];
+            byte[] docWeights = new byte[size];
+            int doc = 0;
+            for (int j = 0; j < size; j++) {
+                doc += input.getVarInt();
+                if (doc >= count) {
+                    throw new IllegalStateException("Posting of term " + term + " points past the documents");
+                }
+                docs[j] = doc;
+                docWeights[j] = input.getByte();
+            }
+            target.addTerm(term, docs, docWeights, size);
+        }
+        return target;
+    }
+
+    private int[] copyLiveDocs(TaskSearchIndex target) {
+        int[] remap = new int[docs];
+        for (int doc = 0; doc < docs; doc++) {
+            if (isLive(doc)) {
+                remap[doc] = target.addDoc(taskIds[doc], userIds[doc], STATUSES[statuses[doc]],
+                        PRIORITIES[priorities[doc]], lengths[doc], textHashes[doc]);
+                target.insertIndex(remap[doc]);
+            } else {
+                remap[doc] = -1;
+            }
+        }
+        return remap;
+    }
+
+    private int addDoc(long taskId, long userId, TaskStatus status, Priority priority, int length, int textHash) {
+        if (docs == taskIds.length) {
+            int capacity = taskIds.length + (taskIds.length >> 1);
+            taskIds = Arrays.copyOf(taskIds, capacity);
+            userIds = Arrays.copyOf(userIds, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            textHashes = Arrays.copyOf(textHashes, capacity);
+            live = Arrays.copyOf(live, (capacity + 63) >>> 6);
+        }
+        int doc = docs++;
+        taskIds[doc] = taskId;
+        userIds[doc] = userId;
+        statuses[doc] = (byte) status.ordinal();
+        priorities[doc] = (byte) priority.ordinal();
+        lengths[doc] = (short) length;
+        textHashes[doc] = textHash;
+        live[doc >>> 6] |= 1L << doc;
+        liveDocs++;
+        totalLength += length;
+        users.computeIfAbsent(userId, id -> new UserDocs()).add(doc);
+        return doc;
+    }
+
+    private void kill(int doc) {
+        live[doc >>> 6] &= ~(1L << doc);
+        liveDocs--;
+        totalLength -= lengths[doc];
+        UserDocs user = users.get(userIds[doc]);
+        if (++user.dead * 2 > user.size) {
+            user.compact(this);
+            if (user.size == 0) {
+                users.remove(userIds[doc]);
+            }
+        }
+    }
+
+    private boolean isLive(int doc) {
+        return (live[doc >>> 6] & (1L << doc)) != 0;
+    }
+
+    private void addTerm(String term, int[] docs, byte[] docWeights, int size) {
+        int termId = dictionary.add(term);
+        ensureTermCapacity(termId);
+        postings[termId] = docs;
+        weights[termId] = docWeights;
+        postingSizes[termId] = size;
+    }
+
+    private void appendPosting(int termId, int doc, int weight) {
+        ensureTermCapacity(termId);
+        int[] list = postings[termId];
+        int size = postingSizes[termId];
+        if (list == null) {
+            list = postings[termId] = new int[2];
+            weights[termId] = new byte[2];
+        } else if (size == list.length) {
+            // Мёртвые записи выбрасываются, только когда список всё равно пришлось бы расширять
+            size = dropDead(termId);
+            if (size * 4 > list.length * 3) {
+                int capacity = list.length + Math.max(list.length >> 1, 2);
+                list = postings[termId] = Arrays.copyOf(list, capacity);
+                weights[termId] = Arrays.copyOf(weights[termId], capacity);
+            }
+        }
+        list[size] = doc;
+        weights[termId][size] = (byte) weight;
+        postingSizes[termId] = size + 1;
+    }
+
+    private int dropDead(int termId) {
+        int[] list = postings[termId];
+        byte[] listWeights = weights[termId];
+        int kept = 0;
+        for (int j = 0; j < postingSizes[termId]; j++) {
+            if (isLive(list[j])) {
+                list[kept] = list[j];
+                listWeights[kept++] = listWeights[j];
+            }
+        }
+        postingSizes[termId] = kept;
+        return kept;
+    }
+
+    private void ensureTermCapacity(int termId) {
+        if (termId >= postings.length) {
+            int capacity = Math.max(termId + 1, postings.length + (postings.length >> 1));
+            postings = Arrays.copyOf(postings, capacity);
+            weights = Arrays.copyOf(weights, capacity);
+            postingSizes = Arrays.copyOf(postingSizes, capacity);
+        }
+    }
+
+    // Каждое продолжение — отдельный проход по кандидатам, поэтому берутся самые частые из первых MAX_EXPANSIONS
+    private int[] frequentCompletions(String prefix) {
+        long[] found = new long[MAX_EXPANSIONS];
+        int[] count = new int[1];
+        dictionary.completions(prefix, MAX_EXPANSIONS,
+                (termId, edits) -> found[count[0]++] = (long) postingSizes[termId] << 32 | termId);
+        int[] termIds = new int[Math.min(count[0], MAX_PREFIX_EXPANSIONS)];
+        if (count[0] > MAX_PREFIX_EXPANSIONS) {
+            Arrays.sort(found, 0, count[0]);
+        }
+        for (int i = 0; i < termIds.length; i++) {
+            termIds[i] = (int) found[count[0] - 1 - i];
+        }
+        return termIds;
+    }
+
+    private static List<String> queryTerms(String query) {
+        LinkedHashSet<String> terms = new LinkedHashSet<>();
+        TaskTokenizer.tokenize(query, term -> {
+            if (terms.size() < MAX_QUERY_TERMS) {
+                terms.add(term);
+            }
+        });
+        return new ArrayList<>(terms);
+    }
+
+    // Лучшие limit кандидатов: min-куча по (score, taskId), затем сортировка кучи
+    private List<Hit> top(int[] candidates, float[] scores, int count, int limit) {
+        int[] heap = new int[Math.min(limit, count)];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (size < heap.length) {
+                heap[size++] = i;
+                siftUp(heap, size - 1, candidates, scores);
+            } else if (better(i, heap[0], candidates, scores)) {
+                heap[0] = i;
+                siftDown(heap, size, candidates, scores);
+            }
+        }
+        Hit[] hits = new Hit[size];
+        while (size > 0) {
+            int i = heap[0];
+            hits[--size] = new Hit(taskIds[candidates[i]], scores[i]);
+            heap[0] = heap[size];
+            siftDown(heap, size, candidates, scores);
+        }
+        return Arrays.asList(hits);
+    }
+
+    private boolean better(int a, int b, int[] candidates, float[] scores) {
+        if (scores[a] != scores[b]) {
+            return scores[a] > scores[b];
+        }
+        return taskIds[candidates[a]] > taskIds[candidates[b]];
+    }
+
+    private void siftUp(int[] heap, int position, int[] candidates, float[] scores) {
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!better(heap[parent], heap[position], candidates, scores)) {
+                return;
+            }
+            swap(heap, parent, position);
+            position = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size, int[] candidates, float[] scores) {
+        int position = 0;
+        while (true) {
+            int smallest = position;
+            int left = 2 * position + 1;
+            if (left < size && better(heap[smallest], heap[left], candidates, scores)) {
+                smallest = left;
+            }
+            if (left + 1 < size && better(heap[smallest], heap[left + 1], candidates, scores)) {
+                smallest = left + 1;
+            }
+            if (smallest == position) {
+                return;
+            }
+            swap(heap, position, smallest);
+            position = smallest;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int value = heap[a];
+        heap[a] = heap[b];
+        heap[b] = value;
+    }
+
+    private int findSlot(long taskId) {
+        for (int i = hash(taskId) & mask; index[i] != 0; i = (i + 1) & mask) {
+            if (taskIds[index[i] - 1] == taskId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insertIndex(int doc) {
+        if (liveDocs * 4L > index.length * 3L) {
+            rehash(index.length * 2);
+        }
+        int i = hash(taskIds[doc]) & mask;
+        while (index[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        index[i] = doc + 1;
+    }
+
+    // Удаление со сдвигом назад, как в TimingWheel notification-service: цепочки проб без надгробий
+    private void removeSlot(int slot) {
+        int gap = slot;
+        for (int j = (gap + 1) & mask; index[j] != 0; j = (j + 1) & mask) {
+            int home = hash(taskIds[index[j] - 1]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                index[gap] = index[j];
+                gap = j;
+            }
+        }
+        index[gap] = 0;
+    }
+
+    private void rehash(int tableSize) {
+        int[] old = index;
+        index = new int[tableSize];
+        mask = tableSize - 1;
+        for (int slot : old) {
+            if (slot != 0) {
+                int i = hash(taskIds[slot - 1]) & mask;
+                while (index[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                index[i] = slot;
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public record Hit(long taskId, float score) {
+    }
+
+    // Документы пользователя по возрастанию ordinal, вместе с мёртвыми до очередной чистки
+    private static final class UserDocs {
+
+        private int[] docs = new int[4];
+        private int size;
+        private int dead;
+
+        void add(int doc) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+            }
+            docs[size++] = doc;
+        }
+
+        void compact(TaskSearchIndex owner) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (owner.isLive(docs[i])) {
+                    docs[kept++] = docs[i];
+                }
+            }
+            size = kept;
+            dead = 0;
+        }
+    }
+
+    // Оценки одного слова запроса по кандидатам: лучшее из совпадений — точного, по префиксу, с опечаткой
+    private final class Matcher {
+
+        private final int[] candidates;
+        private final int count;
+        private final float averageLength;
+        private final float[] scores;
+
+        Matcher(int[] candidates, int count, float averageLength) {
+            this.candidates = candidates;
+            this.count = count;
+            this.averageLength = averageLength;
+            this.scores = new float[count];
+        }
+
+        void score(int termId, float boost) {
+            if (termId >= postings.length || postings[termId] == null) {
+                return;
+            }
+            int[] list = postings[termId];
+            byte[] listWeights = weights[termId];
+            int size = postingSizes[termId];
+            int documents = Math.min(size, liveDocs);
+            float idf = (float) Math.log(1 + (liveDocs - documents + 0.5) / (documents + 0.5));
+            if (count * 8L < size) {
+                // Кандидатов много меньше, чем документов с термином: поиск каждого с галопом по списку
+                int from = 0;
+                for (int i = 0; i < count && from < size; i++) {
+                    from = gallop(list, from, size, candidates[i]);
+                    if (from < size && list[from] == candidates[i]) {
+                        add(i, listWeights[from], boost, idf);
+                    }
+                }
+            } else {
+                int j = 0;
+                for (int i = 0; i < count && j < size; i++) {
+                    while (j < size && list[j] < candidates[i]) {
+                        j++;
+                    }
+                    if (j < size && list[j] == candidates[i]) {
+                        add(i, listWeights[j], boost, idf);
+                    }
+                }
+            }
+        }
+
+        private void add(int i, byte weight, float boost, float idf) {
+            float tf = weight & 0xFF;
+            float norm = K1 * (1 - B + B * lengths[candidates[i]] / averageLength);
+            float score = boost * idf * tf * (K1 + 1) / (tf + norm);
+            if (score > scores[i]) {
+                scores[i] = score;
+            }
+        }
+
+        // Первая позиция в list[from, size) со значением не меньше key
+        private static int gallop(int[] list, int from, int size, int key) {
+            int step = 1;
+            int low = from;
+            int high = from;
+            while (high < size && list[high] < key) {
+                low = high + 1;
+                high = from + step;
+                step <<= 1;
+            }
+            high = Math.min(high, size);
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (list[middle] < key) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package org.example.task.search;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.task.dto.TaskResponse;
+import org.example.task.events.TaskEvent;
+import org.example.task.events.TaskEventRelay;
+import org.example.task.events.TaskEventType;
+import org.example.task.model.Priority;
+import org.example.task.model.TaskStatus;
+import org.example.task.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Full-text search over a user's tasks (GET /api/tasks/search), answered from a {@link TaskSearchIndex} that every
+ * instance keeps in memory. The index tails the stamped outbox by relay offset, like the event stream does, so it
+ * follows the writes of all instances and of the overdue sweeper within a poll interval.
+ * <p>
+ * On startup the index is loaded from its {@link TaskSearchSnapshot} and the outbox is read on from the snapshot's
+ * offset. When the outbox has already been purged past that offset, the gap is closed from the tables instead:
+ * the tasks updated and the tombstones written since the snapshot watermark. Without a usable snapshot every task
+ * is read and indexed; until then searches are refused.
+ * <p>
+ * Only the poller changes the index, under the write lock; snapshots and compaction run while the poller is
+ * held off, so searches never wait for them.
+ */
+@Component
+@Slf4j
+public class TaskSearchService {
+
+    public static final int MAX_RESULTS = 100;
+
+    private static final int POLL_BATCH_SIZE = 1000;
+    // Столько изменений применяется за один захват блокировки, пока индекс догоняет таблицы
+    private static final int APPLY_CHUNK_SIZE = 1000;
+    private static final String SELECT_TASKS_SQL =
+            "SELECT id, user_id, title, description, status, priority FROM tasks";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TaskRepository taskRepository;
+    private final ObjectMapper objectMapper;
+    private final TaskSearchSnapshot snapshots;
+    private final boolean enabled;
+    private final Duration commitLag;
+    private final Duration tombstoneRetention;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Timer searches;
+    // null, пока индекс не загружен
+    private volatile TaskSearchIndex index;
+    private long lastOffset;
+    private LocalDateTime watermark;
+
+    public TaskSearchService(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             TaskRepository taskRepository,
+                             ObjectMapper objectMapper,
+                             TaskSearchSnapshot snapshots,
+                             MeterRegistry meterRegistry,
+                             @Value("${task.search.enabled:true}") boolean enabled,
+                             @Value("${task.sync.commit-lag:PT5S}") Duration commitLag,
+                             @Value("${task.sync.tombstone-retention:P30D}") Duration tombstoneRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.taskRepository = taskRepository;
+        this.objectMapper = objectMapper;
+        this.snapshots = snapshots;
+        this.enabled = enabled;
+        this.commitLag = commitLag;
+        this.tombstoneRetention = tombstoneRetention;
+        this.searches = Timer.builder("task.search.latency")
+                .description("Search in the in-memory index, without loading the found tasks")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("task.search.documents", this, service -> service.index == null ? 0 : service.index.size())
+                .register(meterRegistry);
+    }
+
+    /**
+     * Finds the user's tasks matching the query, best first. Returns null while the index is not loaded yet.
+     */
+    public List<TaskResponse> search(Long userId, String query, TaskStatus status, Priority priority, int limit) {
+        if (!enabled || index == null) {
+            return null;
+        }
+        long started = System.nanoTime();
+        List<TaskSearchIndex.Hit> hits;
+        lock.readLock().lock();
+        try {
+            hits = index.search(userId, query, status, priority, Math.max(1, Math.min(limit, MAX_RESULTS)));
+        } finally {
+            lock.readLock().unlock();
+        }
+        searches.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, TaskResponse> tasks = taskRepository.findByUserIdAndIdIn(userId,
+                        hits.stream().map(TaskSearchIndex.Hit::taskId).toList()).stream()
+                .collect(Collectors.toMap(TaskResponse::getId, Function.identity()));
+        // Индекс отстаёт от БД на интервал опроса: удалённые и уже не проходящие фильтр задачи отбрасываются
+        return hits.stream()
+                .map(hit -> tasks.get(hit.taskId()))
+                .filter(task -> task != null
+                        && (status == null || task.getStatus() == status)
+                        && (priority == null || task.getPriority() == priority))
+                .toList();
+    }
+
+    /**
+     * Applies the changes stamped since the last poll, loading the index first if needed. Returns the number of
+     * events applied.
+     */
+    @Scheduled(fixedDelayString = "${task.search.poll-interval:PT0.2S}",
+            initialDelayString = "${task.search.initial-delay:PT5S}")
+    public synchronized int poll() {
+        if (!enabled) {
+            return 0;
+        }
+        if (index == null) {
+            load();
+        }
+        List<TaskEvent> events = jdbcTemplate.query(TaskEventRelay.SELECT_EVENTS_SQL, TaskEventRelay.EVENT_MAPPER,
+                lastOffset, POLL_BATCH_SIZE);
+        if (events.isEmpty()) {
+            return 0;
+        }
+        if (events.get(0).getOffset() != lastOffset + 1) {
+            log.warn("Search index missed outbox offsets {}..{}, catching up from the tables",
+                    lastOffset + 1, events.get(0).getOffset() - 1);
+            catchUp(index, watermark);
+            return 0;
+        }
+        List<Change> changes = events.stream().map(this::toChange).toList();
+        TaskEvent last = events.get(events.size() - 1);
+        lock.writeLock().lock();
+        try {
+            changes.forEach(change -> change.applyTo(index));
+            lastOffset = last.getOffset();
+            if (last.getOccurredAt().isAfter(watermark)) {
+                watermark = last.getOccurredAt();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (index.needsCompaction()) {
+            compact();
+        }
+        return events.size();
+    }
+
+    @Scheduled(fixedDelayString = "${task.search.snapshot-interval:PT10M}",
+            initialDelayString = "${task.search.snapshot-interval:PT10M}")
+    public synchronized void snapshot() {
+        if (index == null) {
+            return;
+        }
+        long started = System.nanoTime();
+        try {
+            // Индекс меняет только опрос, а он ждёт конца снимка: блокировка чтения не нужна
+            snapshots.write(index, lastOffset, watermark);
+            log.info("Search index snapshot of {} tasks up to offset {} written in {} ms",
+                    index.size(), lastOffset, (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException e) {
+            log.warn("Search index snapshot failed: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshot();
+    }
+
+    private void load() {
+        long started = System.nanoTime();
+        TaskSearchSnapshot.Loaded loaded = snapshots.read();
+        // Надгробия старше срока хранения удалены: по такому снимку удалённые задачи уже не найти
+        // Смещение дальше проставленного: снимок сделан с другой базы
+        if (loaded != null && loaded.watermark().isAfter(LocalDateTime.now().minus(tombstoneRetention))
+                && loaded.offset() <= stampedOffset()) {
+            lastOffset = loaded.offset();
+            watermark = loaded.watermark();
+            if (outboxPurgedAfter(lastOffset)) {
+                catchUp(loaded.index(), watermark);
+            }
+            index = loaded.index();
+            log.info("Search index of {} tasks loaded from snapshot up to offset {} in {} ms",
+                    index.size(), lastOffset, (System.nanoTime() - started) / 1_000_000);
+            return;
+        }
+        TaskSearchIndex built = new TaskSearchIndex(1024);
+        catchUp(built, null);
+        index = built;
+        log.info("Search index of {} tasks built in {} ms", built.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private boolean outboxPurgedAfter(long offset) {
+        if (stampedOffset() <= offset) {
+            return false;
+        }
+        Long oldest = jdbcTemplate.queryForObject("SELECT MIN(relay_offset) FROM task_events", Long.class);
+        return oldest == null || oldest > offset + 1;
+    }
+
+    /**
+     * Reindexes the tasks updated since {@code since} less the commit lag and removes the tasks deleted since
+     * then (every task when {@code since} is null), then moves the outbox position to where it was before the
+     * read. Events after that position may repeat changes already read from the table; applying them again in
+     * order ends in the same state.
+     */
+    private void catchUp(TaskSearchIndex target, LocalDateTime since) {
+        long offset = stampedOffset();
+        LocalDateTime startedAt = LocalDateTime.now();
+        Timestamp from = since != null ? Timestamp.valueOf(since.minus(commitLag)) : null;
+        List<Change> chunk = new ArrayList<>(APPLY_CHUNK_SIZE);
+        RowCallbackHandler collect = rs -> {
+            long taskId = rs.getLong("id");
+            long userId = rs.getLong("user_id");
+            TaskStatus status = TaskStatus.valueOf(rs.getString("status"));
+            Priority priority = Priority.valueOf(rs.getString("priority"));
+            String title = rs.getString("title");
+            String description = rs.getString("description");
+            chunk.add(index -> index.put(taskId, userId, status, priority, title, description));
+            if (chunk.size() == APPLY_CHUNK_SIZE) {
+                apply(target, chunk);
+            }
+        };
+        // Курсор PostgreSQL с fetch size работает только внутри транзакции
+        readOnlyTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        from != null ? SELECT_TASKS_SQL + " WHERE updated_at >= ?" : SELECT_TASKS_SQL);
+                statement.setFetchSize(APPLY_CHUNK_SIZE);
+                if (from != null) {
+                    statement.setTimestamp(1, from);
+                }
+                return statement;
+            }, collect);
+            if (from != null) {
+                jdbcTemplate.query("SELECT task_id FROM task_tombstones WHERE deleted_at >= ?", rs -> {
+                    long taskId = rs.getLong("task_id");
+                    chunk.add(index -> index.remove(taskId));
+                    if (chunk.size() == APPLY_CHUNK_SIZE) {
+                        apply(target, chunk);
+                    }
+                }, from);
+            }
+        });
+        apply(target, chunk);
+        lock.writeLock().lock();
+        try {
+            lastOffset = offset;
+            watermark = startedAt;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void apply(TaskSearchIndex target, List<Change> changes) {
+        lock.writeLock().lock();
+        try {
+            changes.forEach(change -> change.applyTo(target));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        changes.clear();
+    }
+
+    // Копия строится без блокировки записи: индекс меняет только этот поток, поиск идёт по старому
+    private void compact() {
+        long started = System.nanoTime();
+        TaskSearchIndex compacted = index.compact();
+        lock.writeLock().lock();
+        try {
+            index = compacted;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Search index compacted to {} tasks in {} ms", compacted.size(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private long stampedOffset() {
+        return jdbcTemplate.queryForObject("SELECT last_offset FROM task_event_relay WHERE id = 1", Long.class);
+    }
+
+    // Разбор снимка задачи делается до захвата блокировки записи
+    private Change toChange(TaskEvent event) {
+        long taskId = event.getTaskId();
+        if (event.getType() == TaskEventType.DELETED) {
+            return index -> index.remove(taskId);
+        }
+        if (event.getTask() == null) {
+            // Массовая смена статуса: текст не менялся
+            TaskStatus status = event.getStatus();
+            return index -> {
+                if (status != null) {
+                    index.updateStatus(taskId, status);
+                }
+            };
+        }
+        try {
+            JsonNode task = objectMapper.readTree(event.getTask());
+            long userId = event.getUserId();
+            TaskStatus status = TaskStatus.valueOf(task.path("status").asText(TaskStatus.TODO.name()));
+            Priority priority = Priority.valueOf(task.path("priority").asText(Priority.MEDIUM.name()));
+            String title = task.path("title").asText(null);
+            String description = task.path("description").asText(null);
+            return index -> index.put(taskId, userId, status, priority, title, description);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read the snapshot of task " + taskId, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Change {
+        void applyTo(TaskSearchIndex index);
+    }
+}
@@ -0,0 +1,261 @@
+package org.example.task.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.zip.CRC32;
+
+/**
+ * On-disk snapshot of the search index, so that a restart loads the index instead of reading and tokenizing every
+ * task again. Next to the documents and postings it records the outbox offset the index was read up to and a
+ * watermark: every task change missing from the snapshot was made after it, less the commit lag.
+ * <p>
+ * Numbers are varint-encoded, task ids and posting ordinals delta-coded; the file ends with a CRC32 of the
+ * content. A snapshot that fails the check is ignored and the index is rebuilt.
+ */
+@Component
+@Slf4j
+public class TaskSearchSnapshot {
+
+    private static final int MAGIC = 0x54534958;
+    private static final byte VERSION = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final Path file;
+
+    public TaskSearchSnapshot(@Value("${task.search.directory:data/search}") Path directory) {
+        this.file = directory.resolve("tasks.index");
+    }
+
+    // Снимок пишется во временный файл и атомарно подменяет прежний
+    public void write(TaskSearchIndex index, long offset, LocalDateTime watermark) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temporary = file.resolveSibling("tasks.index.tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Output output = new Output(channel);
+            output.putInt(MAGIC);
+            output.putByte(VERSION);
+            output.putLong(offset);
+            output.putLong(ChronoUnit.MICROS.between(EPOCH, watermark));
+            index.writeTo(output);
+            output.finish();
+            channel.force(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /** Reads the snapshot; returns null when there is none or it is damaged or of another version. */
+    public Loaded read() {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Input input = new Input(channel);
+            if (input.getInt() != MAGIC || input.getByte() != VERSION) {
+                log.warn("Search index snapshot {} has an unknown format, ignoring it", file);
+                return null;
+            }
+            long offset = input.getLong();
+            LocalDateTime watermark = EPOCH.plus(input.getLong(), ChronoUnit.MICROS);
+            TaskSearchIndex index = TaskSearchIndex.readFrom(input);
+            if (!input.checksumMatches()) {
+                log.warn("Search index snapshot {} is damaged, ignoring it", file);
+                return null;
+            }
+            return new Loaded(index, offset, watermark);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Search index snapshot {} cannot be read, ignoring it: {}", file, e.toString());
+            return null;
+        }
+    }
+
+    public record Loaded(TaskSearchIndex index, long offset, LocalDateTime watermark) {
+    }
+
+    /** Buffered writer of the snapshot; the CRC covers everything before it. */
+    static final class Output {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putByte(int value) {
+            ensure(1);
+            buffer.put((byte) value);
+        }
+
+        void putInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putVarInt(int value) {
+            putVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void putVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+
+        void putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            putVarInt(bytes.length);
+            ensure(bytes.length);
+            buffer.put(bytes);
+        }
+
+        void finish() {
+            flush();
+            buffer.putInt((int) crc.getValue());
+            write();
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            crc.update(buffer.array(), 0, buffer.position());
+            write();
+        }
+
+        private void write() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+    }
+
+    /** Buffered reader of the snapshot, checking the CRC at the end. */
+    static final class Input {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CRC32 crc = new CRC32();
+
+        Input(FileChannel channel) {
+            this.channel = channel;
+            buffer.flip();
+        }
+
+        byte getByte() {
+            ensure(1);
+            return buffer.get();
+        }
+
+        int getInt() {
+            ensure(4);
+            return buffer.getInt();
+        }
+
+        long getLong() {
+            ensure(8);
+            return buffer.getLong();
+        }
+
+        int getVarInt() {
+            long value = getVarLong();
+            if (value > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Varint out of range: " + value);
+            }
+            return (int) value;
+        }
+
+        long getVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = getByte();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalStateException("Malformed varint");
+        }
+
+        String getString() {
+            int length = getVarInt();
+            if (length > BUFFER_SIZE) {
+                throw new IllegalStateException("String of " + length + " bytes");
+            }
+            ensure(length);
+            String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return value;
+        }
+
+        boolean checksumMatches() {
+            // В CRC входит всё прочитанное до контрольной суммы
+            crc.update(buffer.array(), 0, buffer.position());
+            buffer.compact().flip();
+            long expected = crc.getValue();
+            crc.reset();
+            return fill(4) && (buffer.getInt() & 0xFFFFFFFFL) == expected && !fill(1);
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                crc.update(buffer.array(), 0, buffer.position());
+                buffer.compact().flip();
+                if (!fill(bytes)) {
+                    throw new IllegalStateException("Snapshot is truncated");
+                }
+            }
+        }
+
+        // Дочитывает файл, пока в буфере не наберётся bytes байт; false — файл кончился раньше
+        private boolean fill(int bytes) {
+            try {
+                while (buffer.remaining() < bytes) {
+                    buffer.compact();
+                    int read = channel.read(buffer);
+                    buffer.flip();
+                    if (read < 0) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
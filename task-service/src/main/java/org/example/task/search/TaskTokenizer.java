@@ -0,0 +1,55 @@
+package org.example.task.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Splits task text into index terms: runs of letters and digits, lower-cased, with "ё" folded to "е". Terms are
+ * cut to {@value #MAX_TERM_LENGTH} characters. There is no stemming: prefix and typo-tolerant matching at query
+ * time cover most word forms.
+ */
+final class TaskTokenizer {
+
+    static final int MAX_TERM_LENGTH = 32;
+
+    private TaskTokenizer() {
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        tokenize(text, terms::add);
+        return terms;
+    }
+
+    static void tokenize(String text, Consumer<String> consumer) {
+        if (text == null) {
+            return;
+        }
+        char[] term = new char[MAX_TERM_LENGTH];
+        int length = 0;
+        boolean inTerm = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                // Хвост слишком длинного слова отбрасывается, слово остаётся одним термином
+                if (length < MAX_TERM_LENGTH) {
+                    term[length++] = fold(c);
+                }
+                inTerm = true;
+            } else if (inTerm) {
+                consumer.accept(new String(term, 0, length));
+                length = 0;
+                inTerm = false;
+            }
+        }
+        if (inTerm) {
+            consumer.accept(new String(term, 0, length));
+        }
+    }
+
+    private static char fold(char c) {
+        char lower = Character.toLowerCase(c);
+        return lower == 'ё' ? 'е' : lower;
+    }
+}
@@ -0,0 +1,226 @@
+package org.example.task.search;
+
+import java.util.Arrays;
+
+/**
+ * Term dictionary of the search index: a character trie in parallel primitive arrays (about 14 bytes per node)
+ * mapping every term to a dense term id. The trie answers exact lookups, enumerates the completions of a prefix
+ * and finds the terms within a Levenshtein distance by walking the trie with one row of the edit-distance table
+ * per level, pruning a branch as soon as every cell of its row exceeds the allowed distance.
+ * <p>
+ * Terms are only added; a compaction of the index builds a new dictionary. Not thread-safe.
+ */
+final class TermDictionary {
+
+    private static final int NONE = -1;
+
+    private char[] labels;
+    private int[] firstChild;
+    private int[] nextSibling;
+    private int[] termIds;
+    private int nodes = 1;
+    private int terms;
+
+    TermDictionary(int expectedNodes) {
+        int capacity = Math.max(expectedNodes, 16);
+        labels = new char[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        termIds = new int[capacity];
+        firstChild[0] = NONE;
+        nextSibling[0] = NONE;
+        termIds[0] = NONE;
+    }
+
+    /** Returns the id of {@code term}, adding it with the next free id when it is new. */
+    int add(String term) {
+        int node = 0;
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            int child = child(node, c);
+            if (child == NONE) {
+                child = allocate(c);
+                nextSibling[child] = firstChild[node];
+                firstChild[node] = child;
+            }
+            node = child;
+        }
+        if (termIds[node] == NONE) {
+            termIds[node] = terms++;
+        }
+        return termIds[node];
+    }
+
+    /** Returns the id of {@code term}, or -1 when it is not in the dictionary. */
+    int get(String term) {
+        int node = find(term);
+        return node == NONE ? NONE : termIds[node];
+    }
+
+    int size() {
+        return terms;
+    }
+
+    /** Passes up to {@code max} terms that start with {@code prefix} and are longer than it. */
+    void completions(String prefix, int max, TermVisitor visitor) {
+        int node = find(prefix);
+        if (node == NONE) {
+            return;
+        }
+        int[] stack = new int[64];
+        int depth = 0;
+        int found = 0;
+        // Обход в глубину без рекурсии: в стеке — следующий ещё не пройденный узел каждого уровня
+        for (int child = firstChild[node]; child != NONE || depth > 0; ) {
+            if (child == NONE) {
+                child = nextSibling[stack[--depth]];
+                continue;
+            }
+            if (termIds[child] != NONE) {
+                visitor.accept(termIds[child], 0);
+                if (++found == max) {
+                    return;
+                }
+            }
+            if (firstChild[child] != NONE) {
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                }
+                stack[depth++] = child;
+                child = firstChild[child];
+            } else {
+                child = nextSibling[child];
+            }
+        }
+    }
+
+    /**
+     * Passes up to {@code max} terms other than {@code term} itself within {@code maxEdits} insertions, deletions,
+     * substitutions or transpositions of adjacent characters of it, with their distance. The first character must
+     * match: a typo there is rare, and without the restriction every branch of the root would be walked.
+     */
+    void similar(String term, int maxEdits, int max, TermVisitor visitor) {
+        if (term.isEmpty()) {
+            return;
+        }
+        int first = child(0, term.charAt(0));
+        if (first == NONE) {
+            return;
+        }
+        int[][] rows = new int[term.length() + maxEdits + 1][term.length() + 1];
+        for (int i = 0; i <= term.length(); i++) {
+            rows[0][i] = i;
+        }
+        new SimilarWalk(term, maxEdits, max, visitor, rows).visit(first, 1, '\0');
+    }
+
+    /** Passes every term with its id, in trie order. */
+    void forEach(TermEntryVisitor visitor) {
+        forEach(0, new char[TaskTokenizer.MAX_TERM_LENGTH], 0, visitor);
+    }
+
+    private void forEach(int node, char[] path, int length, TermEntryVisitor visitor) {
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            if (length == path.length) {
+                path = Arrays.copyOf(path, length * 2);
+            }
+            path[length] = labels[child];
+            if (termIds[child] != NONE) {
+                visitor.accept(new String(path, 0, length + 1), termIds[child]);
+            }
+            forEach(child, path, length + 1, visitor);
+        }
+    }
+
+    private int find(String term) {
+        int node = 0;
+        for (int i = 0; i < term.length() && node != NONE; i++) {
+            node = child(node, term.charAt(i));
+        }
+        return node;
+    }
+
+    private int child(int node, char c) {
+        int child = firstChild[node];
+        while (child != NONE && labels[child] != c) {
+            child = nextSibling[child];
+        }
+        return child;
+    }
+
+    private int allocate(char c) {
+        if (nodes == labels.length) {
+            int capacity = labels.length + (labels.length >> 1);
+            labels = Arrays.copyOf(labels, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            termIds = Arrays.copyOf(termIds, capacity);
+        }
+        int node = nodes++;
+        labels[node] = c;
+        firstChild[node] = NONE;
+        termIds[node] = NONE;
+        return node;
+    }
+
+    private final class SimilarWalk {
+
+        private final String term;
+        private final int maxEdits;
+        private final int max;
+        private final TermVisitor visitor;
+        private final int[][] rows;
+        private final int[] minima;
+        private int found;
+
+        SimilarWalk(String term, int maxEdits, int max, TermVisitor visitor, int[][] rows) {
+            this.term = term;
+            this.maxEdits = maxEdits;
+            this.max = max;
+            this.visitor = visitor;
+            this.rows = rows;
+            this.minima = new int[rows.length];
+        }
+
+        // Строка depth таблицы расстояний — между term и путём до node длины depth
+        void visit(int node, int depth, char parent) {
+            int[] previous = rows[depth - 1];
+            int[] row = rows[depth];
+            char c = labels[node];
+            row[0] = depth;
+            int best = depth;
+            for (int i = 1; i <= term.length(); i++) {
+                int substitution = previous[i - 1] + (term.charAt(i - 1) == c ? 0 : 1);
+                row[i] = Math.min(substitution, Math.min(previous[i], row[i - 1]) + 1);
+                // Перестановка соседних букв — одна правка, а не две замены
+                if (i > 1 && depth > 1 && term.charAt(i - 1) == parent && term.charAt(i - 2) == c) {
+                    row[i] = Math.min(row[i], rows[depth - 2][i - 2] + 1);
+                }
+                best = Math.min(best, row[i]);
+            }
+            int distance = row[term.length()];
+            if (termIds[node] != NONE && distance > 0 && distance <= maxEdits && found < max) {
+                visitor.accept(termIds[node], distance);
+                found++;
+            }
+            minima[depth] = best;
+            // Перестановка опирается на строку через одну: ветка безнадёжна, только если и там всё дальше порога
+            if (best > maxEdits && minima[depth - 1] >= maxEdits || depth + 1 == rows.length || found == max) {
+                return;
+            }
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+                visit(child, depth + 1, c);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    interface TermVisitor {
+        void accept(int termId, int edits);
+    }
+
+    @FunctionalInterface
+    interface TermEntryVisitor {
+        void accept(String term, int termId);
+    }
+}
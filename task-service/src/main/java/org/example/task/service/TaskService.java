@@ -1,58 +1,119 @@
 package org.example.task.service;
 
 import lombok.extern.slf4j.Slf4j;
+import org.example.task.cache.TaskCache;
+import org.example.task.events.TaskEventRecorder;
+import org.example.task.events.TaskEventType;
 import org.example.task.model.Priority;
 import org.example.task.model.Task;
 import org.example.task.model.TaskStatus;
+import org.example.task.model.TaskTombstone;
+import org.example.task.repository.TaskFilter;
 import org.example.task.repository.TaskRepository;
+import org.example.task.repository.TaskTombstoneRepository;
+import org.example.task.repository.TaskRepository.StatsRow;
+import org.example.task.dto.BatchItemResult;
+import org.example.task.dto.TaskChanges;
+import org.example.task.dto.TaskPage;
 import org.example.task.dto.TaskRequest;
 import org.example.task.dto.TaskResponse;
+import org.example.task.dto.TaskStats;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.client.circuitbreaker.CircuitBreaker;
 import org.springframework.cloud.client.circuitbreaker.CircuitBreakerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Collections;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
-@Transactional
+@Transactional(readOnly = true)
 public class TaskService {
 
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 5000;
+    public static final int MAX_STATS_USERS = 500;
+    // Ограничение на размер IN-списка в одном запросе
+    private static final int ID_CHUNK_SIZE = 1000;
+    private static final LocalDateTime SYNC_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
     @Autowired
     private TaskRepository taskRepository;
 
     @Autowired
     private CircuitBreakerFactory circuitBreakerFactory;
 
-    public List<TaskResponse> getAllTasksByUser(Long userId) {
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private TaskCache taskCache;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private TaskEventRecorder taskEventRecorder;
+
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int jdbcBatchSize;
+
+    // updatedAt ставится до коммита: транзакция, завершившаяся позже, может получить более раннюю отметку
+    @Value("${task.sync.commit-lag:PT5S}")
+    private Duration syncCommitLag;
+
+    @Value("${task.sync.tombstone-retention:P30D}")
+    private Duration tombstoneRetention;
+
+    public TaskPage getAllTasksByUser(Long userId, String cursor, int limit) {
+        ScrollPosition position = TaskCursor.decode(cursor);
         CircuitBreaker circuitBreaker = circuitBreakerFactory.create("taskService");
         return circuitBreaker.run(() -> {
-            log.info("Getting all tasks for user: {}", userId);
-            return taskRepository.findByUserId(userId)
-                    .stream()
-                    .map(TaskResponse::new)
-                    .collect(Collectors.toList());
+            log.debug("Getting tasks page for user: {}", userId);
+            return TaskPage.of(taskRepository.findByUserIdOrderByCreatedAtAscIdAsc(
+                    userId, position, pageLimit(limit)));
         }, throwable -> {
             log.error("Fallback for user {}: {}", userId, throwable.getMessage());
-            return Collections.emptyList();
+            return TaskPage.empty();
         });
     }
 
     public Optional<TaskResponse> getTaskById(Long id, Long userId) {
-        log.info("Getting task by ID: {} for user: {}", id, userId);
-        return taskRepository.findById(id)
-                .filter(task -> task.getUserId().equals(userId))
-                .map(TaskResponse::new);
+        log.debug("Getting task by ID: {} for user: {}", id, userId);
+        return taskCache.get(userId, "byId", () -> taskRepository.findByIdAndUserId(id, userId), id);
     }
 
+    @Transactional
     public TaskResponse createTask(TaskRequest taskRequest) {
-        log.info("Creating task for user: {}", taskRequest.getUserId());
+        log.debug("Creating task for user: {}", taskRequest.getUserId());
         Task task = new Task(
                 taskRequest.getTitle(),
                 taskRequest.getDescription(),
@@ -66,12 +127,15 @@ public class TaskService {
         }
 
         Task savedTask = taskRepository.save(task);
-        log.info("Task created with ID: {}", savedTask.getId());
+        taskCache.invalidateUser(savedTask.getUserId());
+        taskEventRecorder.record(TaskEventType.CREATED, savedTask);
+        log.debug("Task created with ID: {}", savedTask.getId());
         return new TaskResponse(savedTask);
     }
 
+    @Transactional
     public Optional<TaskResponse> updateTask(Long id, TaskRequest taskRequest) {
-        log.info("Updating task ID: {} for user: {}", id, taskRequest.getUserId());
+        log.debug("Updating task ID: {} for user: {}", id, taskRequest.getUserId());
         return taskRepository.findById(id)
                 .filter(task -> task.getUserId().equals(taskRequest.getUserId()))
                 .map(task -> {
@@ -80,73 +144,305 @@ public class TaskService {
                     task.setStatus(taskRequest.getStatus());
                     task.setPriority(taskRequest.getPriority());
                     task.setDeadline(taskRequest.getDeadline());
+                    taskCache.invalidateUser(task.getUserId());
+                    taskEventRecorder.record(TaskEventType.UPDATED, task);
                     return taskRepository.save(task);
                 })
                 .map(TaskResponse::new);
     }
 
+    @Transactional
     public Optional<TaskResponse> updateTaskStatus(Long id, Long userId, TaskStatus status) {
-        log.info("Updating status for task ID: {} to: {}", id, status);
+        log.debug("Updating status for task ID: {} to: {}", id, status);
         return taskRepository.findById(id)
                 .filter(task -> task.getUserId().equals(userId))
                 .map(task -> {
                     task.setStatus(status);
+                    taskCache.invalidateUser(task.getUserId());
+                    taskEventRecorder.record(TaskEventType.STATUS_CHANGED, task);
                     return taskRepository.save(task);
                 })
                 .map(TaskResponse::new);
     }
 
+    @Transactional
     public boolean deleteTask(Long id, Long userId) {
-        log.info("Deleting task ID: {} for user: {}", id, userId);
+        log.debug("Deleting task ID: {} for user: {}", id, userId);
         Optional<Task> task = taskRepository.findById(id)
                 .filter(t -> t.getUserId().equals(userId));
 
         if (task.isPresent()) {
+            taskTombstoneRepository.insertForTasks(List.of(id), LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
             taskRepository.deleteById(id);
+            taskCache.invalidateUser(userId);
+            taskEventRecorder.record(TaskEventType.DELETED, task.get());
             return true;
         }
         return false;
     }
 
-    public List<TaskResponse> getTasksByStatus(Long userId, TaskStatus status) {
-        log.info("Getting tasks by status: {} for user: {}", status, userId);
-        return taskRepository.findByUserIdAndStatus(userId, status)
-                .stream()
-                .map(TaskResponse::new)
-                .collect(Collectors.toList());
+    @Transactional
+    public List<BatchItemResult> createTasks(List<TaskRequest> taskRequests) {
+        checkBatchSize(taskRequests.size());
+        log.info("Creating {} tasks in batch", taskRequests.size());
+        List<BatchItemResult> results = new ArrayList<>(taskRequests.size());
+        Set<Long> userIds = new HashSet<>();
+        int pending = 0;
+        for (int i = 0; i < taskRequests.size(); i++) {
+            TaskRequest taskRequest = taskRequests.get(i);
+            String error = validate(taskRequest);
+            if (error != null) {
+                results.add(BatchItemResult.failure(i, null, error));
+                continue;
+            }
+            Task task = new Task(
+                    taskRequest.getTitle(),
+                    taskRequest.getDescription(),
+                    taskRequest.getPriority(),
+                    taskRequest.getDeadline(),
+                    taskRequest.getUserId()
+            );
+            if (taskRequest.getStatus() != null) {
+                task.setStatus(taskRequest.getStatus());
+            }
+            // id выдаётся из пула последовательности без обращения к БД, INSERT уходит пачкой при flush
+            entityManager.persist(task);
+            taskEventRecorder.record(TaskEventType.CREATED, task);
+            results.add(BatchItemResult.success(i, task.getId()));
+            userIds.add(task.getUserId());
+            if (++pending % jdbcBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        userIds.forEach(taskCache::invalidateUser);
+        return results;
+    }
+
+    @Transactional
+    public List<BatchItemResult> updateTaskStatuses(Long userId, List<Long> ids, TaskStatus status) {
+        checkBatchSize(ids.size());
+        log.info("Updating status to {} for {} tasks of user: {}", status, ids.size(), userId);
+        LocalDateTime now = LocalDateTime.now();
+        Set<Long> owned = new HashSet<>();
+        for (List<Long> chunk : chunks(ids)) {
+            List<Long> found = taskRepository.findOwnedIds(userId, chunk);
+            if (!found.isEmpty()) {
+                taskRepository.updateStatusByUserIdAndIdIn(userId, found, status, now);
+                taskEventRecorder.record(TaskEventType.STATUS_CHANGED, userId, found, status);
+                owned.addAll(found);
+            }
+        }
+        taskCache.invalidateUser(userId);
+        return toResults(ids, owned);
+    }
+
+    @Transactional
+    public List<BatchItemResult> deleteTasks(Long userId, List<Long> ids) {
+        checkBatchSize(ids.size());
+        log.info("Deleting {} tasks of user: {}", ids.size(), userId);
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        Set<Long> owned = new HashSet<>();
+        for (List<Long> chunk : chunks(ids)) {
+            List<Long> found = taskRepository.findOwnedIds(userId, chunk);
+            if (!found.isEmpty()) {
+                taskTombstoneRepository.insertForTasks(found, now);
+                taskRepository.deleteAllByIdInBatch(found);
+                taskEventRecorder.record(TaskEventType.DELETED, userId, found, null);
+                owned.addAll(found);
+            }
+        }
+        taskCache.invalidateUser(userId);
+        return toResults(ids, owned);
+    }
+
+    public TaskPage getTasksByStatus(Long userId, TaskStatus status, String cursor, int limit) {
+        log.debug("Getting tasks by status: {} for user: {}", status, userId);
+        ScrollPosition position = TaskCursor.decode(cursor);
+        return taskCache.get(userId, "byStatus",
+                () -> TaskPage.of(taskRepository.findByUserIdAndStatusOrderByCreatedAtAscIdAsc(
+                        userId, status, position, pageLimit(limit))),
+                status, cursor, limit);
+    }
+
+    public TaskPage getTasksByPriority(Long userId, Priority priority, String cursor, int limit) {
+        log.debug("Getting tasks by priority: {} for user: {}", priority, userId);
+        return TaskPage.of(taskRepository.findByUserIdAndPriorityOrderByCreatedAtAscIdAsc(
+                userId, priority, TaskCursor.decode(cursor), pageLimit(limit)));
     }
 
-    public List<TaskResponse> getTasksByPriority(Long userId, Priority priority) {
-        log.info("Getting tasks by priority: {} for user: {}", priority, userId);
-        return taskRepository.findByUserIdAndPriority(userId, priority)
-                .stream()
-                .map(TaskResponse::new)
-                .collect(Collectors.toList());
+    public TaskPage getOverdueTasks(Long userId, String cursor, int limit) {
+        log.debug("Getting overdue tasks for user: {}", userId);
+        // Статус OVERDUE проставляет OverdueTaskSweeper, поэтому чтение — обычный поиск по статусу
+        return getTasksByStatus(userId, TaskStatus.OVERDUE, cursor, limit);
     }
 
-    public List<TaskResponse> getOverdueTasks(Long userId) {
-        log.info("Getting overdue tasks for user: {}", userId);
-        return taskRepository.findByUserIdAndDeadlineBeforeAndStatusNot(
-                        userId, LocalDateTime.now(), TaskStatus.DONE)
-                .stream()
-                .map(TaskResponse::new)
-                .collect(Collectors.toList());
+    public TaskPage getTasksWithFilters(Long userId, TaskStatus status, Priority priority, String cursor, int limit) {
+        log.debug("Getting filtered tasks for user: {}, status: {}, priority: {}", userId, status, priority);
+        if (status != null && priority != null) {
+            return TaskPage.of(taskRepository.findByUserIdAndStatusAndPriorityOrderByCreatedAtAscIdAsc(
+                    userId, status, priority, TaskCursor.decode(cursor), pageLimit(limit)));
+        }
+        if (status != null) {
+            return getTasksByStatus(userId, status, cursor, limit);
+        }
+        if (priority != null) {
+            return getTasksByPriority(userId, priority, cursor, limit);
+        }
+        return TaskPage.of(taskRepository.findByUserIdOrderByCreatedAtAscIdAsc(
+                userId, TaskCursor.decode(cursor), pageLimit(limit)));
     }
 
-    public List<TaskResponse> getTasksWithFilters(Long userId, TaskStatus status, Priority priority) {
-        log.info("Getting filtered tasks for user: {}, status: {}, priority: {}", userId, status, priority);
-        return taskRepository.findByUserIdAndFilters(userId, status, priority)
-                .stream()
-                .map(TaskResponse::new)
-                .collect(Collectors.toList());
+    public void streamTasksWithFilters(Long userId, TaskStatus status, Priority priority,
+                                       TaskStreamHandler handler) throws IOException {
+        streamTasks(TaskFilter.forUser(userId).status(status).priority(priority), handler);
+    }
+
+    public void streamTasks(TaskFilter filter, TaskStreamHandler handler) throws IOException {
+        log.debug("Streaming filtered tasks for user: {}, status: {}, priority: {}, sort: {} {}", filter.getUserId(),
+                filter.getStatus(), filter.getPriority(), filter.getSortField(), filter.getDirection());
+        try (Stream<TaskResponse> tasks = taskRepository.streamByFilter(filter)) {
+            Iterator<TaskResponse> iterator = tasks.iterator();
+            while (iterator.hasNext()) {
+                handler.accept(iterator.next());
+            }
+        }
+    }
+
+    public void streamOverdueTasks(Long userId, TaskStreamHandler handler) throws IOException {
+        log.debug("Streaming overdue tasks for user: {}", userId);
+        streamTasksWithFilters(userId, TaskStatus.OVERDUE, null, handler);
+    }
+
+    /**
+     * Tasks created or updated and tasks deleted after the sync token, merged in change order. Only changes
+     * stamped before now minus the commit lag are read, so no page, full or last, moves the token past a
+     * transaction that is still to commit with an earlier timestamp; newer changes wait for the next poll.
+     * Clients apply changes by id, so a change sent twice does no harm. Tokens of a full sync keep the time it
+     * started, so paging over long-untouched tasks is not mistaken for a token older than the tombstones.
+     */
+    public TaskChanges getChanges(Long userId, String token, int limit) {
+        log.debug("Getting task changes for user: {}", userId);
+        TaskSyncToken since = TaskSyncToken.decode(token);
+        LocalDateTime now = LocalDateTime.now();
+        if (since != null && since.tombstonesNeededFrom().isBefore(now.minus(tombstoneRetention))) {
+            return TaskChanges.resync();
+        }
+        // Изменения новее until читаем в следующий раз: раньше них ещё может закоммититься более ранняя отметка
+        LocalDateTime until = now.minus(syncCommitLag);
+        // Синхронизация с нуля: удаления, закоммиченные до её начала, клиенту не нужны
+        TaskSyncToken from = since != null ? since : new TaskSyncToken(SYNC_START, 0, until);
+        int size = pageLimit(limit).max();
+        List<TaskResponse> changed = taskRepository.findChangedSince(
+                userId, from.getSince(), from.getAfterId(), until, Limit.of(size + 1));
+        List<TaskTombstone> tombstones = since == null ? List.of() : findTombstones(userId, from, until, size + 1);
+
+        List<TaskResponse> items = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        TaskSyncToken last = from;
+        int i = 0;
+        int j = 0;
+        while (items.size() + deleted.size() < size && (i < changed.size() || j < tombstones.size())) {
+            TaskSyncToken task = i < changed.size()
+                    ? from.moveTo(changed.get(i).getUpdatedAt(), changed.get(i).getId()) : null;
+            TaskSyncToken tombstone = j < tombstones.size()
+                    ? from.moveTo(tombstones.get(j).getDeletedAt(), tombstones.get(j).getTaskId()) : null;
+            if (tombstone == null || task != null && tombstone.isAfter(task)) {
+                items.add(changed.get(i++));
+                last = task;
+            } else {
+                deleted.add(tombstones.get(j++).getTaskId());
+                last = tombstone;
+            }
+        }
+        boolean hasMore = i < changed.size() || j < tombstones.size();
+        if (hasMore) {
+            return new TaskChanges(items, deleted, last.encode(), true);
+        }
+        TaskSyncToken caughtUp = from.moveTo(until, 0);
+        return new TaskChanges(items, deleted, (caughtUp.isAfter(from) ? caughtUp : from).encode(), false);
     }
 
     public long getTaskCountByStatus(Long userId, TaskStatus status) {
-        log.info("Counting tasks with status: {} for user: {}", status, userId);
+        log.debug("Counting tasks with status: {} for user: {}", status, userId);
         return taskRepository.countByUserIdAndStatus(userId, status);
     }
 
+    public List<TaskStats> getTaskStats(List<Long> userIds) {
+        if (userIds.size() > MAX_STATS_USERS) {
+            throw new IllegalArgumentException("Stats cannot be requested for more than " + MAX_STATS_USERS + " users");
+        }
+        log.debug("Getting task stats for {} users", userIds.size());
+        Map<Long, TaskStats> stats = new LinkedHashMap<>();
+        userIds.forEach(userId -> stats.putIfAbsent(userId, new TaskStats(userId)));
+        if (stats.isEmpty()) {
+            return List.of();
+        }
+
+        LocalDateTime weekStart = LocalDate.now()
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                .atStartOfDay();
+        for (StatsRow row : taskRepository.aggregateStats(stats.keySet(), weekStart, weekStart.plusWeeks(1))) {
+            stats.get(row.getUserId()).add(row.getStatus(), row.getPriority(), row.getCount(), row.getDueThisWeek());
+        }
+        return new ArrayList<>(stats.values());
+    }
+
     public boolean taskBelongsToUser(Long taskId, Long userId) {
-        return taskRepository.existsByIdAndUserId(taskId, userId);
+        return taskCache.get(userId, "belongsToUser",
+                () -> taskRepository.existsByIdAndUserId(taskId, userId), taskId);
+    }
+
+    // Надгробия после позиции токена, но не раньше его горизонта
+    private List<TaskTombstone> findTombstones(Long userId, TaskSyncToken from, LocalDateTime until, int limit) {
+        TaskSyncToken position = from.getHorizon().isAfter(from.getSince()) ? from.moveTo(from.getHorizon(), 0) : from;
+        return taskTombstoneRepository.findDeletedSince(
+                userId, position.getSince(), position.getAfterId(), until, Limit.of(limit));
+    }
+
+    private String validate(TaskRequest taskRequest) {
+        if (taskRequest == null) {
+            return "Task is required";
+        }
+        Set<ConstraintViolation<TaskRequest>> violations = validator.validate(taskRequest);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static void checkBatchSize(int size) {
+        if (size > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Batch cannot exceed " + MAX_BATCH_SIZE + " items");
+        }
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinct.size(); from += ID_CHUNK_SIZE) {
+            chunks.add(distinct.subList(from, Math.min(from + ID_CHUNK_SIZE, distinct.size())));
+        }
+        return chunks;
+    }
+
+    private static List<BatchItemResult> toResults(List<Long> ids, Set<Long> affected) {
+        List<BatchItemResult> results = new ArrayList<>(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            results.add(affected.contains(id)
+                    ? BatchItemResult.success(i, id)
+                    : BatchItemResult.failure(i, id, "Task not found"));
+        }
+        return results;
+    }
+
+    private static Limit pageLimit(int limit) {
+        return Limit.of(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
     }
 }
\ No newline at end of file
@@ -0,0 +1,11 @@
+package org.example.task.service;
+
+import org.example.task.dto.TaskResponse;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface TaskStreamHandler {
+
+    void accept(TaskResponse task) throws IOException;
+}
@@ -0,0 +1,77 @@
+package org.example.task.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque delta-sync token: a position (updatedAt, id) in a user's change feed. Tasks and tombstones
+ * share the order, a tombstone's deletion time playing the part of updatedAt.
+ * <p>
+ * The position alone does not say which tombstones the client still needs: a full sync walks tasks that may
+ * have been untouched for months. The token therefore also carries its horizon, the time the sync started;
+ * deletions before it do not concern the client, and only the later of the position and the horizon has to
+ * stay within the tombstone retention.
+ */
+public final class TaskSyncToken {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime since;
+    private final long afterId;
+    private final LocalDateTime horizon;
+
+    // Конструкторы
+    public TaskSyncToken(LocalDateTime since, long afterId, LocalDateTime horizon) {
+        this.since = since;
+        this.afterId = afterId;
+        this.horizon = horizon;
+    }
+
+    // Та же синхронизация, следующая позиция
+    public TaskSyncToken moveTo(LocalDateTime since, long afterId) {
+        return new TaskSyncToken(since, afterId, horizon);
+    }
+
+    public String encode() {
+        String raw = since + SEPARATOR + afterId + SEPARATOR + horizon;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // null — синхронизация с нуля
+    public static TaskSyncToken decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, -1);
+            if (parts.length < 2 || parts.length > 3) {
+                throw new IllegalArgumentException("Invalid sync token: " + token);
+            }
+            LocalDateTime since = LocalDateTime.parse(parts[0]);
+            // Токены без горизонта выданы до его появления: горизонтом служит сама позиция
+            LocalDateTime horizon = parts.length == 3 ? LocalDateTime.parse(parts[2]) : since;
+            return new TaskSyncToken(since, Long.parseLong(parts[1]), horizon);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid sync token: " + token, e);
+        }
+    }
+
+    public boolean isAfter(TaskSyncToken other) {
+        int bySince = since.compareTo(other.since);
+        return bySince > 0 || bySince == 0 && afterId > other.afterId;
+    }
+
+    // Начиная с этого момента клиенту нужны надгробия: более ранние удаления он либо уже получил, либо не видел задач
+    public LocalDateTime tombstonesNeededFrom() {
+        return since.isAfter(horizon) ? since : horizon;
+    }
+
+    // Геттеры
+    public LocalDateTime getSince() { return since; }
+    public long getAfterId() { return afterId; }
+    public LocalDateTime getHorizon() { return horizon; }
+}
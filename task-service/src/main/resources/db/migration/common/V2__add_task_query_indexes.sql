@@ -0,0 +1,15 @@
+-- Indexes previously created from @Table(indexes) by ddl-auto=update
+DROP INDEX IF EXISTS idx_tasks_status_deadline;
+DROP INDEX IF EXISTS idx_tasks_user_status;
+
+-- findByUserIdOrderByCreatedAtAscIdAsc
+CREATE INDEX idx_tasks_user_created ON tasks (user_id, created_at, id);
+
+-- findByUserIdAndStatusOrderByCreatedAtAscIdAsc, countByUserIdAndStatus
+CREATE INDEX idx_tasks_user_status ON tasks (user_id, status, created_at, id);
+
+-- findByUserIdAndPriorityOrderByCreatedAtAscIdAsc
+CREATE INDEX idx_tasks_user_priority ON tasks (user_id, priority, created_at, id);
+
+-- findByUserIdAndStatusAndPriorityOrderByCreatedAtAscIdAsc
+CREATE INDEX idx_tasks_user_status_priority ON tasks (user_id, status, priority, created_at, id);
@@ -0,0 +1,29 @@
+-- Transactional outbox: task change events are written in the same transaction as the change itself.
+-- id is assigned when the row is inserted, after the changed task rows are locked, so events of the same
+-- task get ids in commit order; relay_offset is stamped later by the relay, in id order, and never has gaps.
+CREATE TABLE task_events (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id      BIGINT        NOT NULL,
+    task_id      BIGINT        NOT NULL,
+    type         VARCHAR(32)   NOT NULL,
+    status       VARCHAR(255),
+    payload      VARCHAR(4000),
+    occurred_at  TIMESTAMP(6)  NOT NULL,
+    relay_offset BIGINT
+);
+
+-- Stamping reads unstamped rows (relay_offset IS NULL) in id order, delivery and purge read by offset
+CREATE INDEX idx_task_events_relay_offset ON task_events (relay_offset, id);
+
+-- Last stamped offset; the row lock also keeps two relay instances from stamping at once
+CREATE TABLE task_event_relay (
+    id          INT    PRIMARY KEY,
+    last_offset BIGINT NOT NULL
+);
+INSERT INTO task_event_relay (id, last_offset) VALUES (1, 0);
+
+-- Delivery cursor of every consumer
+CREATE TABLE task_event_consumers (
+    name             VARCHAR(255) PRIMARY KEY,
+    delivered_offset BIGINT       NOT NULL
+);
@@ -0,0 +1,14 @@
+-- Delta sync (GET /api/tasks/changes): a user's changes are read in (updated_at, id) order after a token,
+-- so one poll touches only the rows changed since then
+UPDATE tasks SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP) WHERE updated_at IS NULL;
+CREATE INDEX idx_tasks_user_updated ON tasks (user_id, updated_at, id);
+
+-- Deletions are hard deletes: a tombstone per deleted task tells syncing clients to drop it.
+-- Tombstones older than the retention are purged; tokens older than that get a full resync instead.
+CREATE TABLE task_tombstones (
+    task_id    BIGINT       PRIMARY KEY,
+    user_id    BIGINT       NOT NULL,
+    deleted_at TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX idx_task_tombstones_user_deleted ON task_tombstones (user_id, deleted_at, task_id);
+CREATE INDEX idx_task_tombstones_deleted ON task_tombstones (deleted_at);
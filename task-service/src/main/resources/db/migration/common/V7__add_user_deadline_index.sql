@@ -0,0 +1,2 @@
+-- Task filter (TaskFilterRepository): deadline ranges and ordering by deadline within a user's tasks
+CREATE INDEX idx_tasks_user_deadline ON tasks (user_id, deadline, id);
@@ -0,0 +1,2 @@
+-- H2 has no partial indexes; the test schema uses a plain composite index instead
+CREATE INDEX idx_tasks_open_deadline ON tasks (status, deadline);
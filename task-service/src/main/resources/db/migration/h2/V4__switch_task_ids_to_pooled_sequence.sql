@@ -0,0 +1,3 @@
+CREATE SEQUENCE tasks_seq START WITH 50 INCREMENT BY 50;
+
+ALTER TABLE tasks ALTER COLUMN id DROP IDENTITY;
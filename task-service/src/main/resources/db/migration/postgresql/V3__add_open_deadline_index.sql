@@ -0,0 +1,3 @@
+-- findExpired: only open tasks can become overdue, so DONE/OVERDUE rows stay out of the index
+CREATE INDEX idx_tasks_open_deadline ON tasks (deadline)
+    WHERE status IN ('TODO', 'IN_PROGRESS');
@@ -0,0 +1,8 @@
+-- IDENTITY forces Hibernate to insert rows one by one to learn their ids.
+-- A sequence with INCREMENT BY 50 lets the pooled optimizer hand out ids in memory
+-- and send inserts as JDBC batches; allocationSize on Task must stay in sync.
+CREATE SEQUENCE tasks_seq INCREMENT BY 50;
+SELECT setval('tasks_seq', COALESCE(MAX(id), 0) + 50, false) FROM tasks;
+
+ALTER TABLE tasks ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE tasks ALTER COLUMN id DROP DEFAULT;
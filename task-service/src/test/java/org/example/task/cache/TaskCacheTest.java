@@ -0,0 +1,79 @@
+package org.example.task.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskCacheTest {
+
+    private final TaskCache cache = new TaskCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+    // Закоммиченное состояние задач пользователя
+    private final AtomicReference<String> committed = new AtomicReference<>("old");
+
+    @Test
+    void readThatLoadedBeforeAWriteCannotRepopulateTheCache() throws Exception {
+        CountDownLatch loaded = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Чтение получило данные до записи, но кладёт их в кэш уже после инвалидации
+        CompletableFuture<String> slowRead = CompletableFuture.supplyAsync(() -> cache.get(1L, "all", () -> {
+            String value = committed.get();
+            loaded.countDown();
+            await(release);
+            return value;
+        }));
+        assertThat(loaded.await(5, TimeUnit.SECONDS)).isTrue();
+
+        committed.set("new");
+        cache.invalidateUser(1L);
+        release.countDown();
+        assertThat(slowRead.get(5, TimeUnit.SECONDS)).isEqualTo("old");
+
+        assertThat(read(1L)).isEqualTo("new");
+    }
+
+    @Test
+    void invalidationInsideATransactionWaitsForCommit() {
+        assertThat(read(1L)).isEqualTo("old");
+        assertThat(read(2L)).isEqualTo("old");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidateUser(1L);
+            committed.set("new");
+            // До коммита другие транзакции видят старые данные; сброс сейчас дал бы им закэшировать их заново
+            assertThat(CompletableFuture.supplyAsync(() -> cache.get(1L, "other", () -> "old")).join())
+                    .isEqualTo("old");
+            assertThat(read(1L)).isEqualTo("old");
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(read(1L)).isEqualTo("new");
+        assertThat(cache.get(1L, "other", committed::get)).isEqualTo("new");
+        // Чужие записи не сбрасываются
+        assertThat(read(2L)).isEqualTo("old");
+    }
+
+    private String read(Long userId) {
+        return cache.get(userId, "all", committed::get);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package org.example.task.events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.example.task.dto.TaskRequest;
+import org.example.task.dto.TaskResponse;
+import org.example.task.model.TaskStatus;
+import org.example.task.scheduling.OverdueTaskSweeper;
+import org.example.task.service.TaskService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "task.events.consumers.stub=http://event-stub/events",
+        "task.events.relay.batch-size=3",
+        "task.events.relay.initial-backoff=0s",
+        "task.events.stream.retention=0s"})
+class TaskEventRelayTest {
+
+    private static final HttpServer CONSUMER = startConsumer();
+    private static final List<List<JsonNode>> BATCHES = new CopyOnWriteArrayList<>();
+    private static final AtomicInteger FAILURES = new AtomicInteger();
+    private static final AtomicLong USERS = new AtomicLong(1000);
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskEventRelay taskEventRelay;
+
+    @Autowired
+    private OverdueTaskSweeper overdueTaskSweeper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @DynamicPropertySource
+    static void consumerInstance(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.event-stub[0].uri",
+                () -> "http://localhost:" + CONSUMER.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stopConsumer() {
+        CONSUMER.stop(0);
+    }
+
+    @BeforeEach
+    void setUp() {
+        relayAll();
+        BATCHES.clear();
+        FAILURES.set(0);
+        userId = USERS.incrementAndGet();
+    }
+
+    @Test
+    void deliversChangesOfATaskInCommitOrder() {
+        TaskResponse task = taskService.createTask(request("Write report"));
+        taskService.updateTaskStatus(task.getId(), userId, TaskStatus.IN_PROGRESS);
+        TaskRequest update = request("Write final report");
+        update.setStatus(TaskStatus.DONE);
+        taskService.updateTask(task.getId(), update);
+        taskService.deleteTask(task.getId(), userId);
+
+        assertThat(taskEventRelay.relayOnce()).isEqualTo(4);
+
+        List<JsonNode> events = received();
+        assertThat(events).extracting(event -> event.get("type").asText())
+                .containsExactly("CREATED", "STATUS_CHANGED", "UPDATED", "DELETED");
+        assertThat(events).extracting(event -> event.get("status").asText())
+                .containsExactly("TODO", "IN_PROGRESS", "DONE", "DONE");
+        assertThat(events).allSatisfy(event -> assertThat(event.get("taskId").asLong()).isEqualTo(task.getId()));
+        assertThat(events.get(2).get("task").get("title").asText()).isEqualTo("Write final report");
+        assertThat(events.get(3).get("task").isNull()).isTrue();
+        // Смещения идут подряд, пачки не больше batch-size
+        long first = events.get(0).get("offset").asLong();
+        assertThat(events).extracting(event -> event.get("offset").asLong())
+                .containsExactly(first, first + 1, first + 2, first + 3);
+        assertThat(BATCHES).hasSize(2);
+        assertThat(outboxSize()).isZero();
+    }
+
+    @Test
+    void redeliversBatchRejectedByConsumer() {
+        taskService.createTask(request("First"));
+        taskService.createTask(request("Second"));
+        FAILURES.set(1);
+
+        assertThat(taskEventRelay.relayOnce()).isZero();
+        assertThat(outboxSize()).isEqualTo(2);
+
+        assertThat(taskEventRelay.relayOnce()).isEqualTo(2);
+        // Отклонённая пачка пришла повторно с теми же смещениями: at-least-once
+        assertThat(BATCHES).hasSize(2);
+        assertThat(offsets(BATCHES.get(1))).isEqualTo(offsets(BATCHES.get(0)));
+        assertThat(outboxSize()).isZero();
+    }
+
+    @Test
+    void recordsBulkOperationsPerTask() {
+        Long first = taskService.createTask(request("First")).getId();
+        Long second = taskService.createTask(request("Second")).getId();
+        taskService.updateTaskStatuses(userId, List.of(first, second), TaskStatus.DONE);
+        taskService.deleteTasks(userId, List.of(first, second, -1L));
+
+        taskEventRelay.relayOnce();
+
+        assertThat(received()).extracting(event -> event.get("type").asText() + ":" + event.get("taskId").asLong())
+                .containsExactly("CREATED:" + first, "CREATED:" + second,
+                        "STATUS_CHANGED:" + first, "STATUS_CHANGED:" + second,
+                        "DELETED:" + first, "DELETED:" + second);
+    }
+
+    @Test
+    void recordsTasksMarkedOverdueBySweeper() {
+        Long overdue = taskService.createTask(request("Overdue")).getId();
+        Long done = taskService.createTask(request("Done")).getId();
+        taskService.updateTaskStatus(done, userId, TaskStatus.DONE);
+        jdbcTemplate.update("UPDATE tasks SET deadline = CURRENT_TIMESTAMP - INTERVAL '1' DAY WHERE id IN (?, ?)",
+                overdue, done);
+        relayAll();
+        BATCHES.clear();
+
+        overdueTaskSweeper.sweep();
+        // Просрочка проставляется всем задачам в общей БД, события чужих задач тесту не нужны
+        jdbcTemplate.update("DELETE FROM task_events WHERE user_id <> ?", userId);
+        relayAll();
+
+        assertThat(received()).extracting(event -> event.get("type").asText() + ":" + event.get("taskId").asLong()
+                        + ":" + event.get("status").asText())
+                .containsExactly("STATUS_CHANGED:" + overdue + ":OVERDUE");
+    }
+
+    @Test
+    void rolledBackChangesProduceNoEvents() {
+        TaskRequest invalid = request("Invalid");
+        invalid.setTitle(null);
+        try {
+            taskService.createTask(invalid);
+        } catch (RuntimeException expected) {
+            // NOT NULL на title: транзакция откатывается вместе с событием
+        }
+
+        taskEventRelay.relayOnce();
+
+        assertThat(received()).isEmpty();
+    }
+
+    private TaskRequest request(String title) {
+        TaskRequest request = new TaskRequest();
+        request.setTitle(title);
+        request.setUserId(userId);
+        return request;
+    }
+
+    private void relayAll() {
+        while (taskEventRelay.relayOnce() > 0) {
+            // до опустошения outbox
+        }
+    }
+
+    private List<JsonNode> received() {
+        return BATCHES.stream()
+                .flatMap(List::stream)
+                .filter(event -> event.get("userId").asLong() == userId)
+                .toList();
+    }
+
+    private long outboxSize() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM task_events", Long.class);
+    }
+
+    private static List<Long> offsets(List<JsonNode> batch) {
+        return batch.stream().map(event -> event.get("offset").asLong()).toList();
+    }
+
+    private static HttpServer startConsumer() {
+        try {
+            ObjectMapper objectMapper = new ObjectMapper();
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/events", exchange -> {
+                List<JsonNode> batch = List.of(objectMapper.readValue(exchange.getRequestBody(), JsonNode[].class));
+                BATCHES.add(batch);
+                int status = FAILURES.getAndUpdate(left -> Math.max(0, left - 1)) > 0 ? 500 : 204;
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
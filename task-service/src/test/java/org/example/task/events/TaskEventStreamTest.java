@@ -0,0 +1,181 @@
+package org.example.task.events;
+
+import org.example.task.dto.TaskRequest;
+import org.example.task.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+@SpringBootTest(properties = "task.events.stream.buffer-size=4")
+@AutoConfigureMockMvc
+class TaskEventStreamTest {
+
+    private static final AtomicLong USERS = new AtomicLong(2000);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskEventRelay taskEventRelay;
+
+    @Autowired
+    private TaskEventStream taskEventStream;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = USERS.incrementAndGet();
+        publish();
+    }
+
+    @Test
+    void pushesOnlyTheUsersChangesWithOffsetsAsIds() throws Exception {
+        MockHttpServletResponse stream = open(null);
+        awaitContent(stream, content -> content.contains("event:READY"));
+
+        Long taskId = taskService.createTask(taskRequest("Mine", userId)).getId();
+        taskService.createTask(taskRequest("Someone else's", userId + 10_000));
+        publish();
+
+        String content = awaitContent(stream, text -> text.contains("event:CREATED"));
+        assertThat(events(content)).containsExactly("READY", "CREATED");
+        assertThat(content).contains("\"taskId\":" + taskId).doesNotContain("Someone else's");
+        assertThat(stream.getContentType()).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    @Test
+    void resumesAfterLastEventIdFromBufferAndOutbox() throws Exception {
+        long before = stampedOffset();
+        for (int i = 0; i < 6; i++) {
+            taskService.createTask(taskRequest("Task " + i, userId));
+        }
+        publish();
+
+        // Из кольцевого буфера на 4 события: только последние
+        MockHttpServletResponse recent = open(before + 4);
+        String fromBuffer = awaitContent(recent, content -> count(content, "event:CREATED") == 2);
+        assertThat(ids(fromBuffer)).containsExactly(before + 5, before + 6);
+
+        // Буфер уже не содержит before + 1: события дочитываются из outbox
+        MockHttpServletResponse older = open(before);
+        String fromOutbox = awaitContent(older, content -> count(content, "event:CREATED") == 6);
+        assertThat(events(fromOutbox)).containsExactly("READY",
+                "CREATED", "CREATED", "CREATED", "CREATED", "CREATED", "CREATED");
+        assertThat(ids(fromOutbox)).containsExactly(before + 1, before + 2, before + 3, before + 4, before + 5,
+                before + 6);
+    }
+
+    @Test
+    void sendsResetWhenMissedEventsArePurged() throws Exception {
+        long before = stampedOffset();
+        for (int i = 0; i < 6; i++) {
+            taskService.createTask(taskRequest("Task " + i, userId));
+        }
+        publish();
+        jdbcTemplate.update("DELETE FROM task_events WHERE relay_offset <= ?", before + 1);
+
+        MockHttpServletResponse stream = open(before);
+
+        String content = awaitContent(stream, text -> text.contains("id:" + (before + 6)));
+        assertThat(events(content)).containsExactly("RESET");
+    }
+
+    @Test
+    void disconnectsSubscriberThatFallsBehind() {
+        List<Runnable> pending = new ArrayList<>();
+        TaskEventSubscriber subscriber = new TaskEventSubscriber(userId, new SseEmitter(), pending::add, 3, 0);
+        subscriber.start(SseEmitter.event().name(TaskEventStream.READY_EVENT), List.of(), 0);
+
+        // Отправка не запускалась: очередь копится до лимита, дальше подписчик отключается
+        for (long offset = 1; offset <= 2; offset++) {
+            assertThat(subscriber.offer(event(offset))).isTrue();
+        }
+        assertThat(subscriber.offer(event(3))).isFalse();
+        assertThat(subscriber.offer(event(4))).isTrue();
+        assertThat(pending).hasSize(1);
+    }
+
+    private MockHttpServletResponse open(Long lastEventId) throws Exception {
+        var builder = get("/api/tasks/stream").param("userId", userId.toString())
+                .accept(MediaType.TEXT_EVENT_STREAM);
+        if (lastEventId != null) {
+            builder.header("Last-Event-ID", lastEventId);
+        }
+        MvcResult result = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        return result.getResponse();
+    }
+
+    // Тест сам проставляет смещения и читает поток вместо планировщика
+    private void publish() {
+        taskEventRelay.relayOnce();
+        while (taskEventStream.poll() > 0) {
+            // до конца потока
+        }
+    }
+
+    private long stampedOffset() {
+        publish();
+        return jdbcTemplate.queryForObject("SELECT last_offset FROM task_event_relay WHERE id = 1", Long.class);
+    }
+
+    private TaskEvent event(long offset) {
+        return new TaskEvent(offset, TaskEventType.CREATED, offset, userId, null, null, null);
+    }
+
+    private static TaskRequest taskRequest(String title, Long userId) {
+        TaskRequest request = new TaskRequest();
+        request.setTitle(title);
+        request.setUserId(userId);
+        return request;
+    }
+
+    private static String awaitContent(MockHttpServletResponse response, Predicate<String> condition)
+            throws Exception {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (true) {
+            String content = response.getContentAsString();
+            if (condition.test(content)) {
+                return content;
+            }
+            assertThat(System.nanoTime()).as("stream content: %s", content).isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<String> events(String content) {
+        return content.lines().filter(line -> line.startsWith("event:")).map(line -> line.substring(6)).toList();
+    }
+
+    private static List<Long> ids(String content) {
+        return content.lines().filter(line -> line.startsWith("id:")).map(line -> Long.parseLong(line.substring(3)))
+                .toList();
+    }
+
+    private static long count(String content, String line) {
+        return content.lines().filter(line::equals).count();
+    }
+}
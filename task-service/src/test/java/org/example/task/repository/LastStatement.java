@@ -0,0 +1,17 @@
+package org.example.task.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Remembers the last SQL statement Hibernate sent, so tests can EXPLAIN exactly what a repository runs.
+ */
+public class LastStatement implements StatementInspector {
+
+    static volatile String sql;
+
+    @Override
+    public String inspect(String statement) {
+        sql = statement;
+        return statement;
+    }
+}
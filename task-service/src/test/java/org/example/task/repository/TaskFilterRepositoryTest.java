@@ -0,0 +1,170 @@
+package org.example.task.repository;
+
+import org.example.task.dto.TaskResponse;
+import org.example.task.model.Priority;
+import org.example.task.model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "org.example.task.repository.LastStatement")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class TaskFilterRepositoryTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final long FIRST_USER = 600;
+    private static final long USER = FIRST_USER + 7;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        // ANALYZE в H2 фиксирует транзакцию, поэтому строки прошлых тестов удаляются явно
+        jdbcTemplate.update("DELETE FROM tasks WHERE user_id BETWEEN ? AND ?", FIRST_USER, FIRST_USER + 49);
+        // Задача i: пользователь FIRST_USER + i % 50, дедлайн через i часов, создана за i минут до BASE
+        String[] statuses = {"TODO", "IN_PROGRESS", "DONE", "OVERDUE"};
+        String[] priorities = {"LOW", "MEDIUM", "HIGH"};
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            rows.add(new Object[]{"task " + i, statuses[i % 4], priorities[i % 3], Timestamp.valueOf(BASE.plusHours(i)),
+                    FIRST_USER + i % 50, Timestamp.valueOf(BASE.minusMinutes(i))});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tasks (id, title, status, priority, deadline, user_id, created_at, updated_at) " +
+                "VALUES (NEXT VALUE FOR tasks_seq, ?, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)", rows);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void appliesRangesWithInclusiveLowerBoundAndSortsByChosenField() {
+        assertThat(titles(TaskFilter.forUser(USER)
+                .deadlineBetween(BASE.plusHours(107), BASE.plusHours(507))
+                .sortBy(TaskFilter.SortField.DEADLINE, Sort.Direction.DESC)))
+                .containsExactly("task 457", "task 407", "task 357", "task 307", "task 257", "task 207",
+                        "task 157", "task 107");
+
+        // Чем больше i, тем раньше создана задача
+        TaskFilter created = TaskFilter.forUser(USER).createdBetween(BASE.minusMinutes(257), BASE.minusMinutes(57));
+        assertThat(titles(created)).containsExactly("task 257", "task 207", "task 157", "task 107");
+        assertThat(titles(created.priority(Priority.HIGH))).containsExactly("task 257", "task 107");
+        assertThat(titles(created.status(TaskStatus.TODO))).isEmpty();
+
+        assertThat(titles(TaskFilter.forUser(USER).deadlineBetween(BASE.plusHours(1900), null)))
+                .containsExactly("task 1957", "task 1907");
+    }
+
+    @Test
+    void rejectsEmptyRanges() {
+        assertThatThrownBy(() -> TaskFilter.forUser(USER).deadlineBetween(BASE, BASE))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TaskFilter.forUser(USER).createdBetween(BASE, BASE.minusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> TaskFilter.forUser(null)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Все 16 сочетаний фильтров при каждом порядке: в SQL только заданные условия, план идёт по индексу
+    @Test
+    void everyFilterCombinationEmitsOnlyItsPredicatesAndUsesAnIndex() {
+        for (TaskFilter.SortField sort : TaskFilter.SortField.values()) {
+            for (int combination = 0; combination < 16; combination++) {
+                boolean byStatus = (combination & 1) != 0;
+                boolean byPriority = (combination & 2) != 0;
+                boolean byDeadline = (combination & 4) != 0;
+                boolean byCreated = (combination & 8) != 0;
+                TaskFilter filter = TaskFilter.forUser(USER).sortBy(sort, Sort.Direction.ASC);
+                if (byStatus) {
+                    filter.status(TaskStatus.TODO);
+                }
+                if (byPriority) {
+                    filter.priority(Priority.HIGH);
+                }
+                if (byDeadline) {
+                    filter.deadlineBetween(BASE.plusDays(5), BASE.plusDays(20));
+                }
+                if (byCreated) {
+                    filter.createdBetween(BASE.minusDays(1), BASE.minusHours(5));
+                }
+
+                String sql = statementOf(filter);
+                List<Object> arguments = arguments(filter);
+                String description = sort + " " + sql;
+                assertThat(sql).as(description).doesNotContainIgnoringCase("is null");
+                assertThat(sql.chars().filter(c -> c == '?').count()).as(description).isEqualTo(arguments.size());
+                assertThat(sql.contains("status=")).as(description).isEqualTo(byStatus);
+                assertThat(sql.contains("priority=")).as(description).isEqualTo(byPriority);
+                assertThat(sql.contains("deadline>=")).as(description).isEqualTo(byDeadline);
+                assertThat(sql.contains("created_at>=")).as(description).isEqualTo(byCreated);
+
+                // Оптимизатор выбирает по статистике: годится индекс, ведущие колонки которого заданы фильтром
+                List<String> indexes = new ArrayList<>();
+                indexes.add(byStatus && byPriority ? "idx_tasks_user_status_priority"
+                        : byStatus ? "idx_tasks_user_status"
+                        : byPriority ? "idx_tasks_user_priority"
+                        : "idx_tasks_user_created");
+                if (byDeadline) {
+                    indexes.add("idx_tasks_user_deadline");
+                }
+                if (byDeadline && byStatus) {
+                    indexes.add("idx_tasks_open_deadline");
+                }
+                String plan = explain(sql, arguments);
+                assertThat(indexes).as(description + "\n" + plan)
+                        .anyMatch(index -> plan.contains("/* public." + index + ":"));
+            }
+        }
+    }
+
+    private List<String> titles(TaskFilter filter) {
+        try (Stream<TaskResponse> tasks = taskRepository.streamByFilter(filter)) {
+            return tasks.map(TaskResponse::getTitle).toList();
+        }
+    }
+
+    private String statementOf(TaskFilter filter) {
+        try (Stream<TaskResponse> tasks = taskRepository.streamByFilter(filter)) {
+            tasks.count();
+        }
+        return LastStatement.sql;
+    }
+
+    // Параметры в порядке условий запроса
+    private static List<Object> arguments(TaskFilter filter) {
+        List<Object> arguments = new ArrayList<>();
+        arguments.add(filter.getUserId());
+        if (filter.getStatus() != null) {
+            arguments.add(filter.getStatus().name());
+        }
+        if (filter.getPriority() != null) {
+            arguments.add(filter.getPriority().name());
+        }
+        for (LocalDateTime bound : new LocalDateTime[]{filter.getDeadlineFrom(), filter.getDeadlineTo(),
+                filter.getCreatedFrom(), filter.getCreatedTo()}) {
+            if (bound != null) {
+                arguments.add(Timestamp.valueOf(bound));
+            }
+        }
+        return arguments;
+    }
+
+    private String explain(String sql, List<Object> arguments) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, arguments.toArray()))
+                .toLowerCase();
+    }
+}
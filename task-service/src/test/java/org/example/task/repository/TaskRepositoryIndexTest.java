@@ -0,0 +1,123 @@
+package org.example.task.repository;
+
+import org.example.task.model.Priority;
+import org.example.task.model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "org.example.task.repository.LastStatement")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class TaskRepositoryIndexTest {
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskTombstoneRepository taskTombstoneRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        // Немного данных разной селективности, чтобы оптимизатор не выбирал полный просмотр
+        String[] statuses = {"TODO", "IN_PROGRESS", "DONE", "OVERDUE"};
+        String[] priorities = {"LOW", "MEDIUM", "HIGH"};
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            rows.add(new Object[]{"task " + i, statuses[i % 4], priorities[i % 3], (long) (i % 50)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tasks (id, title, status, priority, deadline, user_id, created_at, updated_at) " +
+                "VALUES (NEXT VALUE FOR tasks_seq, ?, ?, ?, CURRENT_TIMESTAMP, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", rows);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void findByUserIdUsesUserCreatedIndex() {
+        taskRepository.findByUserIdOrderByCreatedAtAscIdAsc(7L, ScrollPosition.keyset(), Limit.of(20));
+        assertThat(explainLast(7L, 21)).contains("idx_tasks_user_created");
+    }
+
+    @Test
+    void findByUserIdAndStatusUsesUserStatusIndex() {
+        taskRepository.findByUserIdAndStatusOrderByCreatedAtAscIdAsc(7L, TaskStatus.TODO,
+                ScrollPosition.keyset(), Limit.of(20));
+        assertThat(explainLast(7L, "TODO", 21)).contains("idx_tasks_user_status");
+    }
+
+    @Test
+    void countByUserIdAndStatusUsesUserStatusIndex() {
+        taskRepository.countByUserIdAndStatus(7L, TaskStatus.TODO);
+        assertThat(explainLast(7L, "TODO")).contains("idx_tasks_user_status");
+    }
+
+    @Test
+    void findByUserIdAndPriorityUsesUserPriorityIndex() {
+        taskRepository.findByUserIdAndPriorityOrderByCreatedAtAscIdAsc(7L, Priority.HIGH,
+                ScrollPosition.keyset(), Limit.of(20));
+        assertThat(explainLast(7L, "HIGH", 21)).contains("idx_tasks_user_priority");
+    }
+
+    @Test
+    void findByUserIdAndStatusAndPriorityUsesCombinedIndex() {
+        taskRepository.findByUserIdAndStatusAndPriorityOrderByCreatedAtAscIdAsc(7L, TaskStatus.TODO, Priority.HIGH,
+                ScrollPosition.keyset(), Limit.of(20));
+        assertThat(explainLast(7L, "TODO", "HIGH", 21)).contains("idx_tasks_user_status_priority");
+    }
+
+    // Частичный индекс PostgreSQL подходит, только если статусы в SQL — литералы из его условия
+    @Test
+    void findExpiredUsesOpenDeadlineIndex() {
+        LocalDateTime now = LocalDateTime.now();
+        taskRepository.findExpired(now, Limit.of(100));
+        assertThat(LastStatement.sql).contains("status in ('TODO','IN_PROGRESS')");
+        assertThat(explainLast(Timestamp.valueOf(now), 100)).contains("idx_tasks_open_deadline");
+    }
+
+    @Test
+    void markOverdueRepeatsOpenStatusLiterals() {
+        taskRepository.markOverdue(List.of(1L, 2L), LocalDateTime.now());
+        assertThat(LastStatement.sql).contains("status in ('TODO','IN_PROGRESS')");
+    }
+
+    @Test
+    void findChangedSinceUsesUserUpdatedIndex() {
+        LocalDateTime since = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime until = since.plusDays(1);
+        taskRepository.findChangedSince(7L, since, 5L, until, Limit.of(100));
+        assertThat(explainLast(7L, Timestamp.valueOf(since), Timestamp.valueOf(since), 5L,
+                Timestamp.valueOf(until), 100))
+                .contains("idx_tasks_user_updated");
+    }
+
+    @Test
+    void findDeletedSinceUsesUserDeletedIndex() {
+        LocalDateTime since = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime until = since.plusDays(1);
+        taskTombstoneRepository.findDeletedSince(7L, since, 5L, until, Limit.of(100));
+        assertThat(explainLast(7L, Timestamp.valueOf(since), Timestamp.valueOf(since), 5L,
+                Timestamp.valueOf(until), 100))
+                .contains("idx_task_tombstones_user_deleted");
+    }
+
+    // План того SQL, который Hibernate отправил последним; параметры — в порядке знаков ?
+    private String explainLast(Object... arguments) {
+        String sql = LastStatement.sql;
+        assertThat(sql.chars().filter(c -> c == '?').count()).as(sql).isEqualTo(arguments.length);
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class, arguments)).toLowerCase();
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.task.scheduling;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.task.cache.TaskCache;
+import org.example.task.dto.TaskRequest;
+import org.example.task.events.TaskEventRecorder;
+import org.example.task.repository.TaskRepository;
+import org.example.task.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "task.sync.commit-lag=0s")
+class OverdueTaskSweeperTest {
+
+    private static final AtomicLong USERS = new AtomicLong(5000);
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private TaskCache taskCache;
+
+    @Autowired
+    private TaskEventRecorder taskEventRecorder;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = USERS.incrementAndGet();
+    }
+
+    @Test
+    void marksOnlyOpenExpiredTasksAcrossSeveralBatches() {
+        List<Long> expired = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            expired.add(createTask("Expired " + i));
+        }
+        Long done = createTask("Done");
+        Long upcoming = createTask("Upcoming");
+        jdbcTemplate.update("UPDATE tasks SET deadline = ? WHERE user_id = ? AND id <> ?",
+                LocalDateTime.now().minusHours(1), userId, upcoming);
+        jdbcTemplate.update("UPDATE tasks SET status = 'DONE' WHERE id = ?", done);
+        jdbcTemplate.update("UPDATE tasks SET status = 'IN_PROGRESS' WHERE id = ?", expired.get(0));
+
+        assertThat(sweeper(taskRepository, 2).sweepAll()).isGreaterThanOrEqualTo(5);
+
+        assertThat(statuses("OVERDUE")).containsExactlyInAnyOrderElementsOf(expired);
+        assertThat(statuses("DONE")).containsExactly(done);
+        assertThat(statuses("TODO")).containsExactly(upcoming);
+    }
+
+    @Test
+    void keepsSweepingWhenARowChangesBetweenSelectAndUpdate() {
+        List<Long> expired = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            expired.add(createTask("Expired " + i));
+        }
+        jdbcTemplate.update("UPDATE tasks SET deadline = ? WHERE user_id = ?",
+                LocalDateTime.now().minusHours(1), userId);
+
+        // Пользователь закрывает задачу из первой выборки до UPDATE: пакет из 2 строк переводит только одну
+        AtomicBoolean raced = new AtomicBoolean();
+        TaskRepository racing = (TaskRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{TaskRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("markOverdue")) {
+                        ((Collection<?>) args[0]).stream()
+                                .filter(expired::contains)
+                                .findFirst()
+                                .filter(id -> raced.compareAndSet(false, true))
+                                .ifPresent(id -> jdbcTemplate.update("UPDATE tasks SET status = 'DONE' WHERE id = ?", id));
+                    }
+                    try {
+                        return method.invoke(taskRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+
+        sweeper(racing, 2).sweepAll();
+
+        assertThat(raced).isTrue();
+        assertThat(statuses("DONE")).hasSize(1);
+        assertThat(statuses("OVERDUE")).hasSize(5);
+        assertThat(statuses("TODO")).isEmpty();
+    }
+
+    private OverdueTaskSweeper sweeper(TaskRepository repository, int batchSize) {
+        return new OverdueTaskSweeper(repository, taskCache, taskEventRecorder, transactionManager,
+                new SimpleMeterRegistry(), batchSize);
+    }
+
+    private Long createTask(String title) {
+        TaskRequest request = new TaskRequest();
+        request.setTitle(title);
+        request.setUserId(userId);
+        request.setDeadline(LocalDateTime.now().plusDays(1));
+        return taskService.createTask(request).getId();
+    }
+
+    private List<Long> statuses(String status) {
+        return jdbcTemplate.queryForList("SELECT id FROM tasks WHERE user_id = ? AND status = ?",
+                Long.class, userId, status);
+    }
+}
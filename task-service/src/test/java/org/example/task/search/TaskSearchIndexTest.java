@@ -0,0 +1,121 @@
+package org.example.task.search;
+
+import org.example.task.model.Priority;
+import org.example.task.model.TaskStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskSearchIndexTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void ranksTitleMatchesFirstWithinTheUsersFilteredTasks() {
+        TaskSearchIndex index = new TaskSearchIndex(16);
+        index.put(1, 7, TaskStatus.TODO, Priority.LOW, "Call the plumber", "The report says the pipe leaks");
+        index.put(2, 7, TaskStatus.TODO, Priority.HIGH, "Quarterly report", "Numbers for finance");
+        index.put(3, 7, TaskStatus.DONE, Priority.HIGH, "Annual report", null);
+        index.put(4, 8, TaskStatus.TODO, Priority.HIGH, "Report of another user", null);
+
+        assertThat(ids(index.search(7, "report", null, null, 10))).containsExactly(3L, 2L, 1L);
+        assertThat(ids(index.search(7, "REPORT", TaskStatus.TODO, null, 10))).containsExactly(2L, 1L);
+        assertThat(ids(index.search(7, "report", TaskStatus.TODO, Priority.HIGH, 10))).containsExactly(2L);
+        assertThat(ids(index.search(7, "report", null, null, 1))).containsExactly(3L);
+        assertThat(index.search(9, "report", null, null, 10)).isEmpty();
+    }
+
+    @Test
+    void matchesPrefixesOfTheLastWordAndTyposButRequiresEveryWord() {
+        TaskSearchIndex index = new TaskSearchIndex(16);
+        index.put(1, 7, TaskStatus.TODO, Priority.MEDIUM, "Prepare quarterly report", null);
+        index.put(2, 7, TaskStatus.TODO, Priority.MEDIUM, "Call the plumber", "Ёлка у подъезда");
+
+        assertThat(ids(index.search(7, "quart", null, null, 10))).containsExactly(1L);
+        assertThat(ids(index.search(7, "reprot", null, null, 10))).containsExactly(1L);
+        assertThat(ids(index.search(7, "plumbr", null, null, 10))).containsExactly(2L);
+        assertThat(ids(index.search(7, "елка", null, null, 10))).containsExactly(2L);
+        assertThat(ids(index.search(7, "prepare rep", null, null, 10))).containsExactly(1L);
+        assertThat(index.search(7, "report plumber", null, null, 10)).isEmpty();
+        // Префикс берётся только у последнего слова запроса
+        assertThat(index.search(7, "quart report", null, null, 10)).isEmpty();
+        // Точное совпадение выше совпадения с опечаткой
+        index.put(3, 7, TaskStatus.TODO, Priority.MEDIUM, "Prepare quarterly repost", null);
+        assertThat(ids(index.search(7, "report", null, null, 10))).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void replacesTextAndRemovesDeletedTasks() {
+        TaskSearchIndex index = new TaskSearchIndex(16);
+        index.put(1, 7, TaskStatus.TODO, Priority.MEDIUM, "Buy milk", null);
+        index.put(2, 7, TaskStatus.TODO, Priority.MEDIUM, "Buy bread", null);
+
+        index.put(1, 7, TaskStatus.TODO, Priority.MEDIUM, "Buy coffee", null);
+        index.put(2, 7, TaskStatus.IN_PROGRESS, Priority.HIGH, "Buy bread", null);
+        assertThat(index.updateStatus(2, TaskStatus.DONE)).isTrue();
+
+        assertThat(index.search(7, "milk", null, null, 10)).isEmpty();
+        assertThat(ids(index.search(7, "coffee", null, null, 10))).containsExactly(1L);
+        assertThat(ids(index.search(7, "bread", TaskStatus.DONE, Priority.HIGH, 10))).containsExactly(2L);
+
+        assertThat(index.remove(2)).isTrue();
+        assertThat(index.remove(2)).isFalse();
+        assertThat(index.updateStatus(2, TaskStatus.TODO)).isFalse();
+        assertThat(ids(index.search(7, "buy", null, null, 10))).containsExactly(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void compactsAndRestoresFromSnapshot() throws IOException {
+        TaskSearchIndex index = new TaskSearchIndex(16);
+        for (long task = 1; task <= 30_000; task++) {
+            index.put(task, task % 100, TaskStatus.TODO, Priority.MEDIUM, "Task number " + task, "alpha beta");
+        }
+        // Новый текст оставляет прежние версии мёртвыми
+        for (long task = 1; task <= 20_000; task++) {
+            index.put(task, task % 100, TaskStatus.TODO, Priority.MEDIUM, "Renamed task " + task, "gamma");
+        }
+        for (long task = 29_001; task <= 30_000; task++) {
+            index.remove(task);
+        }
+        assertThat(index.needsCompaction()).isTrue();
+        List<TaskSearchIndex.Hit> expected = index.search(42, "task gamma", null, null, 100);
+        assertThat(expected).hasSize(100);
+
+        TaskSearchIndex compacted = index.compact();
+        assertThat(compacted.needsCompaction()).isFalse();
+        assertThat(compacted.size()).isEqualTo(29_000);
+        assertThat(compacted.search(42, "task gamma", null, null, 100)).isEqualTo(expected);
+
+        TaskSearchSnapshot snapshots = new TaskSearchSnapshot(directory);
+        LocalDateTime watermark = LocalDateTime.of(2026, 10, 1, 12, 30, 15, 123_456_000);
+        snapshots.write(index, 12_345, watermark);
+        TaskSearchSnapshot.Loaded loaded = snapshots.read();
+        assertThat(loaded.offset()).isEqualTo(12_345);
+        assertThat(loaded.watermark()).isEqualTo(watermark);
+        assertThat(loaded.index().size()).isEqualTo(29_000);
+        assertThat(loaded.index().search(42, "task gamma", null, null, 100)).isEqualTo(expected);
+        assertThat(loaded.index().search(42, "alpha", null, null, 100)).hasSize(90);
+        assertThat(loaded.index().contains(29_042)).isFalse();
+        assertThat(loaded.index().contains(20_042)).isTrue();
+
+        try (FileChannel channel = FileChannel.open(directory.resolve("tasks.index"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x55}), channel.size() / 2);
+        }
+        assertThat(snapshots.read()).isNull();
+    }
+
+    private static List<Long> ids(List<TaskSearchIndex.Hit> hits) {
+        return hits.stream().map(TaskSearchIndex.Hit::taskId).toList();
+    }
+}
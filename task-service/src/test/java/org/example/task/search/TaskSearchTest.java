@@ -0,0 +1,158 @@
+package org.example.task.search;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.task.dto.TaskRequest;
+import org.example.task.dto.TaskResponse;
+import org.example.task.events.TaskEventRelay;
+import org.example.task.model.Priority;
+import org.example.task.model.TaskStatus;
+import org.example.task.repository.TaskRepository;
+import org.example.task.service.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "task.sync.commit-lag=0s")
+@AutoConfigureMockMvc
+class TaskSearchTest {
+
+    private static final AtomicLong USERS = new AtomicLong(4000);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private TaskEventRelay taskEventRelay;
+
+    @Autowired
+    private TaskSearchService taskSearchService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @TempDir
+    Path directory;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = USERS.incrementAndGet();
+    }
+
+    @Test
+    void findsTheUsersTasksAndFollowsTheirChanges() throws Exception {
+        Long renew = taskService.createTask(taskRequest("Renew passport", Priority.HIGH, userId)).getId();
+        Long photos = taskService.createTask(taskRequest("Take photos", Priority.LOW, userId)).getId();
+        taskService.createTask(taskRequest("Renew passport", Priority.HIGH, userId + 10_000));
+        TaskRequest described = taskRequest("Take photos", Priority.LOW, userId);
+        described.setDescription("For the passport office");
+        taskService.updateTask(photos, described);
+        publish();
+
+        mockMvc.perform(get("/api/tasks/search").param("userId", userId.toString()).param("q", "passport"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(2)))
+                .andExpect(jsonPath("$.data[0].id").value(renew))
+                .andExpect(jsonPath("$.data[1].id").value(photos));
+        mockMvc.perform(get("/api/tasks/search").param("userId", userId.toString()).param("q", "pasport ren")
+                        .param("priority", "HIGH"))
+                .andExpect(jsonPath("$.data", hasSize(1)))
+                .andExpect(jsonPath("$.data[0].title").value("Renew passport"));
+
+        taskService.updateTask(renew, taskRequest("Renew visa", Priority.HIGH, userId));
+        taskService.updateTaskStatuses(userId, List.of(photos), TaskStatus.DONE);
+        publish();
+        assertThat(ids(taskSearchService.search(userId, "visa", null, null, 10))).containsExactly(renew);
+        assertThat(ids(taskSearchService.search(userId, "passport", TaskStatus.DONE, null, 10)))
+                .containsExactly(photos);
+
+        taskService.deleteTasks(userId, List.of(photos));
+        publish();
+        assertThat(taskSearchService.search(userId, "passport", null, null, 10)).isEmpty();
+    }
+
+    @Test
+    void restartsFromSnapshotAndClosesAPurgedOutboxGapFromTheTables() {
+        Long kept = taskService.createTask(taskRequest("Water the plants", Priority.MEDIUM, userId)).getId();
+        Long removed = taskService.createTask(taskRequest("Water the lawn", Priority.MEDIUM, userId)).getId();
+        taskEventRelay.relayOnce();
+        TaskSearchService first = newService();
+        first.poll();
+        first.snapshot();
+
+        // Изменения после снимка, а outbox вычищен до перезапуска
+        taskService.updateTask(kept, taskRequest("Water the orchids", Priority.MEDIUM, userId));
+        taskService.deleteTask(removed, userId);
+        taskEventRelay.relayOnce();
+        jdbcTemplate.update("DELETE FROM task_events WHERE relay_offset <= ?", stampedOffset());
+
+        TaskSearchService restarted = newService();
+        assertThat(restarted.search(userId, "water", null, null, 10)).isNull();
+        restarted.poll();
+        assertThat(ids(restarted.search(userId, "water", null, null, 10))).containsExactly(kept);
+        assertThat(ids(restarted.search(userId, "orchids", null, null, 10))).containsExactly(kept);
+        assertThat(restarted.search(userId, "plants", null, null, 10)).isEmpty();
+        assertThat(restarted.search(userId, "lawn", null, null, 10)).isEmpty();
+    }
+
+    // Тест сам проставляет смещения и читает outbox вместо планировщика
+    private void publish() {
+        taskEventRelay.relayOnce();
+        while (taskSearchService.poll() > 0) {
+            // до конца outbox
+        }
+    }
+
+    private long stampedOffset() {
+        return jdbcTemplate.queryForObject("SELECT last_offset FROM task_event_relay WHERE id = 1", Long.class);
+    }
+
+    // Экземпляр со своим каталогом снимков — как сервис после перезапуска
+    private TaskSearchService newService() {
+        return new TaskSearchService(jdbcTemplate, transactionManager, taskRepository, objectMapper,
+                new TaskSearchSnapshot(directory), new SimpleMeterRegistry(), true, Duration.ZERO, Duration.ofDays(30));
+    }
+
+    private static List<Long> ids(List<TaskResponse> tasks) {
+        return tasks.stream().map(TaskResponse::getId).toList();
+    }
+
+    private static TaskRequest taskRequest(String title, Priority priority, Long userId) {
+        TaskRequest request = new TaskRequest();
+        request.setTitle(title);
+        request.setPriority(priority);
+        request.setUserId(userId);
+        return request;
+    }
+}
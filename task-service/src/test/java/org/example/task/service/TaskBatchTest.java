@@ -0,0 +1,159 @@
+package org.example.task.service;
+
+import org.example.task.dto.BatchItemResult;
+import org.example.task.dto.TaskRequest;
+import org.example.task.model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "task.sync.commit-lag=0s")
+class TaskBatchTest {
+
+    private static final AtomicLong USERS = new AtomicLong(7000);
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = USERS.incrementAndGet();
+    }
+
+    @Test
+    void createReportsEachInvalidItemByIndexAndStoresTheRest() {
+        TaskRequest noTitle = request(null);
+        TaskRequest noUser = request("No user");
+        noUser.setUserId(null);
+
+        List<BatchItemResult> results = taskService.createTasks(List.of(request("First"), noTitle, noUser,
+                request("Last")));
+
+        assertThat(results).extracting(BatchItemResult::getIndex).containsExactly(0, 1, 2, 3);
+        assertThat(results).extracting(BatchItemResult::isSuccess).containsExactly(true, false, false, true);
+        assertThat(results.get(1).getError()).isEqualTo("Title is required");
+        assertThat(results.get(2).getError()).isEqualTo("User ID is required");
+        assertThat(results.get(1).getId()).isNull();
+        assertThat(ownIds()).containsExactlyInAnyOrder(results.get(0).getId(), results.get(3).getId());
+    }
+
+    @Test
+    void updatesAndDeletesOnlyOwnedTasksAndReportsTheRestAsNotFound() {
+        List<Long> own = created(3);
+        Long foreign = taskService.createTask(request("Foreign", USERS.incrementAndGet())).getId();
+        List<Long> ids = List.of(own.get(0), foreign, own.get(1), -1L, own.get(0));
+
+        List<BatchItemResult> updated = taskService.updateTaskStatuses(userId, ids, TaskStatus.DONE);
+        assertThat(updated).extracting(BatchItemResult::getId).containsExactlyElementsOf(ids);
+        assertThat(updated).extracting(BatchItemResult::isSuccess).containsExactly(true, false, true, false, true);
+        assertThat(updated.get(1).getError()).isEqualTo("Task not found");
+        assertThat(status(foreign)).isEqualTo("TODO");
+        assertThat(status(own.get(2))).isEqualTo("TODO");
+        assertThat(status(own.get(0))).isEqualTo("DONE");
+
+        List<BatchItemResult> deleted = taskService.deleteTasks(userId, ids);
+        assertThat(deleted).extracting(BatchItemResult::isSuccess).containsExactly(true, false, true, false, true);
+        assertThat(ownIds()).containsExactly(own.get(2));
+        assertThat(status(foreign)).isEqualTo("TODO");
+        assertThat(jdbcTemplate.queryForList("SELECT task_id FROM task_tombstones WHERE user_id = ?",
+                Long.class, userId)).containsExactlyInAnyOrder(own.get(0), own.get(1));
+    }
+
+    // Больше ID_CHUNK_SIZE идентификаторов: IN-списки режутся на части, результат — по всем
+    @Test
+    void processesIdListsLongerThanOneChunk() {
+        List<Long> own = created(1500);
+        List<Long> ids = new ArrayList<>(own);
+        for (long missing = 1; missing <= 600; missing++) {
+            ids.add(-missing);
+        }
+        Collections.shuffle(ids);
+
+        List<BatchItemResult> updated = taskService.updateTaskStatuses(userId, ids, TaskStatus.IN_PROGRESS);
+        assertThat(updated).hasSize(2100);
+        assertThat(updated).filteredOn(BatchItemResult::isSuccess).extracting(BatchItemResult::getId)
+                .containsExactlyInAnyOrderElementsOf(own);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tasks WHERE user_id = ? AND status = 'IN_PROGRESS'",
+                Long.class, userId)).isEqualTo(1500);
+
+        List<BatchItemResult> deleted = taskService.deleteTasks(userId, ids);
+        assertThat(deleted).filteredOn(BatchItemResult::isSuccess).hasSize(1500);
+        assertThat(ownIds()).isEmpty();
+
+        assertThatThrownBy(() -> taskService.deleteTasks(userId, Collections.nCopies(TaskService.MAX_BATCH_SIZE + 1, 1L)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // Миграция V4 ставит последовательность за MAX(id) (setval в PostgreSQL, здесь — RESTART WITH):
+    // пул из 50 id, выданный Hibernate, не пересекается с уже существующими строками
+    @Test
+    void allocatesIdsFromSequencePoolsAfterExistingRows() {
+        long sequence = nextSequenceValue();
+        long legacyMax = sequence + 10_000;
+        for (long id = legacyMax - 2; id <= legacyMax; id++) {
+            jdbcTemplate.update("INSERT INTO tasks (id, title, status, priority, user_id, created_at, updated_at) " +
+                    "VALUES (?, 'Legacy', 'TODO', 'MEDIUM', ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)", id, userId);
+        }
+        jdbcTemplate.execute("ALTER SEQUENCE tasks_seq RESTART WITH " + (legacyMax + 50));
+
+        List<Long> ids = created(120);
+        assertThat(ids).doesNotHaveDuplicates().allMatch(id -> id < sequence || id > legacyMax);
+        // Новые пулы идут подряд сразу за существующими строками
+        List<Long> pooled = ids.stream().filter(id -> id > legacyMax).sorted().toList();
+        assertThat(pooled).isNotEmpty();
+        assertThat(pooled.get(0)).isEqualTo(legacyMax + 1);
+        assertThat(pooled.get(pooled.size() - 1) - pooled.get(0)).isEqualTo(pooled.size() - 1);
+        // Одно обращение к последовательности на 50 задач
+        assertThat(nextSequenceValue() - (legacyMax + 50)).isLessThanOrEqualTo(3 * 50);
+    }
+
+    private List<Long> created(int count) {
+        List<TaskRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            requests.add(request("Task " + i));
+        }
+        List<BatchItemResult> results = taskService.createTasks(requests);
+        assertThat(results).allMatch(BatchItemResult::isSuccess);
+        return results.stream().map(BatchItemResult::getId).toList();
+    }
+
+    private List<Long> ownIds() {
+        return jdbcTemplate.queryForList("SELECT id FROM tasks WHERE user_id = ?", Long.class, userId);
+    }
+
+    private String status(Long id) {
+        return jdbcTemplate.queryForObject("SELECT status FROM tasks WHERE id = ?", String.class, id);
+    }
+
+    // Значение, которое последовательность выдаст следующим
+    private long nextSequenceValue() {
+        return jdbcTemplate.queryForObject("SELECT base_value FROM information_schema.sequences " +
+                "WHERE sequence_name = 'tasks_seq'", Long.class);
+    }
+
+    private TaskRequest request(String title) {
+        return request(title, userId);
+    }
+
+    private static TaskRequest request(String title, Long userId) {
+        TaskRequest request = new TaskRequest();
+        request.setTitle(title);
+        request.setUserId(userId);
+        return request;
+    }
+}
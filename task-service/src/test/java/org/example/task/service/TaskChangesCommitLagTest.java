@@ -0,0 +1,92 @@
+package org.example.task.service;
+
+import org.example.task.dto.TaskChanges;
+import org.example.task.dto.TaskRequest;
+import org.example.task.dto.TaskResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "task.sync.commit-lag=1s")
+class TaskChangesCommitLagTest {
+
+    private static final Duration COMMIT_LAG = Duration.ofSeconds(1);
+    private static final AtomicLong USERS = new AtomicLong(3500);
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = USERS.incrementAndGet();
+    }
+
+    @Test
+    void pagesNeverPassChangesThatMayStillBeFollowedByEarlierCommits() throws InterruptedException {
+        List<Long> settled = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            settled.add(taskService.createTask(request("Settled " + i)).getId());
+        }
+        jdbcTemplate.update("UPDATE tasks SET updated_at = ? WHERE user_id = ?",
+                LocalDateTime.now().minusHours(1), userId);
+        Long recent = taskService.createTask(request("Recent")).getId();
+        Long deleted = settled.get(0);
+
+        // Изменение внутри окна задержки коммита в страницы не попадает
+        Sync first = sync(null);
+        assertThat(first.items()).containsExactlyElementsOf(settled);
+        assertThat(first.pages()).isEqualTo(2);
+
+        // Транзакция, получившая отметку раньше recent, коммитится уже после чтения
+        Long late = taskService.createTask(request("Late")).getId();
+        LocalDateTime recentAt = jdbcTemplate.queryForObject("SELECT updated_at FROM tasks WHERE id = ?",
+                LocalDateTime.class, recent);
+        jdbcTemplate.update("UPDATE tasks SET updated_at = ? WHERE id = ?", recentAt.minusNanos(1000), late);
+        taskService.deleteTask(deleted, userId);
+
+        Thread.sleep(COMMIT_LAG.plusMillis(200).toMillis());
+        Sync next = sync(first.token());
+        assertThat(next.items()).containsExactly(late, recent);
+        assertThat(next.deleted()).containsExactly(deleted);
+        assertThat(next.pages()).isEqualTo(2);
+    }
+
+    private Sync sync(String token) {
+        List<Long> items = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        int pages = 0;
+        TaskChanges page;
+        do {
+            page = taskService.getChanges(userId, token, 2);
+            items.addAll(page.getItems().stream().map(TaskResponse::getId).toList());
+            deleted.addAll(page.getDeleted());
+            token = page.getNextToken();
+            pages++;
+        } while (page.isHasMore());
+        return new Sync(items, deleted, token, pages);
+    }
+
+    private TaskRequest request(String title) {
+        TaskRequest request = new TaskRequest();
+        request.setTitle(title);
+        request.setUserId(userId);
+        return request;
+    }
+
+    private record Sync(List<Long> items, List<Long> deleted, String token, int pages) {}
+}
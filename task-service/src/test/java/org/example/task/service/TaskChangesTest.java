@@ -0,0 +1,139 @@
+package org.example.task.service;
+
+import org.example.task.dto.TaskChanges;
+import org.example.task.dto.TaskRequest;
+import org.example.task.dto.TaskResponse;
+import org.example.task.model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "task.sync.commit-lag=0s")
+class TaskChangesTest {
+
+    private static final AtomicLong USERS = new AtomicLong(3000);
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = USERS.incrementAndGet();
+    }
+
+    @Test
+    void returnsOnlyChangesAndDeletionsAfterToken() {
+        Long kept = taskService.createTask(request("Kept")).getId();
+        Long updated = taskService.createTask(request("Updated")).getId();
+        Long deleted = taskService.createTask(request("Deleted")).getId();
+        Long bulkDeleted = taskService.createTask(request("Bulk deleted")).getId();
+
+        TaskChanges initial = taskService.getChanges(userId, null, 100);
+        assertThat(initial.getItems()).extracting(TaskResponse::getId)
+                .containsExactly(kept, updated, deleted, bulkDeleted);
+        assertThat(initial.isHasMore()).isFalse();
+
+        taskService.updateTaskStatus(updated, userId, TaskStatus.DONE);
+        taskService.deleteTask(deleted, userId);
+        taskService.deleteTasks(userId, List.of(bulkDeleted));
+        Long created = taskService.createTask(request("Created")).getId();
+
+        TaskChanges delta = taskService.getChanges(userId, initial.getNextToken(), 100);
+        assertThat(delta.getItems()).extracting(TaskResponse::getId).containsExactly(updated, created);
+        assertThat(delta.getItems().get(0).getStatus()).isEqualTo(TaskStatus.DONE);
+        assertThat(delta.getDeleted()).containsExactly(deleted, bulkDeleted);
+
+        TaskChanges nothing = taskService.getChanges(userId, delta.getNextToken(), 100);
+        assertThat(nothing.getItems()).isEmpty();
+        assertThat(nothing.getDeleted()).isEmpty();
+    }
+
+    @Test
+    void pagesThroughChangesInOrder() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(taskService.createTask(request("Task " + i)).getId());
+        }
+        TaskChanges first = taskService.getChanges(userId, null, 100);
+        taskService.deleteTask(ids.get(0), userId);
+        taskService.updateTaskStatus(ids.get(1), userId, TaskStatus.IN_PROGRESS);
+        taskService.deleteTask(ids.get(2), userId);
+
+        List<String> seen = new ArrayList<>();
+        String token = first.getNextToken();
+        TaskChanges page;
+        do {
+            page = taskService.getChanges(userId, token, 2);
+            assertThat(page.getItems().size() + page.getDeleted().size()).isLessThanOrEqualTo(2);
+            page.getItems().forEach(task -> seen.add("updated:" + task.getId()));
+            page.getDeleted().forEach(id -> seen.add("deleted:" + id));
+            token = page.getNextToken();
+        } while (page.isHasMore());
+
+        // Внутри страницы изменения и удаления — разные списки, важен только состав
+        assertThat(seen).containsExactlyInAnyOrder(
+                "deleted:" + ids.get(0), "updated:" + ids.get(1), "deleted:" + ids.get(2));
+    }
+
+    @Test
+    void finishesFullSyncOverTasksUntouchedForLongerThanTombstonesAreKept() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(taskService.createTask(request("Old task " + i)).getId());
+        }
+        jdbcTemplate.update("UPDATE tasks SET updated_at = ? WHERE user_id = ?",
+                LocalDateTime.now().minusDays(40), userId);
+
+        List<Long> items = new ArrayList<>();
+        List<Long> deleted = new ArrayList<>();
+        String token = null;
+        TaskChanges page;
+        do {
+            page = taskService.getChanges(userId, token, 2);
+            assertThat(page.isResyncRequired()).isFalse();
+            items.addAll(page.getItems().stream().map(TaskResponse::getId).toList());
+            deleted.addAll(page.getDeleted());
+            if (token == null) {
+                // Удаление посреди синхронизации доходит до клиента, хотя позиция токена старше надгробий
+                taskService.deleteTask(ids.get(4), userId);
+            }
+            token = page.getNextToken();
+        } while (page.isHasMore());
+
+        assertThat(items).containsExactlyElementsOf(ids.subList(0, 4));
+        assertThat(deleted).containsExactly(ids.get(4));
+        assertThat(taskService.getChanges(userId, token, 2).getItems()).isEmpty();
+    }
+
+    @Test
+    void asksForResyncWhenTokenIsOlderThanTombstones() {
+        LocalDateTime old = LocalDateTime.now().minusDays(31);
+        String stale = new TaskSyncToken(old, 0, old).encode();
+
+        assertThat(taskService.getChanges(userId, stale, 100).isResyncRequired()).isTrue();
+        assertThatThrownBy(() -> taskService.getChanges(userId, "not-a-token", 100))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private TaskRequest request(String title) {
+        TaskRequest request = new TaskRequest();
+        request.setTitle(title);
+        request.setUserId(userId);
+        return request;
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.task.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+class TaskCursorTest {
+
+    @Test
+    void roundTripsCreatedAtAndId() {
+        LocalDateTime createdAt = LocalDateTime.of(2030, 1, 2, 3, 4, 5, 123_456_000);
+        String cursor = TaskCursor.encode(createdAt, 42L);
+
+        // Курсор передаётся в query-параметре: только URL-безопасные символы
+        assertThat(cursor).matches("[A-Za-z0-9_-]+");
+        KeysetScrollPosition position = TaskCursor.decode(cursor);
+        assertThat(position.getKeys()).containsExactly(entry("createdAt", createdAt), entry("id", 42L));
+        assertThat(position.scrollsForward()).isTrue();
+
+        // Полночь без секунд LocalDateTime печатает короче — разбор всё равно точный
+        LocalDateTime midnight = LocalDateTime.of(2030, 1, 1, 0, 0);
+        assertThat(TaskCursor.decode(TaskCursor.encode(midnight, 1L)).getKeys()).containsEntry("createdAt", midnight);
+    }
+
+    @Test
+    void missingCursorStartsFromTheFirstPage() {
+        assertThat(TaskCursor.decode(null).isInitial()).isTrue();
+        assertThat(TaskCursor.decode(" ").isInitial()).isTrue();
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        for (String cursor : new String[]{"not base64!", encoded("no separator"), encoded("yesterday|1"),
+                encoded("2030-01-01T00:00|x"), encoded("2030-01-01T00:00|")}) {
+            assertThatThrownBy(() -> TaskCursor.decode(cursor))
+                    .as(cursor)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("Invalid cursor: " + cursor);
+        }
+    }
+
+    private static String encoded(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.task.service;
+
+import org.example.task.dto.TaskPage;
+import org.example.task.dto.TaskRequest;
+import org.example.task.dto.TaskResponse;
+import org.example.task.model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "task.sync.commit-lag=0s")
+@AutoConfigureMockMvc
+class TaskPagingTest {
+
+    private static final AtomicLong USERS = new AtomicLong(8000);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = USERS.incrementAndGet();
+    }
+
+    @Test
+    void walksEveryTaskOnceAcrossPagesIncludingEqualCreationTimes() {
+        List<Long> ids = created(5);
+        // Пары задач с одинаковым временем создания попадают на границы страниц: порядок в паре задаёт id
+        createdAt(LocalDateTime.of(2030, 1, 1, 11, 0), ids.get(0));
+        createdAt(LocalDateTime.of(2030, 1, 1, 12, 0), ids.get(1), ids.get(2));
+        createdAt(LocalDateTime.of(2030, 1, 1, 13, 0), ids.get(3), ids.get(4));
+
+        List<List<Long>> pages = new ArrayList<>();
+        String cursor = null;
+        TaskPage page;
+        do {
+            page = taskService.getAllTasksByUser(userId, cursor, 2);
+            pages.add(page.getItems().stream().map(TaskResponse::getId).toList());
+            assertThat(page.getNextCursor() != null).isEqualTo(page.isHasNext());
+            cursor = page.getNextCursor();
+        } while (page.isHasNext());
+
+        assertThat(pages).containsExactly(ids.subList(0, 2), ids.subList(2, 4), ids.subList(4, 5));
+    }
+
+    @Test
+    void pageThatEndsExactlyAtTheLastTaskHasNoNextCursor() {
+        created(4);
+
+        TaskPage first = taskService.getAllTasksByUser(userId, null, 2);
+        assertThat(first.isHasNext()).isTrue();
+        TaskPage last = taskService.getAllTasksByUser(userId, first.getNextCursor(), 2);
+        assertThat(last.getItems()).hasSize(2);
+        assertThat(last.isHasNext()).isFalse();
+        assertThat(last.getNextCursor()).isNull();
+
+        assertThat(taskService.getAllTasksByUser(userId, null, 4).isHasNext()).isFalse();
+        assertThat(taskService.getTasksByStatus(userId, TaskStatus.DONE, null, 2).getItems()).isEmpty();
+        // Размер страницы приводится к [1, MAX_PAGE_SIZE]
+        assertThat(taskService.getAllTasksByUser(userId, null, 0).getItems()).hasSize(1);
+    }
+
+    @Test
+    void servesCursorPagesOverHttpAndRejectsInvalidCursorsWith400() throws Exception {
+        List<Long> ids = created(3);
+        String cursor = taskService.getAllTasksByUser(userId, null, 2).getNextCursor();
+
+        mockMvc.perform(get("/api/tasks").param("userId", userId.toString()).param("cursor", cursor)
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.items", hasSize(1)))
+                .andExpect(jsonPath("$.data.items[0].id").value(ids.get(2)))
+                .andExpect(jsonPath("$.data.hasNext").value(false))
+                .andExpect(jsonPath("$.data.nextCursor").doesNotExist());
+
+        for (String path : new String[]{"/api/tasks", "/api/tasks/filter/status", "/api/tasks/overdue"}) {
+            mockMvc.perform(get(path).param("userId", userId.toString()).param("status", "TODO")
+                            .param("cursor", "garbage"))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.success").value(false))
+                    .andExpect(jsonPath("$.error").value("Invalid cursor: garbage"));
+        }
+    }
+
+    private void createdAt(LocalDateTime createdAt, Long... ids) {
+        for (Long id : ids) {
+            jdbcTemplate.update("UPDATE tasks SET created_at = ? WHERE id = ?", createdAt, id);
+        }
+    }
+
+    // Задачи создаются по одной: время создания растёт вместе с id
+    private List<Long> created(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            TaskRequest request = new TaskRequest();
+            request.setTitle("Task " + i);
+            request.setUserId(userId);
+            ids.add(taskService.createTask(request).getId());
+        }
+        return ids;
+    }
+}
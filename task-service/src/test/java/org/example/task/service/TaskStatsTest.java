@@ -0,0 +1,123 @@
+package org.example.task.service;
+
+import org.example.task.dto.TaskStats;
+import org.example.task.model.Priority;
+import org.example.task.model.TaskStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "task.sync.commit-lag=0s")
+@AutoConfigureMockMvc
+class TaskStatsTest {
+
+    private static final AtomicLong USERS = new AtomicLong(9000);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+    private Long idleUserId;
+    private LocalDateTime weekStart;
+
+    @BeforeEach
+    void setUp() {
+        userId = USERS.incrementAndGet();
+        idleUserId = USERS.incrementAndGet();
+        weekStart = LocalDate.now().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay();
+    }
+
+    @Test
+    void aggregatesCountsByStatusAndPriorityWithWeekBoundaries() {
+        insert(TaskStatus.TODO, Priority.HIGH, weekStart.plusDays(2));
+        insert(TaskStatus.TODO, Priority.LOW, null);
+        // Закрытая задача в срок недели не входит
+        insert(TaskStatus.DONE, Priority.HIGH, weekStart.plusDays(2));
+        // Начало недели включается, конец — нет
+        insert(TaskStatus.OVERDUE, Priority.LOW, weekStart);
+        insert(TaskStatus.IN_PROGRESS, Priority.MEDIUM, weekStart.plusWeeks(1));
+        insert(TaskStatus.IN_PROGRESS, Priority.MEDIUM, weekStart.minusNanos(1000));
+
+        List<TaskStats> stats = taskService.getTaskStats(List.of(userId, idleUserId, userId));
+
+        // Повторы схлопываются, порядок запроса сохраняется, пользователь без задач получает нули
+        assertThat(stats).extracting(TaskStats::getUserId).containsExactly(userId, idleUserId);
+        TaskStats busy = stats.get(0);
+        assertThat(busy.getTotal()).isEqualTo(6);
+        assertThat(busy.getOverdue()).isEqualTo(1);
+        assertThat(busy.getDueThisWeek()).isEqualTo(2);
+        assertThat(busy.getCounts().get(TaskStatus.TODO)).containsEntry(Priority.HIGH, 1L).containsEntry(Priority.LOW, 1L)
+                .containsEntry(Priority.MEDIUM, 0L);
+        assertThat(busy.getCounts().get(TaskStatus.IN_PROGRESS)).containsEntry(Priority.MEDIUM, 2L);
+        assertThat(busy.getCounts().get(TaskStatus.DONE)).containsEntry(Priority.HIGH, 1L);
+        assertThat(busy.getCounts().get(TaskStatus.OVERDUE)).containsEntry(Priority.LOW, 1L);
+
+        TaskStats idle = stats.get(1);
+        assertThat(idle.getTotal()).isZero();
+        assertThat(idle.getCounts()).hasSize(TaskStatus.values().length)
+                .allSatisfy((status, byPriority) -> assertThat(byPriority.values()).containsOnly(0L));
+        assertThat(taskService.getTaskStats(List.of())).isEmpty();
+    }
+
+    @Test
+    void limitsTheNumberOfUsersPerRequest() throws Exception {
+        insert(TaskStatus.TODO, Priority.HIGH, weekStart.plusDays(1));
+        List<Long> allowed = LongStream.rangeClosed(1, TaskService.MAX_STATS_USERS - 1)
+                .map(i -> userId + 100_000 + i)
+                .boxed()
+                .collect(Collectors.toList());
+        allowed.add(0, userId);
+
+        assertThat(taskService.getTaskStats(allowed)).hasSize(TaskService.MAX_STATS_USERS);
+        mockMvc.perform(get("/api/tasks/stats").param("userIds", join(allowed)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data", hasSize(TaskService.MAX_STATS_USERS)))
+                .andExpect(jsonPath("$.data[0].userId").value(userId))
+                .andExpect(jsonPath("$.data[0].total").value(1))
+                .andExpect(jsonPath("$.data[0].counts.TODO.HIGH").value(1));
+
+        List<Long> tooMany = LongStream.rangeClosed(0, TaskService.MAX_STATS_USERS).boxed().toList();
+        assertThatThrownBy(() -> taskService.getTaskStats(tooMany)).isInstanceOf(IllegalArgumentException.class);
+        mockMvc.perform(get("/api/tasks/stats").param("userIds", join(tooMany)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.success").value(false))
+                .andExpect(jsonPath("$.error")
+                        .value("Stats cannot be requested for more than " + TaskService.MAX_STATS_USERS + " users"));
+    }
+
+    private void insert(TaskStatus status, Priority priority, LocalDateTime deadline) {
+        jdbcTemplate.update("INSERT INTO tasks (id, title, status, priority, deadline, user_id, created_at, updated_at) " +
+                        "VALUES (NEXT VALUE FOR tasks_seq, 'Task', ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP)",
+                status.name(), priority.name(), deadline, userId);
+    }
+
+    private static String join(List<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+}